@@ -0,0 +1,29 @@
+package com.ecommerce.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.ecommerce.security.JpaUserDetailsService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+@Configuration
+public class CacheConfig {
+
+    // los principals usan un TTL propio y corto: un cambio de roles se ve como mucho tras ese tiempo
+    @Bean
+    CacheManagerCustomizer<CaffeineCacheManager> principalsCacheCustomizer(
+            @Value("${security.principal-cache.ttl:60s}") Duration ttl,
+            @Value("${security.principal-cache.maximum-size:10000}") long maximumSize) {
+        return cacheManager -> cacheManager.registerCustomCache(JpaUserDetailsService.PRINCIPALS_CACHE,
+            Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build());
+    }
+}
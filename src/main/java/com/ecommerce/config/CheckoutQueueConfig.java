@@ -0,0 +1,25 @@
+package com.ecommerce.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class CheckoutQueueConfig {
+
+    // hilos que vacían la cola de checkouts; cada tarea es un worker que toma grupos hasta que no quedan,
+    // así que nunca hay más tareas que hilos y la cola del executor solo cubre el relevo entre workers
+    @Bean
+    ThreadPoolTaskExecutor checkoutWorkerExecutor(@Value("${orders.checkout-queue.workers:2}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(workers);
+        executor.setThreadNamePrefix("checkout-worker-");
+        // al apagar se termina el grupo en curso; lo que quede en cola se procesa al volver a arrancar
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
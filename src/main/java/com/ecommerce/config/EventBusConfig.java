@@ -0,0 +1,31 @@
+package com.ecommerce.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class EventBusConfig {
+
+    // un solo hilo reparte los eventos del bus: los suscriptores los reciben en el orden en que se publicaron
+    @Bean
+    ThreadPoolTaskExecutor eventDispatchExecutor() {
+        return singleThreadExecutor("event-dispatch-");
+    }
+
+    // un solo hilo lee 'outbox_events': dos relays a la vez entregarían las mismas filas dos veces
+    @Bean
+    ThreadPoolTaskExecutor outboxRelayExecutor() {
+        return singleThreadExecutor("outbox-relay-");
+    }
+
+    private static ThreadPoolTaskExecutor singleThreadExecutor(String threadNamePrefix) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        // las tareas se coalescen: como mucho una en curso y otra esperando
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        return executor;
+    }
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+@Configuration
+public class JacksonConfig {
+
+    // Spring Boot registra el módulo en el ObjectMapper de la aplicación: getters, setters y constructores
+    // se invocan con lambdas generadas por LambdaMetafactory en lugar de reflexión
+    @Bean
+    Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
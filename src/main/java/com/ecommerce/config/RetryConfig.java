@@ -0,0 +1,30 @@
+package com.ecommerce.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.retry.support.RetryTemplate;
+
+@Configuration
+public class RetryConfig {
+
+    // conflictos entre transacciones cortas (versión cambiada, clave única ya insertada, lock no obtenido):
+    // se repite la transacción completa con espera exponencial y aleatoria para que los intentos no choquen otra vez
+    @Bean
+    RetryTemplate concurrencyRetryTemplate(
+            @Value("${concurrency.retry.max-attempts:5}") int maxAttempts,
+            @Value("${concurrency.retry.initial-backoff:5ms}") Duration initialBackoff,
+            @Value("${concurrency.retry.max-backoff:100ms}") Duration maxBackoff) {
+        return RetryTemplate.builder()
+            .maxAttempts(maxAttempts)
+            .exponentialBackoff(initialBackoff, 2, maxBackoff, true)
+            .retryOn(List.of(ConcurrencyFailureException.class, DuplicateKeyException.class))
+            .traversingCauses()
+            .build();
+    }
+}
@@ -1,5 +1,8 @@
 package com.ecommerce.config;
 
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -10,7 +13,9 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
@@ -19,6 +24,7 @@ import com.ecommerce.security.handler.CustomAccessDeniedHandler;
 import com.ecommerce.security.handler.CustomAuthenticationEntryPoint;
 import com.ecommerce.security.jwt.JwtAuthenticationFilter;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 
 @Configuration
@@ -38,19 +44,29 @@ public class SecurityConfig {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(
                 authorize -> authorize
+                    // el request ya se autorizó al entrar; el despacho que entrega una respuesta asíncrona
+                    // (long polling) no vuelve a pasar por el filtro JWT y no trae el usuario
+                    .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                     // endpoints de admin
                     .requestMatchers("/api/products/admin/**").hasRole("ADMIN")
+                    .requestMatchers("/api/orders/admin/**").hasRole("ADMIN")
                     .requestMatchers("/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs/**").hasRole("ADMIN")
+                    .requestMatchers("/actuator/metrics/**").hasRole("ADMIN")
                     // endpoints públicos (no requieren autenticación)
                     .requestMatchers(HttpMethod.POST, "/api/users/register").permitAll()
                     .requestMatchers("/api/auth/**").permitAll()
                     .requestMatchers("/h2-console/**").permitAll() // solo para desarrollo
+                    .requestMatchers("/actuator/health").permitAll()
                     // endpoints de usuario (requieren autenticación)
                     .requestMatchers(HttpMethod.GET, "/api/products").authenticated()
+                    .requestMatchers(HttpMethod.GET, "/api/products/search/**").authenticated()
                     .requestMatchers(HttpMethod.GET, "/api/carts").authenticated()
                     .requestMatchers(HttpMethod.POST, "/api/carts/add-product").authenticated()
+                    .requestMatchers(HttpMethod.PATCH, "/api/carts/items").authenticated()
                     .requestMatchers(HttpMethod.GET, "/api/orders").authenticated()
                     .requestMatchers(HttpMethod.POST, "/api/orders/checkout").authenticated()
+                    .requestMatchers(HttpMethod.POST, "/api/orders/checkout/async").authenticated()
+                    .requestMatchers(HttpMethod.GET, "/api/orders/checkout/*").authenticated()
                     // cualquier otra solicitud requiere autenticación
                     .anyRequest().authenticated()
             )
@@ -62,15 +78,25 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // los hashes nuevos llevan prefijo {id}; los anteriores (bcrypt sin prefijo) se siguen validando
+    // y se re-codifican en el siguiente login si cambia el algoritmo o el costo
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    PasswordEncoder passwordEncoder(
+            @Value("${security.password.encoder:bcrypt}") String encoderId,
+            @Value("${security.password.bcrypt-strength:10}") int bcryptStrength) {
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(encoderId, Map.of(
+            "bcrypt", new BCryptPasswordEncoder(bcryptStrength),
+            "pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8()
+        ));
+        passwordEncoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return passwordEncoder;
     }
 
     @Bean
-    DaoAuthenticationProvider authenticationProvider() {
+    DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider(jpaUserDetailsService);
-        authenticationProvider.setPasswordEncoder(passwordEncoder());
+        authenticationProvider.setPasswordEncoder(passwordEncoder);
+        authenticationProvider.setUserDetailsPasswordService(jpaUserDetailsService);
         return authenticationProvider;
     }
 
@@ -0,0 +1,79 @@
+package com.ecommerce.config;
+
+import java.lang.reflect.Field;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.metamodel.EntityType;
+import lombok.extern.slf4j.Slf4j;
+
+// ddl-auto=update crea las secuencias empezando en 1 aunque la tabla ya tenga filas de cuando los ids eran IDENTITY.
+// antes de que arranquen los schedulers y el servidor web, cada secuencia que no supere max(id) se reinicia por encima;
+// el optimizador pooled reparte el bloque (valor - allocationSize, valor], por eso se deja un bloque entero de margen
+@Slf4j
+@Component
+public class SequenceAlignment implements SmartInitializingSingleton {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    public SequenceAlignment(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        alignSequences();
+    }
+
+    public int alignSequences() {
+        Dialect dialect = this.entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        int restarted = 0;
+        for (EntityType<?> entity : this.entityManagerFactory.getMetamodel().getEntities()) {
+            Class<?> type = entity.getJavaType();
+            Table table = type.getAnnotation(Table.class);
+            Field id = findSequenceId(type);
+            if (table == null || id == null) {
+                continue;
+            }
+            SequenceGenerator generator = id.getAnnotation(SequenceGenerator.class);
+            Column column = id.getAnnotation(Column.class);
+            String idColumn = column != null && !column.name().isEmpty() ? column.name() : id.getName();
+
+            Long maxId = this.jdbcTemplate.queryForObject("select max(" + idColumn + ") from " + table.name(), Long.class);
+            if (maxId == null) {
+                continue;
+            }
+            // leer el siguiente valor consume uno, pero es la forma portable de conocer la posición de la secuencia
+            Long next = this.jdbcTemplate.queryForObject(
+                dialect.getSequenceSupport().getSequenceNextValString(generator.sequenceName()), Long.class);
+            if (next - generator.allocationSize() >= maxId) {
+                continue;
+            }
+            long restartWith = maxId + generator.allocationSize() + 1;
+            this.jdbcTemplate.execute("alter sequence " + generator.sequenceName() + " restart with " + restartWith);
+            log.info("Restarted sequence {} at {} (max id in {} is {})", generator.sequenceName(), restartWith, table.name(), maxId);
+            restarted++;
+        }
+        return restarted;
+    }
+
+    private static Field findSequenceId(Class<?> type) {
+        for (Field field : type.getDeclaredFields()) {
+            if (field.isAnnotationPresent(Id.class) && field.isAnnotationPresent(SequenceGenerator.class)) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
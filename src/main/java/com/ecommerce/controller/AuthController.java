@@ -1,5 +1,7 @@
 package com.ecommerce.controller;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -11,6 +13,7 @@ import com.ecommerce.dto.AuthRequestDTO;
 import com.ecommerce.dto.AuthResponseDTO;
 import com.ecommerce.dto.RegisterRequestDTO;
 import com.ecommerce.dto.UserDTO;
+import com.ecommerce.security.PasswordHashingExecutor;
 import com.ecommerce.service.AuthService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -25,6 +28,7 @@ import lombok.RequiredArgsConstructor;
 public class AuthController {
 
     private final AuthService authService;
+    private final PasswordHashingExecutor passwordHashingExecutor;
 
     @Operation(
         summary = "Autenticar un usuario",
@@ -33,11 +37,13 @@ public class AuthController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Autenticación exitosa, token JWT generado"),
         @ApiResponse(responseCode = "401", description = "Credenciales inválidas"),
+        @ApiResponse(responseCode = "429", description = "Demasiadas autenticaciones en curso, reintentar más tarde"),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @PostMapping("/login")
-    public ResponseEntity<AuthResponseDTO> login(@Valid @RequestBody AuthRequestDTO request) {
-        return ResponseEntity.ok(this.authService.login(request));
+    public CompletableFuture<ResponseEntity<AuthResponseDTO>> login(@Valid @RequestBody AuthRequestDTO request) {
+        return this.passwordHashingExecutor.submit("login", () -> this.authService.login(request))
+            .thenApply(ResponseEntity::ok);
     }
 
     @Operation(
@@ -46,10 +52,12 @@ public class AuthController {
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "201", description = "Usuario creado exitosamente"),
+        @ApiResponse(responseCode = "429", description = "Demasiadas autenticaciones en curso, reintentar más tarde"),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @PostMapping("/register")
-    public ResponseEntity<UserDTO> register(@Valid @RequestBody RegisterRequestDTO request) {
-        return new ResponseEntity<>(this.authService.register(request), HttpStatus.CREATED);
+    public CompletableFuture<ResponseEntity<UserDTO>> register(@Valid @RequestBody RegisterRequestDTO request) {
+        return this.passwordHashingExecutor.submit("register", () -> this.authService.register(request))
+            .thenApply(user -> new ResponseEntity<>(user, HttpStatus.CREATED));
     }
 }
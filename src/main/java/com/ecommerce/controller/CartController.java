@@ -1,20 +1,29 @@
 package com.ecommerce.controller;
 
-import java.security.Principal;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.ecommerce.dto.CartDTO;
 import com.ecommerce.dto.CartItemDTO;
+import com.ecommerce.dto.CartItemOperationDTO;
+import com.ecommerce.model.IdempotencyRecord;
+import com.ecommerce.security.AuthenticatedUser;
 import com.ecommerce.service.CartService;
-import com.ecommerce.service.UserService;
+import com.ecommerce.service.IdempotencyService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -29,48 +38,73 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 )
 public class CartController {
 
+    // el carrito es del usuario y cambia seguido: se guarda solo en el cliente y se revalida siempre
+    private static final CacheControl CART_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
     private final CartService cartService;
-    private final UserService userService;
+    private final IdempotencyService idempotencyService;
 
-    public CartController(CartService cartService, UserService userService) {
+    public CartController(CartService cartService, IdempotencyService idempotencyService) {
         this.cartService = cartService;
-        this.userService = userService;
+        this.idempotencyService = idempotencyService;
     }
 
     @Operation(
         summary = "Añadir un producto al carrito",
-        description = "Añade una cantidad específica de un producto al carrito del usuario autenticado"
+        description = "Añade una cantidad específica de un producto al carrito del usuario autenticado. Con la cabecera Idempotency-Key un reintento con la misma clave devuelve la respuesta original (con Idempotent-Replayed: true) sin sumar la cantidad otra vez."
     )
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Producto añadido al carrito exitosamente."),
-        @ApiResponse(responseCode = "400", description = "Fallo de lógica de negocio (ej. producto no existe, stock insuficiente)."),
+        @ApiResponse(responseCode = "200", description = "Producto añadido al carrito exitosamente, o respuesta original si la Idempotency-Key ya se usó."),
+        @ApiResponse(responseCode = "400", description = "Fallo de lógica de negocio (ej. producto no existe, stock insuficiente) o Idempotency-Key usada con otros parámetros."),
         @ApiResponse(responseCode = "401", description = "No autenticado. Faltan credenciales."),
+        @ApiResponse(responseCode = "409", description = "Una petición con la misma Idempotency-Key sigue en curso."),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor.")
     })
     @PostMapping("/add-product")
-    public ResponseEntity<CartItemDTO> addProductToCart(@RequestParam Long productId, @RequestParam(defaultValue = "1") int quantity, Principal principal) {
-        Long userId = this.userService.getUserByUsername(principal.getName()).orElseThrow(() -> new NoSuchElementException("User not found")).getId();
-        Optional<CartItemDTO> result = this.cartService.addProductToCart(userId, productId, quantity);
-        return result.map(ResponseEntity::ok).orElse(ResponseEntity.internalServerError().build());
+    public ResponseEntity<CartItemDTO> addProductToCart(@RequestParam Long productId, @RequestParam(defaultValue = "1") int quantity, @AuthenticationPrincipal AuthenticatedUser user,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return this.idempotencyService.execute(user.getId(), IdempotencyRecord.Operation.ADD_TO_CART, idempotencyKey, productId + ":" + quantity, CartItemDTO.class, () -> {
+            Optional<CartItemDTO> result = this.cartService.addProductToCart(user.getId(), productId, quantity);
+            return result.map(ResponseEntity::ok).orElse(ResponseEntity.internalServerError().build());
+        });
+    }
+
+    @Operation(
+        summary = "Modificar varios ítems del carrito en una sola petición",
+        description = "Aplica un lote de operaciones {productId, quantity, mode} en una sola transacción. Con mode ADD (por defecto) la cantidad se suma (negativa para restar) y con SET se reemplaza; las líneas que quedan en 0 o menos se quitan. Si alguna operación falla no se aplica ninguna. Máximo " + CartService.MAX_BATCH_OPERATIONS + " operaciones"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Operaciones aplicadas; devuelve el carrito actualizado."),
+        @ApiResponse(responseCode = "400", description = "Lote vacío o demasiado grande, operación incompleta o stock insuficiente."),
+        @ApiResponse(responseCode = "401", description = "No autenticado. Faltan credenciales."),
+        @ApiResponse(responseCode = "404", description = "Algún producto o el carrito no existen."),
+        @ApiResponse(responseCode = "409", description = "El carrito cambió concurrentemente y no se pudo aplicar el lote tras reintentar."),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor.")
+    })
+    @PatchMapping("/items")
+    public ResponseEntity<CartDTO> updateCartItems(@RequestBody List<CartItemOperationDTO> operations, @AuthenticationPrincipal AuthenticatedUser user) {
+        return ResponseEntity.ok(this.cartService.updateCartItems(user.getId(), operations));
     }
 
     @Operation(
         summary = "Obtener el carrito del usuario autenticado",
-        description = "Devuelve el contenido del carrito (incluyendo ítems y totales) del usuario actualmente autenticado"
+        description = "Devuelve el contenido del carrito (incluyendo ítems y totales) del usuario actualmente autenticado, con su ETag. Si 'If-None-Match' trae la vigente responde 304 sin cargar los ítems"
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Carrito obtenido exitosamente."),
+        @ApiResponse(responseCode = "304", description = "El carrito no cambió desde la ETag enviada en If-None-Match."),
         @ApiResponse(responseCode = "401", description = "No autenticado. Faltan credenciales."),
         @ApiResponse(responseCode = "404", description = "Carrito no encontrado para el usuario."),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor.")
     })
     @GetMapping
-    public ResponseEntity<CartDTO> getCartByUserId(Principal principal) {
-        Optional<Long> userIdOptional = this.userService.getUserByUsername(principal.getName()).map(user -> user.getId());
-        if(userIdOptional.isPresent()) {
-            Long userId = userIdOptional.get();
-            return this.cartService.getCartDTOByUserId(userId).map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    public ResponseEntity<CartDTO> getCartByUserId(@AuthenticationPrincipal AuthenticatedUser user,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Optional<String> version = this.cartService.getCartVersionByUserId(user.getId());
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.notFound().build();
+        return ConditionalResponses.ifNoneMatch(ifNoneMatch, "cart-" + version.get(), CART_CACHE_CONTROL,
+            () -> this.cartService.getCartDTOByUserId(user.getId()).orElseThrow(() -> new NoSuchElementException("Cart not found for user: " + user.getId())));
     }
 }
@@ -0,0 +1,45 @@
+package com.ecommerce.controller;
+
+import java.util.function.Supplier;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+// GET condicional resuelto con la versión antes de armar el cuerpo: si el cliente ya tiene
+// la representación se responde 304 sin consultar ni serializar
+final class ConditionalResponses {
+
+    private ConditionalResponses() {
+    }
+
+    // ETag débil: la misma versión se sirve con o sin gzip, y Tomcat no comprime respuestas con ETag fuerte
+    static <T> ResponseEntity<T> ifNoneMatch(String ifNoneMatch, String version, CacheControl cacheControl, Supplier<T> body) {
+        String opaqueTag = "\"" + version + "\"";
+        String etag = "W/" + opaqueTag;
+        if (matches(ifNoneMatch, opaqueTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(body.get());
+    }
+
+    // If-None-Match usa comparación débil: se ignora el prefijo W/ de las etiquetas del cliente
+    private static boolean matches(String ifNoneMatch, String opaqueTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -3,26 +3,45 @@ package com.ecommerce.controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.ecommerce.dto.CheckoutStatusDTO;
 import com.ecommerce.dto.OrderDTO;
+import com.ecommerce.dto.OrderPageDTO;
+import com.ecommerce.dto.OrderStatusTransitionDTO;
+import com.ecommerce.dto.OrderStatusTransitionResultDTO;
+import com.ecommerce.dto.OrderSummaryDTO;
+import com.ecommerce.model.IdempotencyRecord;
 import com.ecommerce.model.Order;
+import com.ecommerce.security.AuthenticatedUser;
+import com.ecommerce.service.CheckoutQueue;
+import com.ecommerce.service.IdempotencyService;
 import com.ecommerce.service.OrderService;
-import com.ecommerce.service.UserService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 
-import java.security.Principal;
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.format.annotation.DateTimeFormat;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
 
 
 @RestController
@@ -33,31 +52,71 @@ import org.springframework.web.bind.annotation.PostMapping;
 )
 public class OrderController {
 
-    private UserService userService;
     private OrderService orderService;
+    private CheckoutQueue checkoutQueue;
+    private IdempotencyService idempotencyService;
 
-    public OrderController(UserService userService, OrderService orderService) {
-        this.userService = userService;
+    public OrderController(OrderService orderService, CheckoutQueue checkoutQueue, IdempotencyService idempotencyService) {
         this.orderService = orderService;
+        this.checkoutQueue = checkoutQueue;
+        this.idempotencyService = idempotencyService;
     }
     
     @Operation(
         summary = "Finalizar la compra (checkout) del carrito del usuario autenticado",
-        description = "Crea un nuevo pedido a partir del carrito actual. Proceso transaccional que actualiza el stock y limpia el carrito."
+        description = "Crea un nuevo pedido a partir del carrito actual. Proceso transaccional que actualiza el stock y limpia el carrito. Con la cabecera Idempotency-Key un reintento con la misma clave devuelve el pedido ya creado (con Idempotent-Replayed: true) sin volver a procesar el carrito."
     )
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "201", description = "Pedido creado exitosamente."),
-        @ApiResponse(responseCode = "400", description = "Fallo de lógica de negocio (ej. carrito vacío, stock insuficiente)."),
+        @ApiResponse(responseCode = "201", description = "Pedido creado exitosamente, o respuesta original si la Idempotency-Key ya se usó."),
+        @ApiResponse(responseCode = "400", description = "Fallo de lógica de negocio (ej. carrito vacío, stock insuficiente) o Idempotency-Key inválida."),
         @ApiResponse(responseCode = "401", description = "No autenticado. Faltan credenciales."),
+        @ApiResponse(responseCode = "409", description = "Una petición con la misma Idempotency-Key sigue en curso."),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor.")
     })
     @PostMapping("/checkout")
-    public ResponseEntity<OrderDTO> placeOrder(Principal principal) {
-        Long userId = this.userService.getUserByUsername(principal.getName())
-            .orElseThrow(() -> new NoSuchElementException("User not found")).getId();
-        Order newOrder = this.orderService.placeOrder(userId);
-        OrderDTO newOrderDTO = this.orderService.toOrderDto(newOrder);
-        return new ResponseEntity<>(newOrderDTO, HttpStatus.CREATED);
+    public ResponseEntity<OrderDTO> placeOrder(@AuthenticationPrincipal AuthenticatedUser user,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return this.idempotencyService.execute(user.getId(), IdempotencyRecord.Operation.CHECKOUT, idempotencyKey, "", OrderDTO.class, () -> {
+            Order newOrder = this.orderService.placeOrder(user.getId());
+            OrderDTO newOrderDTO = this.orderService.toOrderDto(newOrder);
+            return new ResponseEntity<>(newOrderDTO, HttpStatus.CREATED);
+        });
+    }
+
+    @Operation(
+        summary = "Encolar el checkout del carrito del usuario autenticado",
+        description = "Modo asíncrono del checkout: registra la solicitud en una cola durable y responde 202 de inmediato con su id. El pedido se crea en segundo plano; su estado se consulta en /checkout/{requestId}, indicada también en la cabecera Location."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Solicitud de checkout aceptada y en cola."),
+        @ApiResponse(responseCode = "401", description = "No autenticado. Faltan credenciales."),
+        @ApiResponse(responseCode = "503", description = "La cola de checkout está desactivada en esta instancia; usar /checkout."),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor.")
+    })
+    @PostMapping("/checkout/async")
+    public ResponseEntity<CheckoutStatusDTO> enqueueCheckout(@AuthenticationPrincipal AuthenticatedUser user) {
+        if (!this.checkoutQueue.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Asynchronous checkout is disabled, use POST /api/orders/checkout");
+        }
+        CheckoutStatusDTO request = this.checkoutQueue.enqueue(user.getId());
+        return ResponseEntity.accepted().location(URI.create("/api/orders/checkout/" + request.id())).body(request);
+    }
+
+    @Operation(
+        summary = "Consultar el estado de un checkout asíncrono",
+        description = "Devuelve QUEUED, PROCESSING, COMPLETED (con el id del pedido) o FAILED (con el motivo). Con waitSeconds > 0 la respuesta se retiene hasta que la solicitud termine o venza la espera (máximo 30 segundos), sin ocupar un hilo del servidor."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Estado de la solicitud."),
+        @ApiResponse(responseCode = "401", description = "No autenticado. Faltan credenciales."),
+        @ApiResponse(responseCode = "404", description = "La solicitud no existe o pertenece a otro usuario."),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor.")
+    })
+    @GetMapping("/checkout/{requestId}")
+    public CompletableFuture<ResponseEntity<CheckoutStatusDTO>> getCheckoutStatus(@PathVariable Long requestId,
+            @RequestParam(defaultValue = "0") int waitSeconds, @AuthenticationPrincipal AuthenticatedUser user) {
+        return this.checkoutQueue.awaitStatus(user.getId(), requestId, Duration.ofSeconds(waitSeconds))
+            .thenApply(ResponseEntity::ok);
     }
 
     @Operation(
@@ -74,5 +133,58 @@ public class OrderController {
         List<OrderDTO> orders = this.orderService.getOrdersDTOByUsername(userDetails.getUsername());
         return ResponseEntity.ok(orders);
     }
-    
+
+    @Operation(
+        summary = "Obtener una página del historial de pedidos del usuario autenticado",
+        description = "Paginación por cursor sobre (fecha, id), de más reciente a más antiguo. Para la página siguiente se envían beforeDate y beforeId recibidos en la respuesta anterior."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Página de pedidos obtenida exitosamente."),
+        @ApiResponse(responseCode = "400", description = "Cursor incompleto (beforeDate y beforeId deben enviarse juntos)."),
+        @ApiResponse(responseCode = "401", description = "No autenticado. Faltan credenciales."),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor.")
+    })
+    @GetMapping("/page")
+    public ResponseEntity<OrderPageDTO<OrderDTO>> getOrderPage(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeDate,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(this.orderService.getOrderPage(user.getId(), beforeDate, beforeId, size));
+    }
+
+    @Operation(
+        summary = "Obtener un resumen paginado de los pedidos del usuario autenticado",
+        description = "Igual que /page pero sin las líneas: cada pedido trae solo su total y la cantidad de ítems."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Página de resúmenes obtenida exitosamente."),
+        @ApiResponse(responseCode = "400", description = "Cursor incompleto (beforeDate y beforeId deben enviarse juntos)."),
+        @ApiResponse(responseCode = "401", description = "No autenticado. Faltan credenciales."),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor.")
+    })
+    @GetMapping("/summaries")
+    public ResponseEntity<OrderPageDTO<OrderSummaryDTO>> getOrderSummaries(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeDate,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(this.orderService.getOrderSummaries(user.getId(), beforeDate, beforeId, size));
+    }
+
+    @Operation(
+        summary = "Cambiar el estado de varios pedidos (solo administradores)",
+        description = "Aplica el cambio a hasta 10000 pedidos con una sola actualización. Transiciones válidas: PENDING -> PAID -> SHIPPED -> DELIVERED, y PENDING o PAID -> CANCELLED, que devuelve las unidades al stock. Los pedidos inexistentes o en un estado que no admite el cambio se devuelven en rejectedIds."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Cambio aplicado; la respuesta indica cuántos pedidos cambiaron y cuáles se rechazaron."),
+        @ApiResponse(responseCode = "400", description = "Lista vacía o demasiado grande, o estado de destino inválido."),
+        @ApiResponse(responseCode = "401", description = "No autenticado. Faltan credenciales."),
+        @ApiResponse(responseCode = "403", description = "El usuario no es administrador."),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor.")
+    })
+    @PatchMapping("/admin/status")
+    public ResponseEntity<OrderStatusTransitionResultDTO> transitionOrders(@Valid @RequestBody OrderStatusTransitionDTO request) {
+        return ResponseEntity.ok(this.orderService.transitionOrders(request.getOrderIds(), request.getStatus()));
+    }
 }
@@ -1,22 +1,40 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.ProductImportReportDTO;
 import com.ecommerce.dto.ProductInputDTO;
+import com.ecommerce.dto.ProductPageDTO;
+import com.ecommerce.dto.ProductSearchHitDTO;
 import com.ecommerce.model.Product;
+import com.ecommerce.search.ProductSearchService;
+import com.ecommerce.service.ProductBulkService;
 import com.ecommerce.service.ProductService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/products")
@@ -26,10 +44,24 @@ import java.util.Optional;
 )
 public class ProductController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv";
+
     private final ProductService productService;
+    private final ProductBulkService productBulkService;
+    private final ProductSearchService productSearchService;
+    private final ObjectWriter productWriter;
+    private final CacheControl catalogCacheControl;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductBulkService productBulkService, ProductSearchService productSearchService, ObjectMapper objectMapper,
+            @Value("${products.http.max-age-seconds:5}") long maxAgeSeconds) {
         this.productService = productService;
+        this.productBulkService = productBulkService;
+        this.productSearchService = productSearchService;
+        // el catálogo es igual para todos, pero exige autenticación: solo lo guarda la caché del cliente
+        this.catalogCacheControl = CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePrivate();
+        // sin flush por producto: el buffer de la respuesta decide cuándo enviar cada chunk
+        this.productWriter = objectMapper.writerFor(Product.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     // endpoint de administración
@@ -50,33 +82,185 @@ public class ProductController {
         return new ResponseEntity<>(savedProduct, HttpStatus.CREATED);
     }
 
+    // endpoint de administración
+    @Operation(
+        summary = "Importar productos en masa desde CSV (requiere admin)",
+        description = "Lee el cuerpo fila a fila (cabecera id,name,description,price,stock). Las filas con id actualizan el producto existente y las filas sin id lo crean. Se escribe en chunks con transacción propia y se devuelve un reporte con los errores por línea"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Importación procesada; los errores por fila vienen en el reporte."),
+        @ApiResponse(responseCode = "401", description = "No autenticado. Faltan credenciales."),
+        @ApiResponse(responseCode = "403", description = "Prohibido. Usuario autenticado no tiene rol ADMIN."),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor.")
+    })
+    @PostMapping(value = "/admin/bulk", consumes = CSV)
+    public ResponseEntity<ProductImportReportDTO> importProductsCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(this.productBulkService.importCsv(body));
+    }
+
+    // endpoint de administración
+    @Operation(
+        summary = "Importar productos en masa desde NDJSON (requiere admin)",
+        description = "Un producto JSON por línea, con las mismas reglas que la importación CSV"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Importación procesada; los errores por fila vienen en el reporte."),
+        @ApiResponse(responseCode = "401", description = "No autenticado. Faltan credenciales."),
+        @ApiResponse(responseCode = "403", description = "Prohibido. Usuario autenticado no tiene rol ADMIN."),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor.")
+    })
+    @PostMapping(value = "/admin/bulk", consumes = NDJSON)
+    public ResponseEntity<ProductImportReportDTO> importProductsNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(this.productBulkService.importNdjson(body));
+    }
+
+    // endpoint de administración
+    @Operation(
+        summary = "Exportar el catálogo completo en CSV (requiere admin)",
+        description = "Mismo formato que acepta la importación CSV; las filas se escriben a medida que se leen de la base de datos"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Catálogo transmitido exitosamente."),
+        @ApiResponse(responseCode = "401", description = "No autenticado. Faltan credenciales."),
+        @ApiResponse(responseCode = "403", description = "Prohibido. Usuario autenticado no tiene rol ADMIN."),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor.")
+    })
+    @GetMapping(value = "/admin/bulk", produces = CSV)
+    public void exportProductsCsv(HttpServletResponse response) throws IOException {
+        response.setContentType(CSV);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        this.productBulkService.exportCsv(response.getOutputStream());
+    }
+
+    // endpoint de administración
+    @Operation(
+        summary = "Exportar el catálogo completo en NDJSON (requiere admin)",
+        description = "Mismo formato que acepta la importación NDJSON"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Catálogo transmitido exitosamente."),
+        @ApiResponse(responseCode = "401", description = "No autenticado. Faltan credenciales."),
+        @ApiResponse(responseCode = "403", description = "Prohibido. Usuario autenticado no tiene rol ADMIN."),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor.")
+    })
+    @GetMapping(value = "/admin/bulk", produces = NDJSON)
+    public void exportProductsNdjson(HttpServletResponse response) throws IOException {
+        streamProducts(response);
+    }
+
     @Operation(
         summary = "Obtener todos los productos",
-        description = "Devuelve una lista de todos los productos disponibles en el inventario"
+        description = "Devuelve una lista de los productos del inventario. Opcionalmente filtra por rango de precio ('minPrice', 'maxPrice') y stock disponible ('inStock'), ordena por 'sort' (price, name o newest; por defecto ID) y devuelve solo los primeros 'size' (máximo 100). La ETag cambia con cualquier cambio del catálogo; si 'If-None-Match' trae la vigente responde 304 sin cuerpo"
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Lista de productos obtenida exitosamente."),
+        @ApiResponse(responseCode = "304", description = "El catálogo no cambió desde la ETag enviada en If-None-Match."),
+        @ApiResponse(responseCode = "400", description = "Orden desconocido o rango de precios inválido."),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor.")
     })
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        List<Product> products = this.productService.getAllProducts();
-        return new ResponseEntity<>(products, HttpStatus.OK);
+    public ResponseEntity<List<Product>> getAllProducts(
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ConditionalResponses.ifNoneMatch(ifNoneMatch, "catalog-" + this.productService.getCatalogVersion(), this.catalogCacheControl,
+            () -> this.productService.getProducts(minPrice, maxPrice, inStock, sort, size));
+    }
+
+    @Operation(
+        summary = "Obtener una página de productos",
+        description = "Devuelve hasta 'size' productos (máximo 100) con ID mayor a 'after', ordenados por ID. Usar 'nextCursor' como 'after' de la siguiente página"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Página de productos obtenida exitosamente."),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor.")
+    })
+    @GetMapping("/page")
+    public ResponseEntity<ProductPageDTO> getProductPage(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(this.productService.getProductPage(after, size));
+    }
+
+    @Operation(
+        summary = "Buscar productos por texto",
+        description = "Busca en nombre y descripción sin distinguir mayúsculas ni acentos; deben aparecer todas las palabras y la última se completa como prefijo. Los resultados vienen ordenados por relevancia (hasta 'size', máximo 100) y se pueden filtrar por rango de precio y stock disponible"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Resultados de la búsqueda obtenidos exitosamente."),
+        @ApiResponse(responseCode = "400", description = "Búsqueda vacía o rango de precios inválido."),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor.")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductSearchHitDTO>> searchProducts(
+            @RequestParam String q,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(this.productSearchService.search(q, minPrice, maxPrice, inStock, size));
+    }
+
+    @Operation(
+        summary = "Sugerencias de búsqueda",
+        description = "Devuelve las palabras del catálogo que completan la última palabra de 'prefix', las más frecuentes primero"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Sugerencias obtenidas exitosamente."),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor.")
+    })
+    @GetMapping("/search/suggest")
+    public ResponseEntity<List<String>> suggestSearchTerms(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(this.productSearchService.suggest(prefix, size));
+    }
+
+    @Operation(
+        summary = "Exportar el catálogo completo en NDJSON",
+        description = "Escribe un producto JSON por línea a medida que se leen de la base de datos, sin cargar el catálogo en memoria"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Catálogo transmitido exitosamente."),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor.")
+    })
+    @GetMapping(value = "/stream", produces = NDJSON)
+    public void streamProducts(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (JsonGenerator generator = this.productWriter.createGenerator(response.getOutputStream())) {
+            // el separador de línea lo escribe cada producto, no el espacio por defecto entre valores raíz
+            generator.setRootValueSeparator(null);
+            this.productService.streamProducts(product -> {
+                try {
+                    this.productWriter.writeValue(generator, product);
+                    generator.writeRaw('\n');
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
     }
 
     @Operation(
         summary = "Obtener un producto por ID",
-        description = "Devuelve los detalles de un producto específico dado su ID"
+        description = "Devuelve los detalles de un producto específico dado su ID, con su ETag. Si 'If-None-Match' trae la ETag vigente responde 304 sin cuerpo"
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Producto encontrado y devuelto exitosamente."),
+        @ApiResponse(responseCode = "304", description = "El producto no cambió desde la ETag enviada en If-None-Match."),
         @ApiResponse(responseCode = "404", description = "Producto no encontrado con el ID proporcionado."),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor.")
     })
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
-        Optional<Product> product = this.productService.getProductById(id);
-        return product.map(ResponseEntity::ok).orElseThrow(() -> new NoSuchElementException("Product not found with ID " + id));
+    public ResponseEntity<Product> getProductById(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // el producto sale de la caché: con la ETag vigente no hay consulta ni serialización
+        Product product = this.productService.getProductById(id).orElseThrow(() -> new NoSuchElementException("Product not found with ID " + id));
+        return ConditionalResponses.ifNoneMatch(ifNoneMatch, "product-" + id + "-" + product.getVersion(), this.catalogCacheControl, () -> product);
     }
 
     // endpoint de administración
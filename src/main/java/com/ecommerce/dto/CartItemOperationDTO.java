@@ -0,0 +1,21 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// operación de un lote sobre el carrito: ADD suma la cantidad (negativa para restar) y SET la reemplaza;
+// si la línea queda en 0 o menos se quita del carrito
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartItemOperationDTO {
+
+    public enum Mode {
+        ADD, SET
+    }
+
+    private Long productId;
+    private Integer quantity;
+    private Mode mode = Mode.ADD;
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.dto;
+
+import java.time.LocalDateTime;
+
+import com.ecommerce.model.CheckoutStatus;
+
+public record CheckoutStatusDTO(
+    Long id,
+    CheckoutStatus status,
+    Long orderId,
+    String error,
+    LocalDateTime createdAt,
+    LocalDateTime completedAt
+) {
+}
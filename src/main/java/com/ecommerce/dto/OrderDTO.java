@@ -4,13 +4,16 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import com.ecommerce.model.OrderStatus;
+
 import lombok.Data;
 
 @Data
 public class OrderDTO {
     private Long id;
     private LocalDateTime orderDate;
-    private String status;
+    private OrderStatus status;
     private List<OrderItemDTO> items;
     private BigDecimal totalAmount;
+    private Integer itemCount;
 }
@@ -0,0 +1,12 @@
+package com.ecommerce.dto;
+
+import java.math.BigDecimal;
+
+public record OrderLineDTO(
+    Long orderId,
+    Long productId,
+    String productName,
+    Integer quantity,
+    BigDecimal priceAtPurchase
+) {
+}
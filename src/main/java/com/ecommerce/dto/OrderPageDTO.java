@@ -0,0 +1,12 @@
+package com.ecommerce.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// el cursor (fecha, id) del último pedido de la página; ambos nulos si no hay más
+public record OrderPageDTO<T>(
+    List<T> items,
+    LocalDateTime nextBeforeDate,
+    Long nextBeforeId
+) {
+}
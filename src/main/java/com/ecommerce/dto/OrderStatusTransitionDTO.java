@@ -0,0 +1,21 @@
+package com.ecommerce.dto;
+
+import java.util.List;
+
+import com.ecommerce.model.OrderStatus;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusTransitionDTO {
+    @NotEmpty(message = "orderIds must not be empty")
+    private List<Long> orderIds;
+    @NotNull(message = "status is mandatory")
+    private OrderStatus status;
+}
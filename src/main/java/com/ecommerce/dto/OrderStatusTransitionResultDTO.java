@@ -0,0 +1,14 @@
+package com.ecommerce.dto;
+
+import java.util.List;
+
+import com.ecommerce.model.OrderStatus;
+
+// 'rejectedIds': pedidos inexistentes o cuyo estado actual no permite pasar a 'status'
+public record OrderStatusTransitionResultDTO(
+    OrderStatus status,
+    int requested,
+    int transitioned,
+    List<Long> rejectedIds
+) {
+}
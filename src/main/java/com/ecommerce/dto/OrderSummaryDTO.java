@@ -0,0 +1,15 @@
+package com.ecommerce.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.ecommerce.model.OrderStatus;
+
+public record OrderSummaryDTO(
+    Long id,
+    LocalDateTime orderDate,
+    OrderStatus status,
+    BigDecimal totalAmount,
+    Integer itemCount
+) {
+}
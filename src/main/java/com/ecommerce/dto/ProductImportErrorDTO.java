@@ -0,0 +1,7 @@
+package com.ecommerce.dto;
+
+public record ProductImportErrorDTO(
+    long line,
+    String message
+) {
+}
@@ -0,0 +1,13 @@
+package com.ecommerce.dto;
+
+import java.util.List;
+
+// 'errors' se corta en products.bulk.max-reported-errors; 'failed' cuenta todas las filas rechazadas
+public record ProductImportReportDTO(
+    long processed,
+    long inserted,
+    long updated,
+    long failed,
+    List<ProductImportErrorDTO> errors
+) {
+}
@@ -0,0 +1,14 @@
+package com.ecommerce.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+// fila de importación masiva: con id actualiza el producto existente, sin id lo crea
+@Data
+@EqualsAndHashCode(callSuper = true)
+@JsonPropertyOrder({"id", "name", "description", "price", "stock"})
+public class ProductImportRowDTO extends ProductInputDTO {
+    private Long id;
+}
@@ -0,0 +1,11 @@
+package com.ecommerce.dto;
+
+import java.util.List;
+
+import com.ecommerce.model.Product;
+
+public record ProductPageDTO(
+    List<Product> items,
+    Long nextCursor
+) {
+}
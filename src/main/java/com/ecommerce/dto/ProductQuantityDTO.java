@@ -0,0 +1,7 @@
+package com.ecommerce.dto;
+
+public record ProductQuantityDTO(
+    Long productId,
+    Long quantity
+) {
+}
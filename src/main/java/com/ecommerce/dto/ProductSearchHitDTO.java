@@ -0,0 +1,6 @@
+package com.ecommerce.dto;
+
+import java.math.BigDecimal;
+
+public record ProductSearchHitDTO(Long id, String name, BigDecimal price, Integer stock, double score) {
+}
@@ -0,0 +1,156 @@
+package com.ecommerce.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+// bus de eventos en proceso: los publicadores dejan los eventos en un buffer acotado y un único hilo los
+// reparte por lotes a los suscriptores; con el buffer lleno quien publica espera en lugar de acumular memoria.
+// un suscriptor que publica desde el hilo de despacho no espera: ese hilo es el único que vacía el buffer
+@Slf4j
+@Component
+public class EventBus {
+
+    private final BlockingQueue<Envelope> buffer;
+    // eventos publicados por los suscriptores durante el despacho; se entregan antes del siguiente lote del buffer
+    private final Queue<Envelope> reentrant = new ConcurrentLinkedQueue<>();
+    private volatile Thread dispatcher;
+    private final List<Subscription<?>> subscriptions = new CopyOnWriteArrayList<>();
+    private final ThreadPoolTaskExecutor executor;
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+    private final int dispatchBatchSize;
+
+    public EventBus(@Qualifier("eventDispatchExecutor") ThreadPoolTaskExecutor executor, MeterRegistry meterRegistry,
+            @Value("${events.bus.capacity:4096}") int capacity,
+            @Value("${events.bus.dispatch-batch-size:256}") int dispatchBatchSize) {
+        this.executor = executor;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.dispatchBatchSize = dispatchBatchSize;
+        Gauge.builder("events.bus.buffer.size", this.buffer, BlockingQueue::size)
+            .description("Eventos publicados pendientes de despachar")
+            .register(meterRegistry);
+    }
+
+    public <T> void subscribe(Class<T> type, Consumer<List<T>> handler) {
+        this.subscriptions.add(new Subscription<>(type, handler));
+    }
+
+    public void unsubscribe(Consumer<?> handler) {
+        this.subscriptions.removeIf(subscription -> subscription.handler() == handler);
+    }
+
+    // el resultado se completa cuando todos los eventos han pasado por los suscriptores
+    public CompletableFuture<Void> publish(List<?> events) {
+        CompletableFuture<Void> dispatched = new CompletableFuture<>();
+        if (events.isEmpty()) {
+            dispatched.complete(null);
+            return dispatched;
+        }
+        // publicación desde un suscriptor: bloquear con el buffer lleno dejaría al hilo de despacho esperándose a sí mismo.
+        // el suscriptor no debe esperar el resultado, que se completa después de que él termine
+        if (Thread.currentThread() == this.dispatcher) {
+            for (int i = 0; i < events.size(); i++) {
+                this.reentrant.add(new Envelope(events.get(i), i == events.size() - 1 ? dispatched : null));
+            }
+            return dispatched;
+        }
+        try {
+            for (int i = 0; i < events.size(); i++) {
+                Envelope envelope = new Envelope(events.get(i), i == events.size() - 1 ? dispatched : null);
+                if (!this.buffer.offer(envelope)) {
+                    // buffer lleno: se asegura un despacho en curso antes de bloquear
+                    wakeUpDispatcher();
+                    this.buffer.put(envelope);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing events", ex);
+        } finally {
+            wakeUpDispatcher();
+        }
+        return dispatched;
+    }
+
+    private void wakeUpDispatcher() {
+        if (this.dispatching.compareAndSet(false, true)) {
+            this.executor.execute(this::dispatch);
+        }
+    }
+
+    private void dispatch() {
+        do {
+            this.dispatcher = Thread.currentThread();
+            try {
+                List<Envelope> batch = new ArrayList<>(this.dispatchBatchSize);
+                while (this.buffer.drainTo(batch, this.dispatchBatchSize) > 0) {
+                    deliver(batch);
+                    batch.clear();
+                    deliverReentrant(batch);
+                }
+            } finally {
+                this.dispatcher = null;
+                this.dispatching.set(false);
+            }
+            // un evento publicado justo antes de soltar el flag no puede quedarse sin despachar
+        } while (!this.buffer.isEmpty() && this.dispatching.compareAndSet(false, true));
+    }
+
+    // lo que publiquen estos suscriptores vuelve a la misma cola y se entrega en la siguiente vuelta
+    private void deliverReentrant(List<Envelope> batch) {
+        Envelope envelope;
+        while ((envelope = this.reentrant.poll()) != null) {
+            batch.add(envelope);
+            if (batch.size() == this.dispatchBatchSize || this.reentrant.isEmpty()) {
+                deliver(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void deliver(List<Envelope> batch) {
+        for (Subscription<?> subscription : this.subscriptions) {
+            subscription.deliver(batch);
+        }
+        for (Envelope envelope : batch) {
+            if (envelope.dispatched() != null) {
+                envelope.dispatched().complete(null);
+            }
+        }
+    }
+
+    private record Envelope(Object event, CompletableFuture<Void> dispatched) {
+    }
+
+    private record Subscription<T>(Class<T> type, Consumer<List<T>> handler) {
+
+        void deliver(List<Envelope> batch) {
+            List<T> events = batch.stream().map(Envelope::event).filter(this.type::isInstance).map(this.type::cast).toList();
+            if (events.isEmpty()) {
+                return;
+            }
+            // un suscriptor que falla no impide la entrega al resto
+            try {
+                this.handler.accept(events);
+            } catch (RuntimeException ex) {
+                log.error("Event subscriber for {} failed on a batch of {} events", this.type.getSimpleName(), events.size(), ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package com.ecommerce.event;
+
+public record OrderPlacedEvent(Long orderId, Long userId) {
+}
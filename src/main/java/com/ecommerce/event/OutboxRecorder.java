@@ -0,0 +1,89 @@
+package com.ecommerce.event;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ecommerce.model.OutboxEvent;
+import com.ecommerce.repository.OutboxEventRepository;
+
+// guarda los eventos de dominio en 'outbox_events' al confirmar la transacción que los produce, todos en un
+// mismo batch; con el outbox desactivado se pasan directamente al bus tras el commit, sin durabilidad
+@Component
+public class OutboxRecorder {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxRelay outboxRelay;
+    private final EventBus eventBus;
+
+    public OutboxRecorder(OutboxEventRepository outboxEventRepository, OutboxRelay outboxRelay, EventBus eventBus) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxRelay = outboxRelay;
+        this.eventBus = eventBus;
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        record(event);
+    }
+
+    @EventListener
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        record(event);
+    }
+
+    private void record(Object event) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            write(List.of(event));
+            publish(List.of(event));
+            return;
+        }
+        pendingEvents().add(event);
+    }
+
+    // un set por transacción: varios cambios del mismo producto se entregan una sola vez
+    @SuppressWarnings("unchecked")
+    private Set<Object> pendingEvents() {
+        Set<Object> pending = (Set<Object>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        Set<Object> events = new LinkedHashSet<>();
+        TransactionSynchronizationManager.bindResource(this, events);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                write(events);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(OutboxRecorder.this);
+                if (status == STATUS_COMMITTED) {
+                    publish(events);
+                }
+            }
+        });
+        return events;
+    }
+
+    private void write(Collection<Object> events) {
+        if (this.outboxRelay.isEnabled()) {
+            this.outboxEventRepository.saveAll(events.stream().map(OutboxEvent::from).toList());
+        }
+    }
+
+    private void publish(Collection<Object> events) {
+        if (this.outboxRelay.isEnabled()) {
+            this.outboxRelay.wakeUp();
+        } else {
+            this.eventBus.publish(List.copyOf(events));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.ecommerce.event;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import com.ecommerce.model.OutboxEvent;
+import com.ecommerce.repository.OutboxEventRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// entrega al bus las filas de 'outbox_events' en orden de id y las borra una vez despachadas;
+// se despierta tras cada commit que escribe eventos y el sondeo periódico recoge lo que quede tras una caída
+@Component
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final EventBus eventBus;
+    private final ThreadPoolTaskExecutor executor;
+    private final Timer lag;
+    private final Counter relayed;
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+    private final boolean enabled;
+    private final int batchSize;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, EventBus eventBus,
+            @Qualifier("outboxRelayExecutor") ThreadPoolTaskExecutor executor, MeterRegistry meterRegistry,
+            @Value("${events.outbox.enabled:true}") boolean enabled,
+            @Value("${events.outbox.batch-size:500}") int batchSize) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.eventBus = eventBus;
+        this.executor = executor;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.lag = Timer.builder("events.outbox.lag")
+            .description("Tiempo desde que se registra el evento hasta que pasa por los suscriptores")
+            .register(meterRegistry);
+        this.relayed = Counter.builder("events.outbox.relayed")
+            .description("Eventos del outbox entregados al bus")
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    @Scheduled(fixedDelayString = "${events.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        if (this.enabled) {
+            relay();
+        }
+    }
+
+    public void wakeUp() {
+        if (!this.enabled || !this.wakeUpPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            this.executor.execute(() -> {
+                this.wakeUpPending.set(false);
+                relay();
+            });
+        } catch (TaskRejectedException ex) {
+            // relay ya encolado; el sondeo recoge cualquier fila que quede
+            this.wakeUpPending.set(false);
+        }
+    }
+
+    public synchronized int relay() {
+        int total = 0;
+        List<OutboxEvent> rows;
+        do {
+            rows = this.outboxEventRepository.findByOrderByIdAsc(Limit.of(this.batchSize));
+            if (rows.isEmpty()) {
+                break;
+            }
+            // se espera al despacho antes de borrar: si la aplicación cae entre medias el lote se entrega otra vez
+            this.eventBus.publish(rows.stream().map(OutboxEvent::toEvent).toList()).join();
+            LocalDateTime now = LocalDateTime.now();
+            rows.forEach(row -> this.lag.record(Duration.between(row.getCreatedAt(), now)));
+            this.outboxEventRepository.deleteAllByIdInBatch(rows.stream().map(OutboxEvent::getId).toList());
+            this.relayed.increment(rows.size());
+            total += rows.size();
+        } while (rows.size() == this.batchSize);
+        return total;
+    }
+}
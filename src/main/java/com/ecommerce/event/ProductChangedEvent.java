@@ -0,0 +1,11 @@
+package com.ecommerce.event;
+
+public record ProductChangedEvent(Long productId, ChangeType changeType) {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED,
+        STOCK_CHANGED
+    }
+}
@@ -4,14 +4,18 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.ecommerce.dto.ErrorDetails;
 
@@ -55,6 +59,11 @@ public class GlobalExceptionHandler {
         return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
     }
 
+    @ExceptionHandler
+    public ResponseEntity<ErrorDetails> handleIllegalArgumentException(IllegalArgumentException ex) {
+        return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
     @ExceptionHandler
     public ResponseEntity<ErrorDetails> handleBadCredentialsException(BadCredentialsException ex) {
         return buildResponse(HttpStatus.UNAUTHORIZED, "Invalid username or password");
@@ -65,4 +74,25 @@ public class GlobalExceptionHandler {
         log.warn("Data integrity violation: {}", ex.getMessage());
         return buildResponse(HttpStatus.CONFLICT, "The resource already exists or violates a constraint.");
     }
+
+    // otra transacción cambió la entidad (su @Version) o retuvo el lock, y se agotaron los reintentos
+    @ExceptionHandler
+    public ResponseEntity<ErrorDetails> handleConcurrencyFailure(ConcurrencyFailureException ex) {
+        log.warn("Concurrency failure: {}", ex.getMessage());
+        return buildResponse(HttpStatus.CONFLICT, "The resource was modified concurrently, please retry.");
+    }
+
+    // estados que el controlador decide explícitamente (ej. 503 de una funcionalidad desactivada)
+    @ExceptionHandler
+    public ResponseEntity<ErrorDetails> handleResponseStatusException(ResponseStatusException ex) {
+        return buildResponse(HttpStatus.valueOf(ex.getStatusCode().value()), ex.getReason());
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorDetails> handleRejectedExecutionException(RejectedExecutionException ex) {
+        log.warn("Request rejected, executor saturated");
+        HttpStatus status = HttpStatus.TOO_MANY_REQUESTS;
+        ErrorDetails errorDetails = new ErrorDetails(LocalDateTime.now(), status.value(), status.getReasonPhrase(), "Server busy, please retry later.");
+        return ResponseEntity.status(status).header(HttpHeaders.RETRY_AFTER, "1").body(errorDetails);
+    }
 }
@@ -0,0 +1,35 @@
+package com.ecommerce.inventory;
+
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.ecommerce.repository.ProductRepository;
+
+@Component
+@ConditionalOnProperty(name = "inventory.ledger.enabled", havingValue = "false", matchIfMissing = true)
+public class DatabaseStockReservation implements StockReservation {
+
+    private final ProductRepository productRepository;
+
+    public DatabaseStockReservation(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @Override
+    public void reserve(Map<Long, Integer> quantitiesByProductId) {
+        int[] updatedRows = this.productRepository.decrementStock(quantitiesByProductId);
+        int index = 0;
+        for (Long productId : quantitiesByProductId.keySet()) {
+            if (updatedRows[index++] == 0) {
+                throw new IllegalStateException("Insufficient stock for product id: " + productId);
+            }
+        }
+    }
+
+    @Override
+    public void release(Map<Long, Integer> quantitiesByProductId) {
+        this.productRepository.adjustStock(quantitiesByProductId);
+    }
+}
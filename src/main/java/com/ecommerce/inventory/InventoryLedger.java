@@ -0,0 +1,203 @@
+package com.ecommerce.inventory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductChangedEvent.ChangeType;
+import com.ecommerce.model.StockJournalEntry;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.StockJournalRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+// reserva el stock en memoria y lo vuelca a 'products' en lotes periódicos;
+// cada reserva queda en 'stock_journal' dentro de la misma transacción del pedido, por lo que
+// tras una caída los movimientos pendientes se vuelven a aplicar en el siguiente volcado.
+// el volcado y las lecturas de stock + journal comparten flushLock: una lectura nunca ve la tabla ya
+// actualizada con las entradas del journal todavía sin borrar (o al revés)
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inventory.ledger.enabled", havingValue = "true")
+public class InventoryLedger implements StockReservation {
+
+    private final ProductRepository productRepository;
+    private final StockJournalRepository stockJournalRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, ProductStock> counters = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final int stripes;
+    private final int flushBatchSize;
+
+    // counter: lo que se puede reservar; committed: stock + journal confirmados según el ledger.
+    // la diferencia son las reservas en curso, que una reconciliación no debe tocar
+    private record ProductStock(Long productId, StripedStockCounter counter, AtomicLong committed) {
+    }
+
+    public InventoryLedger(ProductRepository productRepository, StockJournalRepository stockJournalRepository, ApplicationEventPublisher eventPublisher,
+            TransactionTemplate transactionTemplate,
+            @Value("${inventory.ledger.stripes:8}") int stripes,
+            @Value("${inventory.ledger.flush-batch-size:1000}") int flushBatchSize) {
+        this.productRepository = productRepository;
+        this.stockJournalRepository = stockJournalRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.stripes = stripes;
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    @Override
+    public void reserve(Map<Long, Integer> quantitiesByProductId) {
+        Map<ProductStock, Integer> reserved = new LinkedHashMap<>();
+        for (Map.Entry<Long, Integer> entry : quantitiesByProductId.entrySet()) {
+            ProductStock stock = stockFor(entry.getKey());
+            if (!stock.counter().tryReserve(entry.getValue())) {
+                reserved.forEach((held, quantity) -> held.counter().release(quantity));
+                throw new IllegalStateException("Insufficient stock for product id: " + entry.getKey());
+            }
+            reserved.put(stock, entry.getValue());
+        }
+        List<StockJournalEntry> entries = new ArrayList<>();
+        reserved.forEach((stock, quantity) -> entries.add(new StockJournalEntry(stock.productId(), -quantity)));
+        this.stockJournalRepository.saveAll(entries);
+        // si el pedido no llega a confirmarse, las unidades vuelven a estar disponibles; se devuelven al mismo
+        // contador que las prestó aunque entretanto se haya reconciliado
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                reserved.forEach((stock, quantity) -> {
+                    if (status == STATUS_COMMITTED) {
+                        stock.committed().addAndGet(-quantity);
+                    } else {
+                        stock.counter().release(quantity);
+                    }
+                });
+            }
+        });
+    }
+
+    // la devolución queda en el journal como movimiento positivo; el contador solo sube al confirmar,
+    // así una transacción deshecha no deja unidades disponibles que no existen
+    @Override
+    public void release(Map<Long, Integer> quantitiesByProductId) {
+        List<StockJournalEntry> entries = new ArrayList<>();
+        quantitiesByProductId.forEach((productId, quantity) -> entries.add(new StockJournalEntry(productId, quantity)));
+        this.stockJournalRepository.saveAll(entries);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                quantitiesByProductId.forEach((productId, quantity) -> {
+                    ProductStock stock = InventoryLedger.this.counters.get(productId);
+                    if (stock != null) {
+                        stock.committed().addAndGet(quantity);
+                        stock.counter().release(quantity);
+                    }
+                });
+            }
+        });
+    }
+
+    public long available(Long productId) {
+        return stockFor(productId).counter().available();
+    }
+
+    // el bloqueo se suelta después del commit, no al terminar el método
+    @Scheduled(fixedDelayString = "${inventory.ledger.flush-interval-ms:1000}")
+    public void flush() {
+        this.flushLock.lock();
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> flushJournal());
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    private void flushJournal() {
+        List<StockJournalEntry> entries;
+        do {
+            entries = this.stockJournalRepository.findByOrderByIdAsc(Limit.of(this.flushBatchSize));
+            if (entries.isEmpty()) {
+                return;
+            }
+            Map<Long, Integer> deltas = new LinkedHashMap<>();
+            List<Long> ids = new ArrayList<>(entries.size());
+            for (StockJournalEntry entry : entries) {
+                deltas.merge(entry.getProductId(), entry.getQuantity(), Integer::sum);
+                ids.add(entry.getId());
+            }
+            this.productRepository.adjustStock(deltas);
+            // se borran por id solo las entradas leídas: las que se confirmen mientras tanto esperan al próximo volcado
+            this.stockJournalRepository.deleteAllByIdInBatch(ids);
+            deltas.keySet().forEach(productId -> this.eventPublisher.publishEvent(new ProductChangedEvent(productId, ChangeType.STOCK_CHANGED)));
+            log.debug("Inventory ledger flushed {} journal entries for {} products", ids.size(), deltas.size());
+        } while (entries.size() == this.flushBatchSize);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        // un cambio administrativo fija el stock absoluto: el contador se corrige en el sitio, sin perder las reservas en curso
+        if (event.changeType() == ChangeType.UPDATED || event.changeType() == ChangeType.DELETED) {
+            reconcile(event.productId());
+        }
+    }
+
+    // aplica al contador la diferencia entre lo confirmado en la base y lo que el ledger cree confirmado.
+    // committed se lee antes que la base: una reserva que confirma entre ambas lecturas solo puede dejar el
+    // contador por debajo, nunca por encima, de lo realmente disponible
+    private void reconcile(Long productId) {
+        ProductStock stock = this.counters.get(productId);
+        if (stock == null) {
+            return;
+        }
+        this.flushLock.lock();
+        try {
+            long believed = stock.committed().get();
+            long drift = readStock(productId) - believed;
+            stock.committed().addAndGet(drift);
+            stock.counter().adjust(drift);
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    // las lecturas a la base quedan fuera de computeIfAbsent para no bloquear el resto del mapa mientras tanto
+    private ProductStock stockFor(Long productId) {
+        ProductStock stock = this.counters.get(productId);
+        if (stock != null) {
+            return stock;
+        }
+        this.flushLock.lock();
+        try {
+            stock = this.counters.get(productId);
+            if (stock == null) {
+                long initial = readStock(productId);
+                stock = new ProductStock(productId, new StripedStockCounter(this.stripes, initial), new AtomicLong(initial));
+                this.counters.put(productId, stock);
+            }
+            return stock;
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    private long readStock(Long productId) {
+        return this.stockJournalRepository.findStockIncludingPending(productId).orElse(0L);
+    }
+}
@@ -0,0 +1,12 @@
+package com.ecommerce.inventory;
+
+import java.util.Map;
+
+public interface StockReservation {
+
+    // reserva todas las cantidades o ninguna; lanza IllegalStateException si algún producto no alcanza
+    void reserve(Map<Long, Integer> quantitiesByProductId);
+
+    // devuelve unidades al stock (p. ej. al cancelar pedidos), en un solo batch
+    void release(Map<Long, Integer> quantitiesByProductId);
+}
@@ -0,0 +1,122 @@
+package com.ecommerce.inventory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// contador de stock repartido en varias celdas para que los compradores de un mismo producto no compitan por la misma línea de caché
+public class StripedStockCounter {
+
+    // 8 longs = 64 bytes entre celdas consecutivas
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray cells;
+    private final int stripes;
+    // unidades que se restaron sin estar libres (un ajuste por debajo de lo ya reservado); se cubren antes de volver a las celdas
+    private final AtomicLong deficit = new AtomicLong();
+
+    public StripedStockCounter(int stripes, long initialStock) {
+        this.stripes = stripes;
+        this.cells = new AtomicLongArray(stripes * PADDING);
+        long base = initialStock / stripes;
+        long remainder = initialStock % stripes;
+        for (int i = 0; i < stripes; i++) {
+            this.cells.set(i * PADDING, base + (i < remainder ? 1 : 0));
+        }
+    }
+
+    public boolean tryReserve(long quantity) {
+        int home = ThreadLocalRandom.current().nextInt(this.stripes);
+        if (tryTakeAll(home, quantity)) {
+            return true;
+        }
+        // la celda propia no alcanza: se toma lo disponible del resto y se devuelve si el total no llega
+        long[] taken = new long[this.stripes];
+        long remaining = quantity;
+        for (int i = 0; i < this.stripes && remaining > 0; i++) {
+            int stripe = (home + i) % this.stripes;
+            long amount = tryTake(stripe, remaining);
+            taken[stripe] = amount;
+            remaining -= amount;
+        }
+        if (remaining == 0) {
+            return true;
+        }
+        for (int stripe = 0; stripe < this.stripes; stripe++) {
+            if (taken[stripe] > 0) {
+                this.cells.addAndGet(stripe * PADDING, taken[stripe]);
+            }
+        }
+        return false;
+    }
+
+    public void release(long quantity) {
+        long remaining = quantity - payDeficit(quantity);
+        if (remaining > 0) {
+            this.cells.addAndGet(ThreadLocalRandom.current().nextInt(this.stripes) * PADDING, remaining);
+        }
+    }
+
+    // corrige el total en 'delta' unidades sin reemplazar el contador; lo que no se pueda quitar de las celdas queda como déficit
+    public void adjust(long delta) {
+        if (delta >= 0) {
+            release(delta);
+            return;
+        }
+        long remaining = -delta;
+        for (int stripe = 0; stripe < this.stripes && remaining > 0; stripe++) {
+            remaining -= tryTake(stripe, remaining);
+        }
+        if (remaining > 0) {
+            this.deficit.addAndGet(remaining);
+        }
+    }
+
+    public long available() {
+        long total = -this.deficit.get();
+        for (int i = 0; i < this.stripes; i++) {
+            total += this.cells.get(i * PADDING);
+        }
+        return total;
+    }
+
+    private long payDeficit(long quantity) {
+        while (true) {
+            long current = this.deficit.get();
+            if (current <= 0) {
+                return 0;
+            }
+            long amount = Math.min(current, quantity);
+            if (this.deficit.compareAndSet(current, current - amount)) {
+                return amount;
+            }
+        }
+    }
+
+    private boolean tryTakeAll(int stripe, long quantity) {
+        int index = stripe * PADDING;
+        long current;
+        do {
+            current = this.cells.get(index);
+            if (current < quantity) {
+                return false;
+            }
+        } while (!this.cells.compareAndSet(index, current, current - quantity));
+        return true;
+    }
+
+    // toma hasta 'max' unidades de una celda sin bloquear y devuelve cuántas obtuvo
+    private long tryTake(int stripe, long max) {
+        int index = stripe * PADDING;
+        while (true) {
+            long current = this.cells.get(index);
+            if (current <= 0) {
+                return 0;
+            }
+            long amount = Math.min(current, max);
+            if (this.cells.compareAndSet(index, current, current - amount)) {
+                return amount;
+            }
+        }
+    }
+}
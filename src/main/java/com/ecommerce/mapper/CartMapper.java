@@ -1,9 +1,12 @@
 package com.ecommerce.mapper;
 
+import java.util.List;
+
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
 import com.ecommerce.dto.CartDTO;
+import com.ecommerce.dto.CartItemDTO;
 import com.ecommerce.model.Cart;
 
 @Mapper(componentModel = "spring", uses = {
@@ -16,4 +19,9 @@ public interface CartMapper {
     @Mapping(target = "cartItems", source = "cartItems")
     CartDTO toCartDto(Cart entity);
 
+    @Mapping(target = "id", source = "cart.id")
+    @Mapping(target = "user", source = "cart.user")
+    @Mapping(target = "cartItems", source = "cartItems")
+    CartDTO toCartDto(Cart cart, List<CartItemDTO> cartItems);
+
 }
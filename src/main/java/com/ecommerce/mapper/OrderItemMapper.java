@@ -4,6 +4,7 @@ import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
 import com.ecommerce.dto.OrderItemDTO;
+import com.ecommerce.dto.OrderLineDTO;
 import com.ecommerce.model.OrderItem;
 
 @Mapper(componentModel = "spring")
@@ -12,4 +13,6 @@ public interface OrderItemMapper {
     @Mapping(target = "productId", source = "entity.product.id")
     @Mapping(target = "productName", source = "entity.product.name")
     OrderItemDTO toOrderItemDto(OrderItem entity);
+
+    OrderItemDTO toOrderItemDto(OrderLineDTO line);
 }
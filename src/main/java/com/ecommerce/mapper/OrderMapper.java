@@ -1,14 +1,14 @@
 package com.ecommerce.mapper;
 
-import java.math.BigDecimal;
 import java.util.List;
 
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
 import com.ecommerce.dto.OrderDTO;
+import com.ecommerce.dto.OrderItemDTO;
+import com.ecommerce.dto.OrderSummaryDTO;
 import com.ecommerce.model.Order;
-import com.ecommerce.model.OrderItem;
 
 @Mapper(componentModel = "spring", uses = {
     OrderItemMapper.class
@@ -16,15 +16,8 @@ import com.ecommerce.model.OrderItem;
 public interface OrderMapper {
 
     @Mapping(target = "items", source = "orderItems")
-    @Mapping(target = "totalAmount", expression = "java(calculateTotalAmount(entity.getOrderItems()))")
     OrderDTO toOrderDto(Order entity);
 
-    default BigDecimal calculateTotalAmount(List<OrderItem> orderItems) {
-        if (orderItems == null || orderItems.isEmpty()) {
-            return BigDecimal.ZERO;
-        }
-        return orderItems.stream()
-            .map(item -> item.getPriceAtPurchase().multiply(BigDecimal.valueOf(item.getQuantity())))
-            .reduce(BigDecimal.ZERO, (acc, elem) -> acc.add(elem));
-    }
+    @Mapping(target = "items", source = "items")
+    OrderDTO toOrderDto(OrderSummaryDTO summary, List<OrderItemDTO> items);
 }
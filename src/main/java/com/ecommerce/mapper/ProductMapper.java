@@ -11,9 +11,11 @@ import com.ecommerce.model.Product;
 public interface ProductMapper {
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Product toEntity(ProductInputDTO dto);
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     void updateEntityFromDto(ProductInputDTO dto, @MappingTarget Product entity);
 
 }
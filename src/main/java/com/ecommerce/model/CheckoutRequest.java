@@ -0,0 +1,64 @@
+package com.ecommerce.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// checkout aceptado y pendiente de procesar: la tabla es la cola, así que sobrevive a un reinicio;
+// el índice (status, id) sirve para tomar los más antiguos en espera
+@Entity
+@Table(name = "checkout_requests", indexes = @Index(name = "idx_checkout_requests_status_id", columnList = "status, id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutRequest {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "checkout_requests_seq")
+    @SequenceGenerator(name = "checkout_requests_seq", sequenceName = "checkout_requests_seq", allocationSize = 50)
+    private Long id;
+    @Column(nullable = false)
+    private Long userId;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private CheckoutStatus status;
+    private Long orderId;
+    private String error;
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    // momento en que un worker lo tomó; si el worker muere, pasado el plazo vuelve a la cola
+    private LocalDateTime claimedAt;
+    private LocalDateTime completedAt;
+
+    public CheckoutRequest(Long userId) {
+        this.userId = userId;
+        this.status = CheckoutStatus.QUEUED;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CheckoutRequest)) return false;
+        CheckoutRequest other = (CheckoutRequest) o;
+        return this.id != null && this.id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
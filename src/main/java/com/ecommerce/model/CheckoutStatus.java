@@ -0,0 +1,12 @@
+package com.ecommerce.model;
+
+public enum CheckoutStatus {
+    QUEUED,
+    PROCESSING,
+    COMPLETED,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
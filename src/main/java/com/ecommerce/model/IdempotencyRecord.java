@@ -0,0 +1,86 @@
+package com.ecommerce.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// respuesta guardada de una petición con Idempotency-Key; la fila se inserta antes de ejecutar la operación,
+// así la restricción única impide que dos reintentos simultáneos la ejecuten dos veces.
+// statusCode nulo: la operación sigue en curso, o la instancia cayó antes de guardar la respuesta y otra petición
+// la retoma al vencer el plazo de procesamiento
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "idempotency_records",
+    uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_records_user_operation_key", columnNames = {"user_id", "operation", "idempotency_key"}),
+    indexes = @Index(name = "idx_idempotency_records_created_at", columnList = "created_at"))
+public class IdempotencyRecord {
+
+    public enum Operation {
+        CHECKOUT,
+        ADD_TO_CART
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "idempotency_records_seq")
+    @SequenceGenerator(name = "idempotency_records_seq", sequenceName = "idempotency_records_seq", allocationSize = 50)
+    private Long id;
+    @Column(nullable = false)
+    private Long userId;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Operation operation;
+    @Column(nullable = false)
+    private String idempotencyKey;
+    // parámetros de la petición original: la misma clave con otros parámetros se rechaza
+    @Column(nullable = false)
+    private String requestFingerprint;
+    private Integer statusCode;
+    @Lob
+    private String responseBody;
+    // también es el token de la toma: complete y release solo cambian la fila si sigue siendo la misma
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public IdempotencyRecord(Long userId, Operation operation, String idempotencyKey, String requestFingerprint) {
+        this.userId = userId;
+        this.operation = operation;
+        this.idempotencyKey = idempotencyKey;
+        this.requestFingerprint = requestFingerprint;
+        // a microsegundos, la precisión de la columna: se compara por igualdad con lo guardado
+        this.createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    public boolean isCompleted() {
+        return this.statusCode != null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IdempotencyRecord)) return false;
+        IdempotencyRecord other = (IdempotencyRecord) o;
+        return this.id != null && this.id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
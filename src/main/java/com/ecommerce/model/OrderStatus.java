@@ -0,0 +1,28 @@
+package com.ecommerce.model;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// ciclo de vida del pedido: PENDING -> PAID -> SHIPPED -> DELIVERED; se cancela antes del envío
+public enum OrderStatus {
+    PENDING,
+    PAID,
+    SHIPPED,
+    DELIVERED,
+    CANCELLED;
+
+    // estados desde los que se puede llegar a este
+    public Set<OrderStatus> allowedSources() {
+        return switch (this) {
+            case PENDING -> EnumSet.noneOf(OrderStatus.class);
+            case PAID -> EnumSet.of(PENDING);
+            case SHIPPED -> EnumSet.of(PAID);
+            case DELIVERED -> EnumSet.of(SHIPPED);
+            case CANCELLED -> EnumSet.of(PENDING, PAID);
+        };
+    }
+
+    public boolean canTransitionTo(OrderStatus target) {
+        return target.allowedSources().contains(this);
+    }
+}
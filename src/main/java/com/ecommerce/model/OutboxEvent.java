@@ -0,0 +1,99 @@
+package com.ecommerce.model;
+
+import java.time.LocalDateTime;
+
+import com.ecommerce.event.OrderPlacedEvent;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductChangedEvent.ChangeType;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// evento de dominio guardado en la misma transacción que el cambio que lo origina, pendiente de entregar al bus
+@Entity
+@Table(name = "outbox_events")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    public enum Type {
+        PRODUCT_CREATED,
+        PRODUCT_UPDATED,
+        PRODUCT_DELETED,
+        PRODUCT_STOCK_CHANGED,
+        ORDER_PLACED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    private Long id;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private Type type;
+    @Column(nullable = false)
+    private Long aggregateId;
+    // solo para ORDER_PLACED
+    private Long userId;
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public OutboxEvent(Type type, Long aggregateId, Long userId) {
+        this.type = type;
+        this.aggregateId = aggregateId;
+        this.userId = userId;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public static OutboxEvent from(Object event) {
+        if (event instanceof ProductChangedEvent changed) {
+            Type type = switch (changed.changeType()) {
+                case CREATED -> Type.PRODUCT_CREATED;
+                case UPDATED -> Type.PRODUCT_UPDATED;
+                case DELETED -> Type.PRODUCT_DELETED;
+                case STOCK_CHANGED -> Type.PRODUCT_STOCK_CHANGED;
+            };
+            return new OutboxEvent(type, changed.productId(), null);
+        }
+        if (event instanceof OrderPlacedEvent placed) {
+            return new OutboxEvent(Type.ORDER_PLACED, placed.orderId(), placed.userId());
+        }
+        throw new IllegalArgumentException("Unsupported outbox event: " + event.getClass().getName());
+    }
+
+    public Object toEvent() {
+        return switch (this.type) {
+            case PRODUCT_CREATED -> new ProductChangedEvent(this.aggregateId, ChangeType.CREATED);
+            case PRODUCT_UPDATED -> new ProductChangedEvent(this.aggregateId, ChangeType.UPDATED);
+            case PRODUCT_DELETED -> new ProductChangedEvent(this.aggregateId, ChangeType.DELETED);
+            case PRODUCT_STOCK_CHANGED -> new ProductChangedEvent(this.aggregateId, ChangeType.STOCK_CHANGED);
+            case ORDER_PLACED -> new OrderPlacedEvent(this.aggregateId, this.userId);
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof OutboxEvent)) return false;
+        OutboxEvent other = (OutboxEvent) o;
+        return this.id != null && this.id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -0,0 +1,55 @@
+package com.ecommerce.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// movimiento de stock reservado en memoria y pendiente de aplicar sobre la tabla 'products'
+@Entity
+@Table(name = "stock_journal")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockJournalEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_journal_seq")
+    @SequenceGenerator(name = "stock_journal_seq", sequenceName = "stock_journal_seq", allocationSize = 50)
+    private Long id;
+    @Column(nullable = false)
+    private Long productId;
+    // negativo para reservas, positivo para devoluciones
+    @Column(nullable = false)
+    private Integer quantity;
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public StockJournalEntry(Long productId, Integer quantity) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof StockJournalEntry)) return false;
+        StockJournalEntry other = (StockJournalEntry) o;
+        return this.id != null && this.id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
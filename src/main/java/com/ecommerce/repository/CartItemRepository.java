@@ -1,16 +1,82 @@
 package com.ecommerce.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.ecommerce.dto.CartItemDTO;
+import com.ecommerce.dto.ProductQuantityDTO;
 import com.ecommerce.model.CartItem;
 
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
-    Optional<CartItem> findByCartIdAndProductId(Long cartId, Long productId);
     List<CartItem> findByCartId(Long cartId);
     long countByCartId(Long cartId);
+
+    // proyección directa al DTO, sin hidratar CartItem ni Product
+    @Query("""
+        select new com.ecommerce.dto.CartItemDTO(ci.id, p.id, p.name, p.price, ci.quantity)
+        from CartItem ci
+        join ci.product p
+        where ci.cart.id = :cartId
+        order by ci.id
+        """)
+    List<CartItemDTO> findItemDtosByCartId(@Param("cartId") Long cartId);
+
+    @Query("""
+        select new com.ecommerce.dto.CartItemDTO(ci.id, p.id, p.name, p.price, ci.quantity)
+        from CartItem ci
+        join ci.product p
+        where ci.cart.id = :cartId and p.id = :productId
+        """)
+    Optional<CartItemDTO> findItemDtoByCartIdAndProductId(@Param("cartId") Long cartId, @Param("productId") Long productId);
+
+    // suma en la base de datos en lugar de leer y escribir la cantidad: no se pierden altas concurrentes
+    @Modifying
+    @Query("""
+        update CartItem ci set ci.quantity = ci.quantity + :quantity, ci.version = ci.version + 1, ci.updatedAt = local datetime
+        where ci.cart.id = :cartId and ci.product.id = :productId
+        """)
+    int incrementQuantity(@Param("cartId") Long cartId, @Param("productId") Long productId, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("delete from CartItem ci where ci.cart.id = :cartId")
+    int bulkDeleteByCartId(@Param("cartId") Long cartId);
+
+    @Modifying
+    @Query("""
+        delete from CartItem ci
+        where ci.cart.id in (select c.id from Cart c where c.id in :cartIds and c.updatedAt < :cutoff)
+        """)
+    int bulkDeleteByCartIdsUntouchedSince(@Param("cartIds") Collection<Long> cartIds, @Param("cutoff") LocalDateTime cutoff);
+
+    // unidades reservadas por carritos de otros usuarios, por producto
+    @Query("""
+        select new com.ecommerce.dto.ProductQuantityDTO(ci.product.id, sum(ci.quantity))
+        from CartItem ci
+        where ci.heldUntil > :now and ci.product.id in :productIds and ci.cart.user.id <> :userId
+        group by ci.product.id
+        """)
+    List<ProductQuantityDTO> sumHeldQuantitiesByProduct(@Param("productIds") Collection<Long> productIds, @Param("userId") Long userId,
+        @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update CartItem ci set ci.heldUntil = :heldUntil where ci.cart.id = :cartId and ci.product.id in :productIds")
+    int hold(@Param("cartId") Long cartId, @Param("productIds") Collection<Long> productIds, @Param("heldUntil") LocalDateTime heldUntil);
+
+    @Query("select ci.id from CartItem ci where ci.heldUntil <= :now")
+    List<Long> findIdsByHeldUntilNotAfter(@Param("now") LocalDateTime now, Limit limit);
+
+    @Modifying
+    // solo si siguen vencidas: una alta entre la lectura y el update ya renovó la reserva
+    @Query("update CartItem ci set ci.heldUntil = null where ci.id in :ids and ci.heldUntil <= :now")
+    int releaseHolds(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
 }
@@ -1,8 +1,15 @@
 package com.ecommerce.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ecommerce.model.Cart;
@@ -12,4 +19,57 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
 
     Optional<Cart> findByUserId(Long userId);
 
+    @Query("select c.id from Cart c where c.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
+    // carga el carrito, su usuario, los ítems y los productos en una sola consulta
+    @Query("""
+        select c from Cart c
+        join fetch c.user
+        left join fetch c.cartItems ci
+        left join fetch ci.product
+        where c.user.id = :userId
+        """)
+    Optional<Cart> findWithItemsAndProductsByUserId(@Param("userId") Long userId);
+
+    // solo la cabecera del carrito con su usuario y roles, los ítems se proyectan aparte
+    @Query("""
+        select c from Cart c
+        join fetch c.user u
+        left join fetch u.roles
+        where u.id = :userId
+        """)
+    Optional<Cart> findWithUserAndRolesByUserId(@Param("userId") Long userId);
+
+    // versión del carrito y suma de las versiones de sus productos: cambia si cambian los ítems
+    // o el nombre, precio o stock de alguno de los productos que muestra
+    @Query("""
+        select concat(cast(c.version as String), '-', cast(coalesce(sum(p.version), 0) as String))
+        from Cart c
+        left join c.cartItems ci
+        left join ci.product p
+        where c.user.id = :userId
+        group by c.id, c.version
+        """)
+    Optional<String> findContentVersionByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("update Cart c set c.version = c.version + 1, c.updatedAt = local datetime where c.id = :cartId")
+    int incrementVersion(@Param("cartId") Long cartId);
+
+    // carritos con ítems que nadie toca desde antes de cutoff, recorridos por id en lotes
+    @Query("""
+        select c.id from Cart c
+        where c.id > :afterId and c.updatedAt < :cutoff
+        and exists (select ci.id from CartItem ci where ci.cart = c)
+        order by c.id
+        """)
+    List<Long> findAbandonedIdsAfter(@Param("afterId") Long afterId, @Param("cutoff") LocalDateTime cutoff, Limit limit);
+
+    // sube la versión (los ETag dejan de valer) sin tocar updatedAt y bloquea los carritos que siguen abandonados:
+    // una alta concurrente espera al commit de la purga o hace que su carrito quede fuera de ella
+    @Modifying
+    @Query("update Cart c set c.version = c.version + 1 where c.id in :cartIds and c.updatedAt < :cutoff")
+    int incrementVersionsIfUntouchedSince(@Param("cartIds") Collection<Long> cartIds, @Param("cutoff") LocalDateTime cutoff);
+
 }
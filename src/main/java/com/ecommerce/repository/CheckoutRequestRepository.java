@@ -0,0 +1,54 @@
+package com.ecommerce.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ecommerce.model.CheckoutRequest;
+import com.ecommerce.model.CheckoutStatus;
+
+@Repository
+public interface CheckoutRequestRepository extends JpaRepository<CheckoutRequest, Long> {
+
+    List<CheckoutRequest> findByStatusOrderByIdAsc(CheckoutStatus status, Limit limit);
+
+    Optional<CheckoutRequest> findByIdAndUserId(Long id, Long userId);
+
+    // toma una solicitud solo si sigue en cola: con varias instancias, cada una la procesa una sola vez
+    @Modifying
+    @Query("""
+        update CheckoutRequest r set r.status = com.ecommerce.model.CheckoutStatus.PROCESSING, r.claimedAt = :now
+        where r.id = :id and r.status = com.ecommerce.model.CheckoutStatus.QUEUED
+        """)
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // 'claimedAt' es el token de la toma: si la solicitud se volvió a encolar y la tomó otro worker, no coincide
+    @Modifying
+    @Query("""
+        update CheckoutRequest r set r.status = com.ecommerce.model.CheckoutStatus.COMPLETED, r.orderId = :orderId, r.completedAt = :now
+        where r.id = :id and r.status = com.ecommerce.model.CheckoutStatus.PROCESSING and r.claimedAt = :claimedAt
+        """)
+    int complete(@Param("id") Long id, @Param("claimedAt") LocalDateTime claimedAt, @Param("orderId") Long orderId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("""
+        update CheckoutRequest r set r.status = com.ecommerce.model.CheckoutStatus.FAILED, r.error = :error, r.completedAt = :now
+        where r.id = :id and r.status = com.ecommerce.model.CheckoutStatus.PROCESSING and r.claimedAt = :claimedAt
+        """)
+    int fail(@Param("id") Long id, @Param("claimedAt") LocalDateTime claimedAt, @Param("error") String error, @Param("now") LocalDateTime now);
+
+    // solicitudes de un worker que murió a mitad de camino: su transacción no se confirmó, se pueden repetir
+    @Modifying
+    @Query("""
+        update CheckoutRequest r set r.status = com.ecommerce.model.CheckoutStatus.QUEUED, r.claimedAt = null
+        where r.status = com.ecommerce.model.CheckoutStatus.PROCESSING and r.claimedAt < :claimedBefore
+        """)
+    int requeueClaimedBefore(@Param("claimedBefore") LocalDateTime claimedBefore);
+}
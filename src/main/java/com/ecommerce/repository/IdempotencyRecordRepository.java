@@ -0,0 +1,38 @@
+package com.ecommerce.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ecommerce.model.IdempotencyRecord;
+import com.ecommerce.model.IdempotencyRecord.Operation;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByUserIdAndOperationAndIdempotencyKey(Long userId, Operation operation, String idempotencyKey);
+
+    // 'createdAt' identifica la toma de la clave: si otra petición la retomó por abandonada, no coincide
+    @Modifying
+    @Query("update IdempotencyRecord r set r.statusCode = :statusCode, r.responseBody = :responseBody where r.id = :id and r.createdAt = :claimedAt")
+    int complete(@Param("id") Long id, @Param("claimedAt") LocalDateTime claimedAt, @Param("statusCode") int statusCode, @Param("responseBody") String responseBody);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.id = :id and r.createdAt = :claimedAt and r.statusCode is null")
+    int release(@Param("id") Long id, @Param("claimedAt") LocalDateTime claimedAt);
+
+    // retoma una clave en curso cuya petición se abandonó; solo una de las que compiten ve la fila sin cambios
+    @Modifying
+    @Query("update IdempotencyRecord r set r.createdAt = :now where r.id = :id and r.createdAt = :claimedAt and r.statusCode is null")
+    int reclaim(@Param("id") Long id, @Param("claimedAt") LocalDateTime claimedAt, @Param("now") LocalDateTime now);
+
+    @Query("select r.id from IdempotencyRecord r where r.createdAt < :createdBefore")
+    List<Long> findIdsCreatedBefore(@Param("createdBefore") LocalDateTime createdBefore, Limit limit);
+}
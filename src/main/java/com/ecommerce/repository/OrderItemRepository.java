@@ -1,11 +1,36 @@
 package com.ecommerce.repository;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.ecommerce.dto.OrderLineDTO;
+import com.ecommerce.dto.ProductQuantityDTO;
 import com.ecommerce.model.OrderItem;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
-    
+
+    // las líneas de una página de pedidos en una sola consulta, proyectadas sin hidratar entidades
+    @Query("""
+        select new com.ecommerce.dto.OrderLineDTO(oi.order.id, p.id, p.name, oi.quantity, oi.priceAtPurchase)
+        from OrderItem oi
+        join oi.product p
+        where oi.order.id in :orderIds
+        order by oi.id
+        """)
+    List<OrderLineDTO> findLinesByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    // unidades por producto de un conjunto de pedidos, agregadas en la base
+    @Query("""
+        select new com.ecommerce.dto.ProductQuantityDTO(oi.product.id, sum(oi.quantity))
+        from OrderItem oi
+        where oi.order.id in :orderIds
+        group by oi.product.id
+        """)
+    List<ProductQuantityDTO> sumQuantitiesByProductForOrders(@Param("orderIds") Collection<Long> orderIds);
 }
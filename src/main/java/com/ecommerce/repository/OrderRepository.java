@@ -1,14 +1,71 @@
 package com.ecommerce.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.ecommerce.dto.OrderSummaryDTO;
 import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderStatus;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUserId(Long userId);
     List<Order> findByUserUsernameOrderByOrderDateDesc(String username);
+
+    // user.id encabeza el order by para que el motor recorra idx_orders_user_date_id en orden
+    // y corte en el limit, en lugar de ordenar todos los pedidos del usuario
+    @Query("""
+        select new com.ecommerce.dto.OrderSummaryDTO(o.id, o.orderDate, o.status, o.totalAmount, o.itemCount)
+        from Order o
+        where o.user.id = :userId
+        order by o.user.id desc, o.orderDate desc, o.id desc
+        """)
+    List<OrderSummaryDTO> findFirstSummariesByUserId(@Param("userId") Long userId, Limit limit);
+
+    // keyset sobre (orderDate, id): el id desempata pedidos con la misma fecha.
+    // el orderDate <= redundante le da al índice un punto de arranque; solo con el or
+    // el motor recorre desde el pedido más reciente y cada página profunda cuesta como un offset
+    @Query("""
+        select new com.ecommerce.dto.OrderSummaryDTO(o.id, o.orderDate, o.status, o.totalAmount, o.itemCount)
+        from Order o
+        where o.user.id = :userId
+          and o.orderDate <= :beforeDate
+          and (o.orderDate < :beforeDate or o.id < :beforeId)
+        order by o.user.id desc, o.orderDate desc, o.id desc
+        """)
+    List<OrderSummaryDTO> findSummariesByUserIdBefore(
+        @Param("userId") Long userId,
+        @Param("beforeDate") LocalDateTime beforeDate,
+        @Param("beforeId") Long beforeId,
+        Limit limit
+    );
+
+    @Query("select o.id from Order o where o.totalAmount is null and o.id > :afterId order by o.id")
+    List<Long> findIdsWithoutTotalsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // calcula los totales en la base para un lote de pedidos anteriores a las columnas desnormalizadas
+    @Modifying
+    @Query("""
+        update Order o set
+            o.totalAmount = (select coalesce(sum(oi.priceAtPurchase * oi.quantity), 0) from OrderItem oi where oi.order = o),
+            o.itemCount = (select cast(count(oi) as Integer) from OrderItem oi where oi.order = o)
+        where o.id in :orderIds
+        """)
+    int backfillTotals(@Param("orderIds") Collection<Long> orderIds);
+
+    @Query("select o.id from Order o where o.id in :orderIds and o.status in :statuses")
+    List<Long> findIdsByIdInAndStatusIn(@Param("orderIds") Collection<Long> orderIds, @Param("statuses") Collection<OrderStatus> statuses);
+
+    // cambio de estado en bloque; la condición sobre el estado de origen protege de un cambio concurrente
+    @Modifying
+    @Query("update Order o set o.status = :target where o.id in :orderIds and o.status in :sources")
+    int updateStatus(@Param("orderIds") Collection<Long> orderIds, @Param("sources") Collection<OrderStatus> sources, @Param("target") OrderStatus target);
 }
@@ -0,0 +1,13 @@
+package com.ecommerce.repository;
+
+import java.math.BigDecimal;
+
+// limit null = todas las filas que cumplen el filtro
+public record ProductFilter(
+    BigDecimal minPrice,
+    BigDecimal maxPrice,
+    boolean inStockOnly,
+    ProductSort sort,
+    Integer limit
+) {
+}
@@ -1,10 +1,37 @@
 package com.ecommerce.repository;
 
 import com.ecommerce.model.Product;
+
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
+
+    // paginación por cursor: el índice de la PK resuelve el "id > ?" sin recorrer las filas anteriores
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    // proyección por constructor: las instancias no quedan en el contexto de persistencia
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.ecommerce.model.Product(p.id, p.name, p.description, p.price, p.stock) from Product p order by p.id")
+    Stream<Product> streamAllOrderedById();
 
+    // cantidad de productos, suma de versiones y suma de ids: cualquier alta, baja o modificación confirmada la cambia
+    @Query("""
+        select concat(cast(count(p) as String), '-', cast(coalesce(sum(p.version), 0) as String), '-', cast(coalesce(sum(p.id), 0) as String))
+        from Product p
+        """)
+    String findCatalogVersion();
 }
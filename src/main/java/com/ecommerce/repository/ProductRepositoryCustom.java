@@ -0,0 +1,18 @@
+package com.ecommerce.repository;
+
+import java.util.List;
+import java.util.Map;
+
+import com.ecommerce.model.Product;
+
+public interface ProductRepositoryCustom {
+
+    // descuenta stock solo si alcanza; devuelve las filas afectadas por producto (0 = stock insuficiente)
+    int[] decrementStock(Map<Long, Integer> quantitiesByProductId);
+
+    // aplica deltas (positivos o negativos) sin condición, en un único batch
+    void adjustStock(Map<Long, Integer> deltasByProductId);
+
+    // listado filtrado y ordenado; los productos devueltos no quedan en el contexto de persistencia
+    List<Product> findListing(ProductFilter filter);
+}
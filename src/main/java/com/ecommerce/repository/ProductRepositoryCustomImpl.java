@@ -0,0 +1,96 @@
+package com.ecommerce.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.ecommerce.model.Product;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private static final String DECREMENT_STOCK_SQL = "update products set stock = stock - ?, version = version + 1 where id = ? and stock >= ?";
+    private static final String ADJUST_STOCK_SQL = "update products set stock = stock + ?, version = version + 1 where id = ?";
+    private static final String LISTING_SQL = "select p.id, p.name, p.description, p.price, p.stock from products p";
+    private static final RowMapper<Product> PRODUCT_ROW_MAPPER = (rs, rowNum) -> new Product(
+        rs.getLong("id"), rs.getString("name"), rs.getString("description"), rs.getBigDecimal("price"), rs.getInt("stock"));
+
+    private final JdbcTemplate jdbcTemplate;
+    // se resuelve en la primera consulta de listado, no al crear el repositorio
+    private volatile Boolean h2;
+
+    public ProductRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int[] decrementStock(Map<Long, Integer> quantitiesByProductId) {
+        // un UPDATE condicional por producto, enviados en un único batch JDBC
+        List<Object[]> batchArgs = quantitiesByProductId.entrySet().stream()
+            .map(entry -> new Object[] {entry.getValue(), entry.getKey(), entry.getValue()})
+            .toList();
+        return this.jdbcTemplate.batchUpdate(DECREMENT_STOCK_SQL, batchArgs);
+    }
+
+    @Override
+    public void adjustStock(Map<Long, Integer> deltasByProductId) {
+        List<Object[]> batchArgs = deltasByProductId.entrySet().stream()
+            .map(entry -> new Object[] {entry.getValue(), entry.getKey()})
+            .toList();
+        this.jdbcTemplate.batchUpdate(ADJUST_STOCK_SQL, batchArgs);
+    }
+
+    @Override
+    public List<Product> findListing(ProductFilter filter) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        addPriceConditions(filter, conditions, args);
+        if (filter.inStockOnly()) {
+            conditions.add("p.stock > 0");
+        }
+        // el orden coincide con los índices (price, id) y (name, id): el planificador puede recorrerlos y cortar en el límite
+        StringBuilder sql = new StringBuilder(LISTING_SQL);
+        if (needsSortIndexHint(filter)) {
+            sql.append(" use index (").append(filter.sort().index()).append(')');
+        }
+        sql.append(where(conditions)).append(" order by ").append(filter.sort().orderBy());
+        if (filter.limit() != null) {
+            sql.append(" fetch first ? rows only");
+            args.add(filter.limit());
+        }
+        return this.jdbcTemplate.query(sql.toString(), PRODUCT_ROW_MAPPER, args.toArray());
+    }
+
+    private static void addPriceConditions(ProductFilter filter, List<String> conditions, List<Object> args) {
+        if (filter.minPrice() != null) {
+            conditions.add("p.price >= ?");
+            args.add(filter.minPrice());
+        }
+        if (filter.maxPrice() != null) {
+            conditions.add("p.price <= ?");
+            args.add(filter.maxPrice());
+        }
+    }
+
+    private static String where(List<String> conditions) {
+        return conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions);
+    }
+
+
+    // con filtro de precio H2 siempre elige el índice de precio y ordena todo el rango aunque se pida otro orden y pocas filas;
+    // el resto de las bases decide por estadísticas y la sentencia va sin pista
+    private boolean needsSortIndexHint(ProductFilter filter) {
+        boolean priceFiltered = filter.minPrice() != null || filter.maxPrice() != null;
+        return filter.limit() != null && priceFiltered && filter.sort() != ProductSort.PRICE && isH2();
+    }
+
+    private boolean isH2() {
+        if (this.h2 == null) {
+            this.h2 = "H2".equals(this.jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+        }
+        return this.h2;
+    }
+}
@@ -0,0 +1,41 @@
+package com.ecommerce.repository;
+
+import java.util.Locale;
+
+// orden del listado de productos; cada uno declara el índice que ya entrega las filas en ese orden
+public enum ProductSort {
+
+    ID("p.id", ""),
+    PRICE("p.price, p.id", "idx_products_price_id"),
+    NAME("p.name, p.id", "idx_products_name_id"),
+    // los ids salen de una secuencia: el más alto es el último producto creado
+    NEWEST("p.id desc", "");
+
+    private final String orderBy;
+    // índice vacío = recorrido por la clave primaria
+    private final String index;
+
+    ProductSort(String orderBy, String index) {
+        this.orderBy = orderBy;
+        this.index = index;
+    }
+
+    public String orderBy() {
+        return this.orderBy;
+    }
+
+    public String index() {
+        return this.index;
+    }
+
+    public static ProductSort fromParam(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return ID;
+        }
+        try {
+            return valueOf(sort.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unknown sort: " + sort + " (expected price, name or newest)");
+        }
+    }
+}
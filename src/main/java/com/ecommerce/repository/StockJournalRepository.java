@@ -0,0 +1,22 @@
+package com.ecommerce.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ecommerce.model.StockJournalEntry;
+
+@Repository
+public interface StockJournalRepository extends JpaRepository<StockJournalEntry, Long> {
+
+    List<StockJournalEntry> findByOrderByIdAsc(Limit limit);
+
+    // stock de la tabla más los movimientos aún sin volcar, leídos en una sola sentencia
+    @Query("select p.stock + coalesce((select sum(j.quantity) from StockJournalEntry j where j.productId = p.id), 0) from Product p where p.id = :productId")
+    Optional<Long> findStockIncludingPending(@Param("productId") Long productId);
+}
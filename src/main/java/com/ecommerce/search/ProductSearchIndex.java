@@ -0,0 +1,654 @@
+package com.ecommerce.search;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import com.ecommerce.dto.ProductSearchHitDTO;
+import com.ecommerce.model.Product;
+
+// índice invertido en memoria sobre nombre y descripción del catálogo.
+// Las lecturas toman la generación vigente sin bloquearse: un segmento inmutable con postings ordenados
+// más un delta con los productos cambiados desde el último merge. El merge y la reconstrucción arman
+// el segmento nuevo aparte y lo publican con una sola escritura volátil
+public class ProductSearchIndex {
+
+    private static final byte IN_NAME = 1;
+    private static final byte IN_DESCRIPTION = 2;
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    // una palabra completada por prefijo puntúa menos que la palabra exacta
+    private static final float PREFIX_WEIGHT = 0.6f;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Comparator<ProductSearchHitDTO> WORST_FIRST =
+        Comparator.comparingDouble(ProductSearchHitDTO::score).thenComparing(ProductSearchHitDTO::id, Comparator.reverseOrder());
+
+    private final int maxPrefixExpansions;
+    private final Object writeLock = new Object();
+    private final Object maintenanceLock = new Object();
+    private volatile Generation current = new Generation(Segment.EMPTY);
+    // cambios recibidos mientras se arma un segmento nuevo (null = borrado); se reaplican sobre él al publicarlo
+    private Map<Long, IndexedProduct> changesDuringBuild;
+
+    public ProductSearchIndex(int maxPrefixExpansions) {
+        this.maxPrefixExpansions = maxPrefixExpansions;
+    }
+
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    public int size() {
+        Generation generation = this.current;
+        return generation.segment.size() - generation.stale.size() + generation.delta.size();
+    }
+
+    public int pendingChanges() {
+        Generation generation = this.current;
+        return generation.delta.size() + generation.stale.size();
+    }
+
+    public void upsert(Product product) {
+        IndexedProduct document = IndexedProduct.of(product);
+        synchronized (this.writeLock) {
+            apply(this.current, document.id(), document);
+            if (this.changesDuringBuild != null) {
+                this.changesDuringBuild.put(document.id(), document);
+            }
+        }
+    }
+
+    public void delete(Long productId) {
+        synchronized (this.writeLock) {
+            apply(this.current, productId, null);
+            if (this.changesDuringBuild != null) {
+                this.changesDuringBuild.put(productId, null);
+            }
+        }
+    }
+
+    // reemplaza el índice con los productos que entrega la fuente, que deben venir ordenados por id
+    public void rebuild(Consumer<Consumer<Product>> source) {
+        synchronized (this.maintenanceLock) {
+            synchronized (this.writeLock) {
+                this.changesDuringBuild = new LinkedHashMap<>();
+            }
+            buildAndPublish(() -> {
+                SegmentBuilder builder = new SegmentBuilder();
+                source.accept(builder::add);
+                return builder.build();
+            });
+        }
+    }
+
+    // incorpora el delta al segmento; las lecturas siguen sobre la generación anterior mientras tanto
+    public void merge() {
+        synchronized (this.maintenanceLock) {
+            Generation from;
+            List<IndexedProduct> added;
+            Set<Long> stale;
+            synchronized (this.writeLock) {
+                from = this.current;
+                if (from.delta.isEmpty() && from.stale.isEmpty()) {
+                    return;
+                }
+                added = new ArrayList<>(from.delta.values());
+                stale = Set.copyOf(from.stale);
+                this.changesDuringBuild = new LinkedHashMap<>();
+            }
+            buildAndPublish(() -> mergeSegment(from.segment, stale, added));
+        }
+    }
+
+    public List<ProductSearchHitDTO> search(String query, BigDecimal minPrice, BigDecimal maxPrice, boolean inStockOnly, int limit) {
+        List<String> tokens = tokenize(query).stream().distinct().toList();
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Generation generation = this.current;
+        Filter filter = new Filter(minPrice, maxPrice, inStockOnly);
+        PriorityQueue<ProductSearchHitDTO> top = new PriorityQueue<>(limit + 1, WORST_FIRST);
+        searchSegment(generation, tokens, filter, top, limit);
+        searchDelta(generation, tokens, filter, top, limit);
+        List<ProductSearchHitDTO> hits = new ArrayList<>(top);
+        hits.sort(WORST_FIRST.reversed());
+        return hits;
+    }
+
+    // palabras del índice que completan la última palabra escrita, las más frecuentes primero
+    public List<String> suggest(String prefix, int limit) {
+        List<String> tokens = tokenize(prefix);
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        String token = tokens.get(tokens.size() - 1);
+        Generation generation = this.current;
+        Segment segment = generation.segment;
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (int term = segment.firstTermWithPrefix(token); term < segment.terms.length && segment.terms[term].startsWith(token); term++) {
+            frequencies.put(segment.terms[term], segment.docs[term].length);
+        }
+        for (IndexedProduct document : generation.delta.values()) {
+            for (String term : document.terms()) {
+                if (term.startsWith(token)) {
+                    frequencies.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+        return frequencies.entrySet().stream()
+            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+            .limit(limit)
+            .map(Map.Entry::getKey)
+            .toList();
+    }
+
+    private void searchSegment(Generation generation, List<String> tokens, Filter filter, PriorityQueue<ProductSearchHitDTO> top, int limit) {
+        Segment segment = generation.segment;
+        int[][] expansions = new int[tokens.size()][];
+        int driver = 0;
+        long driverCost = Long.MAX_VALUE;
+        for (int i = 0; i < tokens.size(); i++) {
+            expansions[i] = segment.expand(tokens.get(i), i == tokens.size() - 1, this.maxPrefixExpansions);
+            if (expansions[i].length == 0) {
+                return;
+            }
+            long cost = 0;
+            for (int term : expansions[i]) {
+                cost += segment.docs[term].length;
+            }
+            if (cost < driverCost) {
+                driver = i;
+                driverCost = cost;
+            }
+        }
+        // se parte de la palabra con menos postings y el resto se verifica por búsqueda binaria en sus listas
+        Candidates candidates = segment.collect(expansions[driver], tokens.get(driver));
+        for (int i = 0; i < tokens.size() && candidates.count > 0; i++) {
+            if (i != driver) {
+                candidates.retain(segment, expansions[i], tokens.get(i));
+            }
+        }
+        boolean checkChanges = !generation.delta.isEmpty() || !generation.stale.isEmpty();
+        for (int k = 0; k < candidates.count; k++) {
+            int ordinal = candidates.ordinals[k];
+            float score = candidates.scores[k];
+            long id = segment.ids[ordinal];
+            if (!filter.accepts(segment.prices[ordinal], segment.stocks[ordinal]) || !competitive(top, limit, score, id)) {
+                continue;
+            }
+            // la versión vigente de un producto cambiado está en el delta
+            if (checkChanges && (generation.delta.containsKey(id) || generation.stale.contains(id))) {
+                continue;
+            }
+            offer(top, limit, new ProductSearchHitDTO(id, segment.names[ordinal], segment.prices[ordinal], segment.stocks[ordinal], score));
+        }
+    }
+
+    private void searchDelta(Generation generation, List<String> tokens, Filter filter, PriorityQueue<ProductSearchHitDTO> top, int limit) {
+        Segment segment = generation.segment;
+        for (IndexedProduct document : generation.delta.values()) {
+            if (!filter.accepts(document.price(), document.stock())) {
+                continue;
+            }
+            float score = 0;
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                boolean prefix = i == tokens.size() - 1;
+                float best = 0;
+                for (int t = 0; t < document.terms().length; t++) {
+                    String term = document.terms()[t];
+                    if (term.equals(token) || (prefix && term.startsWith(token))) {
+                        best = Math.max(best, segment.weights(segment.documentFrequency(term), term.equals(token))[document.fields()[t]]);
+                    }
+                }
+                if (best == 0) {
+                    score = 0;
+                    break;
+                }
+                score += best;
+            }
+            if (score > 0 && competitive(top, limit, score, document.id())) {
+                offer(top, limit, new ProductSearchHitDTO(document.id(), document.name(), document.price(), document.stock(), score));
+            }
+        }
+    }
+
+    private static boolean competitive(PriorityQueue<ProductSearchHitDTO> top, int limit, float score, long id) {
+        if (top.size() < limit) {
+            return true;
+        }
+        ProductSearchHitDTO worst = top.peek();
+        return score > worst.score() || (score == worst.score() && id < worst.id());
+    }
+
+    private static void offer(PriorityQueue<ProductSearchHitDTO> top, int limit, ProductSearchHitDTO hit) {
+        top.add(hit);
+        if (top.size() > limit) {
+            top.poll();
+        }
+    }
+
+    private void buildAndPublish(Supplier<Segment> build) {
+        Segment segment;
+        try {
+            segment = build.get();
+        } catch (RuntimeException ex) {
+            synchronized (this.writeLock) {
+                this.changesDuringBuild = null;
+            }
+            throw ex;
+        }
+        synchronized (this.writeLock) {
+            Generation next = new Generation(segment);
+            this.changesDuringBuild.forEach((id, document) -> apply(next, id, document));
+            this.changesDuringBuild = null;
+            this.current = next;
+        }
+    }
+
+    private static void apply(Generation generation, Long productId, IndexedProduct document) {
+        if (document == null) {
+            generation.delta.remove(productId);
+        } else {
+            generation.delta.put(productId, document);
+        }
+        if (generation.segment.ordinalOf(productId) >= 0) {
+            generation.stale.add(productId);
+        }
+    }
+
+    private static Segment mergeSegment(Segment old, Set<Long> stale, List<IndexedProduct> added) {
+        added.sort(Comparator.comparingLong(IndexedProduct::id));
+        int capacity = old.size() + added.size();
+        long[] ids = new long[capacity];
+        String[] names = new String[capacity];
+        BigDecimal[] prices = new BigDecimal[capacity];
+        int[] stocks = new int[capacity];
+        int[] remap = new int[old.size()];
+        Map<String, Postings> addedPostings = new HashMap<>();
+        // los documentos quedan intercalados por id, así los ordinales nuevos respetan el orden de los viejos
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < old.size() || j < added.size()) {
+            if (i < old.size() && stale.contains(old.ids[i])) {
+                remap[i++] = -1;
+            } else if (j == added.size() || (i < old.size() && old.ids[i] < added.get(j).id())) {
+                ids[size] = old.ids[i];
+                names[size] = old.names[i];
+                prices[size] = old.prices[i];
+                stocks[size] = old.stocks[i];
+                remap[i++] = size++;
+            } else {
+                IndexedProduct document = added.get(j++);
+                ids[size] = document.id();
+                names[size] = document.name();
+                prices[size] = document.price();
+                stocks[size] = document.stock();
+                for (int t = 0; t < document.terms().length; t++) {
+                    addedPostings.computeIfAbsent(document.terms()[t], term -> new Postings()).add(size, document.fields()[t]);
+                }
+                size++;
+            }
+        }
+        String[] addedTerms = addedPostings.keySet().toArray(String[]::new);
+        Arrays.sort(addedTerms);
+        List<String> terms = new ArrayList<>(old.terms.length + addedTerms.length);
+        List<int[]> docs = new ArrayList<>(old.terms.length + addedTerms.length);
+        List<byte[]> fields = new ArrayList<>(old.terms.length + addedTerms.length);
+        int a = 0;
+        int b = 0;
+        while (a < old.terms.length || b < addedTerms.length) {
+            int cmp = a == old.terms.length ? 1 : b == addedTerms.length ? -1 : old.terms[a].compareTo(addedTerms[b]);
+            String term = cmp <= 0 ? old.terms[a] : addedTerms[b];
+            int[] oldDocs = cmp <= 0 ? old.docs[a] : new int[0];
+            byte[] oldFields = cmp <= 0 ? old.fields[a] : new byte[0];
+            Postings fromAdded = cmp >= 0 ? addedPostings.get(addedTerms[b]) : new Postings();
+            Postings merged = new Postings(oldDocs.length + fromAdded.size);
+            int p = 0;
+            int q = 0;
+            while (p < oldDocs.length || q < fromAdded.size) {
+                if (p < oldDocs.length && remap[oldDocs[p]] < 0) {
+                    p++;
+                } else if (q == fromAdded.size || (p < oldDocs.length && remap[oldDocs[p]] < fromAdded.docs[q])) {
+                    merged.add(remap[oldDocs[p]], oldFields[p]);
+                    p++;
+                } else {
+                    merged.add(fromAdded.docs[q], fromAdded.fields[q]);
+                    q++;
+                }
+            }
+            if (cmp <= 0) {
+                a++;
+            }
+            if (cmp >= 0) {
+                b++;
+            }
+            if (merged.size > 0) {
+                terms.add(term);
+                docs.add(merged.trimmedDocs());
+                fields.add(merged.trimmedFields());
+            }
+        }
+        return new Segment(Arrays.copyOf(ids, size), Arrays.copyOf(names, size), Arrays.copyOf(prices, size), Arrays.copyOf(stocks, size),
+            terms.toArray(String[]::new), docs.toArray(int[][]::new), fields.toArray(byte[][]::new));
+    }
+
+    private record Filter(BigDecimal minPrice, BigDecimal maxPrice, boolean inStockOnly) {
+
+        boolean accepts(BigDecimal price, int stock) {
+            return (!this.inStockOnly || stock > 0)
+                && (this.minPrice == null || price.compareTo(this.minPrice) >= 0)
+                && (this.maxPrice == null || price.compareTo(this.maxPrice) <= 0);
+        }
+    }
+
+    // versión del producto cambiado desde el último merge, con sus palabras y el campo donde aparece cada una
+    private record IndexedProduct(long id, String name, BigDecimal price, int stock, String[] terms, byte[] fields) {
+
+        static IndexedProduct of(Product product) {
+            Map<String, Byte> terms = new LinkedHashMap<>();
+            tokenize(product.getName()).forEach(term -> terms.merge(term, IN_NAME, (a, b) -> (byte) (a | b)));
+            tokenize(product.getDescription()).forEach(term -> terms.merge(term, IN_DESCRIPTION, (a, b) -> (byte) (a | b)));
+            byte[] fields = new byte[terms.size()];
+            int t = 0;
+            for (Byte field : terms.values()) {
+                fields[t++] = field;
+            }
+            int stock = product.getStock() == null ? 0 : product.getStock();
+            return new IndexedProduct(product.getId(), product.getName(), product.getPrice(), stock, terms.keySet().toArray(String[]::new), fields);
+        }
+    }
+
+    private static final class Generation {
+
+        final Segment segment;
+        final Map<Long, IndexedProduct> delta = new ConcurrentHashMap<>();
+        // productos del segmento reemplazados por el delta o borrados
+        final Set<Long> stale = ConcurrentHashMap.newKeySet();
+
+        Generation(Segment segment) {
+            this.segment = segment;
+        }
+    }
+
+    private static final class Segment {
+
+        static final Segment EMPTY = new Segment(new long[0], new String[0], new BigDecimal[0], new int[0], new String[0], new int[0][], new byte[0][]);
+
+        // documentos por ordinal, ordenados por id
+        final long[] ids;
+        final String[] names;
+        final BigDecimal[] prices;
+        final int[] stocks;
+        // términos ordenados; cada uno con sus ordinales ascendentes y el campo donde aparece
+        final String[] terms;
+        final int[][] docs;
+        final byte[][] fields;
+
+        Segment(long[] ids, String[] names, BigDecimal[] prices, int[] stocks, String[] terms, int[][] docs, byte[][] fields) {
+            this.ids = ids;
+            this.names = names;
+            this.prices = prices;
+            this.stocks = stocks;
+            this.terms = terms;
+            this.docs = docs;
+            this.fields = fields;
+        }
+
+        int size() {
+            return this.ids.length;
+        }
+
+        int ordinalOf(long id) {
+            return Arrays.binarySearch(this.ids, id);
+        }
+
+        int firstTermWithPrefix(String prefix) {
+            int position = Arrays.binarySearch(this.terms, prefix);
+            return position >= 0 ? position : -position - 1;
+        }
+
+        int documentFrequency(String term) {
+            int position = Arrays.binarySearch(this.terms, term);
+            return position >= 0 ? this.docs[position].length : 0;
+        }
+
+        // idf de BM25 por el peso del campo, indexado por la máscara de campos; el nombre pesa más que la descripción
+        float[] weights(int documentFrequency, boolean exact) {
+            float idf = (float) Math.log(1 + (size() - documentFrequency + 0.5) / (documentFrequency + 0.5)) * (exact ? 1 : PREFIX_WEIGHT);
+            return new float[] {0, idf * NAME_WEIGHT, idf * DESCRIPTION_WEIGHT, idf * (NAME_WEIGHT + DESCRIPTION_WEIGHT)};
+        }
+
+        // términos que cubre una palabra: la exacta o, si es la última, hasta maxExpansions completadas, las más frecuentes
+        int[] expand(String token, boolean prefix, int maxExpansions) {
+            int first = firstTermWithPrefix(token);
+            if (!prefix) {
+                return first < this.terms.length && this.terms[first].equals(token) ? new int[] {first} : new int[0];
+            }
+            int end = first;
+            while (end < this.terms.length && this.terms[end].startsWith(token)) {
+                end++;
+            }
+            if (end - first <= maxExpansions) {
+                int[] range = new int[end - first];
+                Arrays.setAll(range, k -> first + k);
+                return range;
+            }
+            return IntStream.range(first, end).boxed()
+                .sorted(Comparator.<Integer>comparingInt(term -> this.terms[term].equals(token) ? 0 : 1)
+                    .thenComparing(term -> this.docs[term].length, Comparator.reverseOrder()))
+                .limit(maxExpansions)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        }
+
+        Candidates collect(int[] expansion, String token) {
+            if (expansion.length == 1) {
+                int term = expansion[0];
+                int[] ordinals = this.docs[term].clone();
+                float[] scores = new float[ordinals.length];
+                float[] weights = weights(ordinals.length, this.terms[term].equals(token));
+                for (int k = 0; k < ordinals.length; k++) {
+                    scores[k] = weights[this.fields[term][k]];
+                }
+                return new Candidates(ordinals, scores, ordinals.length);
+            }
+            // varias completadas: ordinal y puntaje empaquetados en un long para ordenar sin objetos
+            int total = 0;
+            for (int term : expansion) {
+                total += this.docs[term].length;
+            }
+            long[] packed = new long[total];
+            int n = 0;
+            for (int term : expansion) {
+                float[] weights = weights(this.docs[term].length, this.terms[term].equals(token));
+                for (int k = 0; k < this.docs[term].length; k++) {
+                    float score = weights[this.fields[term][k]];
+                    packed[n++] = ((long) this.docs[term][k] << 32) | Float.floatToRawIntBits(score);
+                }
+            }
+            Arrays.sort(packed);
+            int[] ordinals = new int[total];
+            float[] scores = new float[total];
+            int count = 0;
+            for (long entry : packed) {
+                int ordinal = (int) (entry >>> 32);
+                float score = Float.intBitsToFloat((int) entry);
+                if (count > 0 && ordinals[count - 1] == ordinal) {
+                    scores[count - 1] = Math.max(scores[count - 1], score);
+                } else {
+                    ordinals[count] = ordinal;
+                    scores[count++] = score;
+                }
+            }
+            return new Candidates(ordinals, scores, count);
+        }
+    }
+
+    private static final class Candidates {
+
+        final int[] ordinals;
+        final float[] scores;
+        int count;
+
+        Candidates(int[] ordinals, float[] scores, int count) {
+            this.ordinals = ordinals;
+            this.scores = scores;
+            this.count = count;
+        }
+
+        // deja solo los candidatos que también contienen la palabra y suma su puntaje. Ambos lados están
+        // ordenados: por cada término se recorre el más corto y se avanza a saltos sobre el otro
+        void retain(Segment segment, int[] expansion, String token) {
+            float[] best = new float[this.count];
+            for (int term : expansion) {
+                int[] docs = segment.docs[term];
+                byte[] fields = segment.fields[term];
+                float[] weights = segment.weights(docs.length, segment.terms[term].equals(token));
+                int cursor = 0;
+                if (docs.length < this.count) {
+                    for (int p = 0; p < docs.length && cursor < this.count; p++) {
+                        cursor = gallop(this.ordinals, cursor, this.count, docs[p]);
+                        if (cursor < this.count && this.ordinals[cursor] == docs[p]) {
+                            best[cursor] = Math.max(best[cursor], weights[fields[p]]);
+                        }
+                    }
+                } else {
+                    for (int k = 0; k < this.count && cursor < docs.length; k++) {
+                        cursor = gallop(docs, cursor, docs.length, this.ordinals[k]);
+                        if (cursor < docs.length && docs[cursor] == this.ordinals[k]) {
+                            best[k] = Math.max(best[k], weights[fields[cursor]]);
+                        }
+                    }
+                }
+            }
+            int kept = 0;
+            for (int k = 0; k < this.count; k++) {
+                if (best[k] > 0) {
+                    this.ordinals[kept] = this.ordinals[k];
+                    this.scores[kept++] = this.scores[k] + best[k];
+                }
+            }
+            this.count = kept;
+        }
+
+        // primera posición en [from, end) con valor >= target
+        private static int gallop(int[] values, int from, int end, int target) {
+            if (from >= end || values[from] >= target) {
+                return from;
+            }
+            int low = from;
+            int step = 1;
+            while (low + step < end && values[low + step] < target) {
+                low += step;
+                step <<= 1;
+            }
+            int position = Arrays.binarySearch(values, low + 1, Math.min(low + step, end - 1) + 1, target);
+            return position >= 0 ? position : -position - 1;
+        }
+    }
+
+    private static final class Postings {
+
+        int[] docs;
+        byte[] fields;
+        int size;
+
+        Postings() {
+            this(4);
+        }
+
+        Postings(int capacity) {
+            this.docs = new int[Math.max(capacity, 1)];
+            this.fields = new byte[Math.max(capacity, 1)];
+        }
+
+        void add(int ordinal, byte field) {
+            if (this.size == this.docs.length) {
+                this.docs = Arrays.copyOf(this.docs, this.size * 2);
+                this.fields = Arrays.copyOf(this.fields, this.size * 2);
+            }
+            this.docs[this.size] = ordinal;
+            this.fields[this.size++] = field;
+        }
+
+        int[] trimmedDocs() {
+            return this.docs.length == this.size ? this.docs : Arrays.copyOf(this.docs, this.size);
+        }
+
+        byte[] trimmedFields() {
+            return this.fields.length == this.size ? this.fields : Arrays.copyOf(this.fields, this.size);
+        }
+    }
+
+    private static final class SegmentBuilder {
+
+        private long[] ids = new long[1024];
+        private String[] names = new String[1024];
+        private BigDecimal[] prices = new BigDecimal[1024];
+        private int[] stocks = new int[1024];
+        private int size;
+        private final Map<String, Postings> postings = new HashMap<>();
+
+        void add(Product product) {
+            if (this.size > 0 && product.getId() <= this.ids[this.size - 1]) {
+                throw new IllegalArgumentException("Products must be indexed in ascending id order, got " + product.getId() + " after " + this.ids[this.size - 1]);
+            }
+            if (this.size == this.ids.length) {
+                this.ids = Arrays.copyOf(this.ids, this.size * 2);
+                this.names = Arrays.copyOf(this.names, this.size * 2);
+                this.prices = Arrays.copyOf(this.prices, this.size * 2);
+                this.stocks = Arrays.copyOf(this.stocks, this.size * 2);
+            }
+            IndexedProduct document = IndexedProduct.of(product);
+            int ordinal = this.size++;
+            this.ids[ordinal] = document.id();
+            this.names[ordinal] = document.name();
+            this.prices[ordinal] = document.price();
+            this.stocks[ordinal] = document.stock();
+            for (int t = 0; t < document.terms().length; t++) {
+                this.postings.computeIfAbsent(document.terms()[t], term -> new Postings()).add(ordinal, document.fields()[t]);
+            }
+        }
+
+        Segment build() {
+            String[] terms = this.postings.keySet().toArray(String[]::new);
+            Arrays.sort(terms);
+            int[][] docs = new int[terms.length][];
+            byte[][] fields = new byte[terms.length][];
+            for (int t = 0; t < terms.length; t++) {
+                Postings termPostings = this.postings.get(terms[t]);
+                docs[t] = termPostings.trimmedDocs();
+                fields[t] = termPostings.trimmedFields();
+            }
+            return new Segment(Arrays.copyOf(this.ids, this.size), Arrays.copyOf(this.names, this.size), Arrays.copyOf(this.prices, this.size),
+                Arrays.copyOf(this.stocks, this.size), terms, docs, fields);
+        }
+    }
+}
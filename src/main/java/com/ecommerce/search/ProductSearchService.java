@@ -0,0 +1,112 @@
+package com.ecommerce.search;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.ecommerce.dto.ProductSearchHitDTO;
+import com.ecommerce.event.EventBus;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.ProductService;
+
+import lombok.extern.slf4j.Slf4j;
+
+// mantiene el índice de búsqueda al día: se construye al arrancar recorriendo el catálogo
+// y después se refresca con los productos que cambiaron, anotados desde el bus de eventos y cargados en lote
+@Slf4j
+@Service
+public class ProductSearchService {
+
+    public static final int MAX_RESULTS = 100;
+
+    private final ProductService productService;
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex index;
+    private final Set<Long> changedProductIds = ConcurrentHashMap.newKeySet();
+    private final int refreshBatchSize;
+    private final int mergeThreshold;
+
+    public ProductSearchService(ProductService productService, ProductRepository productRepository, EventBus eventBus,
+            @Value("${products.search.max-prefix-expansions:50}") int maxPrefixExpansions,
+            @Value("${products.search.refresh-batch-size:1000}") int refreshBatchSize,
+            @Value("${products.search.merge-threshold:5000}") int mergeThreshold) {
+        this.productService = productService;
+        this.productRepository = productRepository;
+        this.index = new ProductSearchIndex(maxPrefixExpansions);
+        this.refreshBatchSize = refreshBatchSize;
+        this.mergeThreshold = mergeThreshold;
+        // solo se anota el id: el refresco periódico lee los productos cambiados en lote
+        eventBus.subscribe(ProductChangedEvent.class, events -> events.forEach(event -> this.changedProductIds.add(event.productId())));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        long start = System.nanoTime();
+        this.index.rebuild(this.productService::streamProducts);
+        log.info("Product search index built with {} products in {} ms", this.index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public List<ProductSearchHitDTO> search(String query, BigDecimal minPrice, BigDecimal maxPrice, boolean inStockOnly, int size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be blank");
+        }
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new IllegalArgumentException("minPrice must not be greater than maxPrice");
+        }
+        return this.index.search(query, minPrice, maxPrice, inStockOnly, Math.min(Math.max(size, 1), MAX_RESULTS));
+    }
+
+    public List<String> suggest(String prefix, int size) {
+        return this.index.suggest(prefix, Math.min(Math.max(size, 1), MAX_RESULTS));
+    }
+
+    @Scheduled(fixedDelayString = "${products.search.refresh-interval-ms:500}")
+    public void refresh() {
+        while (!this.changedProductIds.isEmpty()) {
+            List<Long> batch = new ArrayList<>(this.refreshBatchSize);
+            Iterator<Long> pending = this.changedProductIds.iterator();
+            while (pending.hasNext() && batch.size() < this.refreshBatchSize) {
+                batch.add(pending.next());
+                pending.remove();
+            }
+            // se sacan antes de leer para no perder un cambio que llegue durante la lectura;
+            // si la lectura falla vuelven al conjunto y se reintentan en el próximo refresco
+            try {
+                Map<Long, Product> products = this.productRepository.findAllById(batch).stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+                for (Long productId : batch) {
+                    Product product = products.get(productId);
+                    if (product == null) {
+                        this.index.delete(productId);
+                    } else {
+                        this.index.upsert(product);
+                    }
+                }
+            } catch (RuntimeException ex) {
+                this.changedProductIds.addAll(batch);
+                throw ex;
+            }
+        }
+        if (this.index.pendingChanges() >= this.mergeThreshold) {
+            this.index.merge();
+        }
+    }
+}
@@ -1,18 +1,25 @@
 package com.ecommerce.security;
 
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.ecommerce.model.User;
 import com.ecommerce.repository.UserRepository;
 
 @Service
-public class JpaUserDetailsService implements UserDetailsService {
+public class JpaUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
+    public static final String PRINCIPALS_CACHE = "principals";
 
     private final UserRepository userRepository;
 
@@ -21,16 +28,32 @@ public class JpaUserDetailsService implements UserDetailsService {
     }
 
     @Override
-    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+    public AuthenticatedUser loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = this.userRepository.findByUsername(username)
             .orElseThrow(() -> new UsernameNotFoundException("Username not found with username: " + username));
-        return new org.springframework.security.core.userdetails.User(
-            user.getUsername(),
-            user.getPassword(),
-            user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority(role.getName()))
-                .collect(Collectors.toSet())
-        );
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getPassword(), authoritiesOf(user));
+    }
+
+    // usado por el filtro JWT en cada request: se cachea sin la contraseña y con un TTL corto
+    @Cacheable(cacheNames = PRINCIPALS_CACHE, key = "#id")
+    public AuthenticatedUser loadUserById(Long id) throws UsernameNotFoundException {
+        User user = this.userRepository.findById(id)
+            .orElseThrow(() -> new UsernameNotFoundException("Username not found with id: " + id));
+        return new AuthenticatedUser(user.getId(), user.getUsername(), null, authoritiesOf(user));
     }
 
+    // invocado por DaoAuthenticationProvider tras un login correcto cuando el hash usa un algoritmo o costo anterior
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        this.userRepository.updatePasswordByUsername(user.getUsername(), newPassword);
+        AuthenticatedUser authenticatedUser = (AuthenticatedUser) user;
+        return new AuthenticatedUser(authenticatedUser.getId(), authenticatedUser.getUsername(), newPassword, Set.copyOf(authenticatedUser.getAuthorities()));
+    }
+
+    private Set<GrantedAuthority> authoritiesOf(User user) {
+        return user.getRoles().stream()
+            .map(role -> new SimpleGrantedAuthority(role.getName()))
+            .collect(Collectors.toUnmodifiableSet());
+    }
 }
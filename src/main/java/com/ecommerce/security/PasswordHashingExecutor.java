@@ -0,0 +1,36 @@
+package com.ecommerce.security;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// ejecuta login y registro fuera del hilo del request y mide espera en cola y tiempo de hash
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolTaskExecutor executor;
+    private final MeterRegistry meterRegistry;
+
+    public PasswordHashingExecutor(@Qualifier("passwordHashingTaskExecutor") ThreadPoolTaskExecutor executor, MeterRegistry meterRegistry) {
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("auth.hashing.queue.size", executor, ThreadPoolTaskExecutor::getQueueSize)
+            .description("Tareas de hash de contraseñas en espera")
+            .register(meterRegistry);
+    }
+
+    public <T> CompletableFuture<T> submit(String operation, Supplier<T> task) {
+        Timer.Sample queued = Timer.start(this.meterRegistry);
+        return CompletableFuture.supplyAsync(() -> {
+            queued.stop(this.meterRegistry.timer("auth.hashing.wait", "operation", operation));
+            return this.meterRegistry.timer("auth.hashing.duration", "operation", operation).record(task);
+        }, this.executor);
+    }
+}
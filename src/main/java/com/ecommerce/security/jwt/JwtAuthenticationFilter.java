@@ -11,6 +11,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.ecommerce.security.JpaUserDetailsService;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -37,11 +38,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
-        username = jwtService.extractUsername(jwt);
+        // una única verificación del token por request
+        final Claims claims = this.jwtService.extractAllClaims(jwt);
+        username = claims.getSubject();
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.jpaUserDetailsService.loadUserByUsername(username);
-            if (this.jwtService.isTokenValid(jwt, userDetails)) {
+            Long userId = this.jwtService.extractUserId(claims);
+            // con el id del token el principal sale de la caché, sin consultar la base de datos
+            UserDetails userDetails = userId != null
+                ? this.jpaUserDetailsService.loadUserById(userId)
+                : this.jpaUserDetailsService.loadUserByUsername(username);
+            if (this.jwtService.isTokenValid(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = UsernamePasswordAuthenticationToken.authenticated(userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
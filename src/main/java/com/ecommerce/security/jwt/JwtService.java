@@ -6,10 +6,17 @@ import java.util.Date;
 
 import javax.crypto.SecretKey;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import com.ecommerce.security.AuthenticatedUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 
@@ -22,9 +29,27 @@ public class JwtService {
 
     private static final long EXPIRATION_TIME = Duration.ofHours(24).toMillis();
 
-    public String generateToken(UserDetails userDetails) {
+    private static final String USER_ID_CLAIM = "uid";
+
+    // el parser es inmutable y thread-safe: se construye una sola vez
+    private final JwtParser jwtParser = Jwts.parser().verifyWith(SECRET_KEY).build();
+
+    // tokens ya verificados -> claims; cada entrada caduca junto con el token
+    private final Cache<String, Claims> verifiedTokens;
+
+    public JwtService(@Value("${security.jwt.verified-cache.maximum-size:10000}") long verifiedCacheSize) {
+        this.verifiedTokens = verifiedCacheSize > 0
+            ? Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new ExpireAtTokenExpiration())
+                .build()
+            : null;
+    }
+
+    public String generateToken(AuthenticatedUser user) {
         return Jwts.builder()
-            .subject(userDetails.getUsername())
+            .subject(user.getUsername())
+            .claim(USER_ID_CLAIM, user.getId())
             .issuedAt(new Date(System.currentTimeMillis()))
             .expiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
             .signWith(SECRET_KEY)
@@ -35,19 +60,59 @@ public class JwtService {
         return extractAllClaims(token).getSubject();
     }
 
+    // null en tokens emitidos antes de incluir el id
+    public Long extractUserId(String token) {
+        return extractUserId(extractAllClaims(token));
+    }
+
+    public Long extractUserId(Claims claims) {
+        return claims.get(USER_ID_CLAIM, Long.class);
+    }
+
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        return extractUsername(token).equals(userDetails.getUsername()) && !isTokenExpired(token);
+        return isTokenValid(extractAllClaims(token), userDetails);
+    }
+
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims);
     }
 
     public boolean isTokenExpired(String token) {
-        return extractAllClaims(token).getExpiration().before(new Date());
+        return isTokenExpired(extractAllClaims(token));
+    }
+
+    private boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
 
+    // verifica firma y expiración una sola vez por token; las siguientes llamadas salen de la caché
     public Claims extractAllClaims(String token) {
-        return Jwts.parser()
-            .verifyWith(SECRET_KEY)
-            .build()
-            .parseSignedClaims(token)
-            .getPayload();
+        if (this.verifiedTokens == null) {
+            return parseAndVerify(token);
+        }
+        return this.verifiedTokens.get(token, this::parseAndVerify);
+    }
+
+    private Claims parseAndVerify(String token) {
+        return this.jwtParser.parseSignedClaims(token).getPayload();
+    }
+
+    private static class ExpireAtTokenExpiration implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String token, Claims claims, long currentTime) {
+            long millisLeft = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return Duration.ofMillis(Math.max(millisLeft, 0)).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -2,7 +2,7 @@ package com.ecommerce.service;
 
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 
 import com.ecommerce.dto.AuthRequestDTO;
@@ -10,7 +10,7 @@ import com.ecommerce.dto.AuthResponseDTO;
 import com.ecommerce.dto.RegisterRequestDTO;
 import com.ecommerce.dto.UserDTO;
 import com.ecommerce.model.User;
-import com.ecommerce.security.JpaUserDetailsService;
+import com.ecommerce.security.AuthenticatedUser;
 import com.ecommerce.security.jwt.JwtService;
 
 import lombok.RequiredArgsConstructor;
@@ -19,16 +19,16 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class AuthService {
     private final AuthenticationManager authenticationManager;
-    private final JpaUserDetailsService userDetailsService;
     private final JwtService jwtService;
     private final UserService userService;
     private final CartService cartService;
 
     public AuthResponseDTO login(AuthRequestDTO request) {
-        this.authenticationManager.authenticate(
+        Authentication authentication = this.authenticationManager.authenticate(
             new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
         );
-        UserDetails user = this.userDetailsService.loadUserByUsername(request.getUsername());
+        // el principal autenticado ya trae el id: no hace falta volver a buscar el usuario
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
         String token = this.jwtService.generateToken(user);
         return AuthResponseDTO.builder()
             .token(token)
@@ -0,0 +1,93 @@
+package com.ecommerce.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+// vacía los carritos que nadie toca desde hace abandoned-after; el carrito queda (uno por usuario), sus ítems se borran.
+// los carritos se recorren por id en lotes de chunk-size y cada lote se borra en su propia transacción,
+// así ningún bloqueo dura más que un lote. en la misma pasada se limpian las reservas blandas vencidas
+@Slf4j
+@Component
+public class CartExpiry {
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final CartHolds cartHolds;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter purged;
+    private final Timer chunkTime;
+    private final boolean enabled;
+    private final Duration abandonedAfter;
+    private final int chunkSize;
+
+    public CartExpiry(CartRepository cartRepository, CartItemRepository cartItemRepository, CartHolds cartHolds,
+            TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+            @Value("${carts.expiry.enabled:true}") boolean enabled,
+            @Value("${carts.expiry.abandoned-after:14d}") Duration abandonedAfter,
+            @Value("${carts.expiry.chunk-size:200}") int chunkSize) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.cartHolds = cartHolds;
+        this.transactionTemplate = transactionTemplate;
+        this.purged = Counter.builder("carts.expiry.purged")
+            .description("Ítems borrados de carritos abandonados")
+            .register(meterRegistry);
+        this.chunkTime = Timer.builder("carts.expiry.chunk")
+            .description("Duración de cada transacción de borrado, lo que más puede esperar una alta sobre esos carritos")
+            .register(meterRegistry);
+        this.enabled = enabled;
+        this.abandonedAfter = abandonedAfter;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(fixedDelayString = "${carts.expiry.interval-ms:60000}")
+    public void expire() {
+        if (!this.enabled) {
+            return;
+        }
+        int items = purgeAbandoned(LocalDateTime.now().minus(this.abandonedAfter));
+        if (items > 0) {
+            log.info("Purged {} items from abandoned carts", items);
+        }
+        if (this.cartHolds.isEnabled()) {
+            this.cartHolds.releaseExpired(this.chunkSize);
+        }
+    }
+
+    public int purgeAbandoned(LocalDateTime cutoff) {
+        int deleted = 0;
+        long afterId = 0L;
+        List<Long> cartIds;
+        do {
+            cartIds = this.cartRepository.findAbandonedIdsAfter(afterId, cutoff, Limit.of(this.chunkSize));
+            if (cartIds.isEmpty()) {
+                break;
+            }
+            List<Long> chunk = cartIds;
+            // primero la versión: deja bloqueados los carritos y los que alguien tocó entretanto quedan fuera del borrado
+            int chunkDeleted = this.chunkTime.record(() -> this.transactionTemplate.execute(status -> {
+                this.cartRepository.incrementVersionsIfUntouchedSince(chunk, cutoff);
+                return this.cartItemRepository.bulkDeleteByCartIdsUntouchedSince(chunk, cutoff);
+            }));
+            this.purged.increment(chunkDeleted);
+            deleted += chunkDeleted;
+            afterId = cartIds.get(cartIds.size() - 1);
+        } while (cartIds.size() == this.chunkSize);
+        return deleted;
+    }
+}
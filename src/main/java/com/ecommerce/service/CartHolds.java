@@ -0,0 +1,72 @@
+package com.ecommerce.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.dto.ProductQuantityDTO;
+import com.ecommerce.repository.CartItemRepository;
+
+// reservas blandas: cada línea que se agrega o modifica aparta sus unidades durante un tiempo y otros carritos
+// no pueden sumarlas mientras tanto; el checkout sigue descontando del stock real, así que nunca bloquean una compra
+@Component
+public class CartHolds {
+
+    private final CartItemRepository cartItemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration duration;
+
+    public CartHolds(CartItemRepository cartItemRepository, TransactionTemplate transactionTemplate,
+            @Value("${carts.holds.enabled:false}") boolean enabled,
+            @Value("${carts.holds.duration:15m}") Duration duration) {
+        this.cartItemRepository = cartItemRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.duration = duration;
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    // unidades apartadas por los carritos de otros usuarios; vacío si las reservas están desactivadas
+    public Map<Long, Integer> heldByOthers(Long userId, Collection<Long> productIds) {
+        if (!this.enabled || productIds.isEmpty()) {
+            return Map.of();
+        }
+        return this.cartItemRepository.sumHeldQuantitiesByProduct(productIds, userId, LocalDateTime.now()).stream()
+            .collect(Collectors.toMap(ProductQuantityDTO::productId, held -> held.quantity().intValue()));
+    }
+
+    // se llama dentro de la transacción que modificó las líneas
+    public void hold(Long cartId, Collection<Long> productIds) {
+        if (this.enabled && !productIds.isEmpty()) {
+            this.cartItemRepository.hold(cartId, productIds, LocalDateTime.now().plus(this.duration));
+        }
+    }
+
+    // las vencidas ya no cuentan; se limpian por lotes para que el índice solo recorra las vigentes
+    public int releaseExpired(int chunkSize) {
+        int released = 0;
+        List<Long> itemIds;
+        do {
+            LocalDateTime now = LocalDateTime.now();
+            itemIds = this.cartItemRepository.findIdsByHeldUntilNotAfter(now, Limit.of(chunkSize));
+            if (itemIds.isEmpty()) {
+                break;
+            }
+            List<Long> chunk = itemIds;
+            released += this.transactionTemplate.execute(status -> this.cartItemRepository.releaseHolds(chunk, now));
+        } while (itemIds.size() == chunkSize);
+        return released;
+    }
+}
@@ -1,14 +1,26 @@
 package com.ecommerce.service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.ConstraintViolationException.ConstraintKind;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.ecommerce.dto.CartDTO;
 import com.ecommerce.dto.CartItemDTO;
-import com.ecommerce.mapper.CartItemMapper;
+import com.ecommerce.dto.CartItemOperationDTO;
 import com.ecommerce.mapper.CartMapper;
 import com.ecommerce.model.Cart;
 import com.ecommerce.model.CartItem;
@@ -20,18 +32,25 @@ import com.ecommerce.repository.CartRepository;
 @Service
 public class CartService {
 
+    public static final int MAX_BATCH_OPERATIONS = 100;
+
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final ProductService productService;
     private final CartMapper cartMapper;
-    private final CartItemMapper cartItemMapper;
+    private final CartHolds cartHolds;
+    private final TransactionTemplate transactionTemplate;
+    private final RetryTemplate retryTemplate;
 
-    public CartService(CartRepository cartRepository, CartItemRepository cartItemRepository, ProductService productService, CartMapper cartMapper, CartItemMapper cartItemMapper) {
+    public CartService(CartRepository cartRepository, CartItemRepository cartItemRepository, ProductService productService, CartMapper cartMapper,
+            CartHolds cartHolds, TransactionTemplate transactionTemplate, RetryTemplate retryTemplate) {
         this.cartRepository = cartRepository;
         this.cartItemRepository = cartItemRepository;
         this.productService = productService;
         this.cartMapper = cartMapper;
-        this.cartItemMapper = cartItemMapper;
+        this.cartHolds = cartHolds;
+        this.transactionTemplate = transactionTemplate;
+        this.retryTemplate = retryTemplate;
     }
 
     public Cart createCartForUser(User user) {
@@ -40,32 +59,127 @@ public class CartService {
         return this.cartRepository.save(newCart);
     }
 
-    @Transactional
-    public Optional<CartItemDTO> addProductToCart(Long cartId, Long productId, int quantity) {
-        Optional<Cart> optionalCart = this.cartRepository.findById(cartId);
-        Cart cart = optionalCart.orElseThrow(() -> new NoSuchElementException("Cart not found with id: " + cartId));
+    // cada intento corre en su propia transacción: si choca con otra alta al mismo carrito se deshace
+    // solo ese intento y se repite, sin bloquear filas mientras se espera
+    public Optional<CartItemDTO> addProductToCart(Long userId, Long productId, int quantity) {
         Optional<Product> optionalProduct = this.productService.getProductById(productId);
         Product product = optionalProduct.orElseThrow(() -> new NoSuchElementException("Product not found with id: " + productId));
         if (product.getStock() == 0) {
             throw new IllegalStateException("Product is out of stock");
         }
-        if (product.getStock() < quantity) {
+        int held = this.cartHolds.heldByOthers(userId, List.of(productId)).getOrDefault(productId, 0);
+        if (product.getStock() - held < quantity) {
             throw new IllegalStateException("Insufficient stock for product: " + product.getName());
         }
-        CartItem savedItem;
-        Optional<CartItem> optionalCartItem = this.cartItemRepository.findByCartIdAndProductId(cartId, productId);
-        if(optionalCartItem.isPresent()) {
-            CartItem existingItem = optionalCartItem.get();
-            existingItem.setQuantity(existingItem.getQuantity() + quantity);
-            savedItem = this.cartItemRepository.save(existingItem);
-        } else {
+        return Optional.of(this.retryTemplate.execute(context -> this.transactionTemplate.execute(status -> upsertCartItem(userId, product, quantity))));
+    }
+
+    private CartItemDTO upsertCartItem(Long userId, Product product, int quantity) {
+        Long cartId = this.cartRepository.findIdByUserId(userId).orElseThrow(() -> new NoSuchElementException("Cart not found for user: " + userId));
+        if (this.cartItemRepository.incrementQuantity(cartId, product.getId(), quantity) == 0) {
+            // primera alta del producto; si otra petición lo insertó antes, la restricción única la rechaza y se reintenta
             CartItem newItem = new CartItem();
-            newItem.setCart(cart);
+            newItem.setCart(this.cartRepository.getReferenceById(cartId));
             newItem.setProduct(product);
             newItem.setQuantity(quantity);
-            savedItem = this.cartItemRepository.save(newItem);
+            writeItems(() -> this.cartItemRepository.saveAndFlush(newItem));
+        }
+        this.cartRepository.incrementVersion(cartId);
+        this.cartHolds.hold(cartId, List.of(product.getId()));
+        return this.cartItemRepository.findItemDtoByCartIdAndProductId(cartId, product.getId()).orElseThrow();
+    }
+
+    // todo el lote en una transacción: una consulta para los productos, otra para las líneas del carrito
+    // y las escrituras agrupadas en batches JDBC; si otra petición cambió una línea se repite el lote completo
+    public CartDTO updateCartItems(Long userId, List<CartItemOperationDTO> operations) {
+        Map<Long, List<CartItemOperationDTO>> operationsByProductId = groupOperations(operations);
+        return this.retryTemplate.execute(context -> this.transactionTemplate.execute(status -> applyOperations(userId, operationsByProductId)));
+    }
+
+    private Map<Long, List<CartItemOperationDTO>> groupOperations(List<CartItemOperationDTO> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("At least one cart operation is required");
+        }
+        if (operations.size() > MAX_BATCH_OPERATIONS) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_OPERATIONS + " cart operations are allowed per request");
+        }
+        // se conserva el orden de llegada: varias operaciones sobre el mismo producto se aplican una tras otra
+        Map<Long, List<CartItemOperationDTO>> operationsByProductId = new LinkedHashMap<>();
+        for (CartItemOperationDTO operation : operations) {
+            if (operation == null || operation.getProductId() == null || operation.getQuantity() == null) {
+                throw new IllegalArgumentException("Every cart operation needs a productId and a quantity");
+            }
+            operationsByProductId.computeIfAbsent(operation.getProductId(), productId -> new ArrayList<>()).add(operation);
+        }
+        return operationsByProductId;
+    }
+
+    private CartDTO applyOperations(Long userId, Map<Long, List<CartItemOperationDTO>> operationsByProductId) {
+        Cart cart = this.cartRepository.findWithUserAndRolesByUserId(userId).orElseThrow(() -> new NoSuchElementException("Cart not found for user: " + userId));
+        Map<Long, Product> products = this.productService.getProductsByIds(operationsByProductId.keySet()).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+        Map<Long, CartItem> items = this.cartItemRepository.findByCartId(cart.getId()).stream()
+            .collect(Collectors.toMap(item -> item.getProduct().getId(), Function.identity()));
+        Map<Long, Integer> heldByOthers = this.cartHolds.heldByOthers(userId, operationsByProductId.keySet());
+
+        List<CartItem> newItems = new ArrayList<>();
+        List<CartItem> removedItems = new ArrayList<>();
+        List<Long> heldProductIds = new ArrayList<>();
+        for (Map.Entry<Long, List<CartItemOperationDTO>> entry : operationsByProductId.entrySet()) {
+            Product product = products.get(entry.getKey());
+            if (product == null) {
+                throw new NoSuchElementException("Product not found with id: " + entry.getKey());
+            }
+            CartItem item = items.get(product.getId());
+            int current = item == null ? 0 : item.getQuantity();
+            int quantity = current;
+            for (CartItemOperationDTO operation : entry.getValue()) {
+                quantity = operation.getMode() == CartItemOperationDTO.Mode.SET ? operation.getQuantity() : quantity + operation.getQuantity();
+            }
+            // el stock solo se valida si la cantidad sube: quitar unidades siempre está permitido
+            if (quantity > current) {
+                if (product.getStock() == 0) {
+                    throw new IllegalStateException("Product is out of stock");
+                }
+                if (product.getStock() - heldByOthers.getOrDefault(product.getId(), 0) < quantity) {
+                    throw new IllegalStateException("Insufficient stock for product: " + product.getName());
+                }
+            }
+            if (quantity <= 0) {
+                if (item != null) {
+                    removedItems.add(item);
+                }
+                continue;
+            }
+            if (item == null) {
+                newItems.add(new CartItem(null, cart, product, quantity));
+            } else {
+                item.setQuantity(quantity);
+            }
+            heldProductIds.add(product.getId());
+        }
+
+        writeItems(() -> {
+            this.cartItemRepository.saveAll(newItems);
+            this.cartItemRepository.deleteAll(removedItems);
+            this.cartItemRepository.flush();
+        });
+        this.cartRepository.incrementVersion(cart.getId());
+        this.cartHolds.hold(cart.getId(), heldProductIds);
+        return this.cartMapper.toCartDto(cart, this.cartItemRepository.findItemDtosByCartId(cart.getId()));
+    }
+
+    // JPA traduce toda violación de restricción igual; solo la clave única duplicada (otra petición
+    // insertó la misma línea) se convierte en DuplicateKeyException para que se reintente
+    private void writeItems(Runnable write) {
+        try {
+            write.run();
+        } catch (DataIntegrityViolationException ex) {
+            if (ex.getCause() instanceof ConstraintViolationException violation && violation.getKind() == ConstraintKind.UNIQUE) {
+                throw new DuplicateKeyException(ex.getMessage(), ex);
+            }
+            throw ex;
         }
-        return Optional.of(this.cartItemMapper.toCartItemDto(savedItem));
     }
 
     public Cart saveCart(Cart cart) {
@@ -73,11 +187,23 @@ public class CartService {
     }
 
     public Optional<Cart> getCartByUserId(Long userId) {
-        return this.cartRepository.findById(userId);
+        return this.cartRepository.findByUserId(userId);
+    }
+
+    public Optional<Cart> getCartWithItemsByUserId(Long userId) {
+        return this.cartRepository.findWithItemsAndProductsByUserId(userId);
     }
 
+    // dos consultas fijas: cabecera (carrito, usuario, roles) e ítems proyectados
+    @Transactional(readOnly = true)
     public Optional<CartDTO> getCartDTOByUserId(Long userId) {
-        return this.cartRepository.findByUserId(userId).map(this::toCartDto);
+        return this.cartRepository.findWithUserAndRolesByUserId(userId)
+            .map(cart -> this.cartMapper.toCartDto(cart, this.cartItemRepository.findItemDtosByCartId(cart.getId())));
+    }
+
+    // solo la versión: alcanza para responder 304 sin cargar ni mapear el carrito
+    public Optional<String> getCartVersionByUserId(Long userId) {
+        return this.cartRepository.findContentVersionByUserId(userId);
     }
 
     public CartDTO toCartDto(Cart cart) {
@@ -86,6 +212,7 @@ public class CartService {
 
     @Transactional
     public void clearCartItems(Long cartId) {
-        this.cartItemRepository.deleteAll(this.cartItemRepository.findByCartId(cartId));
+        this.cartItemRepository.bulkDeleteByCartId(cartId);
+        this.cartRepository.incrementVersion(cartId);
     }
 }
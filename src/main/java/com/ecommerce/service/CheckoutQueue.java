@@ -0,0 +1,235 @@
+package com.ecommerce.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Limit;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.dto.CheckoutStatusDTO;
+import com.ecommerce.model.CheckoutRequest;
+import com.ecommerce.model.CheckoutStatus;
+import com.ecommerce.model.Order;
+import com.ecommerce.repository.CheckoutRequestRepository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+// checkout asíncrono: el request solo inserta la solicitud en 'checkout_requests' y responde 202;
+// los workers toman grupos de solicitudes y confirman varios pedidos en una sola transacción (group commit).
+// si un pedido del grupo falla se deshace el grupo entero y sus solicitudes se repiten de a una,
+// para que un carrito sin stock no arrastre a los demás
+@Slf4j
+@Component
+public class CheckoutQueue {
+
+    public static final Duration MAX_WAIT = Duration.ofSeconds(30);
+
+    private final CheckoutRequestRepository checkoutRequestRepository;
+    private final OrderService orderService;
+    private final TransactionTemplate transactionTemplate;
+    private final RetryTemplate retryTemplate;
+    private final ThreadPoolTaskExecutor executor;
+    private final DistributionSummary groupSizes;
+    private final boolean enabled;
+    private final int groupSize;
+    private final Duration processingTimeout;
+    private final Semaphore idleWorkers;
+    private final Map<Long, CompletableFuture<CheckoutStatusDTO>> waiters = new ConcurrentHashMap<>();
+
+    // solicitudes tomadas juntas; 'claimedAt' identifica esta toma al confirmarlas o marcarlas como fallidas
+    private record ClaimedGroup(LocalDateTime claimedAt, List<CheckoutRequest> requests) {
+    }
+
+    public CheckoutQueue(CheckoutRequestRepository checkoutRequestRepository, OrderService orderService, TransactionTemplate transactionTemplate,
+            RetryTemplate retryTemplate, @Qualifier("checkoutWorkerExecutor") ThreadPoolTaskExecutor executor, MeterRegistry meterRegistry,
+            @Value("${orders.checkout-queue.enabled:false}") boolean enabled,
+            @Value("${orders.checkout-queue.group-size:16}") int groupSize,
+            @Value("${orders.checkout-queue.processing-timeout:5m}") Duration processingTimeout) {
+        this.checkoutRequestRepository = checkoutRequestRepository;
+        this.orderService = orderService;
+        this.transactionTemplate = transactionTemplate;
+        this.retryTemplate = retryTemplate;
+        this.executor = executor;
+        this.groupSizes = DistributionSummary.builder("orders.checkout.group.size")
+            .description("Pedidos confirmados por transacción en el checkout asíncrono")
+            .register(meterRegistry);
+        this.enabled = enabled;
+        this.groupSize = groupSize;
+        this.processingTimeout = processingTimeout;
+        this.idleWorkers = new Semaphore(executor.getMaxPoolSize());
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    // sin workers la solicitud quedaría en QUEUED para siempre
+    public CheckoutStatusDTO enqueue(Long userId) {
+        if (!this.enabled) {
+            throw new IllegalStateException("Asynchronous checkout is disabled");
+        }
+        CheckoutRequest request = this.checkoutRequestRepository.save(new CheckoutRequest(userId));
+        wakeUpWorker();
+        return toDto(request);
+    }
+
+    public CheckoutStatusDTO getStatus(Long userId, Long requestId) {
+        return this.checkoutRequestRepository.findByIdAndUserId(requestId, userId)
+            .map(CheckoutQueue::toDto)
+            .orElseThrow(() -> new NoSuchElementException("Checkout request not found with id: " + requestId));
+    }
+
+    // long polling sin ocupar un hilo mientras se espera: responde al terminar la solicitud o al vencer
+    // la espera, en ese caso con el último estado leído
+    public CompletableFuture<CheckoutStatusDTO> awaitStatus(Long userId, Long requestId, Duration wait) {
+        if (wait.isZero() || wait.isNegative()) {
+            return CompletableFuture.completedFuture(getStatus(userId, requestId));
+        }
+        // se registra antes de leer: si termina entre la lectura y la espera, el aviso no se pierde
+        CompletableFuture<CheckoutStatusDTO> finished = this.waiters.computeIfAbsent(requestId, id -> new CompletableFuture<>());
+        CheckoutStatusDTO current;
+        try {
+            current = getStatus(userId, requestId);
+        } catch (NoSuchElementException ex) {
+            this.waiters.remove(requestId, finished);
+            throw ex;
+        }
+        if (current.status().isFinished()) {
+            this.waiters.remove(requestId, finished);
+            return CompletableFuture.completedFuture(current);
+        }
+        // cada cliente espera sobre una copia: su vencimiento no completa la espera de los demás
+        long waitMillis = (wait.compareTo(MAX_WAIT) > 0 ? MAX_WAIT : wait).toMillis();
+        return finished.copy().completeOnTimeout(current, waitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // respaldo de los avisos de enqueue (otras instancias, avisos perdidos) y rescate de solicitudes abandonadas
+    @Scheduled(fixedDelayString = "${orders.checkout-queue.poll-interval-ms:200}")
+    public void poll() {
+        if (!this.enabled) {
+            return;
+        }
+        LocalDateTime claimedBefore = LocalDateTime.now().minus(this.processingTimeout);
+        int requeued = this.transactionTemplate.execute(status -> this.checkoutRequestRepository.requeueClaimedBefore(claimedBefore));
+        if (requeued > 0) {
+            log.warn("Requeued {} checkout requests abandoned by their worker", requeued);
+        }
+        wakeUpWorker();
+    }
+
+    private void wakeUpWorker() {
+        if (this.enabled && this.idleWorkers.tryAcquire()) {
+            try {
+                this.executor.execute(this::drain);
+            } catch (TaskRejectedException ex) {
+                // el executor se está apagando: la solicitud sigue en la tabla
+                this.idleWorkers.release();
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            ClaimedGroup group;
+            while (!(group = claimGroup()).requests().isEmpty()) {
+                process(group.requests(), group.claimedAt());
+            }
+        } catch (RuntimeException ex) {
+            log.error("Checkout worker stopped, pending requests will be picked up by the next poll", ex);
+        } finally {
+            this.idleWorkers.release();
+        }
+    }
+
+    // a lo sumo una solicitud por usuario en cada grupo: un segundo pedido del mismo carrito en la misma
+    // transacción leería el carrito que el primero ya vació desde el contexto de persistencia.
+    // sincronizado para que los workers locales no compitan por las mismas filas
+    private synchronized ClaimedGroup claimGroup() {
+        return this.transactionTemplate.execute(status -> {
+            // a microsegundos, la precisión de la columna: el token se compara por igualdad con lo guardado
+            LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            Set<Long> userIds = new HashSet<>();
+            List<CheckoutRequest> group = new ArrayList<>();
+            for (CheckoutRequest request : this.checkoutRequestRepository.findByStatusOrderByIdAsc(CheckoutStatus.QUEUED, Limit.of(this.groupSize))) {
+                if (userIds.add(request.getUserId()) && this.checkoutRequestRepository.claim(request.getId(), now) == 1) {
+                    group.add(request);
+                }
+            }
+            return new ClaimedGroup(now, group);
+        });
+    }
+
+    private void process(List<CheckoutRequest> group, LocalDateTime claimedAt) {
+        List<CheckoutStatusDTO> finished;
+        try {
+            finished = this.retryTemplate.execute(context -> this.transactionTemplate.execute(status -> placeOrders(group, claimedAt)));
+            this.groupSizes.record(group.size());
+        } catch (RuntimeException ex) {
+            if (group.size() > 1) {
+                group.forEach(request -> process(List.of(request), claimedAt));
+                return;
+            }
+            CheckoutStatusDTO failed = fail(group.get(0), claimedAt, ex);
+            finished = failed == null ? List.of() : List.of(failed);
+        }
+        finished.forEach(this::notifyWaiters);
+    }
+
+    private List<CheckoutStatusDTO> placeOrders(List<CheckoutRequest> group, LocalDateTime claimedAt) {
+        LocalDateTime now = LocalDateTime.now();
+        List<CheckoutStatusDTO> completed = new ArrayList<>(group.size());
+        for (CheckoutRequest request : group) {
+            Order order = this.orderService.placeOrder(request.getUserId());
+            // si se venció el plazo y otro worker la retomó, el token ya no coincide: la excepción deshace este pedido
+            if (this.checkoutRequestRepository.complete(request.getId(), claimedAt, order.getId(), now) == 0) {
+                throw new IllegalStateException("Checkout request " + request.getId() + " is no longer claimed by this worker");
+            }
+            completed.add(new CheckoutStatusDTO(request.getId(), CheckoutStatus.COMPLETED, order.getId(), null, request.getCreatedAt(), now));
+        }
+        return completed;
+    }
+
+    private CheckoutStatusDTO fail(CheckoutRequest request, LocalDateTime claimedAt, RuntimeException ex) {
+        // los errores de negocio (carrito vacío, stock insuficiente) se informan al cliente; el resto solo queda en el log
+        boolean businessError = ex instanceof IllegalStateException || ex instanceof IllegalArgumentException || ex instanceof NoSuchElementException;
+        if (!businessError) {
+            log.error("Checkout request {} failed", request.getId(), ex);
+        }
+        String error = businessError ? ex.getMessage() : "Checkout could not be processed";
+        LocalDateTime now = LocalDateTime.now();
+        int updated = this.transactionTemplate.execute(status -> this.checkoutRequestRepository.fail(request.getId(), claimedAt, error, now));
+        return updated == 0 ? null : new CheckoutStatusDTO(request.getId(), CheckoutStatus.FAILED, null, error, request.getCreatedAt(), now);
+    }
+
+    private void notifyWaiters(CheckoutStatusDTO status) {
+        CompletableFuture<CheckoutStatusDTO> waiter = this.waiters.remove(status.id());
+        if (waiter != null) {
+            waiter.complete(status);
+        }
+    }
+
+    private static CheckoutStatusDTO toDto(CheckoutRequest request) {
+        return new CheckoutStatusDTO(request.getId(), request.getStatus(), request.getOrderId(), request.getError(),
+            request.getCreatedAt(), request.getCompletedAt());
+    }
+}
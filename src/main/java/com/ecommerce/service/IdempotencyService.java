@@ -0,0 +1,190 @@
+package com.ecommerce.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.model.IdempotencyRecord;
+import com.ecommerce.model.IdempotencyRecord.Operation;
+import com.ecommerce.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Idempotency-Key: la primera petición con una clave se ejecuta y su respuesta se guarda; los reintentos
+// reciben esa misma respuesta sin volver a ejecutar la operación. las respuestas recientes se sirven desde
+// una caché acotada en memoria (búsqueda por hash); la tabla 'idempotency_records' las conserva tras un reinicio
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache<RecordKey, StoredResponse> responses;
+    private final Duration ttl;
+    private final Duration processingLease;
+    private final int purgeBatchSize;
+
+    private record RecordKey(Long userId, Operation operation, String idempotencyKey) {
+    }
+
+    // el cuerpo se guarda serializado: cada reintento recibe su propia copia, aunque alguien modifique la anterior
+    private record StoredResponse(String requestFingerprint, int statusCode, String body) {
+    }
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository, TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            @Value("${idempotency.ttl:24h}") Duration ttl,
+            @Value("${idempotency.processing-lease:2m}") Duration processingLease,
+            @Value("${idempotency.cache.maximum-size:100000}") long cacheSize,
+            @Value("${idempotency.purge-batch-size:1000}") int purgeBatchSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.responses = Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        this.ttl = ttl;
+        this.processingLease = processingLease;
+        this.purgeBatchSize = purgeBatchSize;
+    }
+
+    // sin clave la operación se ejecuta tal cual; requestFingerprint identifica los parámetros de la petición
+    public <T> ResponseEntity<T> execute(Long userId, Operation operation, String idempotencyKey, String requestFingerprint,
+            Class<T> bodyType, Supplier<ResponseEntity<T>> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must have between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        RecordKey key = new RecordKey(userId, operation, idempotencyKey);
+        StoredResponse cached = this.responses.getIfPresent(key);
+        if (cached != null) {
+            return replay(cached, requestFingerprint, bodyType);
+        }
+
+        IdempotencyRecord claim = new IdempotencyRecord(userId, operation, idempotencyKey, requestFingerprint);
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> this.idempotencyRecordRepository.saveAndFlush(claim));
+        } catch (DataIntegrityViolationException ex) {
+            // la clave ya existe: respuesta de otra instancia, de antes de un reinicio o desalojada de la caché
+            return replayStored(key, requestFingerprint, bodyType, action);
+        }
+        return run(key, claim.getId(), claim.getCreatedAt(), requestFingerprint, action);
+    }
+
+    // ejecuta la operación con la clave ya tomada y guarda su respuesta
+    private <T> ResponseEntity<T> run(RecordKey key, Long recordId, LocalDateTime claimedAt, String requestFingerprint,
+            Supplier<ResponseEntity<T>> action) {
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException ex) {
+            // la operación no se aplicó: se libera la clave para que el cliente pueda reintentar
+            this.transactionTemplate.executeWithoutResult(status -> this.idempotencyRecordRepository.release(recordId, claimedAt));
+            throw ex;
+        }
+        // si la instancia cae antes de este punto la clave queda en curso; pasado 'processingLease' un reintento la retoma
+        String body = serialize(response.getBody());
+        this.transactionTemplate.executeWithoutResult(status ->
+            this.idempotencyRecordRepository.complete(recordId, claimedAt, response.getStatusCode().value(), body));
+        this.responses.put(key, new StoredResponse(requestFingerprint, response.getStatusCode().value(), body));
+        return response;
+    }
+
+    private <T> ResponseEntity<T> replayStored(RecordKey key, String requestFingerprint, Class<T> bodyType, Supplier<ResponseEntity<T>> action) {
+        IdempotencyRecord stored = this.idempotencyRecordRepository
+            .findByUserIdAndOperationAndIdempotencyKey(key.userId(), key.operation(), key.idempotencyKey())
+            // se borró entre el insert y la lectura (la primera ejecución falló o venció): que el cliente reintente
+            .orElseThrow(() -> new ConcurrencyFailureException("Request with the same " + HEADER + " was just released"));
+        if (!stored.isCompleted()) {
+            checkFingerprint(stored.getRequestFingerprint(), requestFingerprint);
+            LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            boolean abandoned = stored.getCreatedAt().isBefore(now.minus(this.processingLease));
+            if (!abandoned || this.transactionTemplate.execute(status ->
+                    this.idempotencyRecordRepository.reclaim(stored.getId(), stored.getCreatedAt(), now)) == 0) {
+                throw new ConcurrencyFailureException("A request with the same " + HEADER + " is still being processed");
+            }
+            log.warn("Reclaimed {} {} abandoned since {}", HEADER, stored.getId(), stored.getCreatedAt());
+            return run(key, stored.getId(), now, requestFingerprint, action);
+        }
+        StoredResponse response = new StoredResponse(stored.getRequestFingerprint(), stored.getStatusCode(), stored.getResponseBody());
+        this.responses.put(key, response);
+        return replay(response, requestFingerprint, bodyType);
+    }
+
+    private <T> ResponseEntity<T> replay(StoredResponse response, String requestFingerprint, Class<T> bodyType) {
+        checkFingerprint(response.requestFingerprint(), requestFingerprint);
+        return ResponseEntity.status(response.statusCode())
+            .header(REPLAYED_HEADER, "true")
+            .body(deserialize(response.body(), bodyType));
+    }
+
+    private void checkFingerprint(String stored, String requested) {
+        if (!stored.equals(requested)) {
+            throw new IllegalArgumentException(HEADER + " was already used for a request with different parameters");
+        }
+    }
+
+    private String serialize(Object body) {
+        try {
+            return body == null ? null : this.objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not store the response for " + HEADER, ex);
+        }
+    }
+
+    private <T> T deserialize(String body, Class<T> bodyType) {
+        try {
+            return body == null ? null : this.objectMapper.readValue(body, bodyType);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not read the stored response for " + HEADER, ex);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:60000}")
+    public void purge() {
+        int purged = purgeCreatedBefore(LocalDateTime.now().minus(this.ttl));
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    // claves vencidas, por lotes en transacciones cortas; la caché las descarta sola con el mismo TTL
+    public int purgeCreatedBefore(LocalDateTime createdBefore) {
+        int purged = 0;
+        List<Long> ids;
+        do {
+            ids = this.idempotencyRecordRepository.findIdsCreatedBefore(createdBefore, Limit.of(this.purgeBatchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<Long> batch = ids;
+            this.transactionTemplate.executeWithoutResult(status -> this.idempotencyRecordRepository.deleteAllByIdInBatch(batch));
+            purged += ids.size();
+        } while (ids.size() == this.purgeBatchSize);
+        return purged;
+    }
+}
@@ -1,20 +1,41 @@
 package com.ecommerce.service;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.ecommerce.dto.OrderDTO;
+import com.ecommerce.dto.OrderItemDTO;
+import com.ecommerce.dto.OrderLineDTO;
+import com.ecommerce.dto.OrderPageDTO;
+import com.ecommerce.dto.OrderStatusTransitionResultDTO;
+import com.ecommerce.dto.OrderSummaryDTO;
+import com.ecommerce.dto.ProductQuantityDTO;
+import com.ecommerce.event.OrderPlacedEvent;
+import com.ecommerce.mapper.OrderItemMapper;
 import com.ecommerce.mapper.OrderMapper;
 import com.ecommerce.model.Cart;
 import com.ecommerce.model.CartItem;
 import com.ecommerce.model.Order;
 import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.OrderStatus;
 import com.ecommerce.model.Product;
-import com.ecommerce.model.User;
 import com.ecommerce.repository.OrderItemRepository;
 import com.ecommerce.repository.OrderRepository;
 
@@ -23,55 +44,111 @@ import jakarta.transaction.Transactional;
 @Service
 public class OrderService {
 
-    private UserService userService;
     private CartService cartService;
     private ProductService productService;
     private OrderRepository orderRepository;
     private OrderMapper orderMapper;
     private OrderItemRepository orderItemRepository;
+    private OrderItemMapper orderItemMapper;
+    private ApplicationEventPublisher eventPublisher;
+    private TransactionTemplate transactionTemplate;
+    private RetryTemplate retryTemplate;
 
-    public OrderService(UserService userService, CartService cartService, ProductService productService, OrderRepository orderRepository, OrderMapper orderMapper, OrderItemRepository orderItemRepository) {
-        this.userService = userService;
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int MAX_STATUS_TRANSITIONS = 10_000;
+    // listas IN acotadas: con miles de parámetros preparar la sentencia cuesta más que ejecutarla
+    private static final int STATUS_UPDATE_CHUNK_SIZE = 500;
+
+    public OrderService(CartService cartService, ProductService productService, OrderRepository orderRepository, OrderMapper orderMapper, OrderItemRepository orderItemRepository, OrderItemMapper orderItemMapper, ApplicationEventPublisher eventPublisher, TransactionTemplate transactionTemplate, RetryTemplate retryTemplate) {
         this.cartService = cartService;
         this.productService = productService;
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
         this.orderMapper = orderMapper;
+        this.orderItemMapper = orderItemMapper;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.retryTemplate = retryTemplate;
     }
 
     @Transactional
     public Order placeOrder(Long userId) {
-        User user = this.userService.getUserById(userId).orElseThrow(() -> new NoSuchElementException("User not found with id: " + userId));
-        Cart cart = this.cartService.getCartByUserId(userId).orElseThrow(() -> new NoSuchElementException("Cart not found for user id: " + userId));
+        Cart cart = this.cartService.getCartWithItemsByUserId(userId).orElseThrow(() -> new NoSuchElementException("Cart not found for user id: " + userId));
         if (cart.getCartItems().isEmpty()) {
             throw new IllegalStateException("Cannot place order with empty cart for user id: " + userId);
         }
         Order order = new Order();
-        order.setUser(user);
+        order.setUser(cart.getUser());
         order.setOrderDate(LocalDateTime.now());
-        order.setStatus("PENDING");
-        if (order.getOrderItems() == null) {
-            order.setOrderItems(new ArrayList<>());
-        }
-        Order savedOrder = this.orderRepository.save(order);
+        order.setStatus(OrderStatus.PENDING);
+        Map<Long, Integer> quantitiesByProductId = new LinkedHashMap<>();
+        BigDecimal totalAmount = BigDecimal.ZERO;
         for (CartItem cartItem : cart.getCartItems()) {
             Product product = cartItem.getProduct();
-            if (product.getStock() < cartItem.getQuantity()) {
-                throw new IllegalStateException("Insufficient stock for product id: " + product.getId());
-            }
             OrderItem orderItem = new OrderItem();
-            orderItem.setOrder(savedOrder);
+            orderItem.setOrder(order);
             orderItem.setProduct(product);
             orderItem.setQuantity(cartItem.getQuantity());
             orderItem.setPriceAtPurchase(product.getPrice());
-            this.orderItemRepository.save(orderItem);
-            product.setStock(product.getStock() - cartItem.getQuantity());
-            this.productService.saveProduct(product);
-            savedOrder.getOrderItems().add(orderItem);
+            order.getOrderItems().add(orderItem);
+            totalAmount = totalAmount.add(product.getPrice().multiply(BigDecimal.valueOf(cartItem.getQuantity())));
+            quantitiesByProductId.merge(product.getId(), cartItem.getQuantity(), Integer::sum);
         }
+        order.setTotalAmount(totalAmount);
+        order.setItemCount(order.getOrderItems().size());
+        // reserva atómica en la base de datos: sin leer-comparar-escribir ni locks durante la transacción
+        this.productService.decrementStock(quantitiesByProductId);
+        // los ítems se persisten en cascada y se insertan en un único batch JDBC
+        Order savedOrder = this.orderRepository.save(order);
         this.cartService.clearCartItems(cart.getId());
-        cart.getCartItems().clear();
-        return savedOrder; 
+        this.eventPublisher.publishEvent(new OrderPlacedEvent(savedOrder.getId(), cart.getUser().getId()));
+        return savedOrder;
+    }
+
+    // una transacción y un UPDATE por cada tramo de ids; los pedidos que no admiten el cambio se informan sin abortar el resto
+    public OrderStatusTransitionResultDTO transitionOrders(Collection<Long> orderIds, OrderStatus target) {
+        if (target == null) {
+            throw new IllegalArgumentException("Target status is mandatory");
+        }
+        if (target.allowedSources().isEmpty()) {
+            throw new IllegalArgumentException("Orders cannot be moved to " + target);
+        }
+        List<Long> ids = orderIds == null ? List.of() : orderIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("At least one order id is required");
+        }
+        if (ids.size() > MAX_STATUS_TRANSITIONS) {
+            throw new IllegalArgumentException("A status change accepts at most " + MAX_STATUS_TRANSITIONS + " orders");
+        }
+        return this.retryTemplate.execute(context -> this.transactionTemplate.execute(status -> applyTransition(ids, target)));
+    }
+
+    private OrderStatusTransitionResultDTO applyTransition(List<Long> ids, OrderStatus target) {
+        Set<OrderStatus> sources = target.allowedSources();
+        List<Long> transitioned = new ArrayList<>();
+        Map<Long, Integer> releasedByProductId = new LinkedHashMap<>();
+        for (int from = 0; from < ids.size(); from += STATUS_UPDATE_CHUNK_SIZE) {
+            List<Long> eligible = this.orderRepository.findIdsByIdInAndStatusIn(ids.subList(from, Math.min(from + STATUS_UPDATE_CHUNK_SIZE, ids.size())), sources);
+            if (eligible.isEmpty()) {
+                continue;
+            }
+            // si otra transacción movió alguno entre la lectura y el update, se repite todo con el estado nuevo
+            if (this.orderRepository.updateStatus(eligible, sources, target) != eligible.size()) {
+                throw new OptimisticLockingFailureException("Orders changed status concurrently");
+            }
+            if (target == OrderStatus.CANCELLED) {
+                for (ProductQuantityDTO line : this.orderItemRepository.sumQuantitiesByProductForOrders(eligible)) {
+                    releasedByProductId.merge(line.productId(), Math.toIntExact(line.quantity()), Integer::sum);
+                }
+            }
+            transitioned.addAll(eligible);
+        }
+        if (!releasedByProductId.isEmpty()) {
+            this.productService.restoreStock(releasedByProductId);
+        }
+        Set<Long> transitionedIds = new HashSet<>(transitioned);
+        List<Long> rejected = ids.stream().filter(id -> !transitionedIds.contains(id)).toList();
+        return new OrderStatusTransitionResultDTO(target, ids.size(), transitioned.size(), rejected);
     }
 
     public List<Order> getOrdersByUserId(Long userId) {
@@ -94,4 +171,40 @@ public class OrderService {
             .map(order -> toOrderDto(order))
             .toList();
     }
+
+    public OrderPageDTO<OrderSummaryDTO> getOrderSummaries(Long userId, LocalDateTime beforeDate, Long beforeId, int size) {
+        if ((beforeDate == null) != (beforeId == null)) {
+            throw new IllegalArgumentException("beforeDate and beforeId must be sent together");
+        }
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        // se pide una fila de más para saber si hay página siguiente sin un count
+        Limit limit = Limit.of(pageSize + 1);
+        List<OrderSummaryDTO> summaries = beforeDate == null
+            ? this.orderRepository.findFirstSummariesByUserId(userId, limit)
+            : this.orderRepository.findSummariesByUserIdBefore(userId, beforeDate, beforeId, limit);
+        if (summaries.size() <= pageSize) {
+            return new OrderPageDTO<>(summaries, null, null);
+        }
+        List<OrderSummaryDTO> page = summaries.subList(0, pageSize);
+        OrderSummaryDTO last = page.get(pageSize - 1);
+        return new OrderPageDTO<>(page, last.orderDate(), last.id());
+    }
+
+    // dos fases: la página de cabeceras y luego las líneas de esos pedidos en una sola consulta
+    public OrderPageDTO<OrderDTO> getOrderPage(Long userId, LocalDateTime beforeDate, Long beforeId, int size) {
+        OrderPageDTO<OrderSummaryDTO> summaries = getOrderSummaries(userId, beforeDate, beforeId, size);
+        if (summaries.items().isEmpty()) {
+            return new OrderPageDTO<>(List.of(), null, null);
+        }
+        List<Long> orderIds = summaries.items().stream().map(OrderSummaryDTO::id).toList();
+        Map<Long, List<OrderItemDTO>> itemsByOrderId = this.orderItemRepository.findLinesByOrderIds(orderIds).stream()
+            .collect(Collectors.groupingBy(
+                OrderLineDTO::orderId,
+                Collectors.mapping(this.orderItemMapper::toOrderItemDto, Collectors.toList())
+            ));
+        List<OrderDTO> orders = summaries.items().stream()
+            .map(summary -> this.orderMapper.toOrderDto(summary, itemsByOrderId.getOrDefault(summary.id(), List.of())))
+            .toList();
+        return new OrderPageDTO<>(orders, summaries.nextBeforeDate(), summaries.nextBeforeId());
+    }
 }
@@ -0,0 +1,59 @@
+package com.ecommerce.service;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.repository.OrderRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+// completa total e itemCount de los pedidos creados antes de que existieran las columnas;
+// recorre los ids por keyset en lotes y cada lote se actualiza en su propia transacción.
+// es una migración de una sola vez: se activa con orders.totals-backfill.enabled=true en el despliegue que la necesita
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "orders.totals-backfill.enabled", havingValue = "true")
+public class OrderTotalsBackfill {
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public OrderTotalsBackfill(OrderRepository orderRepository, TransactionTemplate transactionTemplate,
+            @Value("${orders.totals-backfill.batch-size:500}") int batchSize) {
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        int updated = backfill();
+        if (updated > 0) {
+            log.info("Backfilled totals for {} orders", updated);
+        }
+    }
+
+    public int backfill() {
+        int updated = 0;
+        long afterId = 0L;
+        List<Long> orderIds;
+        do {
+            orderIds = this.orderRepository.findIdsWithoutTotalsAfter(afterId, Limit.of(this.batchSize));
+            if (orderIds.isEmpty()) {
+                break;
+            }
+            List<Long> batch = orderIds;
+            updated += this.transactionTemplate.execute(status -> this.orderRepository.backfillTotals(batch));
+            afterId = orderIds.get(orderIds.size() - 1);
+        } while (orderIds.size() == this.batchSize);
+        return updated;
+    }
+}
@@ -0,0 +1,266 @@
+package com.ecommerce.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.dto.ProductImportErrorDTO;
+import com.ecommerce.dto.ProductImportReportDTO;
+import com.ecommerce.dto.ProductImportRowDTO;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductChangedEvent.ChangeType;
+import com.ecommerce.mapper.ProductMapper;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+// importación y exportación masiva del catálogo: las filas se leen de a una del cuerpo de la petición
+// y se escriben en chunks, cada uno en su propia transacción, así la memoria no depende del tamaño del archivo
+@Slf4j
+@Service
+public class ProductBulkService {
+
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final ProductMapper productMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final ObjectReader ndjsonReader;
+    private final ObjectReader csvReader;
+    private final ObjectWriter csvWriter;
+    private final Counter insertedRows;
+    private final Counter updatedRows;
+    private final Counter failedRows;
+    private final int chunkSize;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public ProductBulkService(ProductRepository productRepository, ProductService productService, ProductMapper productMapper,
+            ApplicationEventPublisher eventPublisher, TransactionTemplate transactionTemplate, EntityManager entityManager,
+            Validator validator, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${products.bulk.chunk-size:1000}") int chunkSize,
+            @Value("${products.bulk.batch-size:100}") int batchSize,
+            @Value("${products.bulk.max-reported-errors:100}") int maxReportedErrors) {
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.productMapper = productMapper;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.ndjsonReader = objectMapper.readerFor(ProductImportRowDTO.class);
+        CsvMapper csvMapper = CsvMapper.builder().enable(CsvParser.Feature.EMPTY_STRING_AS_NULL).build();
+        // al leer, las columnas salen de la cabecera del archivo y pueden venir en cualquier orden
+        this.csvReader = csvMapper.readerFor(ProductImportRowDTO.class).with(CsvSchema.emptySchema().withHeader());
+        CsvSchema exportSchema = csvMapper.schemaFor(ProductImportRowDTO.class).withHeader();
+        this.csvWriter = csvMapper.writerFor(Product.class).with(exportSchema).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        // el avance de una importación larga se puede seguir en /actuator/metrics/products.import.rows
+        this.insertedRows = meterRegistry.counter("products.import.rows", "outcome", "inserted");
+        this.updatedRows = meterRegistry.counter("products.import.rows", "outcome", "updated");
+        this.failedRows = meterRegistry.counter("products.import.rows", "outcome", "failed");
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public ProductImportReportDTO importNdjson(InputStream input) throws IOException {
+        ImportRun run = new ImportRun();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        long line = 0;
+        String json;
+        while ((json = reader.readLine()) != null) {
+            line++;
+            if (json.isBlank()) {
+                continue;
+            }
+            try {
+                run.accept(line, this.ndjsonReader.readValue(json));
+            } catch (JsonProcessingException ex) {
+                run.reject(line, ex.getOriginalMessage());
+            }
+        }
+        return run.finish();
+    }
+
+    public ProductImportReportDTO importCsv(InputStream input) throws IOException {
+        ImportRun run = new ImportRun();
+        try (MappingIterator<ProductImportRowDTO> rows = this.csvReader.readValues(input)) {
+            while (true) {
+                long line = rows.getCurrentLocation().getLineNr();
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    // tras hasNextValue el parser está parado al inicio de la fila
+                    line = rows.getCurrentLocation().getLineNr();
+                    run.accept(line, rows.nextValue());
+                } catch (JsonProcessingException | RuntimeJsonMappingException ex) {
+                    // el parser CSV se resincroniza en la fila siguiente
+                    run.reject(line, ex.getMessage().lines().findFirst().orElse("Invalid row"));
+                }
+            }
+        }
+        return run.finish();
+    }
+
+    public void exportCsv(OutputStream output) throws IOException {
+        try (SequenceWriter writer = this.csvWriter.writeValues(output)) {
+            this.productService.streamProducts(product -> {
+                try {
+                    writer.write(product);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+    }
+
+    private record PendingRow(long line, ProductImportRowDTO row) {
+    }
+
+    private record ChunkResult(long inserted, long updated, List<ProductImportErrorDTO> errors) {
+    }
+
+    private ChunkResult writeChunk(List<PendingRow> chunk) {
+        // tamaño de batch JDBC propio de la importación, independiente de hibernate.jdbc.batch_size
+        this.entityManager.unwrap(Session.class).setJdbcBatchSize(this.batchSize);
+        List<Long> ids = chunk.stream().map(pending -> pending.row().getId()).filter(Objects::nonNull).toList();
+        Map<Long, Product> existing = ids.isEmpty()
+            ? Map.of()
+            : this.productRepository.findAllById(ids).stream().collect(Collectors.toMap(Product::getId, Function.identity()));
+        long inserted = 0;
+        long updated = 0;
+        List<ProductImportErrorDTO> errors = new ArrayList<>();
+        for (PendingRow pending : chunk) {
+            Long id = pending.row().getId();
+            if (id == null) {
+                Product product = this.productMapper.toEntity(pending.row());
+                this.entityManager.persist(product);
+                this.eventPublisher.publishEvent(new ProductChangedEvent(product.getId(), ChangeType.CREATED));
+                inserted++;
+                continue;
+            }
+            Product product = existing.get(id);
+            if (product == null) {
+                errors.add(new ProductImportErrorDTO(pending.line(), "Product not found with ID: " + id));
+                continue;
+            }
+            this.productMapper.updateEntityFromDto(pending.row(), product);
+            this.eventPublisher.publishEvent(new ProductChangedEvent(id, ChangeType.UPDATED));
+            updated++;
+        }
+        // se sueltan las entidades del chunk: con open-in-view el contexto de persistencia vive toda la petición
+        this.entityManager.flush();
+        this.entityManager.clear();
+        return new ChunkResult(inserted, updated, errors);
+    }
+
+    private class ImportRun {
+
+        private final List<PendingRow> chunk = new ArrayList<>(chunkSize);
+        private final List<ProductImportErrorDTO> errors = new ArrayList<>();
+        private long processed;
+        private long inserted;
+        private long updated;
+        private long failed;
+
+        void accept(long line, ProductImportRowDTO row) {
+            processed++;
+            String violations = validator.validate(row).stream()
+                .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.joining("; "));
+            if (!violations.isEmpty()) {
+                addError(new ProductImportErrorDTO(line, violations));
+                return;
+            }
+            chunk.add(new PendingRow(line, row));
+            if (chunk.size() == chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String message) {
+            processed++;
+            addError(new ProductImportErrorDTO(line, message));
+        }
+
+        ProductImportReportDTO finish() {
+            flush();
+            log.info("Product import finished: {} rows processed, {} inserted, {} updated, {} failed", processed, inserted, updated, failed);
+            return new ProductImportReportDTO(processed, inserted, updated, failed, List.copyOf(errors));
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                ChunkResult result = transactionTemplate.execute(status -> writeChunk(chunk));
+                inserted += result.inserted();
+                updated += result.updated();
+                insertedRows.increment(result.inserted());
+                updatedRows.increment(result.updated());
+                result.errors().forEach(this::addError);
+            } catch (DataAccessException ex) {
+                // el chunk completo vuelve atrás; se informa una vez y se sigue con el siguiente
+                log.warn("Product import chunk starting at line {} rolled back: {}", chunk.get(0).line(), ex.getMessage());
+                failed += chunk.size();
+                failedRows.increment(chunk.size());
+                report(new ProductImportErrorDTO(chunk.get(0).line(), "Chunk of " + chunk.size() + " rows rolled back: " + ex.getMostSpecificCause().getMessage()));
+            }
+            entityManager.clear();
+            chunk.clear();
+            log.debug("Product import progress: {} rows processed, {} failed", processed, failed);
+        }
+
+        private void addError(ProductImportErrorDTO error) {
+            failed++;
+            failedRows.increment();
+            report(error);
+        }
+
+        private void report(ProductImportErrorDTO error) {
+            if (errors.size() < maxReportedErrors) {
+                errors.add(error);
+            }
+        }
+    }
+}
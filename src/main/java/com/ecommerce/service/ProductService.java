@@ -1,55 +1,168 @@
 package com.ecommerce.service;
 
 import com.ecommerce.dto.ProductInputDTO;
+import com.ecommerce.dto.ProductPageDTO;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductChangedEvent.ChangeType;
+import com.ecommerce.inventory.StockReservation;
 import com.ecommerce.mapper.ProductMapper;
 import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductFilter;
 import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.ProductSort;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class ProductService {
 
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final String PRODUCTS_CACHE = "products";
+
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
+    private final StockReservation stockReservation;
+    private final ApplicationEventPublisher eventPublisher;
+    // cambios confirmados en esta instancia: invalidan al instante la versión leída de la base
+    private final AtomicLong catalogChanges = new AtomicLong();
+    private final Duration catalogVersionRefresh;
+    private volatile CatalogVersion catalogVersion;
+
+    // versión leída de la base, junto con el contador local y el instante en que se leyó
+    private record CatalogVersion(String value, long changes, long readAtNanos) {
+    }
 
-    public ProductService(ProductRepository productRepository, ProductMapper productMapper) {
+    public ProductService(ProductRepository productRepository, ProductMapper productMapper, StockReservation stockReservation, ApplicationEventPublisher eventPublisher,
+            @Value("${products.catalog-version.refresh:1s}") Duration catalogVersionRefresh) {
         this.productRepository = productRepository;
         this.productMapper = productMapper;
+        this.stockReservation = stockReservation;
+        this.eventPublisher = eventPublisher;
+        this.catalogVersionRefresh = catalogVersionRefresh;
     }
 
     public Product saveProduct(Product product) {
         return this.productRepository.save(product);
     }
 
+    @Transactional
+    public void decrementStock(Map<Long, Integer> quantitiesByProductId) {
+        this.stockReservation.reserve(quantitiesByProductId);
+        quantitiesByProductId.keySet().forEach(productId -> this.eventPublisher.publishEvent(new ProductChangedEvent(productId, ChangeType.STOCK_CHANGED)));
+    }
+
+    // las unidades de pedidos cancelados vuelven al stock en un único batch
+    @Transactional
+    public void restoreStock(Map<Long, Integer> quantitiesByProductId) {
+        this.stockReservation.release(quantitiesByProductId);
+        quantitiesByProductId.keySet().forEach(productId -> this.eventPublisher.publishEvent(new ProductChangedEvent(productId, ChangeType.STOCK_CHANGED)));
+    }
+
     public List<Product> getAllProducts() {
         return this.productRepository.findAll();
     }
 
+    // filtros y orden se resuelven en la base de datos; sin size se devuelven todos los productos que cumplen
+    public List<Product> getProducts(BigDecimal minPrice, BigDecimal maxPrice, boolean inStockOnly, String sort, Integer size) {
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new IllegalArgumentException("minPrice must not be greater than maxPrice");
+        }
+        Integer limit = size == null ? null : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        return this.productRepository.findListing(new ProductFilter(minPrice, maxPrice, inStockOnly, ProductSort.fromParam(sort), limit));
+    }
+
+    // la versión sale de la base, así la ven igual todas las instancias y también los cambios hechos por SQL.
+    // el agregado recorre la tabla: se reutiliza durante catalogVersionRefresh salvo que esta instancia confirme un cambio.
+    // se lee antes de consultar: un cambio que llegue durante la consulta deja la versión atrasada, nunca adelantada
+    public String getCatalogVersion() {
+        long changes = this.catalogChanges.get();
+        CatalogVersion current = this.catalogVersion;
+        long now = System.nanoTime();
+        if (current != null && current.changes() == changes && now - current.readAtNanos() < this.catalogVersionRefresh.toNanos()) {
+            return current.value();
+        }
+        String value = this.productRepository.findCatalogVersion();
+        this.catalogVersion = new CatalogVersion(value, changes, now);
+        return value;
+    }
+
+    public ProductPageDTO getProductPage(Long afterId, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        // se pide una fila de más para saber si hay página siguiente sin un count
+        List<Product> products = this.productRepository.findByIdGreaterThanOrderByIdAsc(afterId == null ? 0L : afterId, Limit.of(pageSize + 1));
+        if (products.size() <= pageSize) {
+            return new ProductPageDTO(products, null);
+        }
+        List<Product> page = products.subList(0, pageSize);
+        return new ProductPageDTO(page, page.get(pageSize - 1).getId());
+    }
+
+    // recorre el catálogo fila a fila; el stream necesita la transacción abierta mientras se consume
+    @Transactional(readOnly = true)
+    public void streamProducts(Consumer<Product> consumer) {
+        try (Stream<Product> products = this.productRepository.streamAllOrderedById()) {
+            products.forEach(consumer);
+        }
+    }
+
+    // las lecturas se sirven desde caché; solo se cachean los productos existentes
+    @Cacheable(cacheNames = PRODUCTS_CACHE, key = "#id", unless = "#result == null")
     public Optional<Product> getProductById(Long id) {
         return this.productRepository.findById(id);
     }
 
+    // una sola consulta para varios productos, sin pasar por la caché
+    public List<Product> getProductsByIds(Collection<Long> ids) {
+        return this.productRepository.findAllById(ids);
+    }
+
+    @Transactional
     public void deleteProduct(Long id) {
         if (!this.productRepository.existsById(id)) {
             throw new NoSuchElementException("Product not found with ID: " + id);
         }
         this.productRepository.deleteById(id);
+        this.eventPublisher.publishEvent(new ProductChangedEvent(id, ChangeType.DELETED));
     }
 
+    @Transactional
     public Product createProduct(ProductInputDTO dto) {
         Product newProduct = this.productMapper.toEntity(dto);
-        return this.productRepository.save(newProduct);
+        Product savedProduct = this.productRepository.save(newProduct);
+        this.eventPublisher.publishEvent(new ProductChangedEvent(savedProduct.getId(), ChangeType.CREATED));
+        return savedProduct;
     }
 
     @Transactional
     public Product updateProduct(Long productId, ProductInputDTO dto) {
         Product existingProduct = this.productRepository.findById(productId).orElseThrow(() -> new NoSuchElementException("Product not found with ID: " + productId));
         this.productMapper.updateEntityFromDto(dto, existingProduct);
-        return this.productRepository.save(existingProduct);
+        Product savedProduct = this.productRepository.save(existingProduct);
+        this.eventPublisher.publishEvent(new ProductChangedEvent(productId, ChangeType.UPDATED));
+        return savedProduct;
+    }
+
+    // se invalida tras el commit para que una lectura concurrente no vuelva a cachear el valor anterior
+    @CacheEvict(cacheNames = PRODUCTS_CACHE, key = "#event.productId()")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void evictCachedProduct(ProductChangedEvent event) {
+        this.catalogChanges.incrementAndGet();
     }
 }
@@ -0,0 +1,137 @@
+package com.ecommerce.event.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.ecommerce.event.EventBus;
+import com.ecommerce.event.OrderPlacedEvent;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductChangedEvent.ChangeType;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class EventBusTest {
+
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(1);
+        this.executor.setMaxPoolSize(1);
+        this.executor.setQueueCapacity(1);
+        this.executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.executor.shutdown();
+    }
+
+    @Test
+    void publish_Success_SubscribersReceiveTheirTypeInOrderAndInBatches() throws Exception {
+        EventBus eventBus = new EventBus(this.executor, new SimpleMeterRegistry(), 1024, 100);
+        List<List<ProductChangedEvent>> productBatches = new CopyOnWriteArrayList<>();
+        List<OrderPlacedEvent> orders = new CopyOnWriteArrayList<>();
+        eventBus.subscribe(ProductChangedEvent.class, productBatches::add);
+        eventBus.subscribe(OrderPlacedEvent.class, orders::addAll);
+        List<Object> events = new ArrayList<>();
+        IntStream.range(0, 250).forEach(i -> events.add(new ProductChangedEvent((long) i, ChangeType.UPDATED)));
+        events.add(new OrderPlacedEvent(1L, 2L));
+
+        eventBus.publish(events).get(5, TimeUnit.SECONDS);
+
+        List<Long> productIds = productBatches.stream().flatMap(List::stream).map(ProductChangedEvent::productId).toList();
+        assertEquals(IntStream.range(0, 250).mapToObj(Long::valueOf).toList(), productIds, "Los eventos deben llegar todos y en orden");
+        assertTrue(productBatches.size() <= 3, "Con lotes de 100 se esperan como mucho 3 entregas, hubo " + productBatches.size());
+        assertEquals(List.of(new OrderPlacedEvent(1L, 2L)), orders);
+    }
+
+    @Test
+    void publish_Success_FullBufferMakesThePublisherWait() throws Exception {
+        EventBus eventBus = new EventBus(this.executor, new SimpleMeterRegistry(), 4, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        List<ProductChangedEvent> received = new CopyOnWriteArrayList<>();
+        eventBus.subscribe(ProductChangedEvent.class, events -> {
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            received.addAll(events);
+        });
+        List<ProductChangedEvent> events = IntStream.range(0, 20).mapToObj(i -> new ProductChangedEvent((long) i, ChangeType.STOCK_CHANGED)).toList();
+
+        CompletableFuture<Void> publishing = CompletableFuture.runAsync(() -> eventBus.publish(events).join());
+
+        // el suscriptor está detenido: el buffer se llena y quien publica no puede terminar
+        Thread.sleep(200);
+        assertFalse(publishing.isDone(), "Con el buffer lleno la publicación debe esperar");
+        release.countDown();
+        publishing.get(5, TimeUnit.SECONDS);
+        assertEquals(events, received);
+    }
+
+    @Test
+    void publish_Success_SubscriberPublishingWithAFullBufferDoesNotDeadlock() throws Exception {
+        EventBus eventBus = new EventBus(this.executor, new SimpleMeterRegistry(), 2, 2);
+        List<OrderPlacedEvent> orders = new CopyOnWriteArrayList<>();
+        CountDownLatch delivered = new CountDownLatch(50);
+        // cada cambio de producto genera otro evento desde el propio hilo de despacho
+        eventBus.subscribe(ProductChangedEvent.class, events -> eventBus.publish(events.stream().map(event -> new OrderPlacedEvent(event.productId(), 1L)).toList()));
+        eventBus.subscribe(OrderPlacedEvent.class, events -> {
+            orders.addAll(events);
+            events.forEach(event -> delivered.countDown());
+        });
+        List<ProductChangedEvent> events = IntStream.range(0, 50).mapToObj(i -> new ProductChangedEvent((long) i, ChangeType.UPDATED)).toList();
+
+        eventBus.publish(events).get(5, TimeUnit.SECONDS);
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS), "El despacho no debe quedar bloqueado");
+        assertEquals(LongStream.range(0, 50).boxed().toList(), orders.stream().map(OrderPlacedEvent::orderId).toList(),
+            "Los eventos publicados por el suscriptor deben entregarse todos y en orden");
+    }
+
+    @Test
+    void publish_Success_FailingSubscriberDoesNotStopTheOthers() throws Exception {
+        EventBus eventBus = new EventBus(this.executor, new SimpleMeterRegistry(), 16, 16);
+        List<ProductChangedEvent> received = new CopyOnWriteArrayList<>();
+        eventBus.subscribe(ProductChangedEvent.class, events -> {
+            throw new IllegalStateException("subscriber failure");
+        });
+        eventBus.subscribe(ProductChangedEvent.class, received::addAll);
+
+        eventBus.publish(List.of(new ProductChangedEvent(7L, ChangeType.DELETED))).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(new ProductChangedEvent(7L, ChangeType.DELETED)), received);
+    }
+
+    @Test
+    void unsubscribe_Success_HandlerStopsReceivingEvents() throws Exception {
+        EventBus eventBus = new EventBus(this.executor, new SimpleMeterRegistry(), 16, 16);
+        List<ProductChangedEvent> received = new CopyOnWriteArrayList<>();
+        Consumer<List<ProductChangedEvent>> handler = received::addAll;
+        eventBus.subscribe(ProductChangedEvent.class, handler);
+        eventBus.unsubscribe(handler);
+
+        eventBus.publish(List.of(new ProductChangedEvent(7L, ChangeType.DELETED))).get(5, TimeUnit.SECONDS);
+
+        assertTrue(received.isEmpty());
+    }
+}
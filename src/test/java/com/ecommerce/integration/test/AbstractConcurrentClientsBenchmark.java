@@ -0,0 +1,229 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.ecommerce.dto.AuthRequestDTO;
+import com.ecommerce.dto.AuthResponseDTO;
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.Role;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.RoleRepository;
+import com.ecommerce.repository.UserRepository;
+
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+// arnés compartido: N clientes concurrentes contra un endpoint que hace I/O JPA bloqueante.
+// los niveles se eligen con -Dbenchmark.clients=200,2000,20000 (por defecto solo 200)
+abstract class AbstractConcurrentClientsBenchmark {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private static final int REQUESTS_PER_CLIENT = 3;
+    private static final int PRODUCTS = 100;
+
+    private String token;
+
+    protected abstract String mode();
+
+    private void cleanDatabase() {
+        this.orderItemRepository.deleteAllInBatch();
+        this.orderRepository.deleteAllInBatch();
+        this.cartItemRepository.deleteAllInBatch();
+        this.cartRepository.deleteAllInBatch();
+        this.productRepository.deleteAllInBatch();
+        this.userRepository.deleteAllInBatch();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cleanDatabase();
+        Role userRole = this.roleRepository.findByName("ROLE_USER").orElseGet(
+            () -> this.roleRepository.save(new Role(null, "ROLE_USER"))
+        );
+        User user = new User();
+        user.setUsername("bench_client");
+        user.setPassword(this.passwordEncoder.encode("12345"));
+        user.setEmail("bench_client@test.com");
+        user.setRoles(Set.of(userRole));
+        this.userRepository.save(user);
+        Cart cart = new Cart();
+        cart.setUser(user);
+        this.cartRepository.save(cart);
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(new Product(null, "Product " + i, "Some description", new BigDecimal("10.00"), 100));
+        }
+        this.productRepository.saveAll(products);
+        this.token = this.restTemplate.postForEntity("/api/auth/login", new AuthRequestDTO("bench_client", "12345"), AuthResponseDTO.class)
+            .getBody().getToken();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanDatabase();
+    }
+
+    @Test
+    @Tag("benchmark")
+    void concurrentClients_ThroughputMemoryAndPinning() throws Exception {
+        int[] levels = Arrays.stream(System.getProperty("benchmark.clients", "200").split(","))
+            .map(String::trim)
+            .mapToInt(Integer::parseInt)
+            .toArray();
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newFixedThreadPool(4))
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + this.port + "/api/products/page?size=20"))
+            .header("Authorization", "Bearer " + this.token)
+            .timeout(Duration.ofMinutes(2))
+            .GET()
+            .build();
+        for (int clients : levels) {
+            Result result = run(client, request, clients);
+            System.out.printf("%s threads clients=%d requests=%d ok=%d failed=%d throughput=%.0f req/s p99=%.1f ms peak threads=%d peak heap=%d MB pinned events=%d%n",
+                mode(), clients, result.requests, result.ok, result.requests - result.ok, result.throughput, result.p99Millis,
+                result.peakThreads, result.peakHeapBytes >> 20, result.pinnedEvents);
+            result.pinnedSites.entrySet().stream()
+                .sorted(Map.Entry.<String, AtomicInteger>comparingByValue((a, b) -> Integer.compare(b.get(), a.get())))
+                .limit(5)
+                .forEach(site -> System.out.printf("  pinned %dx at %s%n", site.getValue().get(), site.getKey()));
+            if (clients <= 200) {
+                // por debajo del pool de Tomcat ambos modos deben atender todo
+                assertEquals(result.requests, result.ok, "Todas las peticiones deben responder 200 OK");
+            }
+        }
+    }
+
+    private Result run(HttpClient client, HttpRequest request, int clients) throws Exception {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        threadBean.resetPeakThreadCount();
+        AtomicLong peakHeap = new AtomicLong();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            Runtime runtime = Runtime.getRuntime();
+            peakHeap.accumulateAndGet(runtime.totalMemory() - runtime.freeMemory(), Math::max);
+        }, 0, 50, TimeUnit.MILLISECONDS);
+
+        // en Java 21 el evento JFR registra cada vez que un hilo virtual queda fijado a su carrier
+        // (synchronized en el driver, I/O nativo); en Java 17 el evento no existe y no se reporta nada
+        Map<String, AtomicInteger> pinnedSites = new ConcurrentHashMap<>();
+        AtomicInteger pinnedEvents = new AtomicInteger();
+        RecordingStream pinning = new RecordingStream();
+        pinning.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(1)).withStackTrace();
+        pinning.onEvent("jdk.VirtualThreadPinned", event -> {
+            pinnedEvents.incrementAndGet();
+            String site = event.getStackTrace() == null ? "unknown" : event.getStackTrace().getFrames().stream()
+                .map(RecordedFrame::getMethod)
+                .map(method -> method.getType().getName() + "." + method.getName())
+                .filter(frame -> !frame.startsWith("java.") && !frame.startsWith("jdk."))
+                .findFirst()
+                .orElse("jdk");
+            pinnedSites.computeIfAbsent(site, key -> new AtomicInteger()).incrementAndGet();
+        });
+        pinning.startAsync();
+
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger ok = new AtomicInteger();
+        List<CompletableFuture<Void>> chains = new ArrayList<>(clients);
+        long start = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                chain = chain.thenCompose(ignored -> {
+                    long requestStart = System.nanoTime();
+                    return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .handle((response, ex) -> {
+                            latencies.add(System.nanoTime() - requestStart);
+                            if (ex == null && response.statusCode() == 200) {
+                                ok.incrementAndGet();
+                            }
+                            return null;
+                        });
+                });
+            }
+            chains.add(chain);
+        }
+        CompletableFuture.allOf(chains.toArray(CompletableFuture[]::new)).get(10, TimeUnit.MINUTES);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        pinning.close();
+        sampler.shutdownNow();
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        int requests = clients * REQUESTS_PER_CLIENT;
+        return new Result(requests, ok.get(), requests / seconds,
+            sorted[(int) Math.ceil(sorted.length * 0.99) - 1] / 1_000_000.0,
+            threadBean.getPeakThreadCount(), peakHeap.get(), pinnedEvents.get(), pinnedSites);
+    }
+
+    private record Result(int requests, int ok, double throughput, double p99Millis, int peakThreads,
+            long peakHeapBytes, int pinnedEvents, Map<String, AtomicInteger> pinnedSites) {
+    }
+}
@@ -0,0 +1,292 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import com.ecommerce.dto.CheckoutStatusDTO;
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.CheckoutStatus;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.Role;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.CheckoutRequestRepository;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.RoleRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.security.AuthenticatedUser;
+import com.ecommerce.security.jwt.JwtService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// checkout síncrono contra el encolado: checkouts aceptados por segundo y latencia vista por el cliente,
+// y cuánto tardan los workers en confirmar todos los pedidos agrupándolos en transacciones
+@SpringBootTest(
+    webEnvironment = WebEnvironment.RANDOM_PORT,
+    properties = {"spring.profiles.active=test", "orders.checkout-queue.enabled=true"}
+)
+public class AsyncCheckoutLoadTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CheckoutRequestRepository checkoutRequestRepository;
+
+    private static final int BUYERS = 200;
+    private static final int CLIENT_THREADS = 32;
+    private static final int LINES_PER_CART = 3;
+
+    private record LoadResult(int accepted, double acceptedPerSecond, double p50Millis, double p99Millis) {
+    }
+
+    private final HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(30))
+        .build();
+
+    private List<Cart> carts;
+    private List<String> tokens;
+    private List<Product> products;
+
+    private void cleanDatabase() {
+        this.checkoutRequestRepository.deleteAllInBatch();
+        this.orderItemRepository.deleteAllInBatch();
+        this.orderRepository.deleteAllInBatch();
+        this.cartItemRepository.deleteAllInBatch();
+        this.cartRepository.deleteAllInBatch();
+        this.productRepository.deleteAllInBatch();
+        this.userRepository.deleteAllInBatch();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cleanDatabase();
+        Role userRole = this.roleRepository.findByName("ROLE_USER").orElseGet(
+            () -> this.roleRepository.save(new Role(null, "ROLE_USER"))
+        );
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            User user = new User();
+            user.setUsername("queued_buyer_" + i);
+            // no se hace login: el token se firma directamente y la contraseña no se usa
+            user.setPassword("not-used");
+            user.setEmail("queued_buyer_" + i + "@test.com");
+            user.setRoles(Set.of(userRole));
+            users.add(user);
+        }
+        users = this.userRepository.saveAll(users);
+        this.carts = new ArrayList<>();
+        this.tokens = new ArrayList<>();
+        for (User user : users) {
+            Cart cart = new Cart();
+            cart.setUser(user);
+            this.carts.add(cart);
+            this.tokens.add(this.jwtService.generateToken(new AuthenticatedUser(user.getId(), user.getUsername(), null, Set.of())));
+        }
+        this.carts = this.cartRepository.saveAll(this.carts);
+        List<Product> catalog = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            catalog.add(new Product(null, "Product " + i, "Queued product " + i, new BigDecimal("12.50"), 1_000_000));
+        }
+        this.products = this.productRepository.saveAll(catalog);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanDatabase();
+    }
+
+    @Test
+    void enqueueCheckout_Success_LongPollReturnsTheOrder() throws Exception {
+        fillCarts(1);
+
+        HttpResponse<String> accepted = this.client.send(post("/api/orders/checkout/async", 0), HttpResponse.BodyHandlers.ofString());
+        assertEquals(202, accepted.statusCode());
+        CheckoutStatusDTO queued = this.objectMapper.readValue(accepted.body(), CheckoutStatusDTO.class);
+        assertEquals("/api/orders/checkout/" + queued.id(), accepted.headers().firstValue("Location").orElse(null));
+
+        HttpResponse<String> polled = this.client.send(get("/api/orders/checkout/" + queued.id() + "?waitSeconds=10", 0), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, polled.statusCode());
+        CheckoutStatusDTO completed = this.objectMapper.readValue(polled.body(), CheckoutStatusDTO.class);
+        assertEquals(CheckoutStatus.COMPLETED, completed.status(), "La espera debe terminar con el pedido confirmado");
+        assertNotNull(completed.orderId());
+        assertTrue(this.orderRepository.existsById(completed.orderId()), "El pedido debe existir");
+        assertEquals(0, this.cartItemRepository.countByCartId(this.carts.get(0).getId()), "El carrito debe quedar vacío");
+
+        // otro usuario no puede consultar la solicitud
+        assertEquals(404, this.client.send(get("/api/orders/checkout/" + queued.id(), 1), HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+
+    @Test
+    void enqueueCheckout_Failure_EmptyCartIsReportedWithoutAffectingOthers() throws Exception {
+        fillCarts(2);
+        this.cartItemRepository.deleteAll(this.cartItemRepository.findByCartId(this.carts.get(0).getId()));
+
+        CheckoutStatusDTO empty = this.objectMapper.readValue(
+            this.client.send(post("/api/orders/checkout/async", 0), HttpResponse.BodyHandlers.ofString()).body(), CheckoutStatusDTO.class);
+        CheckoutStatusDTO full = this.objectMapper.readValue(
+            this.client.send(post("/api/orders/checkout/async", 1), HttpResponse.BodyHandlers.ofString()).body(), CheckoutStatusDTO.class);
+
+        CheckoutStatusDTO failed = await(empty.id(), 0);
+        assertEquals(CheckoutStatus.FAILED, failed.status());
+        assertTrue(failed.error().contains("empty cart"), "El motivo del fallo debe informarse: " + failed.error());
+        assertEquals(CheckoutStatus.COMPLETED, await(full.id(), 1).status(), "Un carrito vacío no debe frenar el pedido de otro usuario");
+    }
+
+    @Test
+    @Tag("benchmark")
+    void checkout_AcceptedThroughputAndTailLatency_SyncVersusQueued() throws Exception {
+        fillCarts(BUYERS);
+        LoadResult sync = fire(index -> post("/api/orders/checkout", index), 201);
+        assertEquals(BUYERS, this.orderRepository.count(), "El checkout síncrono debe crear todos los pedidos");
+
+        this.orderItemRepository.deleteAllInBatch();
+        this.orderRepository.deleteAllInBatch();
+        fillCarts(BUYERS);
+        DistributionSummary groupSizes = this.meterRegistry.get("orders.checkout.group.size").summary();
+        long groupsBefore = groupSizes.count();
+        double ordersBefore = groupSizes.totalAmount();
+        long start = System.nanoTime();
+        LoadResult queued = fire(index -> post("/api/orders/checkout/async", index), 202);
+        // se espera a que los workers confirmen todo lo aceptado
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (this.checkoutRequestRepository.findAll().stream().anyMatch(request -> !request.getStatus().isFinished())
+                && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        double drainSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        long groups = groupSizes.count() - groupsBefore;
+        double avgGroup = (groupSizes.totalAmount() - ordersBefore) / Math.max(groups, 1);
+
+        System.out.printf("checkout sync buyers=%d clients=%d accepted=%.0f/s p50=%.1f ms p99=%.1f ms | queued accepted=%.0f/s p50=%.1f ms p99=%.1f ms completed=%.0f orders/s transactions=%d avg group=%.1f%n",
+            BUYERS, CLIENT_THREADS, sync.acceptedPerSecond(), sync.p50Millis(), sync.p99Millis(),
+            queued.acceptedPerSecond(), queued.p50Millis(), queued.p99Millis(), BUYERS / drainSeconds, groups, avgGroup);
+
+        assertEquals(BUYERS, queued.accepted(), "Todos los checkouts encolados deben responder 202");
+        assertEquals(BUYERS, this.orderRepository.count(), "Los workers deben crear todos los pedidos encolados");
+        assertEquals(BUYERS, this.checkoutRequestRepository.findAll().stream().filter(request -> request.getStatus() == CheckoutStatus.COMPLETED).count());
+        assertTrue(groups < BUYERS, "Los workers deben confirmar varios pedidos por transacción");
+    }
+
+    private LoadResult fire(IntFunction<HttpRequest> requests, int expectedStatus) throws InterruptedException {
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENT_THREADS);
+        for (int i = 0; i < BUYERS; i++) {
+            HttpRequest request = requests.apply(i);
+            executor.submit(() -> {
+                start.await();
+                long requestStart = System.nanoTime();
+                HttpResponse<Void> response = this.client.send(request, HttpResponse.BodyHandlers.discarding());
+                latencies.add(System.nanoTime() - requestStart);
+                if (response.statusCode() == expectedStatus) {
+                    accepted.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        long startTime = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), "Los checkouts deben terminar a tiempo");
+        double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new LoadResult(accepted.get(), accepted.get() / seconds, sorted[sorted.length / 2] / 1_000_000.0,
+            sorted[(int) Math.ceil(sorted.length * 0.99) - 1] / 1_000_000.0);
+    }
+
+    private CheckoutStatusDTO await(Long requestId, int buyer) throws Exception {
+        HttpResponse<String> response = this.client.send(get("/api/orders/checkout/" + requestId + "?waitSeconds=10", buyer), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        return this.objectMapper.readValue(response.body(), CheckoutStatusDTO.class);
+    }
+
+    private void fillCarts(int buyers) {
+        List<CartItem> items = new ArrayList<>();
+        for (int i = 0; i < buyers; i++) {
+            for (int line = 0; line < LINES_PER_CART; line++) {
+                items.add(new CartItem(null, this.carts.get(i), this.products.get((i + line) % this.products.size()), 1 + line));
+            }
+        }
+        this.cartItemRepository.saveAll(items);
+    }
+
+    private HttpRequest post(String path, int buyer) {
+        return request(path, buyer).POST(HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private HttpRequest get(String path, int buyer) {
+        return request(path, buyer).GET().build();
+    }
+
+    private HttpRequest.Builder request(String path, int buyer) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + this.port + path))
+            .header("Authorization", "Bearer " + this.tokens.get(buyer))
+            .timeout(Duration.ofSeconds(30));
+    }
+}
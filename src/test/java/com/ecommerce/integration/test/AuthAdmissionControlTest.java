@@ -0,0 +1,192 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.ecommerce.dto.AuthRequestDTO;
+import com.ecommerce.dto.AuthResponseDTO;
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.Role;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.RoleRepository;
+import com.ecommerce.repository.UserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(
+    webEnvironment = WebEnvironment.RANDOM_PORT,
+    properties = {
+        "spring.profiles.active=test",
+        // un solo hilo y un lugar en cola para provocar el rechazo con pocos logins
+        "security.password.hashing.threads=1",
+        "security.password.hashing.queue-capacity=1"
+    }
+)
+public class AuthAdmissionControlTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    private static final String LOGIN_URL = "/api/auth/login";
+    private static final String PASSWORD = "12345";
+    private static final int CONCURRENT_LOGINS = 12;
+
+    // resultado de una ráfaga de logins con una petición al catálogo en el medio
+    private record LoginStorm(int accepted, int rejected, ResponseEntity<String> catalog, long catalogMillis) {
+    }
+
+    private void cleanDatabase() {
+        this.orderItemRepository.deleteAllInBatch();
+        this.orderRepository.deleteAllInBatch();
+        this.cartItemRepository.deleteAllInBatch();
+        this.cartRepository.deleteAllInBatch();
+        this.userRepository.deleteAllInBatch();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cleanDatabase();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanDatabase();
+    }
+
+    @Test
+    void login_Success_UpgradesLegacyHash() {
+        // hash bcrypt sin prefijo {id} y con un costo menor al configurado, como los guardados antes
+        createUser("legacy_user", new BCryptPasswordEncoder(4).encode(PASSWORD));
+        ResponseEntity<AuthResponseDTO> response = this.restTemplate.postForEntity(LOGIN_URL, new AuthRequestDTO("legacy_user", PASSWORD), AuthResponseDTO.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String storedPassword = this.userRepository.findByUsername("legacy_user").orElseThrow().getPassword();
+        assertTrue(storedPassword.startsWith("{bcrypt}$2a$10$"), "El hash debe re-codificarse con el algoritmo y costo actuales");
+        assertEquals(HttpStatus.OK, this.restTemplate.postForEntity(LOGIN_URL, new AuthRequestDTO("legacy_user", PASSWORD), AuthResponseDTO.class).getStatusCode(),
+            "El login debe seguir funcionando con el hash actualizado");
+    }
+
+    @Test
+    void login_Storm_RejectsOverflowWithTooManyRequestsAndCatalogStaysResponsive() throws Exception {
+        LoginStorm storm = loginStorm();
+
+        assertEquals(HttpStatus.OK, storm.catalog().getStatusCode(), "El catálogo debe responder durante la ráfaga de logins");
+        assertTrue(storm.accepted() >= 1, "Al menos un login debe completarse");
+        assertTrue(storm.rejected() >= 1, "Con la cola llena los logins sobrantes deben rechazarse");
+        assertTrue(this.meterRegistry.get("auth.hashing.duration").tag("operation", "login").timer().count() >= storm.accepted(),
+            "Cada login aceptado debe quedar medido");
+    }
+
+    @Test
+    @Tag("benchmark")
+    void login_Storm_CatalogLatency() throws Exception {
+        LoginStorm storm = loginStorm();
+        System.out.printf("login storm logins=%d accepted=%d rejected=%d catalog latency=%d ms%n",
+            CONCURRENT_LOGINS, storm.accepted(), storm.rejected(), storm.catalogMillis());
+    }
+
+    private LoginStorm loginStorm() throws Exception {
+        createUser("storm_user", this.passwordEncoder.encode(PASSWORD));
+        String token = this.restTemplate.postForEntity(LOGIN_URL, new AuthRequestDTO("storm_user", PASSWORD), AuthResponseDTO.class).getBody().getToken();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_LOGINS);
+        List<Future<ResponseEntity<String>>> logins = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_LOGINS; i++) {
+            logins.add(executor.submit(() -> {
+                start.await();
+                return this.restTemplate.postForEntity(LOGIN_URL, new AuthRequestDTO("storm_user", PASSWORD), String.class);
+            }));
+        }
+        start.countDown();
+        // el catálogo sigue respondiendo mientras los hashes ocupan su propio pool
+        long catalogStart = System.nanoTime();
+        ResponseEntity<String> catalog = this.restTemplate.exchange("/api/products/page", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        long catalogMillis = (System.nanoTime() - catalogStart) / 1_000_000;
+
+        int accepted = 0;
+        int rejected = 0;
+        for (Future<ResponseEntity<String>> login : logins) {
+            ResponseEntity<String> response = login.get(1, TimeUnit.MINUTES);
+            if (response.getStatusCode() == HttpStatus.OK) {
+                accepted++;
+            } else {
+                assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode(), "Un login rechazado debe responder 429");
+                assertNotNull(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER), "La respuesta 429 debe indicar Retry-After");
+                rejected++;
+            }
+        }
+        executor.shutdown();
+        return new LoginStorm(accepted, rejected, catalog, catalogMillis);
+    }
+
+    private void createUser(String username, String encodedPassword) {
+        Role userRole = this.roleRepository.findByName("ROLE_USER").orElseGet(
+            () -> this.roleRepository.save(new Role(null, "ROLE_USER"))
+        );
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword(encodedPassword);
+        user.setEmail(username + "@test.com");
+        user.setRoles(Set.of(userRole));
+        this.userRepository.save(user);
+        Cart cart = new Cart();
+        cart.setUser(user);
+        this.cartRepository.save(cart);
+    }
+}
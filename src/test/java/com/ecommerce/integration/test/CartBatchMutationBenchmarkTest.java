@@ -0,0 +1,218 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.ecommerce.dto.AuthRequestDTO;
+import com.ecommerce.dto.AuthResponseDTO;
+import com.ecommerce.dto.CartDTO;
+import com.ecommerce.dto.CartItemDTO;
+import com.ecommerce.dto.CartItemOperationDTO;
+import com.ecommerce.dto.CartItemOperationDTO.Mode;
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.Role;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.RoleRepository;
+import com.ecommerce.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// armar un carrito de 50 productos: 50 llamadas a /add-product contra un único PATCH /items
+@SpringBootTest(
+    webEnvironment = WebEnvironment.RANDOM_PORT,
+    properties = {"spring.profiles.active=test"}
+)
+public class CartBatchMutationBenchmarkTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private static final int ITEMS = 50;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 20;
+
+    private final HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(30))
+        .build();
+
+    private Cart cart;
+    private List<Product> products;
+    private String token;
+
+    private void cleanDatabase() {
+        this.orderItemRepository.deleteAllInBatch();
+        this.orderRepository.deleteAllInBatch();
+        this.cartItemRepository.deleteAllInBatch();
+        this.cartRepository.deleteAllInBatch();
+        this.productRepository.deleteAllInBatch();
+        this.userRepository.deleteAllInBatch();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cleanDatabase();
+        Role userRole = this.roleRepository.findByName("ROLE_USER").orElseGet(
+            () -> this.roleRepository.save(new Role(null, "ROLE_USER"))
+        );
+        User user = new User();
+        user.setUsername("batch_shopper");
+        user.setPassword(this.passwordEncoder.encode("12345"));
+        user.setEmail("batch_shopper@test.com");
+        user.setRoles(Set.of(userRole));
+        this.userRepository.save(user);
+        this.cart = new Cart();
+        this.cart.setUser(user);
+        this.cartRepository.save(this.cart);
+        List<Product> catalog = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            catalog.add(new Product(null, "Product " + i, "Batch product " + i, new BigDecimal("9.99"), 100));
+        }
+        this.products = this.productRepository.saveAll(catalog);
+        this.token = this.restTemplate.postForEntity("/api/auth/login", new AuthRequestDTO("batch_shopper", "12345"), AuthResponseDTO.class)
+            .getBody().getToken();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanDatabase();
+    }
+
+    @Test
+    @Tag("benchmark")
+    void buildCart_OneBatchIsFasterThanSingleAdds_FiftyItems() throws Exception {
+        List<CartItemOperationDTO> operations = new ArrayList<>();
+        List<HttpRequest> singleAdds = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            Long productId = this.products.get(i).getId();
+            int quantity = 1 + i % 3;
+            operations.add(new CartItemOperationDTO(productId, quantity, Mode.ADD));
+            singleAdds.add(request("/api/carts/add-product?productId=" + productId + "&quantity=" + quantity, "POST", HttpRequest.BodyPublishers.noBody()));
+        }
+        HttpRequest batch = request("/api/carts/items", "PATCH", HttpRequest.BodyPublishers.ofByteArray(this.objectMapper.writeValueAsBytes(operations)));
+        Map<Long, Integer> expected = operations.stream().collect(Collectors.toMap(CartItemOperationDTO::getProductId, CartItemOperationDTO::getQuantity));
+
+        long[] singleNanos = new long[ROUNDS];
+        long[] batchNanos = new long[ROUNDS];
+        for (int round = -WARMUP_ROUNDS; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (HttpRequest add : singleAdds) {
+                assertEquals(200, this.client.send(add, HttpResponse.BodyHandlers.discarding()).statusCode());
+            }
+            long single = System.nanoTime() - start;
+            assertEquals(expected, cartQuantities(), "Las altas individuales deben dejar el carrito completo");
+            this.cartItemRepository.deleteAllInBatch();
+
+            start = System.nanoTime();
+            HttpResponse<byte[]> response = this.client.send(batch, HttpResponse.BodyHandlers.ofByteArray());
+            long batched = System.nanoTime() - start;
+            assertEquals(200, response.statusCode());
+            CartDTO body = this.objectMapper.readValue(response.body(), CartDTO.class);
+            assertEquals(ITEMS, body.getCartItems().size(), "La respuesta debe traer el carrito actualizado");
+            assertEquals(expected, cartQuantities(), "El lote debe dejar el mismo carrito que las altas individuales");
+            this.cartItemRepository.deleteAllInBatch();
+            if (round >= 0) {
+                singleNanos[round] = single;
+                batchNanos[round] = batched;
+            }
+        }
+        Arrays.sort(singleNanos);
+        Arrays.sort(batchNanos);
+        double singleMillis = singleNanos[ROUNDS / 2] / 1_000_000.0;
+        double batchMillis = batchNanos[ROUNDS / 2] / 1_000_000.0;
+        System.out.printf("cart build items=%d single adds p50=%.2f ms p99=%.2f ms batch patch p50=%.2f ms p99=%.2f ms speedup=%.1fx%n",
+            ITEMS, singleMillis, singleNanos[ROUNDS - 1] / 1_000_000.0, batchMillis, batchNanos[ROUNDS - 1] / 1_000_000.0, singleMillis / batchMillis);
+
+        assertTrue(batchMillis * 5 < singleMillis, "Un lote de " + ITEMS + " debe costar menos de un quinto que las llamadas individuales");
+    }
+
+    @Test
+    void updateCartItems_Failure_UnknownProductLeavesCartUntouched() throws Exception {
+        this.cartItemRepository.save(new CartItem(null, this.cart, this.products.get(0), 2));
+        List<CartItemOperationDTO> operations = List.of(
+            new CartItemOperationDTO(this.products.get(0).getId(), 5, Mode.SET),
+            new CartItemOperationDTO(this.products.get(1).getId(), 1, Mode.ADD),
+            new CartItemOperationDTO(-1L, 1, Mode.ADD));
+
+        HttpResponse<String> response = this.client.send(
+            request("/api/carts/items", "PATCH", HttpRequest.BodyPublishers.ofByteArray(this.objectMapper.writeValueAsBytes(operations))),
+            HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(404, response.statusCode());
+        assertEquals(Map.of(this.products.get(0).getId(), 2), cartQuantities(), "Si una operación falla no se aplica ninguna");
+    }
+
+    private Map<Long, Integer> cartQuantities() {
+        return this.cartItemRepository.findItemDtosByCartId(this.cart.getId()).stream()
+            .collect(Collectors.toMap(CartItemDTO::getProductId, CartItemDTO::getQuantity));
+    }
+
+    private HttpRequest request(String path, String method, HttpRequest.BodyPublisher body) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + this.port + path))
+            .header("Authorization", "Bearer " + this.token)
+            .header("Content-Type", "application/json")
+            .timeout(Duration.ofSeconds(30))
+            .method(method, body)
+            .build();
+    }
+}
@@ -0,0 +1,183 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.ecommerce.dto.AuthRequestDTO;
+import com.ecommerce.dto.AuthResponseDTO;
+import com.ecommerce.dto.CartItemDTO;
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.Role;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.RoleRepository;
+import com.ecommerce.repository.UserRepository;
+
+@SpringBootTest(
+    webEnvironment = WebEnvironment.RANDOM_PORT,
+    properties = {"spring.profiles.active=test"}
+)
+public class CartConcurrencyTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private static final String CART_ADD_URL = "/api/carts/add-product?productId={productId}&quantity=1";
+    private static final int CONCURRENT_ADDS = 20;
+    private static final int BENCHMARK_CONCURRENT_ADDS = 100;
+
+    private Cart cart;
+    private String token;
+
+    private void cleanDatabase() {
+        this.orderItemRepository.deleteAllInBatch();
+        this.orderRepository.deleteAllInBatch();
+        this.cartItemRepository.deleteAllInBatch();
+        this.cartRepository.deleteAllInBatch();
+        this.productRepository.deleteAllInBatch();
+        this.userRepository.deleteAllInBatch();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cleanDatabase();
+        Role userRole = this.roleRepository.findByName("ROLE_USER").orElseGet(
+            () -> this.roleRepository.save(new Role(null, "ROLE_USER"))
+        );
+        // otro usuario primero: el id del carrito no coincide con el del usuario
+        User other = new User();
+        other.setUsername("other_shopper");
+        other.setPassword(this.passwordEncoder.encode("12345"));
+        other.setEmail("other_shopper@test.com");
+        other.setRoles(Set.of(userRole));
+        this.userRepository.save(other);
+        User user = new User();
+        user.setUsername("two_devices");
+        user.setPassword(this.passwordEncoder.encode("12345"));
+        user.setEmail("two_devices@test.com");
+        user.setRoles(Set.of(userRole));
+        this.userRepository.save(user);
+        this.cart = new Cart();
+        this.cart.setUser(user);
+        this.cartRepository.save(this.cart);
+        this.token = this.restTemplate.postForEntity("/api/auth/login", new AuthRequestDTO("two_devices", "12345"), AuthResponseDTO.class)
+            .getBody().getToken();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanDatabase();
+    }
+
+    @Test
+    void addProductToCart_ConcurrentAdds_NoLostUpdatesOrDuplicateLines() throws InterruptedException {
+        concurrentAdds(CONCURRENT_ADDS);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void addProductToCart_ConcurrentAddsLatency() throws InterruptedException {
+        long startTime = System.nanoTime();
+        long[] latencies = concurrentAdds(BENCHMARK_CONCURRENT_ADDS);
+        double millis = (System.nanoTime() - startTime) / 1_000_000.0;
+        Arrays.sort(latencies);
+        System.out.printf("concurrent cart adds=%d elapsed=%.0f ms p99=%.1f ms%n",
+            BENCHMARK_CONCURRENT_ADDS, millis, latencies[BENCHMARK_CONCURRENT_ADDS - 1] / 1_000_000.0);
+    }
+
+    // 'adds' altas simultáneas repartidas entre dos productos; devuelve la latencia de cada una
+    private long[] concurrentAdds(int adds) throws InterruptedException {
+        // ninguno de los dos productos está en el carrito: las primeras altas compiten por insertar la línea
+        List<Product> products = this.productRepository.saveAll(List.of(
+            new Product(null, "Sneakers", "Running", new BigDecimal("59.90"), 500),
+            new Product(null, "Socks", "Cotton", new BigDecimal("4.90"), 500)));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(this.token);
+        HttpEntity<Void> request = new HttpEntity<>(headers);
+
+        Map<HttpStatusCode, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        long[] latencies = new long[adds];
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(adds);
+        for (int i = 0; i < adds; i++) {
+            int index = i;
+            Long productId = products.get(i % 2).getId();
+            executor.submit(() -> {
+                start.await();
+                long requestStart = System.nanoTime();
+                ResponseEntity<CartItemDTO> response = this.restTemplate.exchange(CART_ADD_URL, HttpMethod.POST, request, CartItemDTO.class, productId);
+                latencies[index] = System.nanoTime() - requestStart;
+                statuses.computeIfAbsent(response.getStatusCode(), status -> new AtomicInteger()).incrementAndGet();
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), "Las altas deben terminar a tiempo");
+
+        List<CartItem> items = this.cartItemRepository.findByCartId(this.cart.getId());
+        assertEquals(Set.of(HttpStatusCode.valueOf(200)), statuses.keySet(), "Todas las altas deben responder 200 OK");
+        assertEquals(adds, statuses.get(HttpStatusCode.valueOf(200)).get());
+        assertEquals(2, items.size(), "Debe haber una sola línea por producto");
+        items.forEach(item -> assertEquals(adds / 2, item.getQuantity(), "No se debe perder ninguna alta"));
+        assertEquals(adds, this.cartRepository.findById(this.cart.getId()).orElseThrow().getVersion().intValue(), "Cada alta debe cambiar la versión del carrito");
+        return latencies;
+    }
+}
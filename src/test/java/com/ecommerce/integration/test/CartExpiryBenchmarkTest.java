@@ -0,0 +1,193 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.Role;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.RoleRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.CartExpiry;
+import com.ecommerce.service.CartHolds;
+import com.ecommerce.service.CartService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// ítems por segundo que borra la purga de carritos abandonados y cuánto dura la transacción más larga;
+// por defecto 1M de filas en cart_items, con -Dcarts.expiry.benchmark.items=10000000 (y más heap) se mide sobre 10M
+@SpringBootTest(properties = {
+    "spring.profiles.active=test",
+    "carts.holds.enabled=true",
+    "carts.holds.duration=1h"
+})
+public class CartExpiryBenchmarkTest {
+
+    @Autowired
+    private CartExpiry cartExpiry;
+
+    @Autowired
+    private CartHolds cartHolds;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private static final int ITEMS = Integer.getInteger("carts.expiry.benchmark.items", 1_000_000);
+    private static final int ITEMS_PER_CART = 10;
+
+    private void cleanDatabase() {
+        this.orderItemRepository.deleteAllInBatch();
+        this.orderRepository.deleteAllInBatch();
+        this.cartItemRepository.deleteAllInBatch();
+        this.cartRepository.deleteAllInBatch();
+        this.productRepository.deleteAllInBatch();
+        this.userRepository.deleteAllInBatch();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cleanDatabase();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanDatabase();
+    }
+
+    @Test
+    @Tag("benchmark")
+    void purgeAbandoned_Throughput_ChunkedDeletes() {
+        int carts = ITEMS / ITEMS_PER_CART;
+        for (int i = 0; i < ITEMS_PER_CART; i++) {
+            this.productRepository.save(new Product(null, "Product " + i, "Expiry product", new BigDecimal("5.00"), 100));
+        }
+        // la mitad de los carritos, uno sí y uno no, lleva 30 días sin tocarse
+        // al segundo: la columna guarda microsegundos y la comparación por igualdad de abajo debe coincidir
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Timestamp stale = Timestamp.valueOf(now.minusDays(30));
+        Timestamp fresh = Timestamp.valueOf(now);
+        long start = System.nanoTime();
+        this.jdbcTemplate.update("insert into users (id, username, email, password) "
+            + "select next value for users_seq, 'expiry_' || x, 'expiry_' || x || '@test.com', 'not-used' from system_range(1, ?)", carts);
+        this.jdbcTemplate.update("insert into carts (id, user_id, version, updated_at) "
+            + "select next value for carts_seq, id, 0, case when mod(rownum(), 2) = 0 then ? else ? end from users", stale, fresh);
+        this.jdbcTemplate.update("insert into cart_items (id, cart_id, product_id, quantity, version, updated_at) "
+            + "select next value for cart_items_seq, c.id, p.id, 1, 0, c.updated_at from carts c cross join products p");
+        long abandonedItems = this.jdbcTemplate.queryForObject("select count(*) from cart_items ci join carts c on c.id = ci.cart_id where c.updated_at = ?", Long.class, stale);
+        double setupSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        assertEquals(ITEMS, this.cartItemRepository.count());
+        assertEquals(ITEMS / 2, abandonedItems);
+
+        Timer chunks = this.meterRegistry.get("carts.expiry.chunk").timer();
+        long chunksBefore = chunks.count();
+        double chunksBeforeMillis = chunks.totalTime(TimeUnit.MILLISECONDS);
+        start = System.nanoTime();
+        int purged = this.cartExpiry.purgeAbandoned(now.minusDays(14));
+        double purgeSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        long chunkCount = chunks.count() - chunksBefore;
+        double averageChunkMillis = (chunks.totalTime(TimeUnit.MILLISECONDS) - chunksBeforeMillis) / chunkCount;
+        double maxChunkMillis = chunks.max(TimeUnit.MILLISECONDS);
+
+        System.out.printf("cart expiry items=%d carts=%d setup=%.1f s purged=%d purge=%.1f s throughput=%.0f items/s chunks=%d avg chunk=%.1f ms max chunk=%.1f ms%n",
+            ITEMS, carts, setupSeconds, purged, purgeSeconds, purged / purgeSeconds, chunkCount, averageChunkMillis, maxChunkMillis);
+
+        assertEquals(abandonedItems, purged);
+        assertEquals(ITEMS - abandonedItems, this.cartItemRepository.count(), "Los carritos activos conservan sus ítems");
+        // los carritos vaciados siguen existiendo con la versión subida y la fecha original
+        assertEquals(carts, this.cartRepository.count());
+        assertEquals(0L, this.jdbcTemplate.queryForObject("select count(*) from carts where updated_at = ? and version <> 1", Long.class, stale));
+        assertEquals(0, this.cartExpiry.purgeAbandoned(now.minusDays(14)), "Una segunda pasada no encuentra nada");
+        // cada transacción toca chunk-size carritos: los bloqueos duran un lote, no la purga entera
+        assertTrue(maxChunkMillis < purgeSeconds * 1000 / 10, "Ningún lote debe acercarse a la duración de la purga, el más largo tardó " + maxChunkMillis + " ms");
+    }
+
+    @Test
+    void addProductToCart_Holds_OtherCartsCannotTakeHeldUnitsUntilTheyExpire() {
+        Product product = this.productRepository.save(new Product(null, "Held product", "Soft hold", new BigDecimal("5.00"), 5));
+        User first = createUserWithCart("holds_first");
+        User second = createUserWithCart("holds_second");
+
+        this.cartService.addProductToCart(first.getId(), product.getId(), 4);
+
+        // 5 en stock y 4 apartadas por el primer carrito
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+            () -> this.cartService.addProductToCart(second.getId(), product.getId(), 2));
+        assertTrue(exception.getMessage().contains("Insufficient stock"));
+        this.cartService.addProductToCart(second.getId(), product.getId(), 1);
+        // el dueño de la reserva no compite consigo mismo
+        this.cartService.addProductToCart(first.getId(), product.getId(), 1);
+
+        // vencida la reserva del primero, el segundo puede llevarse el resto aunque la limpieza no haya pasado
+        this.jdbcTemplate.update("update cart_items set held_until = ? where held_until is not null and cart_id = (select id from carts where user_id = ?)",
+            Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), first.getId());
+        this.cartService.addProductToCart(second.getId(), product.getId(), 4);
+        assertEquals(1, this.cartHolds.releaseExpired(100), "Solo la reserva vencida se libera");
+        assertEquals(1L, this.jdbcTemplate.queryForObject("select count(*) from cart_items where held_until is not null", Long.class));
+    }
+
+    private User createUserWithCart(String username) {
+        Role role = this.roleRepository.findByName("ROLE_USER").orElseGet(
+            () -> this.roleRepository.save(new Role(null, "ROLE_USER"))
+        );
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("not-used");
+        user.setEmail(username + "@test.com");
+        user.setRoles(Set.of(role));
+        this.userRepository.save(user);
+        Cart cart = new Cart();
+        cart.setUser(user);
+        this.cartRepository.save(cart);
+        return user;
+    }
+}
@@ -0,0 +1,139 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.ecommerce.dto.CartDTO;
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.Role;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.RoleRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.CartService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = {
+    "spring.profiles.active=test",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class CartQueryCountTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private static final int[] CART_SIZES = {0, 1, 10, 50};
+    // una consulta para carrito + usuario + roles y otra para los ítems proyectados
+    private static final long EXPECTED_STATEMENTS = 2;
+
+    private Statistics statistics;
+    private User user;
+    private Cart cart;
+
+    private void cleanDatabase() {
+        this.orderItemRepository.deleteAllInBatch();
+        this.orderRepository.deleteAllInBatch();
+        this.cartItemRepository.deleteAllInBatch();
+        this.cartRepository.deleteAllInBatch();
+        this.productRepository.deleteAllInBatch();
+        this.userRepository.deleteAllInBatch();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cleanDatabase();
+        this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Role userRole = this.roleRepository.findByName("ROLE_USER").orElseGet(
+            () -> this.roleRepository.save(new Role(null, "ROLE_USER"))
+        );
+        this.user = new User();
+        this.user.setUsername("cart_reader");
+        this.user.setPassword("not-used");
+        this.user.setEmail("cart_reader@test.com");
+        this.user.setRoles(Set.of(userRole));
+        this.userRepository.save(this.user);
+        this.cart = new Cart();
+        this.cart.setUser(this.user);
+        this.cartRepository.save(this.cart);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanDatabase();
+    }
+
+    @Test
+    void getCartDTOByUserId_StatementsDoNotGrowWithItems() {
+        int itemsInCart = 0;
+        for (int size : CART_SIZES) {
+            addItems(size - itemsInCart);
+            itemsInCart = size;
+
+            this.statistics.clear();
+            CartDTO cartDTO = this.cartService.getCartDTOByUserId(this.user.getId()).orElseThrow();
+            long statements = this.statistics.getPrepareStatementCount();
+            System.out.printf("cart read items=%d statements=%d%n", size, statements);
+
+            assertEquals(size, cartDTO.getCartItems().size(), "El DTO debe contener todos los ítems");
+            assertEquals("cart_reader", cartDTO.getUser().getUsername());
+            assertEquals(Set.of("ROLE_USER"), cartDTO.getUser().getRoles(), "Los roles deben venir en la misma consulta del usuario");
+            cartDTO.getCartItems().forEach(item -> assertEquals(new BigDecimal("10.00"), item.getProductPrice()));
+            assertEquals(EXPECTED_STATEMENTS, statements, "Leer un carrito de " + size + " ítems no debe generar consultas por ítem");
+        }
+    }
+
+    private void addItems(int count) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            products.add(new Product(null, "Product " + i, "Some description", new BigDecimal("10.00"), 100));
+        }
+        List<CartItem> items = new ArrayList<>();
+        for (Product product : this.productRepository.saveAll(products)) {
+            items.add(new CartItem(null, this.cart, product, 2));
+        }
+        this.cartItemRepository.saveAll(items);
+    }
+}
@@ -0,0 +1,172 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.Role;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.RoleRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.OrderService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = {
+    "spring.profiles.active=test",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class CheckoutRoundTripTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private static final int[] CART_SIZES = {1, 10, 100};
+    private static final int[] BENCHMARK_CART_SIZES = {1, 10, 100, 1000};
+    private static final int BATCH_SIZE = 50;
+
+    private Statistics statistics;
+    private User user;
+    private Cart cart;
+
+    private void cleanDatabase() {
+        this.orderItemRepository.deleteAllInBatch();
+        this.orderRepository.deleteAllInBatch();
+        this.cartItemRepository.deleteAllInBatch();
+        this.cartRepository.deleteAllInBatch();
+        this.productRepository.deleteAllInBatch();
+        this.userRepository.deleteAllInBatch();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cleanDatabase();
+        this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Role userRole = this.roleRepository.findByName("ROLE_USER").orElseGet(
+            () -> this.roleRepository.save(new Role(null, "ROLE_USER"))
+        );
+        this.user = new User();
+        this.user.setUsername("bench_user");
+        this.user.setPassword("not-used");
+        this.user.setEmail("bench@test.com");
+        this.user.getRoles().add(userRole);
+        this.userRepository.save(this.user);
+        this.cart = new Cart();
+        this.cart.setUser(this.user);
+        this.cartRepository.save(this.cart);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanDatabase();
+    }
+
+    @Test
+    void placeOrder_RoundTripsDoNotGrowPerLine() {
+        Map<Integer, Long> statementsBySize = new LinkedHashMap<>();
+        for (int size : CART_SIZES) {
+            statementsBySize.put(size, placeOrders(createProducts(size), new long[2]));
+        }
+        long baseline = statementsBySize.get(1);
+        statementsBySize.forEach((size, statements) -> {
+            // solo crecen los batches (inserts, updates y valores de secuencia), nunca una sentencia por línea
+            long allowed = baseline + 3L * (long) Math.ceil((double) size / BATCH_SIZE);
+            assertTrue(statements <= allowed, "Checkout de " + size + " líneas usó " + statements + " sentencias");
+        });
+    }
+
+    @Test
+    @Tag("benchmark")
+    void placeOrder_LatencyByCartSize() {
+        for (int size : BENCHMARK_CART_SIZES) {
+            long[] latencies = new long[size >= 1000 ? 5 : 20];
+            long statements = placeOrders(createProducts(size), latencies);
+            Arrays.sort(latencies);
+            long p99 = latencies[(int) Math.ceil(latencies.length * 0.99) - 1];
+            System.out.printf("checkout lines=%d statements=%d p99=%.2f ms%n", size, statements, p99 / 1_000_000.0);
+        }
+    }
+
+    // un checkout por posición de 'latencies', con el carrito lleno de 'products'; devuelve el máximo de sentencias de uno
+    private long placeOrders(List<Product> products, long[] latencies) {
+        long statements = 0;
+        for (int i = 0; i < latencies.length; i++) {
+            fillCart(products);
+            this.statistics.clear();
+            long start = System.nanoTime();
+            this.orderService.placeOrder(this.user.getId());
+            latencies[i] = System.nanoTime() - start;
+            statements = Math.max(statements, this.statistics.getPrepareStatementCount());
+        }
+        assertEquals(0, this.cartItemRepository.countByCartId(this.cart.getId()), "El carrito debe quedar vacío tras el checkout");
+        return statements;
+    }
+
+    private List<Product> createProducts(int count) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setDescription("Some description");
+            product.setPrice(new BigDecimal("10.00"));
+            product.setStock(1_000_000);
+            products.add(product);
+        }
+        return this.productRepository.saveAll(products);
+    }
+
+    private void fillCart(List<Product> products) {
+        List<CartItem> items = new ArrayList<>();
+        for (Product product : products) {
+            items.add(new CartItem(null, this.cart, product, 1));
+        }
+        this.cartItemRepository.saveAll(items);
+    }
+}
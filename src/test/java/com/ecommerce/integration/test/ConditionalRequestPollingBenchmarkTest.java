@@ -0,0 +1,202 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.ecommerce.dto.AuthRequestDTO;
+import com.ecommerce.dto.AuthResponseDTO;
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.Role;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.RoleRepository;
+import com.ecommerce.repository.UserRepository;
+
+// un cliente que consulta una y otra vez el catálogo y su carrito sin que cambien:
+// se compara pedir siempre el cuerpo completo contra revalidar con If-None-Match
+@SpringBootTest(
+    webEnvironment = WebEnvironment.RANDOM_PORT,
+    properties = {"spring.profiles.active=test"}
+)
+public class ConditionalRequestPollingBenchmarkTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private static final int PRODUCTS = 100;
+    private static final int CART_ITEMS = 20;
+    private static final int WARMUP_POLLS = 500;
+    private static final int POLLS = 2_000;
+
+    private record PollResult(long bytes, double cpuMillisPerPoll, double throughput, int notModified) {
+    }
+
+    private final HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(30))
+        .build();
+
+    private String token;
+
+    private void cleanDatabase() {
+        this.orderItemRepository.deleteAllInBatch();
+        this.orderRepository.deleteAllInBatch();
+        this.cartItemRepository.deleteAllInBatch();
+        this.cartRepository.deleteAllInBatch();
+        this.productRepository.deleteAllInBatch();
+        this.userRepository.deleteAllInBatch();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cleanDatabase();
+        Role userRole = this.roleRepository.findByName("ROLE_USER").orElseGet(
+            () -> this.roleRepository.save(new Role(null, "ROLE_USER"))
+        );
+        User user = new User();
+        user.setUsername("polling_client");
+        user.setPassword(this.passwordEncoder.encode("12345"));
+        user.setEmail("polling_client@test.com");
+        user.setRoles(Set.of(userRole));
+        this.userRepository.save(user);
+        Cart cart = new Cart();
+        cart.setUser(user);
+        this.cartRepository.save(cart);
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(new Product(null, "Product " + i, "A reasonably long description for product " + i, new BigDecimal("10.00"), 100));
+        }
+        List<CartItem> items = new ArrayList<>();
+        for (Product product : this.productRepository.saveAll(products).subList(0, CART_ITEMS)) {
+            items.add(new CartItem(null, cart, product, 2));
+        }
+        this.cartItemRepository.saveAll(items);
+        this.token = this.restTemplate.postForEntity("/api/auth/login", new AuthRequestDTO("polling_client", "12345"), AuthResponseDTO.class)
+            .getBody().getToken();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanDatabase();
+    }
+
+    @Test
+    @Tag("benchmark")
+    void repeatPolling_ConditionalRequestsSaveBandwidthAndCpu() throws Exception {
+        for (String path : List.of("/api/products?size=100", "/api/carts")) {
+            PollResult full = poll(path, false);
+            PollResult conditional = poll(path, true);
+            System.out.printf("polling %s polls=%d full: %d KB %.0f req/s cpu=%.3f ms/req | if-none-match: %d KB %.0f req/s cpu=%.3f ms/req 304=%d%n",
+                path, POLLS, full.bytes() >> 10, full.throughput(), full.cpuMillisPerPoll(),
+                conditional.bytes() >> 10, conditional.throughput(), conditional.cpuMillisPerPoll(), conditional.notModified());
+
+            assertEquals(POLLS, conditional.notModified(), "Sin cambios todas las revalidaciones deben responder 304");
+            assertTrue(conditional.bytes() * 10 < full.bytes(), path + " con 304 debe transferir menos del 10% de los bytes");
+            assertTrue(conditional.cpuMillisPerPoll() < full.cpuMillisPerPoll(), path + " con 304 debe costar menos CPU por petición");
+        }
+    }
+
+    // CPU de todo el proceso: servidor y cliente comparten JVM, el costo del cliente es el mismo en ambos modos
+    private PollResult poll(String path, boolean conditional) throws Exception {
+        HttpRequest first = request(path, null);
+        HttpResponse<byte[]> initial = this.client.send(first, HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, initial.statusCode());
+        String etag = initial.headers().firstValue("ETag").orElse(null);
+        assertNotNull(etag, path + " debe devolver ETag");
+        HttpRequest request = request(path, conditional ? etag : null);
+        for (int i = 0; i < WARMUP_POLLS; i++) {
+            this.client.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+
+        com.sun.management.OperatingSystemMXBean os = (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long bytes = 0;
+        int notModified = 0;
+        long cpuStart = os.getProcessCpuTime();
+        long start = System.nanoTime();
+        for (int i = 0; i < POLLS; i++) {
+            HttpResponse<byte[]> response = this.client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            bytes += response.body().length + headerBytes(response.headers().map());
+            if (response.statusCode() == 304) {
+                notModified++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        double cpuMillis = (os.getProcessCpuTime() - cpuStart) / 1_000_000.0;
+        return new PollResult(bytes, cpuMillis / POLLS, POLLS / seconds, notModified);
+    }
+
+    private HttpRequest request(String path, String etag) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + this.port + path))
+            .header("Authorization", "Bearer " + this.token)
+            .timeout(Duration.ofSeconds(30))
+            .GET();
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        return builder.build();
+    }
+
+    private static long headerBytes(Map<String, List<String>> headers) {
+        // "nombre: valor\r\n" por cada valor
+        return headers.entrySet().stream()
+            .mapToLong(header -> header.getValue().stream().mapToLong(value -> header.getKey().length() + value.length() + 4).sum())
+            .sum();
+    }
+}
@@ -0,0 +1,220 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+
+import com.ecommerce.dto.CartItemDTO;
+import com.ecommerce.dto.OrderDTO;
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.IdempotencyRecord;
+import com.ecommerce.model.IdempotencyRecord.Operation;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.Role;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.IdempotencyRecordRepository;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.RoleRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.security.AuthenticatedUser;
+import com.ecommerce.security.jwt.JwtService;
+import com.ecommerce.service.IdempotencyService;
+
+// reintentos con Idempotency-Key sobre HTTP y costo de la búsqueda de claves con 100k claves distintas
+@SpringBootTest(
+    webEnvironment = WebEnvironment.RANDOM_PORT,
+    properties = {"spring.profiles.active=test"}
+)
+public class IdempotencyKeyBenchmarkTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private static final int KEYS = 100_000;
+    private static final int WARM_KEYS = 10_000;
+
+    private User buyer;
+    private Product product;
+
+    private void cleanDatabase() {
+        this.idempotencyRecordRepository.deleteAllInBatch();
+        this.orderItemRepository.deleteAllInBatch();
+        this.orderRepository.deleteAllInBatch();
+        this.cartItemRepository.deleteAllInBatch();
+        this.cartRepository.deleteAllInBatch();
+        this.productRepository.deleteAllInBatch();
+        this.userRepository.deleteAllInBatch();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cleanDatabase();
+        Role role = this.roleRepository.findByName("ROLE_USER").orElseGet(
+            () -> this.roleRepository.save(new Role(null, "ROLE_USER"))
+        );
+        User user = new User();
+        user.setUsername("idempotent_buyer");
+        user.setPassword("not-used");
+        user.setEmail("idempotent_buyer@test.com");
+        user.setRoles(Set.of(role));
+        this.buyer = this.userRepository.save(user);
+        Cart cart = new Cart();
+        cart.setUser(this.buyer);
+        this.cartRepository.save(cart);
+        this.product = this.productRepository.save(new Product(null, "Idempotent product", "Retry probe", new BigDecimal("10.00"), 100));
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanDatabase();
+    }
+
+    @Test
+    void placeOrder_Replay_SameKeyCreatesOneOrder() {
+        this.cartItemRepository.save(new CartItem(null, this.cartRepository.findByUserId(this.buyer.getId()).orElseThrow(), this.product, 2));
+
+        ResponseEntity<OrderDTO> first = this.restTemplate.exchange("/api/orders/checkout", HttpMethod.POST,
+            new HttpEntity<>(headers("checkout-1")), OrderDTO.class);
+        ResponseEntity<OrderDTO> retry = this.restTemplate.exchange("/api/orders/checkout", HttpMethod.POST,
+            new HttpEntity<>(headers("checkout-1")), OrderDTO.class);
+
+        assertEquals(201, first.getStatusCode().value());
+        assertEquals(201, retry.getStatusCode().value(), "El reintento recibe la respuesta original, no un error de carrito vacío");
+        assertEquals(first.getBody().getId(), retry.getBody().getId());
+        assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals(1, this.orderRepository.count(), "El checkout se ejecuta una sola vez");
+        assertEquals(98, this.productRepository.findById(this.product.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    void addProductToCart_Replay_SameKeyAddsOnce() {
+        String url = "/api/carts/add-product?productId=" + this.product.getId() + "&quantity=2";
+
+        ResponseEntity<CartItemDTO> first = this.restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<>(headers("add-1")), CartItemDTO.class);
+        ResponseEntity<CartItemDTO> retry = this.restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<>(headers("add-1")), CartItemDTO.class);
+        ResponseEntity<String> otherQuantity = this.restTemplate.exchange("/api/carts/add-product?productId=" + this.product.getId() + "&quantity=3",
+            HttpMethod.POST, new HttpEntity<>(headers("add-1")), String.class);
+        ResponseEntity<CartItemDTO> newKey = this.restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<>(headers("add-2")), CartItemDTO.class);
+
+        assertEquals(2, first.getBody().getQuantity());
+        assertEquals(first.getBody(), retry.getBody());
+        assertEquals(400, otherQuantity.getStatusCode().value(), "La misma clave con otros parámetros se rechaza");
+        assertEquals(4, newKey.getBody().getQuantity(), "Solo la clave nueva vuelve a sumar");
+        assertTrue(this.idempotencyRecordRepository.findByUserIdAndOperationAndIdempotencyKey(this.buyer.getId(), Operation.ADD_TO_CART, "add-1")
+            .orElseThrow().isCompleted(), "La respuesta queda guardada en la tabla");
+    }
+
+    @Test
+    void addProductToCart_AbandonedKey_ReclaimedAfterTheLease() {
+        // una instancia tomó la clave hace 10 minutos y cayó sin guardar la respuesta
+        IdempotencyRecord abandoned = new IdempotencyRecord(this.buyer.getId(), Operation.ADD_TO_CART, "add-1", this.product.getId() + ":2");
+        abandoned.setCreatedAt(abandoned.getCreatedAt().minusMinutes(10));
+        this.idempotencyRecordRepository.save(abandoned);
+        String url = "/api/carts/add-product?productId=" + this.product.getId() + "&quantity=2";
+
+        ResponseEntity<CartItemDTO> retry = this.restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<>(headers("add-1")), CartItemDTO.class);
+
+        assertEquals(200, retry.getStatusCode().value(), "Pasado el plazo la clave abandonada se retoma en lugar de responder 409");
+        assertEquals(2, retry.getBody().getQuantity());
+        IdempotencyRecord stored = this.idempotencyRecordRepository.findById(abandoned.getId()).orElseThrow();
+        assertTrue(stored.isCompleted(), "La respuesta se guarda con el token de la nueva toma");
+        assertTrue(stored.getCreatedAt().isAfter(LocalDateTime.now().minusMinutes(1)));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void execute_LookupCost_HundredThousandKeys() {
+        CartItemDTO body = new CartItemDTO(1L, this.product.getId(), "Idempotent product", new BigDecimal("10.00"), 1);
+        Long userId = this.buyer.getId();
+
+        // primer uso: inserta la clave, ejecuta y guarda la respuesta
+        long start = System.nanoTime();
+        for (int i = 0; i < KEYS; i++) {
+            this.idempotencyService.execute(userId, Operation.ADD_TO_CART, "key-" + i, "fingerprint", CartItemDTO.class, () -> ResponseEntity.ok(body));
+        }
+        double firstUsePerSecond = KEYS / ((System.nanoTime() - start) / 1_000_000_000.0);
+
+        // reintentos: con 10k y con 100k claves guardadas el costo por búsqueda debe ser el mismo
+        double warmNanos = replayNanos(userId, WARM_KEYS);
+        double fullNanos = replayNanos(userId, KEYS);
+
+        System.out.printf("idempotency keys=%d first use=%.0f keys/s (%.0f keys/min) replay lookup 10k=%.0f ns 100k=%.0f ns%n",
+            KEYS, firstUsePerSecond, firstUsePerSecond * 60, warmNanos, fullNanos);
+
+        assertEquals(KEYS, this.idempotencyRecordRepository.count());
+        assertTrue(firstUsePerSecond * 60 > KEYS, "Se deben poder registrar al menos 100k claves por minuto");
+        assertTrue(fullNanos < Math.max(warmNanos * 3, 20_000), "La búsqueda no debe crecer con la cantidad de claves");
+    }
+
+    private double replayNanos(Long userId, int keys) {
+        long start = System.nanoTime();
+        for (int i = 0; i < keys; i++) {
+            ResponseEntity<CartItemDTO> replay = this.idempotencyService.execute(userId, Operation.ADD_TO_CART, "key-" + i, "fingerprint", CartItemDTO.class,
+                () -> {
+                    throw new IllegalStateException("Un reintento no debe ejecutar la operación");
+                });
+            assertEquals(200, replay.getStatusCode().value());
+        }
+        return (System.nanoTime() - start) / (double) keys;
+    }
+
+    private HttpHeaders headers(String idempotencyKey) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(this.jwtService.generateToken(new AuthenticatedUser(this.buyer.getId(), this.buyer.getUsername(), null, Set.of())));
+        headers.set(IdempotencyService.HEADER, idempotencyKey);
+        return headers;
+    }
+}
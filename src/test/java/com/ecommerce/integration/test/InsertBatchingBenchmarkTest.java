@@ -0,0 +1,162 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.Role;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.RoleRepository;
+import com.ecommerce.repository.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = {
+    "spring.profiles.active=test",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class InsertBatchingBenchmarkTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private static final int ORDERS = 1000;
+    private static final int CHECK_ORDERS = 100;
+    private static final int ITEMS_PER_ORDER = 100;
+    private static final int ORDERS_PER_TRANSACTION = 50;
+    private static final int BATCH_SIZE = 50;
+
+    private User user;
+    private List<Product> products;
+
+    private void cleanDatabase() {
+        this.orderItemRepository.deleteAllInBatch();
+        this.orderRepository.deleteAllInBatch();
+        this.cartItemRepository.deleteAllInBatch();
+        this.cartRepository.deleteAllInBatch();
+        this.productRepository.deleteAllInBatch();
+        this.userRepository.deleteAllInBatch();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cleanDatabase();
+        Role userRole = this.roleRepository.findByName("ROLE_USER").orElseGet(
+            () -> this.roleRepository.save(new Role(null, "ROLE_USER"))
+        );
+        this.user = new User();
+        this.user.setUsername("bulk_buyer");
+        this.user.setPassword("not-used");
+        this.user.setEmail("bulk_buyer@test.com");
+        this.user.setRoles(Set.of(userRole));
+        this.userRepository.save(this.user);
+        List<Product> newProducts = new ArrayList<>();
+        for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+            newProducts.add(new Product(null, "Product " + i, "Some description", new BigDecimal("10.00"), 1_000_000));
+        }
+        this.products = this.productRepository.saveAll(newProducts);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanDatabase();
+    }
+
+    @Test
+    void insertOrderItems_PooledSequence_BatchesInserts() {
+        insertOrders(CHECK_ORDERS);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void insertOrderItems_Throughput_ThousandOrders() {
+        long start = System.nanoTime();
+        long statements = insertOrders(ORDERS);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.out.printf("insert batching orders=%d order items=%d statements=%d throughput=%.0f rows/s%n",
+            ORDERS, ORDERS * ITEMS_PER_ORDER, statements, (long) ORDERS * (ITEMS_PER_ORDER + 1) / seconds);
+    }
+
+    // inserta los pedidos de a 50 por transacción y verifica cuántas sentencias hicieron falta
+    private long insertOrders(int orders) {
+        Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        for (int from = 0; from < orders; from += ORDERS_PER_TRANSACTION) {
+            this.transactionTemplate.executeWithoutResult(status -> this.orderRepository.saveAll(buildOrders(ORDERS_PER_TRANSACTION)));
+        }
+        long statements = statistics.getPrepareStatementCount();
+        long rows = (long) orders * (ITEMS_PER_ORDER + 1);
+
+        assertEquals(orders * ITEMS_PER_ORDER, this.orderItemRepository.count());
+        // por cada 50 filas: un batch de inserts y, como mucho, un valor de secuencia
+        long transactions = orders / ORDERS_PER_TRANSACTION;
+        long allowed = 2 * (long) Math.ceil((double) rows / BATCH_SIZE) + 2 * transactions;
+        assertTrue(statements <= allowed, "Insertar " + rows + " filas usó " + statements + " sentencias, se esperaban como mucho " + allowed);
+        return statements;
+    }
+
+    private List<Order> buildOrders(int count) {
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setUser(this.user);
+            order.setOrderDate(LocalDateTime.now());
+            order.setStatus(OrderStatus.PENDING);
+            for (Product product : this.products) {
+                order.getOrderItems().add(new OrderItem(null, order, product, 1, product.getPrice()));
+            }
+            order.setTotalAmount(new BigDecimal("10.00").multiply(BigDecimal.valueOf(ITEMS_PER_ORDER)));
+            order.setItemCount(ITEMS_PER_ORDER);
+            orders.add(order);
+        }
+        return orders;
+    }
+}
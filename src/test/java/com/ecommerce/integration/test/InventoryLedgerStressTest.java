@@ -0,0 +1,197 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductChangedEvent.ChangeType;
+import com.ecommerce.inventory.DatabaseStockReservation;
+import com.ecommerce.inventory.InventoryLedger;
+import com.ecommerce.inventory.StripedStockCounter;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.StockJournalRepository;
+import com.ecommerce.service.ProductService;
+
+@SpringBootTest(properties = {
+    "spring.profiles.active=test",
+    "inventory.ledger.enabled=true",
+    // el volcado se dispara a mano desde el test
+    "inventory.ledger.flush-interval-ms=3600000"
+})
+public class InventoryLedgerStressTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockJournalRepository stockJournalRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private static final int THREADS = 64;
+    private static final int RESERVATIONS_PER_THREAD = 200;
+
+    @BeforeEach
+    void setUp() {
+        this.stockJournalRepository.deleteAllInBatch();
+        this.productRepository.deleteAllInBatch();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.stockJournalRepository.deleteAllInBatch();
+        this.productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void reserve_ConcurrentBuyers_NeverOversellsAndFlushesToProducts() throws InterruptedException {
+        int initialStock = 1000;
+        Product product = createProduct(initialStock);
+        AtomicInteger reserved = new AtomicInteger();
+        runConcurrently(ignored -> {
+            for (int i = 0; i < RESERVATIONS_PER_THREAD; i++) {
+                try {
+                    this.productService.decrementStock(Map.of(product.getId(), 1));
+                    reserved.incrementAndGet();
+                } catch (IllegalStateException ex) {
+                    return;
+                }
+            }
+        });
+        assertEquals(initialStock, reserved.get(), "Solo se deben reservar las unidades disponibles");
+        assertEquals(0, this.inventoryLedger.available(product.getId()));
+
+        this.inventoryLedger.flush();
+
+        assertEquals(0, this.productRepository.findById(product.getId()).orElseThrow().getStock(), "El volcado debe dejar la tabla en 0");
+        assertEquals(0, this.stockJournalRepository.count(), "El journal debe quedar vacío tras el volcado");
+    }
+
+    @Test
+    void reserve_RolledBackTransaction_ReleasesUnits() {
+        Product product = createProduct(10);
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> {
+                this.productService.decrementStock(Map.of(product.getId(), 4));
+                throw new IllegalStateException("checkout fallido");
+            });
+        } catch (IllegalStateException ex) {
+            // esperado
+        }
+        assertEquals(10, this.inventoryLedger.available(product.getId()));
+        assertEquals(0, this.stockJournalRepository.count());
+    }
+
+    @Test
+    void onProductChanged_AdminUpdateDuringReservation_ReconcilesWithoutLosingIt() {
+        Product product = createProduct(10);
+        assertEquals(10, this.inventoryLedger.available(product.getId()));
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> {
+                this.productService.decrementStock(Map.of(product.getId(), 4));
+                // el administrador fija el stock en 20 desde otra transacción mientras la reserva sigue abierta
+                CompletableFuture.runAsync(() -> {
+                    Product updated = this.productRepository.findById(product.getId()).orElseThrow();
+                    updated.setStock(20);
+                    this.productRepository.save(updated);
+                    this.inventoryLedger.onProductChanged(new ProductChangedEvent(product.getId(), ChangeType.UPDATED));
+                }).join();
+                assertEquals(16, this.inventoryLedger.available(product.getId()), "Las 4 unidades en curso siguen descontadas");
+                throw new IllegalStateException("checkout fallido");
+            });
+        } catch (IllegalStateException ex) {
+            // esperado
+        }
+        // la reserva deshecha vuelve al mismo contador ya corregido
+        assertEquals(20, this.inventoryLedger.available(product.getId()));
+
+        this.transactionTemplate.executeWithoutResult(status -> this.productService.decrementStock(Map.of(product.getId(), 5)));
+        this.inventoryLedger.flush();
+        this.inventoryLedger.onProductChanged(new ProductChangedEvent(product.getId(), ChangeType.UPDATED));
+        assertEquals(15, this.inventoryLedger.available(product.getId()), "Sin cambios en la base la reconciliación no mueve el contador");
+        assertEquals(15, this.productRepository.findById(product.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void reservationsPerSecond_LedgerVersusDatabase() throws InterruptedException {
+        int totalReservations = THREADS * RESERVATIONS_PER_THREAD;
+        Product ledgerProduct = createProduct(totalReservations);
+        Product databaseProduct = createProduct(totalReservations);
+        DatabaseStockReservation databaseReservation = new DatabaseStockReservation(this.productRepository);
+        StripedStockCounter counter = new StripedStockCounter(8, totalReservations);
+
+        // solo el contador en memoria, sin el journal ni la transacción
+        double counterRate = totalReservations / runConcurrently(ignored -> {
+            for (int i = 0; i < RESERVATIONS_PER_THREAD; i++) {
+                counter.tryReserve(1);
+            }
+        });
+        double ledgerRate = totalReservations / runConcurrently(ignored -> {
+            for (int i = 0; i < RESERVATIONS_PER_THREAD; i++) {
+                this.productService.decrementStock(Map.of(ledgerProduct.getId(), 1));
+            }
+        });
+        double databaseRate = totalReservations / runConcurrently(ignored -> {
+            for (int i = 0; i < RESERVATIONS_PER_THREAD; i++) {
+                this.transactionTemplate.executeWithoutResult(status -> databaseReservation.reserve(Map.of(databaseProduct.getId(), 1)));
+            }
+        });
+        System.out.printf("stock reservations threads=%d counter throughput=%.0f/s ledger throughput=%.0f/s database throughput=%.0f/s%n",
+            THREADS, counterRate, ledgerRate, databaseRate);
+
+        assertEquals(0, counter.available());
+        this.inventoryLedger.flush();
+        assertEquals(0, this.productRepository.findById(ledgerProduct.getId()).orElseThrow().getStock());
+        assertEquals(0, this.productRepository.findById(databaseProduct.getId()).orElseThrow().getStock());
+    }
+
+    private Product createProduct(int stock) {
+        return this.productRepository.save(new Product(null, "Flash SKU", "Flash sale", new BigDecimal("5.00"), stock));
+    }
+
+    // devuelve los segundos transcurridos
+    private double runConcurrently(Consumer<Integer> task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            int worker = i;
+            executor.submit(() -> {
+                start.await();
+                task.accept(worker);
+                return null;
+            });
+        }
+        long startTime = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), "Las reservas deben terminar a tiempo");
+        return (System.nanoTime() - startTime) / 1_000_000_000.0;
+    }
+}
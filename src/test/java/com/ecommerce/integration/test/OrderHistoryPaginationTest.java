@@ -0,0 +1,233 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.dto.OrderDTO;
+import com.ecommerce.dto.OrderPageDTO;
+import com.ecommerce.dto.OrderSummaryDTO;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.Role;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.RoleRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.OrderService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = {
+    "spring.profiles.active=test",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class OrderHistoryPaginationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    // diez páginas alcanzan para el recorrido por cursor; los 10k pedidos son solo para la medición
+    private static final int ORDERS = 200;
+    private static final int BENCHMARK_ORDERS = 10_000;
+    private static final int ITEMS_PER_ORDER = 3;
+    private static final int PAGE_SIZE = 20;
+    private static final int CHUNK = 500;
+
+    private Statistics statistics;
+    private User user;
+
+    private void cleanDatabase() {
+        this.orderItemRepository.deleteAllInBatch();
+        this.orderRepository.deleteAllInBatch();
+        this.cartItemRepository.deleteAllInBatch();
+        this.cartRepository.deleteAllInBatch();
+        this.productRepository.deleteAllInBatch();
+        this.userRepository.deleteAllInBatch();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cleanDatabase();
+        this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Role userRole = this.roleRepository.findByName("ROLE_USER").orElseGet(
+            () -> this.roleRepository.save(new Role(null, "ROLE_USER"))
+        );
+        this.user = new User();
+        this.user.setUsername("power_buyer");
+        this.user.setPassword("not-used");
+        this.user.setEmail("power_buyer@test.com");
+        this.user.setRoles(Set.of(userRole));
+        this.userRepository.save(this.user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanDatabase();
+    }
+
+    @Test
+    void getOrderPage_KeysetWalk_VisitsEveryOrderOnceWithFixedStatements() {
+        createOrders(ORDERS);
+        Set<Long> seen = new HashSet<>();
+        List<OrderDTO> visited = new ArrayList<>();
+        long maxStatements = 0;
+        LocalDateTime beforeDate = null;
+        Long beforeId = null;
+        do {
+            this.statistics.clear();
+            OrderPageDTO<OrderDTO> page = this.orderService.getOrderPage(this.user.getId(), beforeDate, beforeId, PAGE_SIZE);
+            maxStatements = Math.max(maxStatements, this.statistics.getPrepareStatementCount());
+            for (OrderDTO order : page.items()) {
+                assertTrue(seen.add(order.getId()), "Un pedido no puede repetirse entre páginas");
+                assertEquals(ITEMS_PER_ORDER, order.getItems().size(), "Cada pedido debe traer todas sus líneas");
+                assertEquals(new BigDecimal("60.00"), order.getTotalAmount().setScale(2));
+                visited.add(order);
+            }
+            beforeDate = page.nextBeforeDate();
+            beforeId = page.nextBeforeId();
+        } while (beforeId != null);
+
+        assertEquals(ORDERS, seen.size(), "El recorrido por cursor debe visitar todos los pedidos");
+        Comparator<OrderDTO> newestFirst = Comparator.comparing(OrderDTO::getOrderDate).thenComparing(OrderDTO::getId).reversed();
+        List<OrderDTO> sorted = new ArrayList<>(visited);
+        sorted.sort(newestFirst);
+        assertEquals(sorted, visited, "Las páginas deben salir ordenadas por fecha e id descendente");
+        assertEquals(2, maxStatements, "Cada página debe costar una consulta de cabeceras y una de líneas");
+    }
+
+    @Test
+    void getOrderSummaries_FirstPage_SingleStatement() {
+        createOrders(ORDERS);
+        this.statistics.clear();
+        OrderPageDTO<OrderSummaryDTO> summaries = this.orderService.getOrderSummaries(this.user.getId(), null, null, PAGE_SIZE);
+        long summaryStatements = this.statistics.getPrepareStatementCount();
+        OrderPageDTO<OrderDTO> page = this.orderService.getOrderPage(this.user.getId(), null, null, PAGE_SIZE);
+
+        assertEquals(1, summaryStatements, "El resumen no debe leer order_items");
+        assertEquals(PAGE_SIZE, summaries.items().size());
+        OrderSummaryDTO newest = summaries.items().get(0);
+        assertEquals(page.items().get(0).getId(), newest.id());
+        assertEquals(ITEMS_PER_ORDER, newest.itemCount());
+        assertEquals(0, new BigDecimal("60.00").compareTo(newest.totalAmount()), "El total debe venir de la columna del pedido");
+    }
+
+    @Test
+    @Tag("benchmark")
+    void getOrderHistory_LatencyVersusLegacyFullLoad() {
+        createOrders(BENCHMARK_ORDERS);
+        this.statistics.clear();
+        long start = System.nanoTime();
+        this.orderService.getOrderSummaries(this.user.getId(), null, null, PAGE_SIZE);
+        long summaryNanos = System.nanoTime() - start;
+        long summaryStatements = this.statistics.getPrepareStatementCount();
+
+        this.statistics.clear();
+        start = System.nanoTime();
+        this.orderService.getOrderPage(this.user.getId(), null, null, PAGE_SIZE);
+        long pageNanos = System.nanoTime() - start;
+        long pageStatements = this.statistics.getPrepareStatementCount();
+
+        // el listado completo necesita la sesión abierta para inicializar los ítems perezosos
+        this.statistics.clear();
+        start = System.nanoTime();
+        List<OrderDTO> legacy = this.transactionTemplate.execute(status -> this.orderService.getOrdersDTOByUsername("power_buyer"));
+        long legacyNanos = System.nanoTime() - start;
+        long legacyStatements = this.statistics.getPrepareStatementCount();
+
+        System.out.printf("order history orders=%d legacy statements=%d time=%.1f ms | page statements=%d time=%.1f ms | summaries statements=%d time=%.1f ms%n",
+            BENCHMARK_ORDERS, legacyStatements, legacyNanos / 1_000_000.0, pageStatements, pageNanos / 1_000_000.0, summaryStatements, summaryNanos / 1_000_000.0);
+        assertEquals(BENCHMARK_ORDERS, legacy.size());
+    }
+
+    @Test
+    void getOrderSummaries_IncompleteCursor_Throws() {
+        createOrders(ORDERS);
+        assertThrows(IllegalArgumentException.class,
+            () -> this.orderService.getOrderSummaries(this.user.getId(), LocalDateTime.now(), null, PAGE_SIZE));
+        OrderPageDTO<OrderSummaryDTO> empty = this.orderService.getOrderSummaries(this.user.getId(), LocalDateTime.of(2000, 1, 1, 0, 0), Long.MAX_VALUE, PAGE_SIZE);
+        assertTrue(empty.items().isEmpty());
+        assertNull(empty.nextBeforeId(), "Sin resultados no hay cursor siguiente");
+    }
+
+    private void createOrders(int count) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+            products.add(new Product(null, "Product " + i, "Some description", new BigDecimal("10.00"), 100));
+        }
+        List<Product> savedProducts = this.productRepository.saveAll(products);
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        for (int from = 0; from < count; from += CHUNK) {
+            int chunkStart = from;
+            this.transactionTemplate.executeWithoutResult(status -> {
+                List<Order> orders = new ArrayList<>();
+                for (int i = chunkStart; i < Math.min(chunkStart + CHUNK, count); i++) {
+                    Order order = new Order();
+                    order.setUser(this.user);
+                    // de a tres pedidos con la misma fecha para ejercitar el desempate por id
+                    order.setOrderDate(base.plusMinutes(i / 3));
+                    order.setStatus(OrderStatus.PENDING);
+                    order.setTotalAmount(new BigDecimal("60.00"));
+                    order.setItemCount(ITEMS_PER_ORDER);
+                    for (Product product : savedProducts) {
+                        order.getOrderItems().add(new OrderItem(null, order, product, 2, product.getPrice()));
+                    }
+                    orders.add(order);
+                }
+                this.orderRepository.saveAll(orders);
+            });
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.ecommerce.integration.test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 import java.math.BigDecimal;
 import java.util.HashMap;
@@ -14,6 +15,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -23,13 +25,17 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 
 import com.ecommerce.dto.AuthRequestDTO;
 import com.ecommerce.dto.AuthResponseDTO;
+import com.ecommerce.dto.CartDTO;
 import com.ecommerce.dto.OrderDTO;
+import com.ecommerce.dto.OrderPageDTO;
 import com.ecommerce.model.Cart;
 import com.ecommerce.model.Product;
 import com.ecommerce.model.Role;
 import com.ecommerce.model.User;
 import com.ecommerce.repository.CartItemRepository;
 import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.CheckoutRequestRepository;
+import com.ecommerce.repository.OrderItemRepository;
 import com.ecommerce.repository.OrderRepository;
 import com.ecommerce.repository.ProductRepository;
 import com.ecommerce.repository.RoleRepository;
@@ -53,6 +59,9 @@ public class OrderIntegrationTest {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
     @Autowired
     private CartRepository cartRepository;
 
@@ -68,9 +77,14 @@ public class OrderIntegrationTest {
     @Autowired
     private RoleRepository roleRepository;
 
+    @Autowired
+    private CheckoutRequestRepository checkoutRequestRepository;
+
     private static final String CHECKOUT_URL = "/api/orders/checkout";
     private static final String CART_ADD_URL = "/api/carts/add-product";
+    private static final String CART_URL = "/api/carts";
     private static final String LOGIN_URL = "/api/auth/login";
+    private static final String ORDERS_PAGE_URL = "/api/orders/page";
 
     private final String USERNAME = "user_normal"; 
     private final String PASSWORD = "12345";
@@ -81,6 +95,7 @@ public class OrderIntegrationTest {
     private String userToken;
 
     private void cleanDatabase() {
+        this.orderItemRepository.deleteAllInBatch();
         this.orderRepository.deleteAllInBatch();
         this.cartItemRepository.deleteAllInBatch();
         this.cartRepository.deleteAllInBatch();
@@ -133,6 +148,21 @@ public class OrderIntegrationTest {
         assertEquals(0, itemsInCart, "El carrito debe estar vacío en la db");
     }
 
+    @Test
+    void enqueueCheckout_Failure_QueueDisabled() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(this.userToken);
+        addProductToCart(createTestProduct("Laptop", INITIAL_STOCK).getId(), PURCHASE_QUANTITY);
+        long requestsBefore = this.checkoutRequestRepository.count();
+
+        // el perfil de test desactiva la cola: sin workers la solicitud nunca terminaría
+        ResponseEntity<String> response = restTemplate.exchange(CHECKOUT_URL + "/async", HttpMethod.POST, new HttpEntity<>(headers), String.class);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertNull(response.getHeaders().getLocation());
+        assertEquals(requestsBefore, this.checkoutRequestRepository.count(), "No debe quedar una solicitud en cola");
+    }
+
     @Test
     void placeOrder_Failure_InsufficientStockRollback() {
         HttpHeaders headers = new HttpHeaders();
@@ -155,6 +185,67 @@ public class OrderIntegrationTest {
         assertEquals(1, itemsInCart, "El carrito debe seguir con los productos porque el checkout falló");
     }
 
+    @Test
+    void getOrderPage_AfterCheckout_ReturnsOrderWithItemsAndRejectsIncompleteCursor() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(this.userToken);
+        Product product = createTestProduct("Monitor", INITIAL_STOCK);
+        addProductToCart(product.getId(), PURCHASE_QUANTITY);
+        restTemplate.exchange(CHECKOUT_URL, HttpMethod.POST, new HttpEntity<>(headers), OrderDTO.class);
+        ResponseEntity<OrderPageDTO<OrderDTO>> response = restTemplate.exchange(
+            ORDERS_PAGE_URL + "?size=5", HttpMethod.GET, new HttpEntity<>(headers),
+            new ParameterizedTypeReference<OrderPageDTO<OrderDTO>>() {}
+        );
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        OrderPageDTO<OrderDTO> page = response.getBody();
+        assertEquals(1, page.items().size(), "Debe devolver el pedido recién creado");
+        assertNull(page.nextBeforeId(), "Con un solo pedido no hay página siguiente");
+        OrderDTO order = page.items().get(0);
+        assertEquals(1, order.getItems().size());
+        assertEquals(product.getId(), order.getItems().get(0).getProductId());
+        assertEquals(0, new BigDecimal("300.00").compareTo(order.getTotalAmount()), "El total debe ser precio x cantidad");
+        ResponseEntity<String> badCursor = restTemplate.exchange(
+            ORDERS_PAGE_URL + "?beforeId=10", HttpMethod.GET, new HttpEntity<>(headers), String.class
+        );
+        assertEquals(HttpStatus.BAD_REQUEST, badCursor.getStatusCode(), "El cursor incompleto debe resultar en 400");
+    }
+
+    @Test
+    void getCart_Success_NotModifiedUntilCartOrItsProductsChange() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(this.userToken);
+        Product product = createTestProduct("Headphones", INITIAL_STOCK);
+        addProductToCart(product.getId(), 1);
+
+        ResponseEntity<CartDTO> first = restTemplate.exchange(CART_URL, HttpMethod.GET, new HttpEntity<>(headers), CartDTO.class);
+        String etag = first.getHeaders().getETag();
+        assertEquals(1, first.getBody().getCartItems().size());
+        assertEquals("no-cache, private", first.getHeaders().getCacheControl());
+
+        headers.setIfNoneMatch(etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, restTemplate.exchange(CART_URL, HttpMethod.GET, new HttpEntity<>(headers), CartDTO.class).getStatusCode());
+
+        addProductToCart(product.getId(), 1);
+        ResponseEntity<CartDTO> afterAdd = restTemplate.exchange(CART_URL, HttpMethod.GET, new HttpEntity<>(headers), CartDTO.class);
+        assertEquals(HttpStatus.OK, afterAdd.getStatusCode(), "Agregar un ítem cambia la ETag del carrito");
+        assertEquals(2, afterAdd.getBody().getCartItems().get(0).getQuantity());
+
+        // el carrito muestra el precio del producto: cambiarlo también invalida la ETag
+        headers.setIfNoneMatch(afterAdd.getHeaders().getETag());
+        Product repriced = this.productRepository.findById(product.getId()).orElseThrow();
+        repriced.setPrice(new BigDecimal("90.00"));
+        this.productRepository.save(repriced);
+        ResponseEntity<CartDTO> afterPriceChange = restTemplate.exchange(CART_URL, HttpMethod.GET, new HttpEntity<>(headers), CartDTO.class);
+        assertEquals(HttpStatus.OK, afterPriceChange.getStatusCode());
+        assertEquals(0, new BigDecimal("90.00").compareTo(afterPriceChange.getBody().getCartItems().get(0).getProductPrice()));
+
+        headers.setIfNoneMatch(afterPriceChange.getHeaders().getETag());
+        restTemplate.exchange(CHECKOUT_URL, HttpMethod.POST, new HttpEntity<>(headers), OrderDTO.class);
+        ResponseEntity<CartDTO> afterCheckout = restTemplate.exchange(CART_URL, HttpMethod.GET, new HttpEntity<>(headers), CartDTO.class);
+        assertEquals(HttpStatus.OK, afterCheckout.getStatusCode(), "El checkout vacía el carrito y cambia la ETag");
+        assertEquals(0, afterCheckout.getBody().getCartItems().size());
+    }
+
     private Product createTestProduct(String name, int stock) {
         Product testProduct = new Product();
         testProduct.setName(name);
@@ -0,0 +1,247 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.dto.OrderStatusTransitionDTO;
+import com.ecommerce.dto.OrderStatusTransitionResultDTO;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.Role;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.RoleRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.security.AuthenticatedUser;
+import com.ecommerce.security.jwt.JwtService;
+import com.ecommerce.service.OrderService;
+
+// cambios de estado por segundo sobre 100k pedidos: un update por lote contra cargar y guardar pedido a pedido
+@SpringBootTest(
+    webEnvironment = WebEnvironment.RANDOM_PORT,
+    properties = {"spring.profiles.active=test"}
+)
+public class OrderStatusTransitionBenchmarkTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private static final int ORDERS = 100_000;
+    private static final int PRODUCTS = 100;
+    private static final int STOCK = 1_000_000;
+    private static final int ORDERS_PER_TRANSACTION = 1000;
+    private static final int ONE_BY_ONE = 2000;
+
+    private User buyer;
+    private List<Product> products;
+
+    private void cleanDatabase() {
+        this.orderItemRepository.deleteAllInBatch();
+        this.orderRepository.deleteAllInBatch();
+        this.cartItemRepository.deleteAllInBatch();
+        this.cartRepository.deleteAllInBatch();
+        this.productRepository.deleteAllInBatch();
+        this.userRepository.deleteAllInBatch();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cleanDatabase();
+        this.buyer = createUser("status_buyer", "ROLE_USER");
+        List<Product> catalog = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            catalog.add(new Product(null, "Product " + i, "Status product", new BigDecimal("5.00"), STOCK));
+        }
+        this.products = this.productRepository.saveAll(catalog);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanDatabase();
+    }
+
+    @Test
+    @Tag("benchmark")
+    void transitionOrders_BulkUpdateThroughput_HundredThousandOrders() {
+        List<Long> orderIds = createOrders(ORDERS);
+
+        // referencia: un pedido por transacción, cargado y guardado por JPA
+        long start = System.nanoTime();
+        for (Long orderId : orderIds.subList(0, ONE_BY_ONE)) {
+            this.transactionTemplate.executeWithoutResult(status -> {
+                Order order = this.orderRepository.findById(orderId).orElseThrow();
+                if (order.getStatus().canTransitionTo(OrderStatus.PAID)) {
+                    order.setStatus(OrderStatus.PAID);
+                }
+            });
+        }
+        double oneByOnePerSecond = ONE_BY_ONE / ((System.nanoTime() - start) / 1_000_000_000.0);
+
+        start = System.nanoTime();
+        int paid = transitionAll(orderIds.subList(ONE_BY_ONE, ORDERS), OrderStatus.PAID);
+        double paidPerSecond = paid / ((System.nanoTime() - start) / 1_000_000_000.0);
+        assertEquals(ORDERS - ONE_BY_ONE, paid);
+
+        // la mitad se cancela: un update por lote más un batch de devolución de stock
+        List<Long> cancelled = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i += 2) {
+            cancelled.add(orderIds.get(i));
+        }
+        start = System.nanoTime();
+        int cancelledCount = transitionAll(cancelled, OrderStatus.CANCELLED);
+        double cancelledPerSecond = cancelledCount / ((System.nanoTime() - start) / 1_000_000_000.0);
+        assertEquals(ORDERS / 2, cancelledCount);
+
+        System.out.printf("order status transitions orders=%d one-by-one=%.0f/s bulk paid=%.0f/s bulk cancel with stock release=%.0f/s speedup=%.1fx%n",
+            ORDERS, oneByOnePerSecond, paidPerSecond, cancelledPerSecond, paidPerSecond / oneByOnePerSecond);
+
+        // cada pedido compró 1 unidad de products[i % PRODUCTS]; los cancelados devuelven la suya
+        Map<Long, Integer> expectedStock = new HashMap<>();
+        for (int i = 0; i < ORDERS; i++) {
+            expectedStock.merge(this.products.get(i % PRODUCTS).getId(), i % 2 == 0 ? 0 : -1, Integer::sum);
+        }
+        for (Product product : this.productRepository.findAllById(expectedStock.keySet())) {
+            assertEquals(STOCK + expectedStock.get(product.getId()), product.getStock(), "Stock del producto " + product.getId());
+        }
+        // un segundo intento no vuelve a devolver stock: los pedidos ya cancelados se rechazan
+        OrderStatusTransitionResultDTO again = this.orderService.transitionOrders(cancelled.subList(0, 100), OrderStatus.CANCELLED);
+        assertEquals(0, again.transitioned());
+        assertEquals(100, again.rejectedIds().size());
+        assertTrue(paidPerSecond > oneByOnePerSecond * 5, "El cambio en bloque debe ser al menos 5 veces más rápido que pedido a pedido");
+    }
+
+    @Test
+    void transitionOrders_Security_OnlyAdminsCanChangeStatus() {
+        List<Long> orderIds = createOrders(3);
+        User admin = createUser("status_admin", "ROLE_ADMIN");
+        OrderStatusTransitionDTO request = new OrderStatusTransitionDTO(List.of(orderIds.get(0), orderIds.get(1), -1L), OrderStatus.PAID);
+
+        ResponseEntity<String> forbidden = this.restTemplate.exchange("/api/orders/admin/status", HttpMethod.PATCH,
+            new HttpEntity<>(request, bearer(this.buyer)), String.class);
+        ResponseEntity<OrderStatusTransitionResultDTO> allowed = this.restTemplate.exchange("/api/orders/admin/status", HttpMethod.PATCH,
+            new HttpEntity<>(request, bearer(admin)), OrderStatusTransitionResultDTO.class);
+        ResponseEntity<String> invalid = this.restTemplate.exchange("/api/orders/admin/status", HttpMethod.PATCH,
+            new HttpEntity<>(new OrderStatusTransitionDTO(List.of(), OrderStatus.PAID), bearer(admin)), String.class);
+
+        assertEquals(403, forbidden.getStatusCode().value());
+        assertEquals(200, allowed.getStatusCode().value());
+        assertEquals(new OrderStatusTransitionResultDTO(OrderStatus.PAID, 3, 2, List.of(-1L)), allowed.getBody());
+        assertEquals(OrderStatus.PENDING, this.orderRepository.findById(orderIds.get(2)).orElseThrow().getStatus());
+        assertEquals(400, invalid.getStatusCode().value());
+    }
+
+    private int transitionAll(List<Long> orderIds, OrderStatus target) {
+        int transitioned = 0;
+        for (int from = 0; from < orderIds.size(); from += OrderService.MAX_STATUS_TRANSITIONS) {
+            List<Long> batch = orderIds.subList(from, Math.min(from + OrderService.MAX_STATUS_TRANSITIONS, orderIds.size()));
+            transitioned += this.orderService.transitionOrders(batch, target).transitioned();
+        }
+        return transitioned;
+    }
+
+    // pedidos de una unidad; el stock se descuenta como lo haría el checkout
+    private List<Long> createOrders(int count) {
+        List<Long> orderIds = new ArrayList<>(count);
+        for (int from = 0; from < count; from += ORDERS_PER_TRANSACTION) {
+            int first = from;
+            int last = Math.min(from + ORDERS_PER_TRANSACTION, count);
+            this.transactionTemplate.executeWithoutResult(status -> {
+                List<Order> orders = new ArrayList<>(last - first);
+                for (int i = first; i < last; i++) {
+                    Product product = this.products.get(i % PRODUCTS);
+                    Order order = new Order();
+                    order.setUser(this.buyer);
+                    order.setOrderDate(LocalDateTime.now());
+                    order.setStatus(OrderStatus.PENDING);
+                    order.setTotalAmount(product.getPrice());
+                    order.setItemCount(1);
+                    order.getOrderItems().add(new OrderItem(null, order, product, 1, product.getPrice()));
+                    orders.add(order);
+                }
+                this.orderRepository.saveAll(orders).forEach(order -> orderIds.add(order.getId()));
+            });
+        }
+        Map<Long, Integer> sold = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            sold.merge(this.products.get(i % PRODUCTS).getId(), -1, Integer::sum);
+        }
+        this.productRepository.adjustStock(sold);
+        return orderIds;
+    }
+
+    private User createUser(String username, String roleName) {
+        Role role = this.roleRepository.findByName(roleName).orElseGet(
+            () -> this.roleRepository.save(new Role(null, roleName))
+        );
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("not-used");
+        user.setEmail(username + "@test.com");
+        user.setRoles(Set.of(role));
+        return this.userRepository.save(user);
+    }
+
+    private HttpHeaders bearer(User user) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(this.jwtService.generateToken(new AuthenticatedUser(user.getId(), user.getUsername(), null, Set.of())));
+        return headers;
+    }
+}
@@ -0,0 +1,144 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.Role;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.RoleRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.OrderTotalsBackfill;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = {
+    "spring.profiles.active=test",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "orders.totals-backfill.enabled=true",
+    "orders.totals-backfill.batch-size=100"
+})
+public class OrderTotalsBackfillTest {
+
+    @Autowired
+    private OrderTotalsBackfill orderTotalsBackfill;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private static final int LEGACY_ORDERS = 1050;
+    private static final int BATCH_SIZE = 100;
+
+    private void cleanDatabase() {
+        this.orderItemRepository.deleteAllInBatch();
+        this.orderRepository.deleteAllInBatch();
+        this.cartItemRepository.deleteAllInBatch();
+        this.cartRepository.deleteAllInBatch();
+        this.productRepository.deleteAllInBatch();
+        this.userRepository.deleteAllInBatch();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cleanDatabase();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanDatabase();
+    }
+
+    @Test
+    void backfill_LegacyOrders_FillsTotalsInBatchesAndIsIdempotent() {
+        createLegacyOrders();
+        Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        int updated = this.orderTotalsBackfill.backfill();
+
+        long statements = statistics.getPrepareStatementCount();
+        int batches = (int) Math.ceil((double) LEGACY_ORDERS / BATCH_SIZE);
+        System.out.printf("order totals backfill orders=%d batches=%d statements=%d%n", updated, batches, statements);
+        assertEquals(LEGACY_ORDERS, updated, "Todos los pedidos sin total deben completarse");
+        // una lectura de ids y un update por lote, más la lectura final vacía
+        assertTrue(statements <= 2L * batches + 1, "El backfill no debe cargar pedidos ni ítems: " + statements + " sentencias");
+        for (Order order : this.orderRepository.findAll()) {
+            // los pedidos pares tienen dos líneas de 10 x 1 y 5 x 2, los impares ninguna
+            boolean withItems = order.getStatus() == OrderStatus.PAID;
+            assertEquals(withItems ? 2 : 0, order.getItemCount());
+            assertEquals(0, (withItems ? new BigDecimal("20.00") : BigDecimal.ZERO).compareTo(order.getTotalAmount()), "Total incorrecto para el pedido " + order.getId());
+        }
+        assertEquals(0, this.orderTotalsBackfill.backfill(), "Una segunda pasada no debe tocar ningún pedido");
+    }
+
+    private void createLegacyOrders() {
+        Role userRole = this.roleRepository.findByName("ROLE_USER").orElseGet(
+            () -> this.roleRepository.save(new Role(null, "ROLE_USER"))
+        );
+        User user = new User();
+        user.setUsername("legacy_buyer");
+        user.setPassword("not-used");
+        user.setEmail("legacy_buyer@test.com");
+        user.setRoles(Set.of(userRole));
+        this.userRepository.save(user);
+        Product cheap = this.productRepository.save(new Product(null, "Cheap", "Some description", new BigDecimal("10.00"), 100));
+        Product cheaper = this.productRepository.save(new Product(null, "Cheaper", "Some description", new BigDecimal("5.00"), 100));
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < LEGACY_ORDERS; i++) {
+            // sin totalAmount ni itemCount, como los pedidos previos a las columnas
+            Order order = new Order();
+            order.setUser(user);
+            order.setOrderDate(LocalDateTime.now());
+            order.setStatus(i % 2 == 0 ? OrderStatus.PAID : OrderStatus.PENDING);
+            if (i % 2 == 0) {
+                order.getOrderItems().add(new OrderItem(null, order, cheap, 1, cheap.getPrice()));
+                order.getOrderItems().add(new OrderItem(null, order, cheaper, 2, cheaper.getPrice()));
+            }
+            orders.add(order);
+        }
+        this.orderRepository.saveAll(orders);
+    }
+}
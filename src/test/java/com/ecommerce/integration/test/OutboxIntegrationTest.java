@@ -0,0 +1,173 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.dto.ProductInputDTO;
+import com.ecommerce.event.EventBus;
+import com.ecommerce.event.OrderPlacedEvent;
+import com.ecommerce.event.OutboxRelay;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductChangedEvent.ChangeType;
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.Role;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.OutboxEventRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.RoleRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ProductService;
+
+// el perfil de test desactiva el outbox; aquí los eventos pasan por 'outbox_events' y el relay como en producción
+@SpringBootTest(properties = {
+    "spring.profiles.active=test",
+    "events.outbox.enabled=true"
+})
+public class OutboxIntegrationTest {
+
+    @Autowired
+    private EventBus eventBus;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+    private final Consumer<List<Object>> recorder = this.received::addAll;
+
+    private void cleanDatabase() {
+        this.outboxEventRepository.deleteAllInBatch();
+        this.orderItemRepository.deleteAllInBatch();
+        this.orderRepository.deleteAllInBatch();
+        this.cartItemRepository.deleteAllInBatch();
+        this.cartRepository.deleteAllInBatch();
+        this.productRepository.deleteAllInBatch();
+        this.userRepository.deleteAllInBatch();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cleanDatabase();
+        this.eventBus.subscribe(Object.class, this.recorder);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.eventBus.unsubscribe(this.recorder);
+        cleanDatabase();
+    }
+
+    @Test
+    void updateProduct_Success_DeliveredOnceThroughTheOutbox() throws Exception {
+        Product product = this.productRepository.save(new Product(null, "Outbox product", "Relay probe", new BigDecimal("10.00"), 100));
+        ProductInputDTO dto = new ProductInputDTO();
+        dto.setName("Outbox product v2");
+        dto.setPrice(new BigDecimal("12.00"));
+        dto.setStock(90);
+
+        this.productService.updateProduct(product.getId(), dto);
+
+        assertEquals(new ProductChangedEvent(product.getId(), ChangeType.UPDATED), this.received.poll(5, TimeUnit.SECONDS));
+        // un relay más, como el del sondeo periódico: la fila ya se borró y no se entrega otra vez
+        this.outboxRelay.relay();
+        assertTrue(this.received.isEmpty(), "Cada evento se entrega una sola vez");
+        assertEquals(0, this.outboxEventRepository.count(), "Las filas entregadas se borran");
+    }
+
+    @Test
+    void placeOrder_Success_OnlyCommittedChangesArePublished() throws Exception {
+        Role userRole = this.roleRepository.findByName("ROLE_USER").orElseGet(
+            () -> this.roleRepository.save(new Role(null, "ROLE_USER"))
+        );
+        User user = new User();
+        user.setUsername("outbox_buyer");
+        user.setPassword("not-used");
+        user.setEmail("outbox_buyer@test.com");
+        user.setRoles(Set.of(userRole));
+        this.userRepository.save(user);
+        Cart cart = new Cart();
+        cart.setUser(user);
+        this.cartRepository.save(cart);
+        Product product = this.productRepository.save(new Product(null, "Outbox product", "Order probe", new BigDecimal("10.00"), 100));
+        this.cartItemRepository.save(new CartItem(null, cart, product, 2));
+
+        // una transacción deshecha no deja filas ni eventos
+        this.transactionTemplate.executeWithoutResult(status -> {
+            this.eventPublisher.publishEvent(new ProductChangedEvent(product.getId(), ChangeType.UPDATED));
+            status.setRollbackOnly();
+        });
+        assertEquals(0, this.outboxEventRepository.count());
+        Order order = this.orderService.placeOrder(user.getId());
+
+        List<Object> events = new ArrayList<>();
+        while (events.size() < 2) {
+            Object event = this.received.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "El pedido debe publicar el cambio de stock y el alta del pedido");
+            events.add(event);
+        }
+        assertEquals(List.of(new ProductChangedEvent(product.getId(), ChangeType.STOCK_CHANGED), new OrderPlacedEvent(order.getId(), user.getId())), events);
+        this.outboxRelay.relay();
+        assertTrue(this.received.isEmpty(), "El cambio deshecho no debe publicarse");
+    }
+}
@@ -0,0 +1,171 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.dto.ProductInputDTO;
+import com.ecommerce.event.EventBus;
+import com.ecommerce.event.OutboxRelay;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductChangedEvent.ChangeType;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.OutboxEventRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.ProductService;
+
+// latencia de un cambio confirmado hasta el suscriptor y eventos por segundo que entrega el relay del outbox
+@SpringBootTest(properties = {
+    "spring.profiles.active=test",
+    "events.outbox.enabled=true"
+})
+public class OutboxPropagationBenchmarkTest {
+
+    @Autowired
+    private EventBus eventBus;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private static final int WARMUP_UPDATES = 50;
+    private static final int UPDATES = 500;
+    private static final int BULK_EVENTS = 50_000;
+
+    private final BlockingQueue<Received> received = new LinkedBlockingQueue<>();
+    private final Consumer<List<Object>> recorder = events -> {
+        long now = System.nanoTime();
+        events.forEach(event -> this.received.add(new Received(event, now)));
+    };
+
+    private record Received(Object event, long nanos) {
+    }
+
+    private void cleanDatabase() {
+        this.outboxEventRepository.deleteAllInBatch();
+        this.orderItemRepository.deleteAllInBatch();
+        this.orderRepository.deleteAllInBatch();
+        this.cartItemRepository.deleteAllInBatch();
+        this.cartRepository.deleteAllInBatch();
+        this.productRepository.deleteAllInBatch();
+        this.userRepository.deleteAllInBatch();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cleanDatabase();
+        this.eventBus.subscribe(Object.class, this.recorder);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.eventBus.unsubscribe(this.recorder);
+        cleanDatabase();
+    }
+
+    @Test
+    @Tag("benchmark")
+    void updateProduct_PropagationLatency_CommitToSubscriber() throws Exception {
+        Product product = this.productRepository.save(new Product(null, "Outbox product", "Latency probe", new BigDecimal("10.00"), 100));
+        ProductInputDTO dto = new ProductInputDTO();
+        dto.setName("Outbox product");
+        dto.setPrice(new BigDecimal("10.00"));
+        long[] latencies = new long[UPDATES];
+        for (int i = -WARMUP_UPDATES; i < UPDATES; i++) {
+            dto.setStock(100 + i);
+            this.productService.updateProduct(product.getId(), dto);
+            long committed = System.nanoTime();
+            Received event = this.received.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "Cada actualización confirmada debe llegar al suscriptor");
+            assertEquals(new ProductChangedEvent(product.getId(), ChangeType.UPDATED), event.event());
+            if (i >= 0) {
+                latencies[i] = Math.max(event.nanos() - committed, 0);
+            }
+        }
+        Arrays.sort(latencies);
+        double p50 = latencies[UPDATES / 2] / 1_000_000.0;
+        double p99 = latencies[UPDATES * 99 / 100] / 1_000_000.0;
+        System.out.printf("outbox propagation updates=%d commit to subscriber p50=%.2f ms p99=%.2f ms%n", UPDATES, p50, p99);
+
+        // el relay se despierta tras el commit: la entrega no espera al sondeo periódico de 1 s
+        assertTrue(p50 < 250, "La mediana debe quedar muy por debajo del intervalo de sondeo, fue " + p50 + " ms");
+        this.outboxRelay.relay();
+        assertEquals(0, this.outboxEventRepository.count(), "Las filas entregadas se borran");
+    }
+
+    @Test
+    @Tag("benchmark")
+    void relay_Throughput_EventsPerSecond() throws Exception {
+        long start = System.nanoTime();
+        this.transactionTemplate.executeWithoutResult(status -> {
+            for (long id = 1; id <= BULK_EVENTS; id++) {
+                this.eventPublisher.publishEvent(new ProductChangedEvent(-id, ChangeType.STOCK_CHANGED));
+            }
+        });
+        long committed = System.nanoTime();
+        for (int i = 0; i < BULK_EVENTS; i++) {
+            assertNotNull(this.received.poll(30, TimeUnit.SECONDS), "Faltan eventos: llegaron " + i + " de " + BULK_EVENTS);
+        }
+        long delivered = System.nanoTime();
+        double writeMillis = (committed - start) / 1_000_000.0;
+        double relaySeconds = (delivered - committed) / 1_000_000_000.0;
+        System.out.printf("outbox throughput events=%d write=%.0f ms relay=%.0f ms throughput=%.0f events/s%n",
+            BULK_EVENTS, writeMillis, relaySeconds * 1000, BULK_EVENTS / relaySeconds);
+
+        // el último lote llega al suscriptor antes de borrarse: se espera a que el relay termine
+        this.outboxRelay.relay();
+        assertTrue(this.received.isEmpty(), "Cada evento se entrega una sola vez");
+        assertEquals(0, this.outboxEventRepository.count());
+    }
+}
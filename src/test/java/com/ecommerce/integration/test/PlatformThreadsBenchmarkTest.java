@@ -0,0 +1,16 @@
+package com.ecommerce.integration.test;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+
+@SpringBootTest(
+    webEnvironment = WebEnvironment.RANDOM_PORT,
+    properties = {"spring.profiles.active=test"}
+)
+public class PlatformThreadsBenchmarkTest extends AbstractConcurrentClientsBenchmark {
+
+    @Override
+    protected String mode() {
+        return "platform";
+    }
+}
@@ -0,0 +1,206 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.dto.AuthRequestDTO;
+import com.ecommerce.dto.AuthResponseDTO;
+import com.ecommerce.dto.CartDTO;
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.Role;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.RoleRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.CartService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(
+    webEnvironment = WebEnvironment.RANDOM_PORT,
+    properties = {
+        "spring.profiles.active=test",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+    }
+)
+public class PrincipalCacheLoadTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    private static final String CARTS_URL = "/api/carts";
+    private static final int THREADS = 2;
+    private static final int REQUESTS = 40;
+    private static final int BENCHMARK_THREADS = 8;
+    private static final int BENCHMARK_REQUESTS = 800;
+
+    private Statistics statistics;
+    private User user;
+    private String token;
+
+    private void cleanDatabase() {
+        this.orderItemRepository.deleteAllInBatch();
+        this.orderRepository.deleteAllInBatch();
+        this.cartItemRepository.deleteAllInBatch();
+        this.cartRepository.deleteAllInBatch();
+        this.userRepository.deleteAllInBatch();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cleanDatabase();
+        this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Role userRole = this.roleRepository.findByName("ROLE_USER").orElseGet(
+            () -> this.roleRepository.save(new Role(null, "ROLE_USER"))
+        );
+        this.user = new User();
+        this.user.setUsername("load_user");
+        this.user.setPassword(this.passwordEncoder.encode("12345"));
+        this.user.setEmail("load@test.com");
+        this.user.setRoles(Set.of(userRole));
+        this.userRepository.save(this.user);
+        Cart cart = new Cart();
+        cart.setUser(this.user);
+        this.cartRepository.save(cart);
+        ResponseEntity<AuthResponseDTO> login = this.restTemplate.postForEntity("/api/auth/login", new AuthRequestDTO("load_user", "12345"), AuthResponseDTO.class);
+        assertEquals(HttpStatus.OK, login.getStatusCode());
+        this.token = login.getBody().getToken();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanDatabase();
+    }
+
+    @Test
+    void getCart_WarmPrincipalCache_AuthenticationIssuesNoQueries() throws InterruptedException {
+        long statementsPerCartLookup = warmUpAndCountCartStatements();
+
+        this.statistics.clear();
+        getCarts(REQUESTS, THREADS);
+
+        assertEquals(REQUESTS * statementsPerCartLookup, this.statistics.getPrepareStatementCount(),
+            "La autenticación no debe consultar la base de datos con la caché caliente");
+    }
+
+    @Test
+    @Tag("benchmark")
+    void getCart_ThroughputAndP99_WarmPrincipalCache() throws InterruptedException {
+        long statementsPerCartLookup = warmUpAndCountCartStatements();
+
+        this.statistics.clear();
+        long startTime = System.nanoTime();
+        long[] latencies = getCarts(BENCHMARK_REQUESTS, BENCHMARK_THREADS);
+        double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+        long statements = this.statistics.getPrepareStatementCount();
+        Arrays.sort(latencies);
+        System.out.printf("GET /api/carts requests=%d threads=%d throughput=%.0f req/s p99=%.2f ms statements/request=%.2f%n",
+            BENCHMARK_REQUESTS, BENCHMARK_THREADS, BENCHMARK_REQUESTS / seconds,
+            latencies[(int) Math.ceil(BENCHMARK_REQUESTS * 0.99) - 1] / 1_000_000.0, (double) statements / BENCHMARK_REQUESTS);
+        assertEquals(BENCHMARK_REQUESTS * statementsPerCartLookup, statements);
+    }
+
+    // primera petición para cargar el principal en caché; devuelve las sentencias que necesita el endpoint por sí solo
+    private long warmUpAndCountCartStatements() {
+        assertEquals(HttpStatus.OK, this.restTemplate.exchange(CARTS_URL, HttpMethod.GET, cartRequest(), CartDTO.class).getStatusCode());
+
+        // sin autenticación (la vista abierta hace de transacción en el request)
+        this.statistics.clear();
+        // sin If-None-Match el endpoint lee la versión del carrito y después el carrito completo
+        this.transactionTemplate.executeWithoutResult(status -> {
+            this.cartService.getCartVersionByUserId(this.user.getId());
+            this.cartService.getCartDTOByUserId(this.user.getId());
+        });
+        return this.statistics.getPrepareStatementCount();
+    }
+
+    // reparte las peticiones entre los hilos; devuelve la latencia de cada una
+    private long[] getCarts(int requests, int threads) throws InterruptedException {
+        HttpEntity<Void> request = cartRequest();
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                int index;
+                while ((index = next.getAndIncrement()) < requests) {
+                    long start = System.nanoTime();
+                    ResponseEntity<CartDTO> response = this.restTemplate.exchange(CARTS_URL, HttpMethod.GET, request, CartDTO.class);
+                    latencies[index] = System.nanoTime() - start;
+                    if (response.getStatusCode() != HttpStatus.OK) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), "Las peticiones deben terminar a tiempo");
+        assertEquals(0, failures.get(), "Todas las peticiones deben responder 200 OK");
+        return latencies;
+    }
+
+    private HttpEntity<Void> cartRequest() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(this.token);
+        return new HttpEntity<>(headers);
+    }
+}
@@ -0,0 +1,169 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.ecommerce.dto.ProductImportReportDTO;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.ProductBulkService;
+
+@SpringBootTest(properties = {"spring.profiles.active=test"})
+public class ProductBulkImportTest {
+
+    @Autowired
+    private ProductBulkService productBulkService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private static final int[] IMPORT_SIZES = {20_000, 200_000};
+
+    @BeforeEach
+    void setUp() {
+        this.productRepository.deleteAllInBatch();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @Tag("benchmark")
+    void importNdjson_HeapDoesNotGrowWithFileSize() throws IOException {
+        long[] importOverhead = new long[IMPORT_SIZES.length];
+        for (int i = 0; i < IMPORT_SIZES.length; i++) {
+            int size = IMPORT_SIZES[i];
+            this.productRepository.deleteAllInBatch();
+            long baseline = usedHeapAfterGc();
+            AtomicLong midImport = new AtomicLong();
+            InputStream input = generatedInput(size, row -> "{\"name\":\"Product " + row + "\",\"description\":\"Bulk\",\"price\":9.99,\"stock\":5}\n",
+                () -> midImport.set(usedHeapAfterGc() - baseline));
+
+            long start = System.nanoTime();
+            ProductImportReportDTO report = this.productBulkService.importNdjson(input);
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            // la tabla en memoria de H2 también ocupa heap: se descuenta la mitad cargada al medir a mitad de camino
+            long tableHeap = usedHeapAfterGc() - baseline;
+            importOverhead[i] = midImport.get() - tableHeap / 2;
+
+            System.out.printf("bulk import ndjson rows=%d throughput=%.0f rows/s heap mid-import=%d MB table=%d MB import overhead=%d MB%n",
+                size, size / seconds, midImport.get() >> 20, tableHeap >> 20, importOverhead[i] >> 20);
+            assertEquals(size, report.inserted());
+            assertEquals(0, report.failed());
+            assertEquals(size, this.productRepository.count());
+        }
+        // con 10 veces más filas lo retenido por la importación debe seguir acotado por el chunk
+        assertTrue(importOverhead[1] < importOverhead[0] + (32L << 20),
+            "La importación retuvo " + (importOverhead[1] >> 20) + " MB con " + IMPORT_SIZES[1] + " filas");
+    }
+
+    @Test
+    void importCsv_InvalidRows_ReportsLineAndKeepsImporting() throws IOException {
+        String csv = """
+            id,name,description,price,stock
+            ,Keyboard,Mechanical,49.90,10
+            ,,Missing name,10.00,1
+            ,Mouse,"Wireless, silent",abc,3
+            ,Monitor,,199.00,-1
+            999999999,Ghost,Unknown id,1.00,1
+            ,Headset,,59.00,7
+            """;
+        ProductImportReportDTO report = this.productBulkService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(6, report.processed());
+        assertEquals(2, report.inserted());
+        assertEquals(4, report.failed());
+        assertEquals(4, report.errors().size());
+        assertEquals(3, report.errors().get(0).line(), "Debe informar la línea del archivo, contando la cabecera");
+        assertEquals("Name is mandatory", report.errors().get(0).message());
+        assertEquals(4, report.errors().get(1).line());
+        assertEquals(5, report.errors().get(2).line());
+        assertEquals("Stock cannot be negative", report.errors().get(2).message());
+        assertEquals(6, report.errors().get(3).line());
+        assertTrue(report.errors().get(3).message().contains("Product not found"));
+        assertEquals(2, this.productRepository.count());
+    }
+
+    @Test
+    void exportCsv_ThenImport_UpdatesEveryProduct() throws IOException {
+        String csv = "name,price,stock\n" + "Lamp,15.00,4\n" + "Desk,120.00,2\n";
+        // las columnas se toman de la cabecera, el orden no importa
+        ProductImportReportDTO created = this.productBulkService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(2, created.inserted());
+
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        this.productBulkService.exportCsv(exported);
+        String exportedCsv = exported.toString(StandardCharsets.UTF_8).replace(",4\n", ",40\n");
+        assertTrue(exportedCsv.startsWith("id,name,description,price,stock"), "El export debe incluir la cabecera del import");
+
+        ProductImportReportDTO reimported = this.productBulkService.importCsv(new ByteArrayInputStream(exportedCsv.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(2, reimported.updated(), "Las filas exportadas llevan id, por lo que se actualizan");
+        assertEquals(0, reimported.inserted());
+        assertEquals(2, this.productRepository.count());
+        assertEquals(40, this.productRepository.findAll().stream().filter(p -> p.getName().equals("Lamp")).findFirst().orElseThrow().getStock());
+    }
+
+    // genera las filas bajo demanda: el archivo nunca existe completo en memoria
+    private InputStream generatedInput(int rows, IntFunction<String> rowFactory, Runnable midway) {
+        return new InputStream() {
+            private int next;
+            private byte[] current = new byte[0];
+            private int position;
+
+            @Override
+            public int read() {
+                if (!fill()) {
+                    return -1;
+                }
+                return this.current[this.position++] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) {
+                if (!fill()) {
+                    return -1;
+                }
+                int count = Math.min(length, this.current.length - this.position);
+                System.arraycopy(this.current, this.position, buffer, offset, count);
+                this.position += count;
+                return count;
+            }
+
+            private boolean fill() {
+                while (this.position == this.current.length) {
+                    if (this.next == rows) {
+                        return false;
+                    }
+                    if (this.next == rows / 2) {
+                        midway.run();
+                    }
+                    this.current = rowFactory.apply(this.next++).getBytes(StandardCharsets.UTF_8);
+                    this.position = 0;
+                }
+                return true;
+            }
+        };
+    }
+
+    private long usedHeapAfterGc() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
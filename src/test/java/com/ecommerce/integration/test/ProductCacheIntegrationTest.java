@@ -0,0 +1,102 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import com.ecommerce.dto.ProductInputDTO;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.ProductService;
+
+@SpringBootTest(properties = {"spring.profiles.active=test"})
+public class ProductCacheIntegrationTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Cache productsCache;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        this.productRepository.deleteAllInBatch();
+        this.productsCache = this.cacheManager.getCache(ProductService.PRODUCTS_CACHE);
+        this.productsCache.clear();
+        this.product = this.productRepository.save(new Product(null, "Cached", "Some description", new BigDecimal("10.00"), 10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.productsCache.clear();
+        this.productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void getProductById_Success_SecondReadServedFromCache() {
+        long hitsBefore = nativeCache().stats().hitCount();
+        this.productService.getProductById(this.product.getId());
+        // un cambio que no pasa por el servicio no se ve mientras la entrada siga en caché
+        this.productRepository.deleteById(this.product.getId());
+        assertTrue(this.productService.getProductById(this.product.getId()).isPresent(), "La segunda lectura debe venir de la caché");
+        assertEquals(hitsBefore + 1, nativeCache().stats().hitCount(), "Debe registrarse un acierto en la caché");
+    }
+
+    @Test
+    void getProductById_Success_MissingProductIsNotCached() {
+        assertTrue(this.productService.getProductById(999_999L).isEmpty());
+        assertNull(this.productsCache.get(999_999L), "No se deben cachear productos inexistentes");
+    }
+
+    @Test
+    void updateProduct_Success_EvictsCachedProduct() {
+        this.productService.getProductById(this.product.getId());
+        assertNotNull(this.productsCache.get(this.product.getId()));
+        ProductInputDTO dto = new ProductInputDTO();
+        dto.setName("Renamed");
+        dto.setDescription("Some description");
+        dto.setPrice(new BigDecimal("12.00"));
+        dto.setStock(10);
+        this.productService.updateProduct(this.product.getId(), dto);
+        assertNull(this.productsCache.get(this.product.getId()), "La actualización debe invalidar la entrada");
+        assertEquals("Renamed", this.productService.getProductById(this.product.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void decrementStock_Success_EvictsCachedProduct() {
+        this.productService.getProductById(this.product.getId());
+        this.productService.decrementStock(Map.of(this.product.getId(), 3));
+        assertNull(this.productsCache.get(this.product.getId()), "El cambio de stock debe invalidar la entrada");
+        assertEquals(7, this.productService.getProductById(this.product.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    void deleteProduct_Success_EvictsCachedProduct() {
+        this.productService.getProductById(this.product.getId());
+        this.productService.deleteProduct(this.product.getId());
+        assertTrue(this.productService.getProductById(this.product.getId()).isEmpty(), "Un producto eliminado no debe seguir en caché");
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache() {
+        return ((CaffeineCache) this.productsCache).getNativeCache();
+    }
+}
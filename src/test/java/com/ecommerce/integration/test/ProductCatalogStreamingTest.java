@@ -0,0 +1,151 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.ProductService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+@SpringBootTest(properties = {"spring.profiles.active=test"})
+public class ProductCatalogStreamingTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static final int[] CATALOG_SIZES = {10_000, 100_000};
+    private static final int INSERT_BATCH = 1000;
+
+    private final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @BeforeEach
+    void setUp() {
+        this.productRepository.deleteAllInBatch();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @Tag("benchmark")
+    void streamProducts_MemoryAndLatencyVersusFindAll() throws IOException {
+        int inserted = 0;
+        for (int size : CATALOG_SIZES) {
+            insertProducts(size - inserted);
+            inserted = size;
+
+            long baseline = usedHeapAfterGc();
+            AtomicLong listBytes = new AtomicLong();
+            long listAllocated = allocatedBytes();
+            long listStart = System.nanoTime();
+            List<Product> products = this.productService.getAllProducts();
+            this.objectMapper.writeValue(countingStream(listBytes), products);
+            long listMillis = (System.nanoTime() - listStart) / 1_000_000;
+            listAllocated = allocatedBytes() - listAllocated;
+            assertEquals(size, products.size());
+            long listRetained = usedHeapAfterGc() - baseline;
+            Reference.reachabilityFence(products);
+            products = null;
+
+            AtomicLong streamBytes = new AtomicLong();
+            AtomicLong streamed = new AtomicLong();
+            AtomicLong streamRetained = new AtomicLong();
+            long streamAllocated = allocatedBytes();
+            long streamStart = System.nanoTime();
+            // a mitad del recorrido se mide lo que queda vivo mientras se transmite
+            writeNdjson(countingStream(streamBytes), streamed, size / 2, () -> streamRetained.set(usedHeapAfterGc() - baseline));
+            long streamMillis = (System.nanoTime() - streamStart) / 1_000_000;
+            streamAllocated = allocatedBytes() - streamAllocated;
+            assertEquals(size, streamed.get(), "El stream debe escribir todos los productos");
+
+            System.out.printf("catalog products=%d findAll latency=%d ms allocated=%d MB retained=%d MB | stream latency=%d ms allocated=%d MB retained=%d MB%n",
+                size, listMillis, listAllocated >> 20, listRetained >> 20, streamMillis, streamAllocated >> 20, streamRetained.get() >> 20);
+            assertEquals(listBytes.get(), streamBytes.get() + 1, "Ambos formatos deben serializar los mismos productos");
+        }
+    }
+
+    private void writeNdjson(OutputStream out, AtomicLong streamed, long sampleAt, Runnable sample) throws IOException {
+        ObjectWriter writer = this.objectMapper.writerFor(Product.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = writer.createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            this.productService.streamProducts(product -> {
+                try {
+                    writer.writeValue(generator, product);
+                    generator.writeRaw('\n');
+                    if (streamed.incrementAndGet() == sampleAt) {
+                        sample.run();
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+    }
+
+    private long usedHeapAfterGc() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private long allocatedBytes() {
+        return this.threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private OutputStream countingStream(AtomicLong bytes) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) {
+                bytes.incrementAndGet();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                bytes.addAndGet(len);
+            }
+        };
+    }
+
+    private void insertProducts(int count) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[] {"Product " + i, "Some description", new BigDecimal("10.00"), 100});
+            if (rows.size() == INSERT_BATCH || i == count - 1) {
+                this.jdbcTemplate.batchUpdate("insert into products (id, name, description, price, stock) values (next value for products_seq, ?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+    }
+}
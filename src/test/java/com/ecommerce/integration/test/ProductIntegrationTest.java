@@ -3,6 +3,7 @@ package com.ecommerce.integration.test;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.math.BigDecimal;
@@ -22,12 +23,16 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import com.ecommerce.dto.AuthRequestDTO;
 import com.ecommerce.dto.AuthResponseDTO;
+import com.ecommerce.dto.ProductImportReportDTO;
 import com.ecommerce.dto.ProductInputDTO;
+import com.ecommerce.dto.ProductPageDTO;
+import com.ecommerce.dto.ProductSearchHitDTO;
 import com.ecommerce.model.Cart;
 import com.ecommerce.model.Product;
 import com.ecommerce.model.Role;
@@ -39,6 +44,7 @@ import com.ecommerce.repository.OrderRepository;
 import com.ecommerce.repository.ProductRepository;
 import com.ecommerce.repository.RoleRepository;
 import com.ecommerce.repository.UserRepository;
+import com.ecommerce.search.ProductSearchService;
 
 @SpringBootTest(
     webEnvironment = WebEnvironment.RANDOM_PORT,
@@ -76,6 +82,9 @@ public class ProductIntegrationTest {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private ProductSearchService productSearchService;
+
     private static final String ADMIN_URL = "/api/products/admin";
     private static final String USER_URL = "/api/products";
     private static final String LOGIN_URL = "/api/auth/login";
@@ -200,6 +209,80 @@ public class ProductIntegrationTest {
         assertTrue(productNames.contains("B"));
     }
 
+    @Test
+    void getAllProducts_Success_FiltersAndSortsInDatabase() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(this.userToken);
+        this.productRepository.save(new Product(null, "Lamp", "Desk lamp", new BigDecimal("25.00"), 3));
+        this.productRepository.save(new Product(null, "Chair", "Office chair", new BigDecimal("80.00"), 0));
+        this.productRepository.save(new Product(null, "Desk", "Oak desk", new BigDecimal("150.00"), 2));
+        this.productRepository.save(new Product(null, "Bulb", "LED bulb", new BigDecimal("5.00"), 10));
+
+        ResponseEntity<Product[]> byPrice = restTemplate
+            .exchange(USER_URL + "?minPrice=10&maxPrice=200&sort=price", HttpMethod.GET, new HttpEntity<>(headers), Product[].class);
+        assertEquals(HttpStatus.OK, byPrice.getStatusCode());
+        assertEquals(List.of("Lamp", "Chair", "Desk"), Arrays.stream(byPrice.getBody()).map(Product::getName).toList());
+
+        ResponseEntity<Product[]> inStockByName = restTemplate
+            .exchange(USER_URL + "?inStock=true&sort=name&size=2", HttpMethod.GET, new HttpEntity<>(headers), Product[].class);
+        assertEquals(List.of("Bulb", "Desk"), Arrays.stream(inStockByName.getBody()).map(Product::getName).toList(), "Debe excluir productos sin stock y cortar en 'size'.");
+
+        ResponseEntity<Product[]> newest = restTemplate
+            .exchange(USER_URL + "?sort=newest&size=1", HttpMethod.GET, new HttpEntity<>(headers), Product[].class);
+        assertEquals(List.of("Bulb"), Arrays.stream(newest.getBody()).map(Product::getName).toList());
+
+        ResponseEntity<String> unknownSort = restTemplate
+            .exchange(USER_URL + "?sort=rating", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, unknownSort.getStatusCode(), "Un orden desconocido debe resultar en 400 Bad Request.");
+    }
+
+    @Test
+    void getProductPage_Success_FollowsCursorUntilLastPage() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(this.userToken);
+        createProduct("A", 1);
+        createProduct("B", 1);
+        createProduct("C", 1);
+        ResponseEntity<ProductPageDTO> firstPage = restTemplate
+            .exchange(USER_URL + "/page?size=2", HttpMethod.GET, new HttpEntity<>(headers), ProductPageDTO.class);
+        assertEquals(HttpStatus.OK, firstPage.getStatusCode());
+        assertEquals(List.of("A", "B"), firstPage.getBody().items().stream().map(Product::getName).toList(), "La primera página debe contener los dos primeros productos.");
+        assertNotNull(firstPage.getBody().nextCursor(), "La primera página debe indicar el cursor siguiente.");
+        ResponseEntity<ProductPageDTO> lastPage = restTemplate
+            .exchange(USER_URL + "/page?size=2&after=" + firstPage.getBody().nextCursor(), HttpMethod.GET, new HttpEntity<>(headers), ProductPageDTO.class);
+        assertEquals(List.of("C"), lastPage.getBody().items().stream().map(Product::getName).toList(), "La última página debe contener el producto restante.");
+        assertNull(lastPage.getBody().nextCursor(), "La última página no debe tener cursor siguiente.");
+    }
+
+    @Test
+    void getProductPage_Success_CapsPageSize() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(this.userToken);
+        for (int i = 0; i < 101; i++) {
+            createProduct("P" + i, 1);
+        }
+        ResponseEntity<ProductPageDTO> response = restTemplate
+            .exchange(USER_URL + "/page?size=5000", HttpMethod.GET, new HttpEntity<>(headers), ProductPageDTO.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(100, response.getBody().items().size(), "El tamaño de página no debe superar el máximo de 100.");
+        assertNotNull(response.getBody().nextCursor());
+    }
+
+    @Test
+    void streamProducts_Success_OneProductPerLine() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(this.userToken);
+        createProduct("A", 1);
+        createProduct("B", 2);
+        ResponseEntity<String> response = restTemplate
+            .exchange(USER_URL + "/stream", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getHeaders().getContentType().toString().startsWith("application/x-ndjson"), "La respuesta debe ser NDJSON.");
+        String[] lines = response.getBody().split("\n");
+        assertEquals(2, lines.length, "Debe haber una línea por producto.");
+        assertTrue(lines[0].contains("\"name\":\"A\"") && lines[1].contains("\"name\":\"B\""), "Los productos deben salir ordenados por ID.");
+    }
+
     @Test
     void updateProduct_Failure_RequiresAdminRole() {
         HttpHeaders headers = new HttpHeaders();
@@ -229,6 +312,79 @@ public class ProductIntegrationTest {
         assertTrue(optionalProduct.isEmpty());
     }
 
+    @Test
+    void bulkImportAndExport_WithAdminRole_StreamsNdjsonAndCsv() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(this.adminToken);
+        headers.setContentType(MediaType.parseMediaType("application/x-ndjson"));
+        String body = "{\"name\":\"Chair\",\"price\":35.50,\"stock\":8}\n"
+            + "{\"name\":\"Table\",\"price\":0,\"stock\":1}\n"
+            + "{\"name\":\"Shelf\",\"description\":\"Oak\",\"price\":80,\"stock\":2}\n";
+        ResponseEntity<ProductImportReportDTO> response = restTemplate
+            .exchange(ADMIN_URL + "/bulk", HttpMethod.POST, new HttpEntity<>(body, headers), ProductImportReportDTO.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        ProductImportReportDTO report = response.getBody();
+        assertEquals(2, report.inserted());
+        assertEquals(1, report.failed(), "El precio 0 no pasa la validación de ProductInputDTO.");
+        assertEquals(2, report.errors().get(0).line());
+
+        HttpHeaders exportHeaders = new HttpHeaders();
+        exportHeaders.setBearerAuth(this.adminToken);
+        exportHeaders.setAccept(List.of(MediaType.parseMediaType("text/csv")));
+        ResponseEntity<String> export = restTemplate
+            .exchange(ADMIN_URL + "/bulk", HttpMethod.GET, new HttpEntity<>(exportHeaders), String.class);
+        assertEquals(HttpStatus.OK, export.getStatusCode());
+        String[] lines = export.getBody().split("\n");
+        assertEquals(3, lines.length, "Cabecera más una línea por producto.");
+        assertTrue(lines[1].contains(",Chair,,35.50,8"), "Las filas deben salir en el formato de importación.");
+    }
+
+    @Test
+    void bulkImport_Failure_RequiresAdminRole() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(this.userToken);
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+        ResponseEntity<String> response = restTemplate
+            .exchange(ADMIN_URL + "/bulk", HttpMethod.POST, new HttpEntity<>("name,price,stock\nX,1,1\n", headers), String.class);
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode(), "La importación sin rol ADMIN debe resultar en 403 Forbidden.");
+        assertEquals(0, this.productRepository.count());
+    }
+
+    @Test
+    void searchProducts_Success_RanksFiltersAndFollowsAdminChanges() {
+        this.productSearchService.rebuild();
+        HttpHeaders adminHeaders = new HttpHeaders();
+        adminHeaders.setBearerAuth(this.adminToken);
+        Product cheap = restTemplate.exchange(ADMIN_URL + "/new", HttpMethod.POST,
+            new HttpEntity<>(createSearchDTO("Zapatilla Running", "Malla liviana", "49.90", 5), adminHeaders), Product.class).getBody();
+        Product described = restTemplate.exchange(ADMIN_URL + "/new", HttpMethod.POST,
+            new HttpEntity<>(createSearchDTO("Medias deportivas", "Ideales para zapatilla de running", "9.90", 0), adminHeaders), Product.class).getBody();
+        Product removed = restTemplate.exchange(ADMIN_URL + "/new", HttpMethod.POST,
+            new HttpEntity<>(createSearchDTO("Zapatilla Trail", "Suela reforzada", "89.90", 3), adminHeaders), Product.class).getBody();
+        restTemplate.exchange(ADMIN_URL + "/" + removed.getId(), HttpMethod.DELETE, new HttpEntity<>(adminHeaders), Void.class);
+        this.productSearchService.refresh();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(this.userToken);
+        ResponseEntity<ProductSearchHitDTO[]> response = restTemplate
+            .exchange(USER_URL + "/search?q=zapatilla run", HttpMethod.GET, new HttpEntity<>(headers), ProductSearchHitDTO[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(cheap.getId(), described.getId()), Arrays.stream(response.getBody()).map(ProductSearchHitDTO::id).toList(),
+            "Debe rankear primero la coincidencia en el nombre y excluir el producto eliminado.");
+
+        ResponseEntity<ProductSearchHitDTO[]> inStock = restTemplate
+            .exchange(USER_URL + "/search?q=running&inStock=true&maxPrice=50", HttpMethod.GET, new HttpEntity<>(headers), ProductSearchHitDTO[].class);
+        assertEquals(List.of(cheap.getId()), Arrays.stream(inStock.getBody()).map(ProductSearchHitDTO::id).toList(), "Los filtros deben excluir productos sin stock.");
+
+        ResponseEntity<String[]> suggestions = restTemplate
+            .exchange(USER_URL + "/search/suggest?prefix=zap", HttpMethod.GET, new HttpEntity<>(headers), String[].class);
+        assertEquals(List.of("zapatilla"), Arrays.asList(suggestions.getBody()));
+
+        ResponseEntity<String> blank = restTemplate
+            .exchange(USER_URL + "/search?q= ", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, blank.getStatusCode(), "Una búsqueda vacía debe resultar en 400 Bad Request.");
+    }
+
     @Test
     void getProductById_Failure_NonExistentId() {
         HttpHeaders headers = new HttpHeaders();
@@ -239,6 +395,75 @@ public class ProductIntegrationTest {
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode(), "La obtención de un producto inexistente debe resultar en 404 Not Found.");
     }
 
+    @Test
+    void getProductById_Success_NotModifiedUntilProductChanges() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(this.userToken);
+        Product product = createProduct("Keyboard", 10);
+        String url = USER_URL + "/" + product.getId();
+
+        ResponseEntity<Product> first = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), Product.class);
+        String etag = first.getHeaders().getETag();
+        assertNotNull(etag, "La respuesta debe llevar ETag");
+        assertEquals("max-age=5, private", first.getHeaders().getCacheControl());
+
+        headers.setIfNoneMatch(etag);
+        ResponseEntity<Product> repeated = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), Product.class);
+        assertEquals(HttpStatus.NOT_MODIFIED, repeated.getStatusCode(), "Con la ETag vigente debe responder 304");
+        assertNull(repeated.getBody());
+        assertEquals(etag, repeated.getHeaders().getETag());
+
+        HttpHeaders adminHeaders = new HttpHeaders();
+        adminHeaders.setBearerAuth(this.adminToken);
+        restTemplate.exchange(ADMIN_URL + "/" + product.getId(), HttpMethod.PUT, new HttpEntity<>(createProductDTO("Keyboard TKL", 10), adminHeaders), Product.class);
+
+        ResponseEntity<Product> changed = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), Product.class);
+        assertEquals(HttpStatus.OK, changed.getStatusCode(), "Tras actualizar el producto la ETag anterior ya no vale");
+        assertEquals("Keyboard TKL", changed.getBody().getName());
+        assertTrue(!etag.equals(changed.getHeaders().getETag()));
+    }
+
+    @Test
+    void getAllProducts_Success_NotModifiedUntilCatalogChanges() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(this.userToken);
+        createProduct("Lamp", 3);
+
+        ResponseEntity<Product[]> first = restTemplate.exchange(USER_URL, HttpMethod.GET, new HttpEntity<>(headers), Product[].class);
+        String etag = first.getHeaders().getETag();
+        assertEquals(1, first.getBody().length);
+
+        headers.setIfNoneMatch(etag);
+        ResponseEntity<Product[]> repeated = restTemplate.exchange(USER_URL, HttpMethod.GET, new HttpEntity<>(headers), Product[].class);
+        assertEquals(HttpStatus.NOT_MODIFIED, repeated.getStatusCode());
+
+        HttpHeaders adminHeaders = new HttpHeaders();
+        adminHeaders.setBearerAuth(this.adminToken);
+        restTemplate.exchange(ADMIN_URL + "/new", HttpMethod.POST, new HttpEntity<>(createProductDTO("Desk", 2), adminHeaders), Product.class);
+
+        ResponseEntity<Product[]> changed = restTemplate.exchange(USER_URL, HttpMethod.GET, new HttpEntity<>(headers), Product[].class);
+        assertEquals(HttpStatus.OK, changed.getStatusCode(), "Un producto nuevo cambia la versión del catálogo");
+        assertEquals(2, changed.getBody().length);
+    }
+
+    @Test
+    void getAllProducts_Success_ChangeWithoutLocalEventVisibleAfterRefresh() throws InterruptedException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(this.userToken);
+        createProduct("Lamp", 3);
+
+        ResponseEntity<Product[]> first = restTemplate.exchange(USER_URL, HttpMethod.GET, new HttpEntity<>(headers), Product[].class);
+        headers.setIfNoneMatch(first.getHeaders().getETag());
+
+        // alta directa en la tabla, sin evento en esta instancia: como la de otra instancia o un script SQL
+        createProduct("Desk", 2);
+        Thread.sleep(1200);
+
+        ResponseEntity<Product[]> changed = restTemplate.exchange(USER_URL, HttpMethod.GET, new HttpEntity<>(headers), Product[].class);
+        assertEquals(HttpStatus.OK, changed.getStatusCode(), "La versión del catálogo sale de la base, no de un contador local");
+        assertEquals(2, changed.getBody().length);
+    }
+
     private Product createProduct(String name, int stock) {
         Product newProduct = new Product();
         newProduct.setName(name);
@@ -257,6 +482,13 @@ public class ProductIntegrationTest {
         return dto;
     }
 
+    private ProductInputDTO createSearchDTO(String name, String description, String price, int stock) {
+        ProductInputDTO dto = createProductDTO(name, stock);
+        dto.setDescription(description);
+        dto.setPrice(new BigDecimal(price));
+        return dto;
+    }
+
     private String loginAndGetToken(String username, String password) {
         AuthRequestDTO authRequest = new AuthRequestDTO(username, password);
         ResponseEntity<AuthResponseDTO> authResponse = restTemplate.postForEntity(LOGIN_URL, authRequest, AuthResponseDTO.class);
@@ -0,0 +1,167 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductFilter;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.ProductSort;
+
+@SpringBootTest(properties = {"spring.profiles.active=test"})
+public class ProductListingQueryPlanTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final int CATALOG_SIZE = 1_000_000;
+    // para verificar la pista alcanza un catálogo chico: H2 elige el mismo índice sin importar la cantidad de filas
+    private static final int SMALL_CATALOG_SIZE = 10_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int RUNS = 20;
+
+    private record PriceRange(String label, BigDecimal min, BigDecimal max) {
+    }
+
+    // precios de 0 a 999.99 repartidos uniformemente
+    private static final List<PriceRange> PRICE_RANGES = List.of(
+        new PriceRange("none", null, null),
+        new PriceRange("narrow", new BigDecimal("100.00"), new BigDecimal("100.50")),
+        new PriceRange("wide", new BigDecimal("100.00"), new BigDecimal("800.00")),
+        new PriceRange("min-only", new BigDecimal("100.00"), null)
+    );
+
+    @BeforeEach
+    void setUp() {
+        this.productRepository.deleteAllInBatch();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.jdbcTemplate.execute("set query_statistics false");
+        this.productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @Tag("benchmark")
+    void findListing_EveryFilterCombinationUsesAnIndex() {
+        seedCatalog(CATALOG_SIZE);
+        for (PriceRange range : PRICE_RANGES) {
+            for (boolean inStockOnly : new boolean[] {false, true}) {
+                for (ProductSort sort : ProductSort.values()) {
+                    ProductFilter filter = new ProductFilter(range.min(), range.max(), inStockOnly, sort, PAGE_SIZE);
+                    // se reinician las estadísticas para quedarse solo con las sentencias de esta combinación
+                    this.jdbcTemplate.execute("set query_statistics false");
+                    this.jdbcTemplate.execute("set query_statistics true");
+                    long[] latencies = new long[RUNS];
+                    List<Product> products = List.of();
+                    for (int i = 0; i < RUNS; i++) {
+                        long start = System.nanoTime();
+                        products = this.productRepository.findListing(filter);
+                        latencies[i] = System.nanoTime() - start;
+                    }
+                    String plan = explainListing(filter);
+                    String combination = "price=" + range.label() + " inStock=" + inStockOnly + " sort=" + sort;
+                    Arrays.sort(latencies);
+                    System.out.printf("product listing rows=%d %s p50=%.2f ms p99=%.2f ms index=%s%n", CATALOG_SIZE, combination,
+                        latencies[RUNS / 2] / 1_000_000.0, latencies[RUNS - 1] / 1_000_000.0, indexName(plan));
+
+                    assertFalse(plan.contains("tableScan"), combination + " no debe recorrer la tabla completa: " + plan);
+                    // o el índice ya entrega el orden pedido, o el rango de precio es chico y se ordena solo ese rango
+                    assertTrue(plan.contains("/* index sorted */") || plan.contains("IDX_PRODUCTS_PRICE_ID: PRICE"),
+                        combination + " debe resolverse por índice: " + plan);
+                    assertEquals(PAGE_SIZE, products.size(), combination);
+                    assertOrderedAndFiltered(products, filter, combination);
+                }
+            }
+        }
+    }
+
+    @Test
+    void findListing_PriceFilterWithOtherSort_HintSwitchesToTheSortIndex() {
+        seedCatalog(SMALL_CATALOG_SIZE);
+        ProductFilter filter = new ProductFilter(new BigDecimal("100.00"), new BigDecimal("800.00"), false, ProductSort.NAME, PAGE_SIZE);
+        this.productRepository.findListing(filter);
+        String hinted = explainListing(filter);
+        String unhinted = this.jdbcTemplate.queryForObject(
+            "explain select p.id, p.name, p.description, p.price, p.stock from products p where p.price >= ? and p.price <= ? order by p.name, p.id fetch first ? rows only",
+            String.class, filter.minPrice(), filter.maxPrice(), filter.limit());
+
+        // sin la pista H2 lee todo el rango por el índice de precio y lo ordena; con ella recorre el índice del nombre y corta en el límite
+        assertTrue(unhinted.contains("IDX_PRODUCTS_PRICE_ID: PRICE") && !unhinted.contains("/* index sorted */"), unhinted);
+        assertTrue(hinted.contains("IDX_PRODUCTS_NAME_ID") && hinted.contains("/* index sorted */"), hinted);
+    }
+
+    @Test
+    void findListing_NoPriceFilter_NoHint() {
+        seedCatalog(SMALL_CATALOG_SIZE);
+        ProductFilter filter = new ProductFilter(null, null, true, ProductSort.NAME, PAGE_SIZE);
+        this.productRepository.findListing(filter);
+
+        List<String> statements = this.jdbcTemplate.queryForList(
+            "select sql_statement from information_schema.query_statistics where sql_statement like 'select p.id, p.name%'", String.class);
+        assertEquals(1, statements.size(), statements.toString());
+        assertFalse(statements.get(0).contains("use index"), "Sin filtro de precio el planificador ya elige el índice del orden");
+    }
+
+    private void seedCatalog(int size) {
+        this.jdbcTemplate.update("insert into products (id, name, description, price, stock) "
+            + "select next value for products_seq, 'Product ' || mod(x * 7919, ?), 'Synthetic', mod(x * 31, 100000) / 100.0, mod(x, 4) "
+            + "from system_range(1, ?)", size, size);
+        this.jdbcTemplate.execute("set query_statistics true");
+    }
+
+    // EXPLAIN de la sentencia que ejecutó el repositorio, tomada de las estadísticas de H2
+    private String explainListing(ProductFilter filter) {
+        List<String> statements = this.jdbcTemplate.queryForList(
+            "select sql_statement from information_schema.query_statistics where sql_statement like 'select p.id, p.name%'", String.class);
+        assertEquals(1, statements.size(), "Debe haberse ejecutado una única sentencia de listado: " + statements);
+        List<Object> args = new ArrayList<>();
+        if (filter.minPrice() != null) {
+            args.add(filter.minPrice());
+        }
+        if (filter.maxPrice() != null) {
+            args.add(filter.maxPrice());
+        }
+        args.add(filter.limit());
+        return this.jdbcTemplate.queryForObject("explain " + statements.get(0), String.class, args.toArray());
+    }
+
+    private static String indexName(String plan) {
+        int start = plan.indexOf("/* PUBLIC.");
+        return start < 0 ? "?" : plan.substring(start + 10, plan.indexOf(' ', start + 10)).replace(":", "");
+    }
+
+    private static void assertOrderedAndFiltered(List<Product> products, ProductFilter filter, String combination) {
+        Comparator<Product> order = switch (filter.sort()) {
+            case ID -> Comparator.comparing(Product::getId);
+            case PRICE -> Comparator.comparing(Product::getPrice).thenComparing(Product::getId);
+            case NAME -> Comparator.comparing(Product::getName).thenComparing(Product::getId);
+            case NEWEST -> Comparator.comparing(Product::getId).reversed();
+        };
+        assertEquals(products.stream().sorted(order).toList(), products, combination + " debe respetar el orden");
+        for (Product product : products) {
+            assertTrue(filter.minPrice() == null || product.getPrice().compareTo(filter.minPrice()) >= 0, combination);
+            assertTrue(filter.maxPrice() == null || product.getPrice().compareTo(filter.maxPrice()) <= 0, combination);
+            assertTrue(!filter.inStockOnly() || product.getStock() > 0, combination);
+        }
+    }
+}
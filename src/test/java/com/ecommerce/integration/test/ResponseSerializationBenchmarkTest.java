@@ -0,0 +1,300 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.ecommerce.dto.AuthRequestDTO;
+import com.ecommerce.dto.AuthResponseDTO;
+import com.ecommerce.dto.CartDTO;
+import com.ecommerce.dto.CartItemDTO;
+import com.ecommerce.dto.OrderDTO;
+import com.ecommerce.dto.OrderItemDTO;
+import com.ecommerce.dto.UserDTO;
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.Role;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.RoleRepository;
+import com.ecommerce.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+// respuestas de 1000 elementos: serialización con el ObjectMapper de la aplicación (Blackbird) contra
+// uno equivalente por reflexión, y bytes transferidos con y sin gzip
+@SpringBootTest(
+    webEnvironment = WebEnvironment.RANDOM_PORT,
+    properties = {"spring.profiles.active=test"}
+)
+public class ResponseSerializationBenchmarkTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private static final int ITEMS = 1_000;
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int ROUNDS = 500;
+    private static final int TRIALS = 5;
+
+    private List<Product> products;
+    private String token;
+
+    private void cleanDatabase() {
+        this.orderItemRepository.deleteAllInBatch();
+        this.orderRepository.deleteAllInBatch();
+        this.cartItemRepository.deleteAllInBatch();
+        this.cartRepository.deleteAllInBatch();
+        this.productRepository.deleteAllInBatch();
+        this.userRepository.deleteAllInBatch();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cleanDatabase();
+        Role userRole = this.roleRepository.findByName("ROLE_USER").orElseGet(
+            () -> this.roleRepository.save(new Role(null, "ROLE_USER"))
+        );
+        User user = new User();
+        user.setUsername("payload_reader");
+        user.setPassword(this.passwordEncoder.encode("12345"));
+        user.setEmail("payload_reader@test.com");
+        user.setRoles(Set.of(userRole));
+        this.userRepository.save(user);
+        Cart cart = new Cart();
+        cart.setUser(user);
+        this.cartRepository.save(cart);
+        List<Product> catalog = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            catalog.add(new Product(null, "Product " + i, "Description of product " + i + " with material, size and care details",
+                BigDecimal.valueOf(1000 + i * 37L, 2), i % 50));
+        }
+        this.products = this.productRepository.saveAll(catalog);
+        List<CartItem> items = new ArrayList<>();
+        for (Product product : this.products) {
+            items.add(new CartItem(null, cart, product, 1 + product.getStock() % 3));
+        }
+        this.cartItemRepository.saveAll(items);
+        this.token = this.restTemplate.postForEntity("/api/auth/login", new AuthRequestDTO("payload_reader", "12345"), AuthResponseDTO.class)
+            .getBody().getToken();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanDatabase();
+    }
+
+    @Test
+    void serialize_Success_BlackbirdMatchesReflection() throws IOException {
+        ObjectMapper reflection = reflectionMapper();
+        assertTrue(this.objectMapper.getRegisteredModuleIds().contains(BlackbirdModule.class.getName()), "El ObjectMapper de la aplicación debe usar Blackbird");
+        for (Object payload : payloads()) {
+            assertArrayEquals(reflection.writeValueAsBytes(payload), this.objectMapper.writeValueAsBytes(payload), payloadName(payload) + " debe serializarse igual con Blackbird");
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void serialize_ThroughputWithAndWithoutBlackbird_OneThousandItems() throws IOException {
+        ObjectMapper reflection = reflectionMapper();
+        for (Object payload : payloads()) {
+            byte[] expected = reflection.writeValueAsBytes(payload);
+            // rondas alternadas y la mejor de cada una: el JIT y los hilos de fondo afectan por igual a ambos
+            double reflectionRate = 0;
+            double blackbirdRate = 0;
+            for (int trial = 0; trial < TRIALS; trial++) {
+                reflectionRate = Math.max(reflectionRate, serializationsPerSecond(reflection, payload));
+                blackbirdRate = Math.max(blackbirdRate, serializationsPerSecond(this.objectMapper, payload));
+            }
+            System.out.printf("json serialization %s items=%d bytes=%d reflection=%.0f ops/s (%.0f MB/s) blackbird=%.0f ops/s (%.0f MB/s) speedup=%.2fx%n",
+                payloadName(payload), ITEMS, expected.length, reflectionRate, reflectionRate * expected.length / (1 << 20),
+                blackbirdRate, blackbirdRate * expected.length / (1 << 20), blackbirdRate / reflectionRate);
+        }
+    }
+
+    // mismos defaults que Spring Boot, sin los módulos registrados como beans
+    private static ObjectMapper reflectionMapper() {
+        return Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+    }
+
+    private List<Object> payloads() {
+        return List.of(this.products, orderOf(this.products), cartOf(this.products));
+    }
+
+    private static String payloadName(Object payload) {
+        return payload instanceof List ? "Product[]" : payload.getClass().getSimpleName();
+    }
+
+    @Test
+    void get_CompressedBytesOnTheWire_OneThousandItems() throws Exception {
+        HttpClient client = httpClient();
+        for (String path : List.of("/api/products", "/api/carts")) {
+            HttpResponse<byte[]> plain = client.send(request(path, false), HttpResponse.BodyHandlers.ofByteArray());
+            HttpResponse<byte[]> gzip = client.send(request(path, true), HttpResponse.BodyHandlers.ofByteArray());
+
+            assertEquals(200, gzip.statusCode());
+            assertEquals("gzip", gzip.headers().firstValue("Content-Encoding").orElse(null), path + " debe comprimirse si el cliente acepta gzip");
+            assertTrue(plain.headers().firstValue("Content-Encoding").isEmpty(), "Sin Accept-Encoding la respuesta va sin comprimir");
+            assertArrayEquals(plain.body(), gunzip(gzip.body()), "El cuerpo descomprimido debe ser idéntico");
+            assertTrue(gzip.body().length * 4 < plain.body().length, path + " comprimido debe ocupar menos de un cuarto");
+            assertTrue(gzip.headers().firstValue("ETag").isPresent(), "La respuesta comprimida debe conservar la ETag");
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void get_LatencyWithAndWithoutGzip_OneThousandItems() throws Exception {
+        HttpClient client = httpClient();
+        for (String path : List.of("/api/products", "/api/carts")) {
+            HttpResponse<byte[]> plain = client.send(request(path, false), HttpResponse.BodyHandlers.ofByteArray());
+            HttpResponse<byte[]> gzip = client.send(request(path, true), HttpResponse.BodyHandlers.ofByteArray());
+            long plainNanos = timeRequests(client, request(path, false));
+            long gzipNanos = timeRequests(client, request(path, true));
+            System.out.printf("wire %s items=%d identity=%d bytes gzip=%d bytes (%.1f%%) latency identity=%.2f ms gzip=%.2f ms%n",
+                path, ITEMS, plain.body().length, gzip.body().length, 100.0 * gzip.body().length / plain.body().length,
+                plainNanos / 1_000_000.0, gzipNanos / 1_000_000.0);
+        }
+    }
+
+    private static HttpClient httpClient() {
+        return HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(30)).build();
+    }
+
+    private static double serializationsPerSecond(ObjectMapper mapper, Object payload) throws IOException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            mapper.writeValueAsBytes(payload);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            mapper.writeValueAsBytes(payload);
+        }
+        return ROUNDS / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+
+    // mediana de 50 peticiones
+    private static long timeRequests(HttpClient client, HttpRequest request) throws Exception {
+        long[] nanos = new long[50];
+        for (int i = 0; i < nanos.length; i++) {
+            long start = System.nanoTime();
+            client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[nanos.length / 2];
+    }
+
+    private HttpRequest request(String path, boolean gzip) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + this.port + path))
+            .header("Authorization", "Bearer " + this.token)
+            .timeout(Duration.ofSeconds(30))
+            .GET();
+        if (gzip) {
+            builder.header("Accept-Encoding", "gzip");
+        }
+        return builder.build();
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return input.readAllBytes();
+        }
+    }
+
+    private static OrderDTO orderOf(List<Product> products) {
+        List<OrderItemDTO> items = new ArrayList<>();
+        for (Product product : products) {
+            OrderItemDTO item = new OrderItemDTO();
+            item.setProductId(product.getId());
+            item.setProductName(product.getName());
+            item.setQuantity(2);
+            item.setPriceAtPurchase(product.getPrice());
+            items.add(item);
+        }
+        OrderDTO order = new OrderDTO();
+        order.setId(1L);
+        order.setOrderDate(LocalDateTime.of(2025, 3, 1, 12, 30));
+        order.setStatus(OrderStatus.PENDING);
+        order.setItems(items);
+        order.setTotalAmount(products.stream().map(product -> product.getPrice().multiply(BigDecimal.valueOf(2))).reduce(BigDecimal.ZERO, BigDecimal::add));
+        order.setItemCount(items.size() * 2);
+        return order;
+    }
+
+    private static CartDTO cartOf(List<Product> products) {
+        UserDTO user = new UserDTO();
+        user.setId(1L);
+        user.setUsername("payload_reader");
+        user.setEmail("payload_reader@test.com");
+        user.setRoles(Set.of("ROLE_USER"));
+        CartDTO cart = new CartDTO();
+        cart.setId(1L);
+        cart.setUser(user);
+        cart.setCartItems(products.stream().map(product -> new CartItemDTO(product.getId(), product.getId(), product.getName(), product.getPrice(), 1)).toList());
+        return cart;
+    }
+}
@@ -0,0 +1,55 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.ecommerce.config.SequenceAlignment;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+
+// base de datos propia: el optimizador de la secuencia de productos no debe tener un bloque ya reservado por otro test
+@SpringBootTest(properties = {
+    "spring.profiles.active=test",
+    "spring.datasource.url=jdbc:h2:mem:sequencealignment;LAZY_QUERY_EXECUTION=TRUE"
+})
+public class SequenceAlignmentTest {
+
+    private static final int LEGACY_PRODUCTS = 120;
+
+    @Autowired
+    private SequenceAlignment sequenceAlignment;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void alignSequences_Success_NewIdsStartAboveRowsInsertedWithIdentity() {
+        // filas de cuando products.id era IDENTITY: ocupan los ids que la secuencia recién creada entregaría
+        for (long id = 1; id <= LEGACY_PRODUCTS; id++) {
+            this.jdbcTemplate.update("insert into products (id, name, price, stock, version) values (?, ?, ?, ?, 0)",
+                id, "Legacy " + id, new BigDecimal("10.00"), 5);
+        }
+
+        assertEquals(1, this.sequenceAlignment.alignSequences(), "Solo la secuencia de productos debería reiniciarse");
+        assertEquals(0, this.sequenceAlignment.alignSequences(), "Una secuencia ya por encima de max(id) no debería tocarse");
+
+        List<Product> created = this.productRepository.saveAll(List.of(
+            new Product(null, "Laptop", "Gaming", new BigDecimal("999.99"), 5),
+            new Product(null, "Mouse", "Wireless", new BigDecimal("29.99"), 10)));
+
+        assertTrue(created.stream().allMatch(product -> product.getId() > LEGACY_PRODUCTS),
+            "Los productos nuevos deberían recibir ids por encima de los existentes");
+        assertEquals(LEGACY_PRODUCTS + 2, this.productRepository.count(), "No debería haberse pisado ningún producto");
+    }
+}
@@ -0,0 +1,162 @@
+package com.ecommerce.integration.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.ecommerce.model.Cart;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.Role;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.RoleRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.OrderService;
+
+@SpringBootTest(properties = {"spring.profiles.active=test"})
+public class StockReservationConcurrencyTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private static final int BUYERS = 16;
+    private static final int INITIAL_STOCK = 100;
+    private static final int BENCHMARK_BUYERS = 64;
+    private static final int BENCHMARK_INITIAL_STOCK = 1000;
+
+    private void cleanDatabase() {
+        this.orderItemRepository.deleteAllInBatch();
+        this.orderRepository.deleteAllInBatch();
+        this.cartItemRepository.deleteAllInBatch();
+        this.cartRepository.deleteAllInBatch();
+        this.productRepository.deleteAllInBatch();
+        this.userRepository.deleteAllInBatch();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cleanDatabase();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanDatabase();
+    }
+
+    @Test
+    void placeOrder_ConcurrentBuyersOnHotProduct_NeverOversells() throws InterruptedException {
+        sellOut(BUYERS, INITIAL_STOCK);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void placeOrder_HotProductThroughput() throws InterruptedException {
+        double seconds = sellOut(BENCHMARK_BUYERS, BENCHMARK_INITIAL_STOCK);
+        System.out.printf("hot product checkouts=%d buyers=%d throughput=%.0f checkouts/s%n",
+            BENCHMARK_INITIAL_STOCK, BENCHMARK_BUYERS, BENCHMARK_INITIAL_STOCK / seconds);
+    }
+
+    // los compradores compran de a 1 unidad hasta agotar el stock; devuelve los segundos que tardaron
+    private double sellOut(int buyers, int initialStock) throws InterruptedException {
+        Product hotProduct = new Product(null, "Hot SKU", "Flash sale", new BigDecimal("9.99"), initialStock);
+        this.productRepository.save(hotProduct);
+        List<Cart> carts = createBuyersWithCarts(buyers);
+
+        AtomicInteger successfulCheckouts = new AtomicInteger();
+        AtomicInteger unexpectedErrors = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(buyers);
+        for (Cart cart : carts) {
+            executor.submit(() -> {
+                start.await();
+                // cada comprador repite el checkout de 1 unidad hasta que se agota el stock
+                while (true) {
+                    this.cartItemRepository.save(new CartItem(null, cart, hotProduct, 1));
+                    try {
+                        this.orderService.placeOrder(cart.getUser().getId());
+                        successfulCheckouts.incrementAndGet();
+                    } catch (IllegalStateException ex) {
+                        return null;
+                    } catch (RuntimeException ex) {
+                        unexpectedErrors.incrementAndGet();
+                        return null;
+                    }
+                }
+            });
+        }
+        long startTime = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), "Los compradores deben terminar a tiempo");
+        double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+
+        Product finalProduct = this.productRepository.findById(hotProduct.getId()).orElseThrow();
+        int unitsSold = this.orderItemRepository.findAll().stream().mapToInt(OrderItem::getQuantity).sum();
+        assertEquals(0, unexpectedErrors.get(), "No debe haber errores distintos a stock insuficiente");
+        assertEquals(0, finalProduct.getStock(), "El stock debe agotarse sin quedar negativo");
+        assertEquals(initialStock, successfulCheckouts.get(), "Solo se deben aceptar tantos checkouts como unidades en stock");
+        assertEquals(initialStock, unitsSold, "Las unidades vendidas no pueden superar el stock inicial");
+        return seconds;
+    }
+
+    private List<Cart> createBuyersWithCarts(int buyers) {
+        Role userRole = this.roleRepository.findByName("ROLE_USER").orElseGet(
+            () -> this.roleRepository.save(new Role(null, "ROLE_USER"))
+        );
+        List<Cart> carts = new ArrayList<>();
+        for (int i = 0; i < buyers; i++) {
+            User buyer = new User();
+            buyer.setUsername("buyer_" + i);
+            buyer.setPassword("not-used");
+            buyer.setEmail("buyer_" + i + "@test.com");
+            buyer.getRoles().add(userRole);
+            this.userRepository.save(buyer);
+            Cart cart = new Cart();
+            cart.setUser(buyer);
+            carts.add(this.cartRepository.save(cart));
+        }
+        return carts;
+    }
+}
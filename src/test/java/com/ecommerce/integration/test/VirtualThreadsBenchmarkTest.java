@@ -0,0 +1,20 @@
+package com.ecommerce.integration.test;
+
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+
+// solo corre con el toolchain de Java 21 (mvn -Pjava21 test)
+@EnabledForJreRange(min = JRE.JAVA_21)
+@SpringBootTest(
+    webEnvironment = WebEnvironment.RANDOM_PORT,
+    properties = {"spring.profiles.active=test,virtual-threads"}
+)
+public class VirtualThreadsBenchmarkTest extends AbstractConcurrentClientsBenchmark {
+
+    @Override
+    protected String mode() {
+        return "virtual";
+    }
+}
@@ -0,0 +1,41 @@
+package com.ecommerce.inventory.test;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.ecommerce.inventory.DatabaseStockReservation;
+import com.ecommerce.repository.ProductRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class DatabaseStockReservationTest {
+
+    @InjectMocks
+    private DatabaseStockReservation databaseStockReservation;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Test
+    void reserve_Failure_InsufficientStockForOneProduct() {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(70L, 2);
+        quantities.put(71L, 5);
+
+        // el segundo UPDATE condicional no afecta filas
+        when(this.productRepository.decrementStock(quantities)).thenReturn(new int[] {1, 0});
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> this.databaseStockReservation.reserve(quantities));
+
+        assertTrue(exception.getMessage().contains("Insufficient stock for product id: 71"));
+    }
+}
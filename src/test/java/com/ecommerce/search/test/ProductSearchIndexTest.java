@@ -0,0 +1,236 @@
+package com.ecommerce.search.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.ecommerce.dto.ProductSearchHitDTO;
+import com.ecommerce.model.Product;
+import com.ecommerce.search.ProductSearchIndex;
+
+public class ProductSearchIndexTest {
+
+    private static final int CATALOG_SIZE = 1_000_000;
+    private static final int BENCHMARK_QUERIES = 5_000;
+    private static final String[] TYPES = {"zapatilla", "remera", "campera", "pantalon", "mochila", "gorra", "buzo", "media", "bolso", "reloj",
+        "auricular", "teclado", "mouse", "monitor", "lampara", "silla", "mesa", "taza", "botella", "cuaderno"};
+    private static final String[] ADJECTIVES = {"deportiva", "liviana", "impermeable", "clasica", "urbana", "premium", "basica", "termica",
+        "inalambrico", "ergonomica", "plegable", "reforzada", "vintage", "compacta", "infantil"};
+    private static final String[] COLORS = {"negro", "blanco", "rojo", "azul", "verde", "gris", "amarillo", "violeta", "naranja", "marron"};
+    private static final String[] BRANDS = new String[500];
+    private static final String[] DESCRIPTION_WORDS = {"ideal", "para", "uso", "diario", "material", "resistente", "garantia", "oficial",
+        "envio", "rapido", "algodon", "cuero", "aluminio", "bateria", "larga", "duracion", "tela", "respirable", "talle", "unico"};
+    private static final BigDecimal[] PRICES = new BigDecimal[1000];
+
+    static {
+        for (int i = 0; i < BRANDS.length; i++) {
+            BRANDS[i] = "marca" + Integer.toString(i * 7919 % 100_000, 36);
+        }
+        for (int i = 0; i < PRICES.length; i++) {
+            PRICES[i] = BigDecimal.valueOf(i * 100 + 99, 2);
+        }
+    }
+
+    @Test
+    void search_Success_RanksNameMatchesAboveDescription() {
+        ProductSearchIndex index = indexOf(
+            product(1L, "Zapatilla Running", "Malla liviana", "49.90", 5),
+            product(2L, "Medias", "Para usar con zapatilla", "9.90", 5),
+            product(3L, "Remera", "Algodón", "19.90", 5));
+
+        List<Long> ids = index.search("zapatilla", null, null, false, 10).stream().map(ProductSearchHitDTO::id).toList();
+
+        assertEquals(List.of(1L, 2L), ids, "La coincidencia en el nombre debe puntuar más que en la descripción");
+    }
+
+    @Test
+    void search_Success_IgnoresCaseAndAccentsAndCompletesLastWord() {
+        ProductSearchIndex index = indexOf(
+            product(1L, "Campera Térmica", "Abrigo", "99.90", 5),
+            product(2L, "Campera liviana", "Rompeviento", "79.90", 5));
+
+        assertEquals(List.of(1L), ids(index.search("CAMPERA termi", null, null, false, 10)), "La última palabra se completa como prefijo");
+        assertEquals(List.of(1L), ids(index.search("térmica", null, null, false, 10)));
+        assertEquals(List.of(), ids(index.search("termi campera", null, null, false, 10)), "Solo la última palabra se completa");
+    }
+
+    @Test
+    void search_Success_AppliesPriceAndStockFilters() {
+        ProductSearchIndex index = indexOf(
+            product(1L, "Mochila urbana", null, "30.00", 0),
+            product(2L, "Mochila escolar", null, "45.00", 3),
+            product(3L, "Mochila trekking", null, "120.00", 2));
+
+        assertEquals(List.of(2L), ids(index.search("mochila", new BigDecimal("20"), new BigDecimal("100"), true, 10)));
+        assertEquals(2, index.search("mochila", null, null, true, 10).size());
+    }
+
+    @Test
+    void upsertAndDelete_Success_VisibleBeforeAndAfterMerge() {
+        ProductSearchIndex index = indexOf(
+            product(1L, "Silla gamer", "Reclinable", "150.00", 5),
+            product(2L, "Silla oficina", "Ergonómica", "90.00", 5));
+
+        index.upsert(product(2L, "Mesa oficina", "Escritorio", "90.00", 5));
+        index.upsert(product(3L, "Silla plegable", "Camping", "25.00", 5));
+        index.delete(1L);
+
+        assertEquals(List.of(3L), ids(index.search("silla", null, null, false, 10)), "Los cambios deben verse antes del merge");
+        assertEquals(List.of(2L), ids(index.search("mesa", null, null, false, 10)));
+        assertEquals(2, index.size());
+
+        index.merge();
+
+        assertEquals(0, index.pendingChanges());
+        assertEquals(List.of(3L), ids(index.search("silla", null, null, false, 10)), "El merge no debe cambiar los resultados");
+        assertEquals(List.of(2L), ids(index.search("mesa", null, null, false, 10)));
+        assertEquals(List.of(2L), ids(index.search("escri", null, null, false, 10)));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void suggest_Success_MostFrequentCompletionsFirst() {
+        ProductSearchIndex index = indexOf(
+            product(1L, "Teclado mecánico", null, "70.00", 5),
+            product(2L, "Teclado inalámbrico", null, "40.00", 5),
+            product(3L, "Tela de algodón", null, "5.00", 5));
+        index.upsert(product(4L, "Telescopio", null, "300.00", 1));
+
+        assertEquals(List.of("teclado", "tela", "telescopio"), index.suggest("te", 10));
+        assertEquals(List.of("teclado"), index.suggest("funda te", 1), "Se completa la última palabra escrita");
+    }
+
+    @Test
+    void rebuild_Failure_ProductsOutOfIdOrder() {
+        ProductSearchIndex index = new ProductSearchIndex(50);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> index.rebuild(sink -> List.of(product(2L, "B", null, "1.00", 1), product(1L, "A", null, "1.00", 1)).forEach(sink)));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void search_QueriesPerSecondAndP99_OneMillionProducts() throws InterruptedException {
+        ProductSearchIndex index = new ProductSearchIndex(50);
+        long buildStart = System.nanoTime();
+        index.rebuild(this::syntheticCatalog);
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+        assertEquals(CATALOG_SIZE, index.size());
+
+        List<String> queries = benchmarkQueries();
+        for (int i = 0; i < 1000; i++) {
+            index.search(queries.get(i % queries.size()), null, null, false, 20);
+        }
+        long[] latencies = new long[BENCHMARK_QUERIES];
+        long totalHits = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_QUERIES; i++) {
+            String query = queries.get(i % queries.size());
+            long queryStart = System.nanoTime();
+            // una de cada cuatro con filtros de precio y stock
+            totalHits += (i % 4 == 0
+                ? index.search(query, new BigDecimal("10.00"), new BigDecimal("500.00"), true, 20)
+                : index.search(query, null, null, false, 20)).size();
+            latencies[i] = System.nanoTime() - queryStart;
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        // reindexado incremental: un escritor actualiza productos y fuerza un merge mientras se sigue buscando
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger missing = new AtomicInteger();
+        Thread writer = new Thread(() -> {
+            Random random = new Random(7);
+            for (int i = 0; i < 20_000; i++) {
+                long id = 1 + random.nextInt(CATALOG_SIZE);
+                index.upsert(product(id, "Zapatilla edicion especial " + id, "Reindexada", "59.99", 1));
+            }
+            long mergeStart = System.nanoTime();
+            index.merge();
+            System.out.printf("product search merge of 20000 changes took %d ms%n", (System.nanoTime() - mergeStart) / 1_000_000);
+            writing.set(false);
+        });
+        writer.start();
+        List<Long> duringMerge = new ArrayList<>();
+        while (writing.get()) {
+            long queryStart = System.nanoTime();
+            if (index.search("remera rojo", null, null, false, 20).size() < 20) {
+                missing.incrementAndGet();
+            }
+            duringMerge.add(System.nanoTime() - queryStart);
+        }
+        writer.join();
+
+        System.out.printf("product search catalog=%d build=%d ms queries=%d throughput=%.0f queries/s p50=%.2f ms p99=%.2f ms avg hits=%.1f "
+                + "reads during reindex=%d p99=%.2f ms%n",
+            CATALOG_SIZE, buildMillis, BENCHMARK_QUERIES, BENCHMARK_QUERIES / seconds, percentile(latencies, 0.50), percentile(latencies, 0.99),
+            (double) totalHits / BENCHMARK_QUERIES, duringMerge.size(), percentile(duringMerge.stream().mapToLong(Long::longValue).toArray(), 0.99));
+        assertEquals(0, missing.get(), "Las lecturas durante el reindexado no deben perder resultados");
+        assertEquals(CATALOG_SIZE, index.size());
+        assertEquals(0, index.pendingChanges());
+        assertTrue(index.search("edicion especial", null, null, false, 100).size() == 100, "Los productos reindexados deben encontrarse tras el merge");
+    }
+
+    private void syntheticCatalog(Consumer<Product> sink) {
+        Random random = new Random(42);
+        for (long id = 1; id <= CATALOG_SIZE; id++) {
+            String name = TYPES[random.nextInt(TYPES.length)] + " " + ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " "
+                + COLORS[random.nextInt(COLORS.length)] + " " + BRANDS[random.nextInt(BRANDS.length)];
+            StringBuilder description = new StringBuilder();
+            for (int w = 0; w < 6; w++) {
+                description.append(DESCRIPTION_WORDS[random.nextInt(DESCRIPTION_WORDS.length)]).append(' ');
+            }
+            sink.accept(new Product(id, name, description.toString(), PRICES[random.nextInt(PRICES.length)], random.nextInt(4)));
+        }
+    }
+
+    private List<String> benchmarkQueries() {
+        Random random = new Random(11);
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String type = TYPES[random.nextInt(TYPES.length)];
+            String color = COLORS[random.nextInt(COLORS.length)];
+            String brand = BRANDS[random.nextInt(BRANDS.length)];
+            switch (i % 5) {
+                case 0 -> queries.add(type);
+                case 1 -> queries.add(type + " " + color);
+                case 2 -> queries.add(brand + " " + type);
+                // typeahead: la última palabra a medio escribir
+                case 3 -> queries.add(type + " " + color.substring(0, 3));
+                default -> queries.add(brand.substring(0, Math.min(brand.length(), 7)));
+            }
+        }
+        return queries;
+    }
+
+    private static double percentile(long[] nanos, double percentile) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1_000_000.0;
+    }
+
+    private static ProductSearchIndex indexOf(Product... products) {
+        ProductSearchIndex index = new ProductSearchIndex(50);
+        index.rebuild(sink -> Arrays.asList(products).forEach(sink));
+        return index;
+    }
+
+    private static List<Long> ids(List<ProductSearchHitDTO> hits) {
+        return hits.stream().map(ProductSearchHitDTO::id).toList();
+    }
+
+    private static Product product(Long id, String name, String description, String price, int stock) {
+        return new Product(id, name, description, new BigDecimal(price), stock);
+    }
+}
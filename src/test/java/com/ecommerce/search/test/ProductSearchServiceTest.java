@@ -0,0 +1,72 @@
+package com.ecommerce.search.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import com.ecommerce.dto.ProductSearchHitDTO;
+import com.ecommerce.event.EventBus;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductChangedEvent.ChangeType;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.search.ProductSearchService;
+import com.ecommerce.service.ProductService;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductSearchServiceTest {
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private EventBus eventBus;
+
+    private ProductSearchService productSearchService;
+    private Consumer<List<ProductChangedEvent>> onProductChanged;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        this.productSearchService = new ProductSearchService(this.productService, this.productRepository, this.eventBus, 50, 1000, 5000);
+        ArgumentCaptor<Consumer<List<ProductChangedEvent>>> subscriber = ArgumentCaptor.forClass(Consumer.class);
+        verify(this.eventBus).subscribe(eq(ProductChangedEvent.class), subscriber.capture());
+        this.onProductChanged = subscriber.getValue();
+    }
+
+    @Test
+    void refresh_Failure_ChangesAreKeptWhenLoadingFails() {
+        Product laptop = new Product(1L, "Laptop", "Gaming", new BigDecimal("999.99"), 5);
+        when(this.productRepository.findAllById(any()))
+            .thenThrow(new DataAccessResourceFailureException("Connection refused"))
+            .thenReturn(List.of(laptop));
+        this.onProductChanged.accept(List.of(new ProductChangedEvent(1L, ChangeType.CREATED)));
+
+        assertThrows(DataAccessResourceFailureException.class, () -> this.productSearchService.refresh());
+        assertTrue(this.productSearchService.search("laptop", null, null, false, 10).isEmpty());
+
+        // el siguiente refresco vuelve a leer el producto que no se pudo cargar
+        this.productSearchService.refresh();
+
+        assertEquals(List.of(1L), this.productSearchService.search("laptop", null, null, false, 10).stream().map(ProductSearchHitDTO::id).toList());
+    }
+}
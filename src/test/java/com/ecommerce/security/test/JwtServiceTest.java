@@ -0,0 +1,100 @@
+package com.ecommerce.security.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import javax.crypto.SecretKey;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.ecommerce.security.AuthenticatedUser;
+import com.ecommerce.security.jwt.JwtService;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+public class JwtServiceTest {
+
+    // misma clave que JwtService, para reproducir el camino anterior en la medición
+    private static final SecretKey SECRET_KEY = Keys.hmacShaKeyFor(
+        "mysecretkey1234567890iiimysecretkey1234567890uuumysecretkey1234567890".getBytes(StandardCharsets.UTF_8));
+
+    private static final int VALIDATIONS = 200_000;
+
+    private final AuthenticatedUser user = new AuthenticatedUser(42L, "jwt_user", null, Set.of());
+
+    @Test
+    void extractAllClaims_Success_SingleParseCarriesSubjectAndUserId() {
+        JwtService jwtService = new JwtService(100);
+        String token = jwtService.generateToken(this.user);
+        Claims claims = jwtService.extractAllClaims(token);
+        assertEquals("jwt_user", claims.getSubject());
+        assertEquals(42L, jwtService.extractUserId(claims));
+        assertTrue(jwtService.isTokenValid(claims, this.user), "El token recién emitido debe ser válido");
+    }
+
+    @Test
+    void extractAllClaims_Failure_TamperedTokenIsRejectedEvenAfterCaching() {
+        JwtService jwtService = new JwtService(100);
+        String token = jwtService.generateToken(this.user);
+        jwtService.extractAllClaims(token);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        assertThrows(JwtException.class, () -> jwtService.extractAllClaims(tampered), "Una firma alterada no debe validarse");
+    }
+
+    @Test
+    void isTokenValid_Failure_DifferentUser() {
+        JwtService jwtService = new JwtService(0);
+        String token = jwtService.generateToken(this.user);
+        assertFalse(jwtService.isTokenValid(token, new AuthenticatedUser(7L, "other_user", null, Set.of())));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void tokensValidatedPerSecond_BeforeAndAfter() {
+        JwtService uncached = new JwtService(0);
+        JwtService cached = new JwtService(10_000);
+        String token = cached.generateToken(this.user);
+
+        // camino anterior: parser nuevo y verificación completa en cada una de las tres llamadas
+        double legacyRate = measure(() -> {
+            String username = legacyParse(token).getSubject();
+            boolean valid = legacyParse(token).getSubject().equals(username) && !legacyParse(token).getExpiration().before(new Date());
+            return valid;
+        });
+        double parseOnceRate = measure(() -> uncached.isTokenValid(uncached.extractAllClaims(token), this.user));
+        double cachedRate = measure(() -> cached.isTokenValid(cached.extractAllClaims(token), this.user));
+        System.out.printf("jwt validation legacy throughput=%.0f/s parse-once throughput=%.0f/s cached throughput=%.0f/s%n",
+            legacyRate, parseOnceRate, cachedRate);
+
+        assertTrue(cachedRate > legacyRate, "La validación cacheada debe superar al camino anterior");
+    }
+
+    private Claims legacyParse(String token) {
+        return Jwts.parser().verifyWith(SECRET_KEY).build().parseSignedClaims(token).getPayload();
+    }
+
+    private double measure(BooleanSupplier validation) {
+        // calentamiento para que el JIT compile el camino medido
+        for (int i = 0; i < VALIDATIONS / 10; i++) {
+            assertTrue(validation.getAsBoolean());
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < VALIDATIONS; i++) {
+            if (!validation.getAsBoolean()) {
+                throw new AssertionError("Token inválido durante la medición");
+            }
+        }
+        return VALIDATIONS / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+}
@@ -1,28 +1,48 @@
 package com.ecommerce.service.test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.ecommerce.dto.CartDTO;
 import com.ecommerce.dto.CartItemDTO;
-import com.ecommerce.mapper.CartItemMapper;
+import com.ecommerce.dto.CartItemOperationDTO;
+import com.ecommerce.dto.CartItemOperationDTO.Mode;
+import com.ecommerce.mapper.CartMapper;
 import com.ecommerce.model.Cart;
+import com.ecommerce.model.CartItem;
 import com.ecommerce.model.Product;
 import com.ecommerce.repository.CartItemRepository;
 import com.ecommerce.repository.CartRepository;
+import com.ecommerce.service.CartHolds;
 import com.ecommerce.service.CartService;
 import com.ecommerce.service.ProductService;
 
@@ -42,9 +62,17 @@ public class CartServiceTest {
     private CartItemRepository cartItemRepository;
 
     @Mock
-    private CartItemMapper cartItemMapper;
+    private CartMapper cartMapper;
+
+    @Mock
+    private CartHolds cartHolds;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private RetryTemplate retryTemplate = RetryTemplate.builder().maxAttempts(3).noBackoff().retryOn(DuplicateKeyException.class).build();
 
-    
     private Cart testCart;
     private Product availableProduct;
 
@@ -54,33 +82,76 @@ public class CartServiceTest {
         this.testCart.setId(1L);
 
         this.availableProduct = new Product();
-        this.availableProduct.setId(1L);
+        this.availableProduct.setId(10L);
         this.availableProduct.setName("Laptop");
         this.availableProduct.setStock(10);
+
+        // la transacción se simula ejecutando el callback directamente
+        lenient().when(this.transactionTemplate.execute(any())).thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
     }
 
     @Test
     void addProductToCart_Success_ExistingItem() {
-        Long cartId = 1L;
+        Long userId = 7L;
         Long productId = 10L;
         Integer quantity = 5;
 
         // simulamos las llamadas a los repositorios y servicios
-        when(this.cartRepository.findById(cartId)).thenReturn(Optional.of(this.testCart));
         when(this.productService.getProductById(productId)).thenReturn(Optional.of(availableProduct));
-        when(this.cartItemRepository.findByCartIdAndProductId(cartId, productId)).thenReturn(Optional.empty()); // no existe el ítem en el carrito
-        
-        // simulamos la conversión a DTO
-        when(this.cartItemMapper.toCartItemDto(any())).thenReturn(new CartItemDTO());
+        when(this.cartRepository.findIdByUserId(userId)).thenReturn(Optional.of(this.testCart.getId()));
+        when(this.cartItemRepository.incrementQuantity(this.testCart.getId(), productId, quantity)).thenReturn(1); // el ítem ya estaba en el carrito
+        when(this.cartItemRepository.findItemDtoByCartIdAndProductId(this.testCart.getId(), productId))
+            .thenReturn(Optional.of(new CartItemDTO(3L, productId, "Laptop", null, 7)));
 
         // llamamos al método a testear
-        Optional<CartItemDTO> result = this.cartService.addProductToCart(cartId, productId, quantity);
+        Optional<CartItemDTO> result = this.cartService.addProductToCart(userId, productId, quantity);
 
         // verificamos el resultado
         assertTrue(result.isPresent());
+        assertEquals(7, result.get().getQuantity());
 
-        // verificamos que se haya llamado al repositorio para guardar el ítem solo una vez
-        verify(this.cartItemRepository, times(1)).save(any());
+        // la cantidad se suma en la base de datos, no se inserta una línea nueva
+        verify(this.cartItemRepository, never()).saveAndFlush(any());
+        verify(this.cartRepository, times(1)).incrementVersion(this.testCart.getId());
+    }
+
+    @Test
+    void addProductToCart_Success_NewItem() {
+        Long userId = 7L;
+        Long productId = 10L;
+
+        when(this.productService.getProductById(productId)).thenReturn(Optional.of(availableProduct));
+        when(this.cartRepository.findIdByUserId(userId)).thenReturn(Optional.of(this.testCart.getId()));
+        when(this.cartRepository.getReferenceById(this.testCart.getId())).thenReturn(this.testCart);
+        when(this.cartItemRepository.incrementQuantity(this.testCart.getId(), productId, 2)).thenReturn(0);
+        when(this.cartItemRepository.findItemDtoByCartIdAndProductId(this.testCart.getId(), productId))
+            .thenReturn(Optional.of(new CartItemDTO(3L, productId, "Laptop", null, 2)));
+
+        Optional<CartItemDTO> result = this.cartService.addProductToCart(userId, productId, 2);
+
+        assertEquals(2, result.get().getQuantity());
+        verify(this.cartItemRepository, times(1)).saveAndFlush(any());
+    }
+
+    @Test
+    void addProductToCart_Success_RetriesWhenConcurrentAddInsertedTheLine() {
+        Long userId = 7L;
+        Long productId = 10L;
+
+        when(this.productService.getProductById(productId)).thenReturn(Optional.of(availableProduct));
+        when(this.cartRepository.findIdByUserId(userId)).thenReturn(Optional.of(this.testCart.getId()));
+        when(this.cartRepository.getReferenceById(this.testCart.getId())).thenReturn(this.testCart);
+        // primer intento: la línea no existe pero otra petición la inserta antes; segundo intento: ya existe
+        when(this.cartItemRepository.incrementQuantity(this.testCart.getId(), productId, 1)).thenReturn(0, 1);
+        when(this.cartItemRepository.saveAndFlush(any())).thenThrow(new DuplicateKeyException("uk_cart_items_cart_product"));
+        when(this.cartItemRepository.findItemDtoByCartIdAndProductId(this.testCart.getId(), productId))
+            .thenReturn(Optional.of(new CartItemDTO(3L, productId, "Laptop", null, 2)));
+
+        Optional<CartItemDTO> result = this.cartService.addProductToCart(userId, productId, 1);
+
+        assertEquals(2, result.get().getQuantity());
+        verify(this.cartItemRepository, times(2)).incrementQuantity(this.testCart.getId(), productId, 1);
+        verify(this.transactionTemplate, times(2)).execute(any());
     }
 
     @Test
@@ -90,37 +161,132 @@ public class CartServiceTest {
         productOutOfStock.setName("Phone");
         productOutOfStock.setStock(0);
 
-        Long cartId = 1L;
+        Long userId = 7L;
         Long productId = 2L;
         Integer quantity = 1;
 
-        when(this.cartRepository.findById(cartId)).thenReturn(Optional.of(this.testCart));
         when(this.productService.getProductById(productId)).thenReturn(Optional.of(productOutOfStock));
 
         IllegalStateException exception = assertThrows(IllegalStateException.class, () -> {
-            this.cartService.addProductToCart(cartId, productId, quantity);
+            this.cartService.addProductToCart(userId, productId, quantity);
         });
 
         assertTrue(exception.getMessage().contains("out of stock"));
 
-        verify(this.cartItemRepository, never()).save(any());
+        verify(this.cartItemRepository, never()).incrementQuantity(anyLong(), anyLong(), anyInt());
+        verify(this.cartItemRepository, never()).saveAndFlush(any());
     }
 
     @Test
     void addProductToCart_Failure_InsufficientStock() {
         Integer quantity = 15; // mayor que el stock disponible
-        Long cartId = 3L;
-        Long productId = 1L;
+        Long userId = 7L;
+        Long productId = 10L;
 
-        when(this.cartRepository.findById(cartId)).thenReturn(Optional.of(this.testCart));
         when(this.productService.getProductById(productId)).thenReturn(Optional.of(availableProduct));
 
         IllegalStateException exception = assertThrows(IllegalStateException.class, () -> {
-            this.cartService.addProductToCart(cartId, productId, quantity);
+            this.cartService.addProductToCart(userId, productId, quantity);
         });
 
         assertTrue(exception.getMessage().contains("Insufficient stock"));
 
-        verify(this.cartItemRepository, never()).save(any());
+        verify(this.cartItemRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void addProductToCart_Failure_StockHeldByOtherCarts() {
+        Long userId = 7L;
+        Long productId = 10L;
+
+        when(this.productService.getProductById(productId)).thenReturn(Optional.of(availableProduct));
+        // 10 en stock, 8 apartadas por otros carritos: quedan 2
+        when(this.cartHolds.heldByOthers(userId, List.of(productId))).thenReturn(Map.of(productId, 8));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> {
+            this.cartService.addProductToCart(userId, productId, 3);
+        });
+
+        assertTrue(exception.getMessage().contains("Insufficient stock"));
+        verify(this.cartItemRepository, never()).incrementQuantity(anyLong(), anyLong(), anyInt());
+        verify(this.cartHolds, never()).hold(anyLong(), any());
+    }
+
+    @Test
+    void updateCartItems_Success_AppliesAddSetAndRemoveInOneBatch() {
+        Long userId = 7L;
+        Product mouse = new Product(11L, "Mouse", null, new BigDecimal("20.00"), 10);
+        Product keyboard = new Product(12L, "Keyboard", null, new BigDecimal("40.00"), 10);
+        CartItem laptopLine = new CartItem(100L, this.testCart, this.availableProduct, 2);
+        CartItem mouseLine = new CartItem(101L, this.testCart, mouse, 3);
+        List<CartItemOperationDTO> operations = List.of(
+            new CartItemOperationDTO(10L, 3, Mode.ADD),
+            new CartItemOperationDTO(11L, 0, Mode.SET),
+            new CartItemOperationDTO(12L, 1, Mode.ADD),
+            new CartItemOperationDTO(10L, -1, Mode.ADD));
+        CartDTO expected = new CartDTO();
+
+        when(this.cartRepository.findWithUserAndRolesByUserId(userId)).thenReturn(Optional.of(this.testCart));
+        when(this.productService.getProductsByIds(any())).thenReturn(List.of(this.availableProduct, mouse, keyboard));
+        when(this.cartItemRepository.findByCartId(this.testCart.getId())).thenReturn(List.of(laptopLine, mouseLine));
+        when(this.cartMapper.toCartDto(any(Cart.class), any())).thenReturn(expected);
+
+        CartDTO result = this.cartService.updateCartItems(userId, operations);
+
+        assertEquals(expected, result);
+        // las dos operaciones sobre el mismo producto se aplican en orden: 2 + 3 - 1
+        assertEquals(4, laptopLine.getQuantity(), "La línea existente debe quedar con la cantidad acumulada");
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CartItem>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(this.cartItemRepository).saveAll(inserted.capture());
+        assertEquals(1, inserted.getValue().size(), "Solo el teclado es una línea nueva");
+        assertEquals(keyboard, inserted.getValue().get(0).getProduct());
+        verify(this.cartItemRepository).deleteAll(List.of(mouseLine));
+        verify(this.cartItemRepository).flush();
+        // una sola consulta de productos y un solo cambio de versión para todo el lote
+        verify(this.productService, times(1)).getProductsByIds(any());
+        verify(this.cartRepository, times(1)).incrementVersion(this.testCart.getId());
+        // las líneas que quedan en el carrito renuevan su reserva; la quitada no
+        verify(this.cartHolds).hold(this.testCart.getId(), List.of(10L, 12L));
+    }
+
+    @Test
+    void updateCartItems_Failure_InsufficientStockAppliesNothing() {
+        Long userId = 7L;
+        CartItem laptopLine = new CartItem(100L, this.testCart, this.availableProduct, 8);
+
+        when(this.cartRepository.findWithUserAndRolesByUserId(userId)).thenReturn(Optional.of(this.testCart));
+        when(this.productService.getProductsByIds(any())).thenReturn(List.of(this.availableProduct));
+        when(this.cartItemRepository.findByCartId(this.testCart.getId())).thenReturn(new ArrayList<>(List.of(laptopLine)));
+
+        // 8 en el carrito + 3 supera el stock de 10
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+            () -> this.cartService.updateCartItems(userId, List.of(new CartItemOperationDTO(10L, 3, Mode.ADD))));
+
+        assertTrue(exception.getMessage().contains("Insufficient stock"));
+        verify(this.cartItemRepository, never()).saveAll(any());
+        verify(this.cartRepository, never()).incrementVersion(anyLong());
+    }
+
+    @Test
+    void updateCartItems_Failure_ProductNotFound() {
+        Long userId = 7L;
+
+        when(this.cartRepository.findWithUserAndRolesByUserId(userId)).thenReturn(Optional.of(this.testCart));
+        when(this.productService.getProductsByIds(any())).thenReturn(List.of(this.availableProduct));
+        when(this.cartItemRepository.findByCartId(this.testCart.getId())).thenReturn(List.of());
+
+        NoSuchElementException exception = assertThrows(NoSuchElementException.class,
+            () -> this.cartService.updateCartItems(userId, List.of(new CartItemOperationDTO(10L, 1, Mode.ADD), new CartItemOperationDTO(99L, 1, Mode.ADD))));
+
+        assertTrue(exception.getMessage().contains("99"));
+        verify(this.cartItemRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void updateCartItems_Failure_EmptyBatch() {
+        assertThrows(IllegalArgumentException.class, () -> this.cartService.updateCartItems(7L, List.of()));
+
+        verify(this.transactionTemplate, never()).execute(any());
     }
 }
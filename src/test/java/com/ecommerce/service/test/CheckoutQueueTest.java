@@ -0,0 +1,194 @@
+package com.ecommerce.service.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.model.CheckoutRequest;
+import com.ecommerce.model.CheckoutStatus;
+import com.ecommerce.model.Order;
+import com.ecommerce.repository.CheckoutRequestRepository;
+import com.ecommerce.service.CheckoutQueue;
+import com.ecommerce.service.OrderService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class CheckoutQueueTest {
+
+    @Mock
+    private CheckoutRequestRepository checkoutRequestRepository;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ThreadPoolTaskExecutor executor;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CheckoutQueue checkoutQueue;
+
+    @BeforeEach
+    void setUp() {
+        // la transacción y el worker se simulan ejecutando el callback en el hilo del test
+        lenient().when(this.transactionTemplate.execute(any())).thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(this.executor).execute(any(Runnable.class));
+        when(this.executor.getMaxPoolSize()).thenReturn(1);
+        RetryTemplate retryTemplate = RetryTemplate.builder().maxAttempts(2).noBackoff().retryOn(ConcurrencyFailureException.class).build();
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.checkoutQueue = new CheckoutQueue(this.checkoutRequestRepository, this.orderService, this.transactionTemplate, retryTemplate,
+            this.executor, this.meterRegistry, true, 16, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void poll_Success_PlacesSeveralOrdersInOneTransaction() {
+        List<CheckoutRequest> queued = List.of(queued(1L, 10L), queued(2L, 20L), queued(3L, 30L));
+        when(this.checkoutRequestRepository.findByStatusOrderByIdAsc(eq(CheckoutStatus.QUEUED), any())).thenReturn(queued, List.of());
+        when(this.checkoutRequestRepository.claim(anyLong(), any())).thenReturn(1);
+        when(this.checkoutRequestRepository.complete(anyLong(), any(), anyLong(), any())).thenReturn(1);
+        when(this.orderService.placeOrder(anyLong())).thenAnswer(invocation -> order(invocation.<Long>getArgument(0) * 100));
+
+        this.checkoutQueue.poll();
+
+        verify(this.checkoutRequestRepository).complete(eq(1L), any(), eq(1000L), any());
+        verify(this.checkoutRequestRepository).complete(eq(2L), any(), eq(2000L), any());
+        verify(this.checkoutRequestRepository).complete(eq(3L), any(), eq(3000L), any());
+        // un solo grupo con los tres pedidos
+        assertEquals(1, this.meterRegistry.get("orders.checkout.group.size").summary().count());
+        assertEquals(3.0, this.meterRegistry.get("orders.checkout.group.size").summary().totalAmount());
+    }
+
+    @Test
+    void poll_Failure_OneBadCartIsRetriedAloneAndDoesNotFailTheGroup() {
+        List<CheckoutRequest> queued = List.of(queued(1L, 10L), queued(2L, 20L), queued(3L, 30L));
+        when(this.checkoutRequestRepository.findByStatusOrderByIdAsc(eq(CheckoutStatus.QUEUED), any())).thenReturn(queued, List.of());
+        when(this.checkoutRequestRepository.claim(anyLong(), any())).thenReturn(1);
+        when(this.checkoutRequestRepository.complete(anyLong(), any(), anyLong(), any())).thenReturn(1);
+        when(this.checkoutRequestRepository.fail(anyLong(), any(), any(), any())).thenReturn(1);
+        when(this.orderService.placeOrder(anyLong())).thenAnswer(invocation -> {
+            Long userId = invocation.getArgument(0);
+            if (userId == 20L) {
+                throw new IllegalStateException("Cannot place order with empty cart for user id: 20");
+            }
+            return order(userId * 100);
+        });
+
+        this.checkoutQueue.poll();
+
+        // el grupo se deshizo y cada solicitud se repitió en su propia transacción
+        verify(this.checkoutRequestRepository).fail(eq(2L), any(), eq("Cannot place order with empty cart for user id: 20"), any());
+        verify(this.checkoutRequestRepository, times(2)).complete(eq(1L), any(), eq(1000L), any());
+        verify(this.checkoutRequestRepository, times(1)).complete(eq(3L), any(), eq(3000L), any());
+        verify(this.checkoutRequestRepository, never()).fail(eq(1L), any(), any(), any());
+        verify(this.checkoutRequestRepository, never()).fail(eq(3L), any(), any(), any());
+    }
+
+    @Test
+    void poll_Success_SecondCheckoutOfTheSameUserWaitsForTheNextGroup() {
+        CheckoutRequest first = queued(1L, 10L);
+        CheckoutRequest second = queued(2L, 10L);
+        when(this.checkoutRequestRepository.findByStatusOrderByIdAsc(eq(CheckoutStatus.QUEUED), any()))
+            .thenReturn(List.of(first, second), List.of(second), List.of());
+        when(this.checkoutRequestRepository.claim(anyLong(), any())).thenReturn(1);
+        when(this.checkoutRequestRepository.complete(anyLong(), any(), anyLong(), any())).thenReturn(1);
+        when(this.orderService.placeOrder(10L)).thenReturn(order(1000L), order(1001L));
+
+        this.checkoutQueue.poll();
+
+        verify(this.checkoutRequestRepository).complete(eq(1L), any(), eq(1000L), any());
+        verify(this.checkoutRequestRepository).complete(eq(2L), any(), eq(1001L), any());
+        assertEquals(2, this.meterRegistry.get("orders.checkout.group.size").summary().count(), "Cada pedido del mismo usuario va en un grupo distinto");
+    }
+
+    @Test
+    void poll_Failure_RequestRequeuedMidFlightRollsBackTheFirstWorker() {
+        when(this.checkoutRequestRepository.findByStatusOrderByIdAsc(eq(CheckoutStatus.QUEUED), any())).thenReturn(List.of(queued(1L, 10L)), List.of());
+        // la fila guarda el 'claimedAt' de la última toma; complete y fail solo la cambian con ese mismo token
+        AtomicReference<LocalDateTime> currentClaim = new AtomicReference<>();
+        when(this.checkoutRequestRepository.claim(eq(1L), any())).thenAnswer(invocation -> {
+            currentClaim.set(invocation.getArgument(1));
+            return 1;
+        });
+        when(this.checkoutRequestRepository.complete(eq(1L), any(), anyLong(), any()))
+            .thenAnswer(invocation -> invocation.getArgument(1).equals(currentClaim.get()) ? 1 : 0);
+        when(this.checkoutRequestRepository.fail(eq(1L), any(), any(), any()))
+            .thenAnswer(invocation -> invocation.getArgument(1).equals(currentClaim.get()) ? 1 : 0);
+        // mientras el primer worker arma el pedido se vence el plazo, poll() la vuelve a encolar y otro worker la toma
+        when(this.orderService.placeOrder(10L)).thenAnswer(invocation -> {
+            currentClaim.set(currentClaim.get().plusSeconds(1));
+            return order(1000L);
+        });
+        List<RuntimeException> rolledBack = new ArrayList<>();
+        doAnswer(invocation -> {
+            try {
+                return invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+            } catch (RuntimeException ex) {
+                rolledBack.add(ex);
+                throw ex;
+            }
+        }).when(this.transactionTemplate).execute(any());
+
+        this.checkoutQueue.poll();
+
+        // la transacción del pedido se deshizo y la solicitud queda en manos del segundo worker, sin marcarse como fallida
+        assertEquals(1, rolledBack.size());
+        assertInstanceOf(IllegalStateException.class, rolledBack.get(0));
+        verify(this.orderService, times(1)).placeOrder(10L);
+        verify(this.checkoutRequestRepository).fail(eq(1L), any(), any(), any());
+        assertEquals(0, this.meterRegistry.get("orders.checkout.group.size").summary().count(), "Ningún pedido se confirmó");
+    }
+
+    @Test
+    void poll_Success_DisabledWorkersLeaveTheQueueUntouched() {
+        CheckoutQueue disabled = new CheckoutQueue(this.checkoutRequestRepository, this.orderService, this.transactionTemplate,
+            new RetryTemplate(), this.executor, this.meterRegistry, false, 16, Duration.ofMinutes(5));
+
+        disabled.poll();
+
+        verify(this.checkoutRequestRepository, never()).findByStatusOrderByIdAsc(any(), any());
+        verify(this.orderService, never()).placeOrder(anyLong());
+    }
+
+    private static CheckoutRequest queued(Long id, Long userId) {
+        CheckoutRequest request = new CheckoutRequest(userId);
+        request.setId(id);
+        return request;
+    }
+
+    private static Order order(Long id) {
+        Order order = new Order();
+        order.setId(id);
+        return order;
+    }
+}
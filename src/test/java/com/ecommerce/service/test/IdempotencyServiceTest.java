@@ -0,0 +1,202 @@
+package com.ecommerce.service.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.dto.CartItemDTO;
+import com.ecommerce.model.IdempotencyRecord;
+import com.ecommerce.model.IdempotencyRecord.Operation;
+import com.ecommerce.repository.IdempotencyRecordRepository;
+import com.ecommerce.service.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private IdempotencyService idempotencyService;
+    private final AtomicInteger executions = new AtomicInteger();
+    private final CartItemDTO line = new CartItemDTO(3L, 10L, "Laptop", new BigDecimal("999.99"), 2);
+
+    @BeforeEach
+    void setUp() {
+        // la transacción se simula ejecutando el callback directamente
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(this.transactionTemplate).executeWithoutResult(any());
+        lenient().when(this.transactionTemplate.execute(any())).thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(this.idempotencyRecordRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+            IdempotencyRecord record = invocation.getArgument(0);
+            record.setId(1L);
+            return record;
+        });
+        this.idempotencyService = new IdempotencyService(this.idempotencyRecordRepository, this.transactionTemplate, new ObjectMapper(),
+            Duration.ofHours(24), Duration.ofMinutes(2), 1000, 100);
+    }
+
+    private ResponseEntity<CartItemDTO> addToCart(String key, String fingerprint) {
+        return this.idempotencyService.execute(7L, Operation.ADD_TO_CART, key, fingerprint, CartItemDTO.class, () -> {
+            this.executions.incrementAndGet();
+            return ResponseEntity.ok(this.line);
+        });
+    }
+
+    @Test
+    void execute_Success_RetryGetsTheStoredResponseWithoutRunningAgain() {
+        ResponseEntity<CartItemDTO> first = addToCart("key-1", "10:2");
+        ResponseEntity<CartItemDTO> retry = addToCart("key-1", "10:2");
+
+        assertEquals(1, this.executions.get(), "El reintento no debe volver a agregar el producto");
+        assertEquals(this.line, retry.getBody());
+        assertEquals(200, retry.getStatusCode().value());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        // la respuesta queda guardada para sobrevivir a un reinicio; el reintento se sirve desde memoria
+        verify(this.idempotencyRecordRepository).complete(eq(1L), any(), eq(200), anyString());
+        verify(this.idempotencyRecordRepository, never()).findByUserIdAndOperationAndIdempotencyKey(anyLong(), any(), anyString());
+    }
+
+    @Test
+    void execute_Success_ReplaysAreIndependentOfTheOriginalBody() {
+        ResponseEntity<CartItemDTO> first = this.idempotencyService.execute(7L, Operation.ADD_TO_CART, "key-1", "10:2", CartItemDTO.class,
+            () -> ResponseEntity.ok(new CartItemDTO(3L, 10L, "Laptop", new BigDecimal("999.99"), 2)));
+        // quien recibió la respuesta la modifica después (ej. un post-proceso del controlador)
+        first.getBody().setQuantity(99);
+
+        ResponseEntity<CartItemDTO> retry = addToCart("key-1", "10:2");
+        assertEquals(this.line, retry.getBody(), "El reintento conserva la respuesta original");
+        retry.getBody().setProductName("changed");
+        ResponseEntity<CartItemDTO> secondRetry = addToCart("key-1", "10:2");
+
+        assertEquals(this.line, secondRetry.getBody());
+        assertEquals(0, this.executions.get());
+    }
+
+    @Test
+    void execute_Success_ResponseStoredBeforeARestartIsReplayed() throws Exception {
+        IdempotencyRecord stored = new IdempotencyRecord(7L, Operation.ADD_TO_CART, "key-1", "10:2");
+        stored.setStatusCode(200);
+        stored.setResponseBody(new ObjectMapper().writeValueAsString(this.line));
+        doThrow(new DataIntegrityViolationException("uk_idempotency_records_user_operation_key")).when(this.idempotencyRecordRepository).saveAndFlush(any());
+        when(this.idempotencyRecordRepository.findByUserIdAndOperationAndIdempotencyKey(7L, Operation.ADD_TO_CART, "key-1")).thenReturn(Optional.of(stored));
+
+        ResponseEntity<CartItemDTO> retry = addToCart("key-1", "10:2");
+
+        assertEquals(0, this.executions.get());
+        assertEquals(this.line, retry.getBody());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+    }
+
+    @Test
+    void execute_Failure_FailedRequestReleasesTheKey() {
+        IllegalStateException failure = assertThrows(IllegalStateException.class,
+            () -> this.idempotencyService.execute(7L, Operation.CHECKOUT, "key-1", "", CartItemDTO.class, () -> {
+                throw new IllegalStateException("Cannot place order with empty cart for user id: 7");
+            }));
+
+        assertEquals("Cannot place order with empty cart for user id: 7", failure.getMessage());
+        verify(this.idempotencyRecordRepository).release(eq(1L), any());
+        verify(this.idempotencyRecordRepository, never()).complete(anyLong(), any(), anyInt(), any());
+    }
+
+    @Test
+    void execute_Failure_RequestStillInProgress() {
+        doThrow(new DataIntegrityViolationException("uk_idempotency_records_user_operation_key")).when(this.idempotencyRecordRepository).saveAndFlush(any());
+        when(this.idempotencyRecordRepository.findByUserIdAndOperationAndIdempotencyKey(7L, Operation.ADD_TO_CART, "key-1"))
+            .thenReturn(Optional.of(new IdempotencyRecord(7L, Operation.ADD_TO_CART, "key-1", "10:2")));
+
+        assertThrows(ConcurrencyFailureException.class, () -> addToCart("key-1", "10:2"));
+        assertEquals(0, this.executions.get());
+        verify(this.idempotencyRecordRepository, never()).reclaim(anyLong(), any(), any());
+    }
+
+    @Test
+    void execute_Success_AbandonedClaimIsReclaimedAndRuns() {
+        // la instancia que tomó la clave cayó antes de guardar la respuesta y nadie la liberó
+        IdempotencyRecord abandoned = new IdempotencyRecord(7L, Operation.ADD_TO_CART, "key-1", "10:2");
+        abandoned.setId(5L);
+        LocalDateTime claimedAt = LocalDateTime.now().minusMinutes(10);
+        abandoned.setCreatedAt(claimedAt);
+        doThrow(new DataIntegrityViolationException("uk_idempotency_records_user_operation_key")).when(this.idempotencyRecordRepository).saveAndFlush(any());
+        when(this.idempotencyRecordRepository.findByUserIdAndOperationAndIdempotencyKey(7L, Operation.ADD_TO_CART, "key-1")).thenReturn(Optional.of(abandoned));
+        when(this.idempotencyRecordRepository.reclaim(eq(5L), eq(claimedAt), any())).thenReturn(1);
+
+        ResponseEntity<CartItemDTO> retry = addToCart("key-1", "10:2");
+
+        assertEquals(1, this.executions.get(), "La operación abandonada se ejecuta una vez");
+        assertEquals(this.line, retry.getBody());
+        assertNull(retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        // la respuesta se guarda con el token nuevo, no con el de la toma abandonada
+        verify(this.idempotencyRecordRepository).complete(eq(5L), argThat(token -> token.isAfter(claimedAt)), eq(200), anyString());
+    }
+
+    @Test
+    void execute_Failure_AbandonedClaimReclaimedByAnotherRequestFirst() {
+        IdempotencyRecord abandoned = new IdempotencyRecord(7L, Operation.ADD_TO_CART, "key-1", "10:2");
+        abandoned.setId(5L);
+        abandoned.setCreatedAt(LocalDateTime.now().minusMinutes(10));
+        doThrow(new DataIntegrityViolationException("uk_idempotency_records_user_operation_key")).when(this.idempotencyRecordRepository).saveAndFlush(any());
+        when(this.idempotencyRecordRepository.findByUserIdAndOperationAndIdempotencyKey(7L, Operation.ADD_TO_CART, "key-1")).thenReturn(Optional.of(abandoned));
+        when(this.idempotencyRecordRepository.reclaim(eq(5L), any(), any())).thenReturn(0);
+
+        assertThrows(ConcurrencyFailureException.class, () -> addToCart("key-1", "10:2"));
+        assertEquals(0, this.executions.get());
+    }
+
+    @Test
+    void execute_Failure_KeyReusedWithDifferentParameters() {
+        addToCart("key-1", "10:2");
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> addToCart("key-1", "10:5"));
+
+        assertEquals(IdempotencyService.HEADER + " was already used for a request with different parameters", exception.getMessage());
+        assertEquals(1, this.executions.get());
+    }
+
+    @Test
+    void execute_Success_WithoutKeyEveryRequestRuns() {
+        addToCart(null, "10:2");
+        addToCart(null, "10:2");
+
+        assertEquals(2, this.executions.get());
+        verify(this.idempotencyRecordRepository, never()).saveAndFlush(any());
+    }
+}
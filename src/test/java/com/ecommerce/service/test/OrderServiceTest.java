@@ -6,8 +6,9 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -16,19 +17,31 @@ import static org.mockito.Mockito.when;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.dto.OrderStatusTransitionResultDTO;
+import com.ecommerce.dto.ProductQuantityDTO;
+import com.ecommerce.event.OrderPlacedEvent;
 import com.ecommerce.model.Cart;
 import com.ecommerce.model.CartItem;
 import com.ecommerce.model.Order;
 import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.OrderStatus;
 import com.ecommerce.model.Product;
 import com.ecommerce.model.User;
 import com.ecommerce.repository.OrderItemRepository;
@@ -36,7 +49,6 @@ import com.ecommerce.repository.OrderRepository;
 import com.ecommerce.service.CartService;
 import com.ecommerce.service.OrderService;
 import com.ecommerce.service.ProductService;
-import com.ecommerce.service.UserService;
 
 @ExtendWith(MockitoExtension.class)
 public class OrderServiceTest {
@@ -44,9 +56,6 @@ public class OrderServiceTest {
     @InjectMocks
     private OrderService orderService;
 
-    @Mock
-    private UserService userService;
-
     @Mock
     private CartService cartService;
 
@@ -59,6 +68,15 @@ public class OrderServiceTest {
     @Mock
     private ProductService productService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private RetryTemplate retryTemplate = RetryTemplate.builder().maxAttempts(3).noBackoff().retryOn(ConcurrencyFailureException.class).build();
+
     private User testUser;
     private Cart testCart;
 
@@ -70,6 +88,9 @@ public class OrderServiceTest {
         this.testCart = new Cart();
         testCart.setId(2L);
         testCart.setUser(testUser);
+
+        // la transacción se simula ejecutando el callback directamente
+        lenient().when(this.transactionTemplate.execute(any())).thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
     }
 
     @Test
@@ -89,8 +110,7 @@ public class OrderServiceTest {
         items.add(cartItem2);
         this.testCart.setCartItems(items);
 
-        when(this.userService.getUserById(this.testUser.getId())).thenReturn(Optional.of(this.testUser));
-        when(this.cartService.getCartByUserId(this.testUser.getId())).thenReturn(Optional.of(this.testCart));
+        when(this.cartService.getCartWithItemsByUserId(this.testUser.getId())).thenReturn(Optional.of(this.testCart));
         // mockeamos el guardado de la orden
         when(this.orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
             Order savedOrder = invocation.getArgument(0);
@@ -98,32 +118,32 @@ public class OrderServiceTest {
             return savedOrder;
         });
 
-        // mockeamos el guardado del item, de los productos y la limpieza
-        when(this.orderItemRepository.save(any(OrderItem.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(this.productService.saveProduct(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        // mockeamos la limpieza del carrito
         doNothing().when(this.cartService).clearCartItems(this.testCart.getId());
 
         Order resultOrder = this.orderService.placeOrder(this.testUser.getId());
 
         assertNotNull(resultOrder.getId(), "La ordern debe tener un ID asignado.");
         assertEquals(2, resultOrder.getOrderItems().size(), "La orden debe tener 2 ítems.");
+        // el total y la cantidad de líneas quedan guardados en la cabecera
+        assertEquals(0, new BigDecimal(1300).compareTo(resultOrder.getTotalAmount()), "El total debe ser 300 x 1 + 200 x 5.");
+        assertEquals(2, resultOrder.getItemCount());
+        assertEquals(OrderStatus.PENDING, resultOrder.getStatus());
 
-        // guardado inicial de la orden (antes de entrar al bucle)
+        // un único guardado de la orden: los ítems se persisten en cascada
         verify(this.orderRepository, times(1)).save(any(Order.class));
+        verify(this.orderItemRepository, never()).save(any(OrderItem.class));
+        assertTrue(resultOrder.getOrderItems().stream().allMatch(item -> item.getOrder() == resultOrder));
 
-        // guardado de los 2 ítems de la orden (dentro del bucle)
-        verify(this.orderItemRepository, times(2)).save(any(OrderItem.class));
-
-        // actualización de stock de los 2 productos
-        verify(this.productService, times(1)).saveProduct(argThat(
-            p -> p.getId().equals(300L) && p.getStock() == (20 - 1)
-        ));
-        verify(this.productService, times(1)).saveProduct(argThat(
-            p -> p.getId().equals(301L) && p.getStock() == (10 - 5)
-        ));
+        // descuento atómico del stock de los 2 productos en una sola llamada
+        verify(this.productService, times(1)).decrementStock(Map.of(300L, 1, 301L, 5));
+        verify(this.productService, never()).saveProduct(any(Product.class));
 
         // limpieza del carrito
         verify(this.cartService, times(1)).clearCartItems(this.testCart.getId());
+
+        // el evento del pedido se publica dentro de la misma transacción
+        verify(this.eventPublisher, times(1)).publishEvent(new OrderPlacedEvent(300L, this.testUser.getId()));
     }
 
     @Test
@@ -145,28 +165,76 @@ public class OrderServiceTest {
         items.add(cartItem1);
         this.testCart.setCartItems(items);
 
-        when(this.userService.getUserById(this.testUser.getId())).thenReturn(Optional.of(this.testUser));
-        
-        when(this.cartService.getCartByUserId(this.testUser.getId())).thenReturn(Optional.of(this.testCart));
-
-        when(this.orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
-            Order savedOrder = invocation.getArgument(0);
-            savedOrder.setId(200L);
-            return savedOrder;
-        });
+        when(this.cartService.getCartWithItemsByUserId(this.testUser.getId())).thenReturn(Optional.of(this.testCart));
+        // el UPDATE condicional no afecta filas: la base de datos rechaza la reserva
+        doThrow(new IllegalStateException("Insufficient stock for product id: 5"))
+            .when(this.productService).decrementStock(Map.of(5L, 3));
 
         IllegalStateException exception = assertThrows(IllegalStateException.class, () -> this.orderService.placeOrder(this.testUser.getId()));
 
         assertTrue(exception.getMessage().contains("Insufficient stock"));
 
         // controlar que el rollback se haya realizado
-        verify(this.orderRepository, times(1)).save(any(Order.class)); // se llama solo una vez, aunque por la anotación @Transactional se revierte
+        verify(this.orderRepository, never()).save(any(Order.class));
 
         verify(this.orderItemRepository, never()).save(any());
 
         verify(this.productService, never()).saveProduct(any());
 
         verify(this.cartService, never()).clearCartItems(anyLong());
+
+        verify(this.eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    // los pedidos que no admiten el cambio se informan y el resto cambia con un único update
+    void transitionOrders_Success_RejectsOrdersInOtherStates() {
+        when(this.orderRepository.findIdsByIdInAndStatusIn(List.of(1L, 2L, 3L), Set.of(OrderStatus.PAID))).thenReturn(List.of(1L, 3L));
+        when(this.orderRepository.updateStatus(List.of(1L, 3L), Set.of(OrderStatus.PAID), OrderStatus.SHIPPED)).thenReturn(2);
+
+        OrderStatusTransitionResultDTO result = this.orderService.transitionOrders(List.of(1L, 2L, 3L, 2L), OrderStatus.SHIPPED);
+
+        assertEquals(new OrderStatusTransitionResultDTO(OrderStatus.SHIPPED, 3, 2, List.of(2L)), result);
+        verify(this.productService, never()).restoreStock(any());
+    }
+
+    @Test
+    // al cancelar, las unidades de todos los pedidos vuelven al stock en una sola llamada
+    void transitionOrders_Success_CancelRestoresStockInOneBatch() {
+        Set<OrderStatus> sources = Set.of(OrderStatus.PENDING, OrderStatus.PAID);
+        when(this.orderRepository.findIdsByIdInAndStatusIn(List.of(1L, 2L), sources)).thenReturn(List.of(1L, 2L));
+        when(this.orderRepository.updateStatus(List.of(1L, 2L), sources, OrderStatus.CANCELLED)).thenReturn(2);
+        when(this.orderItemRepository.sumQuantitiesByProductForOrders(List.of(1L, 2L)))
+            .thenReturn(List.of(new ProductQuantityDTO(300L, 3L), new ProductQuantityDTO(301L, 1L)));
+
+        OrderStatusTransitionResultDTO result = this.orderService.transitionOrders(List.of(1L, 2L), OrderStatus.CANCELLED);
+
+        assertEquals(2, result.transitioned());
+        verify(this.productService, times(1)).restoreStock(Map.of(300L, 3, 301L, 1));
+    }
+
+    @Test
+    // otro cambio concurrente deja el update corto: se repite la transacción con el estado actualizado
+    void transitionOrders_Success_ConcurrentChangeIsRetried() {
+        Set<OrderStatus> sources = Set.of(OrderStatus.PENDING, OrderStatus.PAID);
+        when(this.orderRepository.findIdsByIdInAndStatusIn(List.of(1L, 2L), sources)).thenReturn(List.of(1L, 2L), List.of(1L));
+        when(this.orderRepository.updateStatus(List.of(1L, 2L), sources, OrderStatus.CANCELLED)).thenReturn(1);
+        when(this.orderRepository.updateStatus(List.of(1L), sources, OrderStatus.CANCELLED)).thenReturn(1);
+        when(this.orderItemRepository.sumQuantitiesByProductForOrders(List.of(1L))).thenReturn(List.of(new ProductQuantityDTO(300L, 3L)));
+
+        OrderStatusTransitionResultDTO result = this.orderService.transitionOrders(List.of(1L, 2L), OrderStatus.CANCELLED);
+
+        assertEquals(new OrderStatusTransitionResultDTO(OrderStatus.CANCELLED, 2, 1, List.of(2L)), result);
+        // el stock solo se devuelve una vez, en el intento que se confirma
+        verify(this.productService, times(1)).restoreStock(any());
+        verify(this.productService).restoreStock(Map.of(300L, 3));
     }
 
+    @Test
+    void transitionOrders_Failure_OrdersCannotGoBackToPending() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> this.orderService.transitionOrders(List.of(1L), OrderStatus.PENDING));
+
+        assertTrue(exception.getMessage().contains("cannot be moved to PENDING"));
+        verify(this.orderRepository, never()).updateStatus(any(), any(), any());
+    }
 }
@@ -1,5 +1,6 @@
 package com.ecommerce.service.test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -10,25 +11,31 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import com.ecommerce.dto.ProductInputDTO;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductChangedEvent.ChangeType;
+import com.ecommerce.inventory.StockReservation;
 import com.ecommerce.mapper.ProductMapper;
 import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductFilter;
 import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.ProductSort;
 import com.ecommerce.service.ProductService;
 
 @ExtendWith(MockitoExtension.class)
 public class ProductServiceTest {
 
-    @InjectMocks
     private ProductService productService;
 
     @Mock
@@ -37,6 +44,17 @@ public class ProductServiceTest {
     @Mock
     private ProductMapper productMapper;
 
+    @Mock
+    private StockReservation stockReservation;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    void setUp() {
+        this.productService = new ProductService(this.productRepository, this.productMapper, this.stockReservation, this.eventPublisher, Duration.ofHours(1));
+    }
+
     @Test
     void deleteProduct_Failure_ProductIdNotFound() {
 
@@ -145,4 +163,40 @@ public class ProductServiceTest {
         assertTrue(result.getPrice().equals(productInputDTO.getPrice()));
         assertTrue(result.getStock().equals(productInputDTO.getStock()));
     }
+
+    @Test
+    void getProducts_Success_ParsesSortAndCapsSize() {
+
+        this.productService.getProducts(new BigDecimal("10"), null, true, "Newest", 5000);
+
+        verify(this.productRepository, times(1)).findListing(new ProductFilter(new BigDecimal("10"), null, true, ProductSort.NEWEST, ProductService.MAX_PAGE_SIZE));
+    }
+
+    @Test
+    void getProducts_Failure_InvalidSortOrPriceRange() {
+
+        IllegalArgumentException unknownSort = assertThrows(IllegalArgumentException.class, () -> this.productService.getProducts(null, null, false, "rating", null));
+
+        assertTrue(unknownSort.getMessage().contains("Unknown sort"));
+
+        assertThrows(IllegalArgumentException.class, () -> this.productService.getProducts(new BigDecimal("50"), new BigDecimal("10"), false, null, null));
+
+        verify(this.productRepository, never()).findListing(any(ProductFilter.class));
+    }
+
+    @Test
+    void getCatalogVersion_Success_ReadFromDatabaseAndReusedUntilALocalChange() {
+
+        when(this.productRepository.findCatalogVersion()).thenReturn("3-7-60", "4-7-101");
+
+        assertEquals("3-7-60", this.productService.getCatalogVersion());
+        assertEquals("3-7-60", this.productService.getCatalogVersion());
+        verify(this.productRepository, times(1)).findCatalogVersion();
+
+        // un cambio confirmado en esta instancia obliga a leer otra vez aunque no haya vencido el intervalo
+        this.productService.evictCachedProduct(new ProductChangedEvent(40L, ChangeType.CREATED));
+
+        assertEquals("4-7-101", this.productService.getCatalogVersion());
+        verify(this.productRepository, times(2)).findCatalogVersion();
+    }
 }